@@ -3,31 +3,58 @@
 def _package_dependencies_impl(target, ctx):
     file_name = target.label.name + ".target-info.txt"
     artifact_info_file = ctx.actions.declare_file(file_name)
-    ctx.actions.write(
+
+    write_target_info_file(
+        ctx,
         artifact_info_file,
-        _encode_target_info_proto(target),
+        str(target.label),
+        target[DependenciesInfo].target_to_artifacts,
     )
 
     return [OutputGroupInfo(
-        ij_query_sync = target[DependenciesInfo].compile_time_jars.to_list(),
+        ij_query_sync = target[DependenciesInfo].compile_time_jars,
         artifact_info_file = [artifact_info_file],
     )]
 
+def write_target_info_file(ctx, output, target, target_to_artifacts):
+    """Writes the target info file read by DependencyBuilder.
+
+    The target info is expanded lazily when the file is written, so the dependency graph is only
+    ever flattened once, here at the top level.
+
+    Args:
+      ctx: the rule or aspect context.
+      output: the file to write.
+      target: the top-level target label string, written on the first line.
+      target_to_artifacts: a depset of structs mapping a dependency target label to a depset of
+        its artifacts, written one per line.
+    """
+    args = ctx.actions.args()
+
+    # write each argument verbatim on its own line: the default shell format would quote them
+    args.set_param_file_format("multiline")
+    args.add(target)
+    args.add_all(target_to_artifacts, map_each = _encode_target_to_artifacts)
+    ctx.actions.write(output, args)
+
 DependenciesInfo = provider(
     "The out-of-project dependencies",
     fields = {
-        "compile_time_jars": "a list of jars generated by targets",
-        "target_to_artifacts": "a map between the target to its deps to its artifacts",
+        "compile_time_jars": "a depset of jars generated by targets",
+        "target_to_artifacts": "a depset of structs mapping a dependency target label to a depset of its artifacts",
     },
 )
 
-def _encode_target_info_proto(target):
-    contents = []
-    for label, artifacts_paths in target[DependenciesInfo].target_to_artifacts.items():
-        contents.append(
-            struct(target = label, artifact_paths = artifacts_paths),
-        )
-    return proto.encode_text(struct(target = str(target.label), deps = contents))
+def _encode_target_to_artifacts(entry):
+    """Encodes a target_to_artifacts entry as a line of the target info file.
+
+    Args:
+      entry: a struct with a `target` label string and a `jars` depset.
+
+    Returns:
+      the target label followed by the output-relative artifact paths, tab separated.
+    """
+    return "\t".join([entry.target] + [_output_relative_path(f.path) for f in entry.jars.to_list()])
 
 package_dependencies = aspect(
     implementation = _package_dependencies_impl,
@@ -68,25 +95,19 @@ def _collect_dependencies_impl(target, ctx):
     info_deps = [dep[DependenciesInfo] for dep in deps if DependenciesInfo in dep]
 
     trs = []
-    target_to_artifacts = {}
+    own_artifacts = []
     if not included:
         if info_deps:
             trs = [target[JavaInfo].compile_jars]
-            target_to_artifacts = {
-                label: [_output_relative_path(f.path) for f in target[JavaInfo].compile_jars.to_list()],
-            }
         else:
             # For JavaInfo libraries which we don't follow any dependencies
             # we attribute all the transitive jars to them. This includes
             # all the proto variants.
             trs = [target[JavaInfo].transitive_compile_time_jars]
-            target_to_artifacts = {
-                label: [_output_relative_path(f.path) for f in target[JavaInfo].transitive_compile_time_jars.to_list()],
-            }
+        own_artifacts = [struct(target = label, jars = trs[0])]
 
     for info in info_deps:
         trs.append(info.compile_time_jars)
-        target_to_artifacts.update(info.target_to_artifacts)
 
     if included and ctx.attr.generate_aidl_classes and generates_idl_jar(target):
         idl_jar = target[AndroidIdeInfo].idl_class_jar
@@ -96,7 +117,10 @@ def _collect_dependencies_impl(target, ctx):
     return [
         DependenciesInfo(
             compile_time_jars = cj,
-            target_to_artifacts = target_to_artifacts,
+            target_to_artifacts = depset(
+                own_artifacts,
+                transitive = [info.target_to_artifacts for info in info_deps],
+            ),
         ),
     ]
 
@@ -2,7 +2,9 @@
 
 load(
     ":intellij_info_impl.bzl",
+    "intellij_info_aggregate_aspect_impl",
     "intellij_info_aspect_impl",
+    "make_intellij_info_aggregate_aspect",
     "make_intellij_info_aspect",
 )
 
@@ -57,3 +59,8 @@ def _aspect_impl(target, ctx):
     return intellij_info_aspect_impl(target, ctx, semantics)
 
 intellij_info_aspect = make_intellij_info_aspect(_aspect_impl, semantics)
+
+def _aggregate_aspect_impl(target, ctx):
+    return intellij_info_aggregate_aspect_impl(target, ctx, semantics)
+
+intellij_info_aggregate_aspect = make_intellij_info_aggregate_aspect(_aggregate_aspect_impl, semantics)
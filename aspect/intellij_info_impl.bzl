@@ -215,7 +215,7 @@ def list_omit_none(value):
 
 def is_valid_aspect_target(target):
     """Returns whether the target has had the aspect run on it."""
-    return hasattr(target, "intellij_info")
+    return getattr(target, "intellij_info", None) != None
 
 def get_aspect_ids(ctx, target):
     """Returns the all aspect ids, filtering out self."""
@@ -295,6 +295,86 @@ def update_set_in_dict(input_dict, key, other_set):
     """Updates depset in dict, merging it with another depset."""
     input_dict[key] = depset(transitive = [input_dict.get(key, depset()), other_set])
 
+# Output group containing one aggregate file per top-level target, which concatenates the
+# intellij-info.txt files of the target and of its transitive deps in the same package. It is only
+# created by the separate intellij_info_aggregate_aspect, so it's only built when that aspect is
+# requested, and only for top-level targets.
+AGGREGATE_OUTPUT_GROUP = "intellij-info-aggregate"
+
+# Header line preceding each intellij-info.txt entry in an aggregate file. The IDE splits the
+# aggregate file on these lines; text format protos never start a line with '#'.
+AGGREGATE_ENTRY_HEADER = "# intellij-info-file: "
+
+def _is_same_package(dep, target):
+    return (dep.label.workspace_name == target.label.workspace_name and
+            dep.label.package == target.label.package)
+
+def intellij_info_aggregate_aspect_impl(target, ctx, semantics):
+    """Concatenates the intellij-info.txt files of a target's package closure into a single file.
+
+    The aggregate file covers the target and its transitive deps within the same package. Deps in
+    other packages are covered by the aggregate files of their own packages' targets, so for a
+    wildcard build the aggregate files of all top-level targets overlap only within a package,
+    rather than each repeating its target's whole transitive closure.
+
+    This aspect must be applied after the intellij_info aspect, whose provider it requires.
+
+    Args:
+      target: the target.
+      ctx: the aspect context.
+      semantics: the aspect semantics, defining which attributes hold deps.
+
+    Returns:
+      The package closure of the target, for its dependents in the same package, and the
+      aggregate output group, containing the aggregate file.
+    """
+    if not is_valid_aspect_target(target):
+        return struct()
+    package_deps = [
+        dep
+        for dep in collect_targets_from_attrs(ctx.rule.attr, _get_attr_aspects(semantics))
+        if _is_same_package(dep, target) and hasattr(dep, "intellij_info_aggregate")
+    ]
+    info_files = depset(
+        [target.intellij_info.ide_info_file],
+        transitive = [dep.intellij_info_aggregate.info_files for dep in package_deps],
+    )
+
+    # bazel allows target names differing only by case, so append a hash to support
+    # case-insensitive file systems
+    file_name = target.label.name + "-" + str(hash(target.label.name))
+    output = ctx.actions.declare_file(file_name + ".intellij-info-aggregate.txt")
+
+    args = ctx.actions.args()
+    args.add_all(info_files)
+    args.use_param_file("@%s", use_always = True)
+    args.set_param_file_format("multiline")
+
+    # only executed for top-level targets, since the output group isn't rolled up to dependents
+    ctx.actions.run_shell(
+        inputs = info_files,
+        outputs = [output],
+        arguments = [output.path, args],
+        command = "out=\"$1\"; params=\"${2#@}\"; " +
+                  "while IFS= read -r f; do printf '%s%s\\n' \"" + AGGREGATE_ENTRY_HEADER + "\" \"$f\"; " +
+                  "cat \"$f\"; echo; done < \"$params\" > \"$out\"",
+        mnemonic = "IntellijInfoAggregate",
+        progress_message = "Aggregating IDE info for " + str(ctx.label),
+    )
+    return struct(
+        intellij_info_aggregate = struct(info_files = info_files),
+        output_groups = {AGGREGATE_OUTPUT_GROUP: depset([output])},
+    )
+
+def make_intellij_info_aggregate_aspect(aspect_impl, semantics):
+    """Creates the aspect building the aggregate intellij-info files, given the semantics."""
+    return aspect(
+        attr_aspects = _get_attr_aspects(semantics),
+        # only sees the provider of an earlier aspect if that aspect advertises it
+        required_aspect_providers = [["intellij_info"]],
+        implementation = aspect_impl,
+    )
+
 def _get_output_mnemonic(ctx):
     """Gives the output directory mnemonic for some target context."""
     return ctx.configuration.bin_dir.path.split("/")[1]
@@ -1012,12 +1092,14 @@ def _is_analysis_test(target):
 def intellij_info_aspect_impl(target, ctx, semantics):
     """Aspect implementation function."""
 
+    # The aspect advertises the intellij_info provider, so skipped targets return it as None.
+    # See is_valid_aspect_target.
     tags = ctx.rule.attr.tags
     if "no-ide" in tags:
-        return struct()
+        return struct(intellij_info = None)
 
     if _is_analysis_test(target):
-        return struct()
+        return struct(intellij_info = None)
 
     rule_attrs = ctx.rule.attr
 
@@ -1151,6 +1233,7 @@ def intellij_info_aspect_impl(target, ctx, semantics):
     return struct_omit_none(
         intellij_info = struct(
             export_deps = export_deps,
+            ide_info_file = ide_info_file,
             kind = ctx.rule.kind,
             output_groups = output_groups,
             target_key = target_key,
@@ -1164,15 +1247,17 @@ def semantics_extra_deps(base, semantics, name):
     extra_deps = getattr(semantics, name)
     return base + extra_deps
 
+def _get_attr_aspects(semantics):
+    """Returns the attributes along which the aspects propagate."""
+    deps = semantics_extra_deps(DEPS, semantics, "extra_deps")
+    prerequisite_deps = semantics_extra_deps(PREREQUISITE_DEPS, semantics, "extra_prerequisites")
+    return deps + RUNTIME_DEPS + prerequisite_deps
+
 def make_intellij_info_aspect(aspect_impl, semantics):
     """Creates the aspect given the semantics."""
     tool_label = semantics.tool_label
     flag_hack_label = semantics.flag_hack_label
-    deps = semantics_extra_deps(DEPS, semantics, "extra_deps")
-    runtime_deps = RUNTIME_DEPS
-    prerequisite_deps = semantics_extra_deps(PREREQUISITE_DEPS, semantics, "extra_prerequisites")
-
-    attr_aspects = deps + runtime_deps + prerequisite_deps
+    attr_aspects = _get_attr_aspects(semantics)
 
     attrs = {
         "_package_parser": attr.label(
@@ -1215,5 +1300,6 @@ def make_intellij_info_aspect(aspect_impl, semantics):
         attrs = attrs,
         fragments = ["cpp"],
         required_aspect_providers = [[JavaInfo], [CcInfo], ["dart"], ["aspect_proto_go_api_info"]],
+        provides = ["intellij_info"],
         implementation = aspect_impl,
     )
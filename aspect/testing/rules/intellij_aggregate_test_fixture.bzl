@@ -0,0 +1,31 @@
+"""A rule exposing the aggregate intellij-info files of its deps, for testing the aspect."""
+
+load(
+    "//aspect:intellij_info.bzl",
+    "intellij_info_aggregate_aspect",
+    "intellij_info_aspect",
+)
+load(
+    "//aspect:intellij_info_impl.bzl",
+    "AGGREGATE_OUTPUT_GROUP",
+)
+
+def _impl(ctx):
+    files = depset(transitive = [
+        getattr(dep[OutputGroupInfo], AGGREGATE_OUTPUT_GROUP)
+        for dep in ctx.attr.deps
+        if OutputGroupInfo in dep and hasattr(dep[OutputGroupInfo], AGGREGATE_OUTPUT_GROUP)
+    ])
+    return [DefaultInfo(
+        files = files,
+        runfiles = ctx.runfiles(transitive_files = files),
+    )]
+
+intellij_aggregate_test_fixture = rule(
+    implementation = _impl,
+    attrs = {
+        # the aggregate aspect must be applied after the aspect whose provider it requires
+        "deps": attr.label_list(aspects = [intellij_info_aspect, intellij_info_aggregate_aspect]),
+        "undo_unambiguous_label_stringification": attr.string(default = "True", values = ["True", "False"]),
+    },
+)
@@ -6,6 +6,7 @@ load(
 )
 load(
     "//aspect:intellij_info_impl.bzl",
+    "is_valid_aspect_target",
     "update_set_in_dict",
 )
 
@@ -13,7 +14,7 @@ def _impl(ctx):
     """Implementation method for _intellij_aspect_test_fixture."""
     output_groups = dict()
     inputs = depset()
-    deps = [dep for dep in ctx.attr.deps if hasattr(dep, "intellij_info")]
+    deps = [dep for dep in ctx.attr.deps if is_valid_aspect_target(dep)]
     for dep in deps:
         for k, v in dep.intellij_info.output_groups.items():
             update_set_in_dict(output_groups, k, v)
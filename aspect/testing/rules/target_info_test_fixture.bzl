@@ -0,0 +1,23 @@
+"""A rule writing a target info file, as written by the package_dependencies aspect."""
+
+load("//aspect:build_dependencies.bzl", "write_target_info_file")
+
+def _impl(ctx):
+    jars = []
+    for name in ["lib.jar", "lib-src.jar"]:
+        jar = ctx.actions.declare_file(ctx.label.name + "/" + name)
+        ctx.actions.write(jar, "")
+        jars.append(jar)
+
+    # labels may contain characters which need quoting in a shell
+    target_to_artifacts = depset([
+        struct(target = "//third_party/foo:foo$bar'baz", jars = depset(jars)),
+        struct(target = "//java/com/app:no_artifacts", jars = depset()),
+    ])
+    output = ctx.actions.declare_file(ctx.label.name + ".target-info.txt")
+    write_target_info_file(ctx, output, "//java/com/app:app", target_to_artifacts)
+    return [DefaultInfo(files = depset([output]))]
+
+target_info_test_fixture = rule(
+    implementation = _impl,
+)
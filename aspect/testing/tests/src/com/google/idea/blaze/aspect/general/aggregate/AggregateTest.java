@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.aspect.general.aggregate;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.devtools.intellij.ideinfo.IntellijIdeInfo.TargetIdeInfo;
+import com.google.protobuf.TextFormat;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests the aggregate intellij-info file built by intellij_info_aggregate_aspect. */
+@RunWith(JUnit4.class)
+public class AggregateTest {
+  private static final String HEADER = "# intellij-info-file: ";
+  private static final String PACKAGE =
+      "//aspect/testing/tests/src/com/google/idea/blaze/aspect/general/aggregate";
+
+  @Test
+  public void testAggregateContainsPackageClosure() throws Exception {
+    List<String> headers = new ArrayList<>();
+    List<String> labels = new ArrayList<>();
+    StringBuilder entry = null;
+    for (String line :
+        Files.readAllLines(Paths.get(System.getProperty("aggregate_fixture")), UTF_8)) {
+      if (line.startsWith(HEADER)) {
+        if (entry != null) {
+          labels.add(parse(entry).getKey().getLabel());
+        }
+        headers.add(line.substring(HEADER.length()));
+        entry = new StringBuilder();
+      } else if (entry != null) {
+        entry.append(line).append('\n');
+      }
+    }
+    if (entry != null) {
+      labels.add(parse(entry).getKey().getLabel());
+    }
+
+    assertThat(labels).containsExactly(PACKAGE + ":foo", PACKAGE + ":bar", PACKAGE + ":baz");
+    assertThat(headers).hasSize(3);
+    headers.forEach(h -> assertThat(h).endsWith(".intellij-info.txt"));
+  }
+
+  private static TargetIdeInfo parse(StringBuilder entry) throws Exception {
+    TargetIdeInfo.Builder builder = TargetIdeInfo.newBuilder();
+    TextFormat.getParser().merge(entry.toString(), builder);
+    return builder.build();
+  }
+}
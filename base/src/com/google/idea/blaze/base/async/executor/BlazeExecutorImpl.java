@@ -18,6 +18,7 @@ package com.google.idea.blaze.base.async.executor;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.idea.blaze.base.metrics.MetricsRegistry;
 import com.intellij.util.concurrency.AppExecutorUtil;
 import java.util.concurrent.Callable;
 
@@ -26,7 +27,10 @@ public class BlazeExecutorImpl extends BlazeExecutor {
 
   private final ListeningExecutorService executorService =
       MoreExecutors.listeningDecorator(
-          AppExecutorUtil.createBoundedApplicationPoolExecutor("BlazeExecutor", 16));
+          MetricsRegistry.getInstance()
+              .instrument(
+                  "blaze_executor",
+                  AppExecutorUtil.createBoundedApplicationPoolExecutor("BlazeExecutor", 16)));
 
   @Override
   public <T> ListenableFuture<T> submit(Callable<T> callable) {
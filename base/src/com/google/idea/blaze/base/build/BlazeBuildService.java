@@ -44,6 +44,7 @@ import com.google.idea.blaze.base.scope.scopes.NotificationScope;
 import com.google.idea.blaze.base.scope.scopes.ProblemsViewScope;
 import com.google.idea.blaze.base.scope.scopes.TimingScope;
 import com.google.idea.blaze.base.scope.scopes.TimingScope.EventType;
+import com.google.idea.blaze.base.scope.scopes.TimingTraceScope;
 import com.google.idea.blaze.base.scope.scopes.ToolWindowScope;
 import com.google.idea.blaze.base.settings.Blaze;
 import com.google.idea.blaze.base.settings.BlazeUserSettings;
@@ -193,7 +194,12 @@ public class BlazeBuildService {
                                         WorkspaceRoot.fromProject(project),
                                         BlazeInvocationContext.ContextType.Sync))
                                 .build())
-                        .push(new ExperimentScope())
+                        .push(new ExperimentScope());
+                    TimingTraceScope traceScope = TimingTraceScope.createIfEnabled("build");
+                    if (traceScope != null) {
+                      context.push(traceScope);
+                    }
+                    context
                         .push(new ProblemsViewScope(project, problemsViewFocus))
                         .push(new IdeaLogScope())
                         .push(new TimingScope("Make", EventType.BlazeInvocation))
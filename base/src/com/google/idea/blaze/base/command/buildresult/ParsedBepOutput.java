@@ -34,6 +34,9 @@ import com.google.devtools.build.lib.buildeventstream.BuildEventStreamProtos.Bui
 import com.google.devtools.build.lib.buildeventstream.BuildEventStreamProtos.NamedSetOfFiles;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.idea.blaze.base.command.buildresult.BuildEventStreamProvider.BuildEventStreamException;
+import com.google.idea.blaze.base.metrics.Counter;
+import com.google.idea.blaze.base.metrics.LatencyHistogram;
+import com.google.idea.blaze.base.metrics.MetricsRegistry;
 import com.google.idea.blaze.base.model.primitives.Label;
 import com.google.idea.blaze.base.sync.aspects.BuildResult;
 import java.io.InputStream;
@@ -53,6 +56,11 @@ import javax.annotation.Nullable;
 /** A data class representing blaze's build event protocol (BEP) output for a build. */
 public final class ParsedBepOutput {
 
+  private static final LatencyHistogram parseTime =
+      MetricsRegistry.getInstance().histogram("bep.parse_time");
+  private static final Counter eventsParsed = MetricsRegistry.getInstance().counter("bep.events");
+  private static final Counter bytesParsed = MetricsRegistry.getInstance().counter("bep.bytes");
+
   /** Parses BEP events into {@link ParsedBepOutput} */
   public static ParsedBepOutput parseBepArtifacts(InputStream bepStream)
       throws BuildEventStreamException {
@@ -80,6 +88,8 @@ public final class ParsedBepOutput {
       interner = Interners.newStrongInterner();
     }
 
+    long start = System.nanoTime();
+    int eventCount = 0;
     BuildEventStreamProtos.BuildEvent event;
     Map<String, String> configIdToMnemonic = new HashMap<>();
     Set<String> topLevelFileSets = new HashSet<>();
@@ -93,6 +103,7 @@ public final class ParsedBepOutput {
 
     while ((event = stream.getNext()) != null) {
       emptyBuildEventStream = false;
+      eventCount++;
       switch (event.getId().getIdCase()) {
         case WORKSPACE:
           localExecRoot = event.getWorkspaceInfo().getLocalExecRoot();
@@ -151,6 +162,9 @@ public final class ParsedBepOutput {
     ImmutableMap<String, FileSet> filesMap =
         fillInTransitiveFileSetData(
             fileSets, topLevelFileSets, configIdToMnemonic, startTimeMillis);
+    parseTime.recordSince(start);
+    eventsParsed.add(eventCount);
+    bytesParsed.add(stream.getBytesConsumed());
     return new ParsedBepOutput(
         buildId,
         localExecRoot,
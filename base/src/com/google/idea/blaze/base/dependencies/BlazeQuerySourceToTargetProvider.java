@@ -18,10 +18,17 @@ package com.google.idea.blaze.base.dependencies;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.util.concurrent.Futures;
+import com.google.devtools.build.lib.query2.proto.proto2api.Build.QueryResult;
+import com.google.devtools.build.lib.query2.proto.proto2api.Build.Rule;
+import com.google.devtools.build.lib.query2.proto.proto2api.Build.Target;
 import com.google.idea.blaze.base.async.process.ExternalTask;
 import com.google.idea.blaze.base.async.process.LineProcessingOutputStream;
 import com.google.idea.blaze.base.bazel.BuildSystem.BuildInvoker;
@@ -34,23 +41,25 @@ import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
 import com.google.idea.blaze.base.query.BlazeQueryLabelKindParser;
 import com.google.idea.blaze.base.query.BlazeQueryOutputBaseProvider;
 import com.google.idea.blaze.base.scope.BlazeContext;
-import com.google.idea.blaze.base.scope.Scope;
-import com.google.idea.blaze.base.scope.scopes.IdeaLogScope;
 import com.google.idea.blaze.base.settings.Blaze;
 import com.google.idea.blaze.base.sync.workspace.WorkspaceHelper;
 import com.google.idea.blaze.base.sync.workspace.WorkspacePathResolver;
 import com.google.idea.blaze.base.sync.workspace.WorkspacePathResolverProvider;
 import com.google.idea.blaze.common.PrintOutput;
 import com.google.idea.common.experiments.BoolExperiment;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Future;
 import javax.annotation.Nullable;
-import org.jetbrains.ide.PooledThreadExecutor;
 
 /**
  * Given a source file, runs a blaze query invocation to find the direct rdeps of that file.
@@ -58,6 +67,7 @@ import org.jetbrains.ide.PooledThreadExecutor;
  * <p>This is expected to be slow, so should be asynchronous and/or cancellable.
  */
 public class BlazeQuerySourceToTargetProvider implements SourceToTargetProvider {
+  private static final Logger logger = Logger.getInstance(BlazeQuerySourceToTargetProvider.class);
 
   /**
    * Currently disabled for performance reasons. SourceToTargetProvider is called often, in the
@@ -92,25 +102,12 @@ public class BlazeQuerySourceToTargetProvider implements SourceToTargetProvider
     if (label == null) {
       return Futures.immediateFuture(null);
     }
-    return PooledThreadExecutor.INSTANCE.submit(
-        () ->
-            Scope.root(
-                context -> {
-                  context.push(new IdeaLogScope());
-                  try {
-                    ImmutableList<TargetInfo> targetInfos =
-                        runDirectRdepsQuery(
-                            project, ImmutableList.of(label), context, ContextType.Other);
-                    if (shouldRunRecursiveRdepsQuery(
-                        ImmutableList.of(label), ContextType.Other, targetInfos)) {
-                      return runRecursiveRdepsQuery(
-                          project, ImmutableList.of(label), context, ContextType.Other);
-                    }
-                    return targetInfos;
-                  } catch (BlazeQuerySourceToTargetException ex) {
-                    return null;
-                  }
-                }));
+    // cached, and batched with concurrent requests for other files
+    return SourceToTargetQueryCache.getInstance(project).getTargetsBuildingSource(label);
+  }
+
+  static boolean isEnabled() {
+    return enabled.getValue();
   }
 
   /** Synchronously runs a blaze query to find the direct rdeps of the given source files. */
@@ -177,6 +174,75 @@ public class BlazeQuerySourceToTargetProvider implements SourceToTargetProvider
     return blazeQueryLabelKindParser.getTargets();
   }
 
+  /**
+   * Runs a single blaze query to find the direct rdeps of each of the given source files. Returns
+   * null if the query failed.
+   */
+  @Nullable
+  static ImmutableMap<Label, ImmutableList<TargetInfo>> runBatchedDirectRdepsQuery(
+      Project project, Collection<Label> sources, BlazeContext context) {
+    if (sources.isEmpty()) {
+      return ImmutableMap.of();
+    }
+    String expr = "\"" + Joiner.on("\"+\"").join(sources) + "\"";
+    String directRdepsQuery = String.format("same_pkg_direct_rdeps(%s)", expr);
+    // the proto output includes each rule's inputs, to tell which source each rule builds
+    BlazeCommand command =
+        getBlazeCommand(
+            project,
+            ContextType.Other,
+            directRdepsQuery,
+            ImmutableList.of("--output=proto"),
+            context);
+    ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+    ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+    int retVal =
+        ExternalTask.builder(WorkspaceRoot.fromProject(project))
+            .addBlazeCommand(command)
+            .context(context)
+            .stdout(stdout)
+            .stderr(stderr)
+            .build()
+            .run();
+    try {
+      checkForErrors(context, command, stderr, retVal);
+      return parseBatchedRdeps(
+          sources, QueryResult.parseFrom(new ByteArrayInputStream(stdout.toByteArray())));
+    } catch (BlazeQuerySourceToTargetException e) {
+      return null;
+    } catch (IOException e) {
+      logger.warn("Couldn't parse blaze query proto output", e);
+      return null;
+    }
+  }
+
+  @VisibleForTesting
+  static ImmutableMap<Label, ImmutableList<TargetInfo>> parseBatchedRdeps(
+      Collection<Label> sources, QueryResult result) {
+    Map<String, Label> sourcesByName = new HashMap<>();
+    sources.forEach(s -> sourcesByName.put(s.toString(), s));
+    ListMultimap<Label, TargetInfo> targets = ArrayListMultimap.create();
+    for (Target target : result.getTargetList()) {
+      if (!target.hasRule()) {
+        continue;
+      }
+      Rule rule = target.getRule();
+      Label label = Label.createIfValid(rule.getName());
+      if (label == null) {
+        continue;
+      }
+      TargetInfo info = TargetInfo.builder(label, rule.getRuleClass()).build();
+      rule.getRuleInputList().stream()
+          .map(sourcesByName::get)
+          .filter(Objects::nonNull)
+          .distinct()
+          .forEach(source -> targets.put(source, info));
+    }
+    ImmutableMap.Builder<Label, ImmutableList<TargetInfo>> builder = ImmutableMap.builder();
+    targets.asMap().forEach((source, infos) -> builder.put(source, ImmutableList.copyOf(infos)));
+    return builder.build();
+  }
+
   private static ImmutableList<TargetInfo> runRecursiveRdepsQuery(
       Project project, Collection<Label> sources, BlazeContext context, ContextType type)
       throws BlazeQuerySourceToTargetException {
@@ -264,7 +330,7 @@ public class BlazeQuerySourceToTargetProvider implements SourceToTargetProvider
    * determined.
    */
   @Nullable
-  private static Label getSourceLabel(Project project, String workspaceRelativePath) {
+  static Label getSourceLabel(Project project, String workspaceRelativePath) {
     WorkspacePathResolver resolver =
         WorkspacePathResolverProvider.getInstance(project).getPathResolver();
     if (resolver == null) {
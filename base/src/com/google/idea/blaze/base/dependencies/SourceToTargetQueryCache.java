@@ -0,0 +1,262 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.dependencies;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.idea.blaze.base.model.primitives.Label;
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
+import com.google.idea.blaze.base.scope.Scope;
+import com.google.idea.blaze.base.scope.scopes.IdeaLogScope;
+import com.google.idea.blaze.base.settings.Blaze;
+import com.google.idea.blaze.base.targetmaps.SourceToTargetMap;
+import com.google.idea.common.experiments.BoolExperiment;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.FileEditorManagerListener;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import java.io.File;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.jetbrains.ide.PooledThreadExecutor;
+
+/**
+ * Caches the results of the source-to-target queries run by {@link
+ * BlazeQuerySourceToTargetProvider}, and batches concurrent requests into a single blaze query.
+ *
+ * <p>A cached result is dropped when the BUILD file of the source's package changes, and all
+ * results are dropped when any .bzl file changes.
+ */
+final class SourceToTargetQueryCache implements Disposable {
+
+  private static final Logger logger = Logger.getInstance(SourceToTargetQueryCache.class);
+
+  private static final BoolExperiment warmOpenFiles =
+      new BoolExperiment("blaze.query.source.to.target.warm.open.files", true);
+
+  // The maximum number of source files queried in a single blaze invocation.
+  private static final int MAX_BATCH_SIZE = 100;
+
+  static SourceToTargetQueryCache getInstance(Project project) {
+    return ServiceManager.getService(project, SourceToTargetQueryCache.class);
+  }
+
+  private final Project project;
+  private final Function<Collection<Label>, ImmutableMap<Label, ImmutableList<TargetInfo>>>
+      queryRunner;
+  private final Executor queryExecutor;
+
+  private final ConcurrentMap<Label, ImmutableList<TargetInfo>> results =
+      new ConcurrentHashMap<>();
+  // incremented whenever cached results are invalidated, so racing queries don't cache stale data
+  private final AtomicLong generation = new AtomicLong();
+
+  // requests waiting for the next query, guarded by 'this'
+  private final Map<Label, SettableFuture<List<TargetInfo>>> pending = new LinkedHashMap<>();
+  private boolean queryScheduled = false;
+
+  SourceToTargetQueryCache(Project project) {
+    this(
+        project,
+        labels ->
+            Scope.root(
+                context -> {
+                  context.push(new IdeaLogScope());
+                  return BlazeQuerySourceToTargetProvider.runBatchedDirectRdepsQuery(
+                      project, labels, context);
+                }),
+        MoreExecutors.newSequentialExecutor(PooledThreadExecutor.INSTANCE));
+    project
+        .getMessageBus()
+        .connect(this)
+        .subscribe(VirtualFileManager.VFS_CHANGES, new BuildFileListener());
+  }
+
+  /**
+   * @param queryRunner runs a query for the given source labels, returning the targets building
+   *     each of them, or null if the query failed
+   */
+  @VisibleForTesting
+  SourceToTargetQueryCache(
+      Project project,
+      Function<Collection<Label>, ImmutableMap<Label, ImmutableList<TargetInfo>>> queryRunner,
+      Executor queryExecutor) {
+    this.project = project;
+    this.queryRunner = queryRunner;
+    this.queryExecutor = queryExecutor;
+  }
+
+  /**
+   * Returns the targets directly building the given source file. The future returns null if the
+   * query failed.
+   */
+  ListenableFuture<List<TargetInfo>> getTargetsBuildingSource(Label source) {
+    ImmutableList<TargetInfo> cached = results.get(source);
+    if (cached != null) {
+      return Futures.immediateFuture(cached);
+    }
+    synchronized (this) {
+      SettableFuture<List<TargetInfo>> future =
+          pending.computeIfAbsent(source, s -> SettableFuture.create());
+      if (!queryScheduled) {
+        queryScheduled = true;
+        queryExecutor.execute(this::runPendingQuery);
+      }
+      return future;
+    }
+  }
+
+  private void runPendingQuery() {
+    ImmutableMap<Label, SettableFuture<List<TargetInfo>>> batch;
+    synchronized (this) {
+      batch = ImmutableMap.copyOf(Iterables.limit(pending.entrySet(), MAX_BATCH_SIZE));
+      batch.keySet().forEach(pending::remove);
+      queryScheduled = !pending.isEmpty();
+      if (queryScheduled) {
+        queryExecutor.execute(this::runPendingQuery);
+      }
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
+    long queryGeneration = generation.get();
+    ImmutableMap<Label, ImmutableList<TargetInfo>> targets = null;
+    try {
+      targets = queryRunner.apply(batch.keySet());
+    } catch (RuntimeException e) {
+      logger.warn("Source to target query failed", e);
+    }
+    for (Map.Entry<Label, SettableFuture<List<TargetInfo>>> entry : batch.entrySet()) {
+      if (targets == null) {
+        entry.getValue().set(null);
+        continue;
+      }
+      ImmutableList<TargetInfo> sourceTargets =
+          targets.getOrDefault(entry.getKey(), ImmutableList.of());
+      if (generation.get() == queryGeneration) {
+        results.put(entry.getKey(), sourceTargets);
+      }
+      entry.getValue().set(sourceTargets);
+    }
+  }
+
+  @VisibleForTesting
+  void invalidatePackage(WorkspacePath blazePackage) {
+    generation.incrementAndGet();
+    results.keySet().removeIf(label -> label.blazePackage().equals(blazePackage));
+  }
+
+  @VisibleForTesting
+  void invalidateAll() {
+    generation.incrementAndGet();
+    results.clear();
+  }
+
+  @Override
+  public void dispose() {}
+
+  private class BuildFileListener implements BulkFileListener {
+    @Override
+    public void after(List<? extends VFileEvent> events) {
+      WorkspaceRoot workspaceRoot = WorkspaceRoot.fromProjectSafe(project);
+      for (VFileEvent event : events) {
+        File file = new File(event.getPath());
+        String name = file.getName();
+        if (name.endsWith(".bzl")) {
+          invalidateAll();
+          return;
+        }
+        if (workspaceRoot == null
+            || !Blaze.getBuildSystemProvider(project).isBuildFile(name)
+            || file.getParentFile() == null) {
+          continue;
+        }
+        WorkspacePath blazePackage = workspaceRoot.workspacePathForSafe(file.getParentFile());
+        if (blazePackage != null) {
+          invalidatePackage(blazePackage);
+        }
+      }
+    }
+  }
+
+  /** Queries the targets building files open in editors, which aren't in the project yet. */
+  static class Warmer implements StartupActivity, DumbAware {
+    @Override
+    public void runActivity(Project project) {
+      if (!Blaze.isBlazeProject(project)) {
+        return;
+      }
+      for (VirtualFile file : FileEditorManager.getInstance(project).getOpenFiles()) {
+        PooledThreadExecutor.INSTANCE.execute(() -> warm(project, file));
+      }
+      project
+          .getMessageBus()
+          .connect(project)
+          .subscribe(
+              FileEditorManagerListener.FILE_EDITOR_MANAGER,
+              new FileEditorManagerListener() {
+                @Override
+                public void fileOpened(FileEditorManager source, VirtualFile file) {
+                  PooledThreadExecutor.INSTANCE.execute(() -> warm(project, file));
+                }
+              });
+    }
+
+    private static void warm(Project project, VirtualFile file) {
+      if (!BlazeQuerySourceToTargetProvider.isEnabled()
+          || !warmOpenFiles.getValue()
+          || !file.isInLocalFileSystem()
+          || file.isDirectory()) {
+        return;
+      }
+      File ioFile = new File(file.getPath());
+      if (!SourceToTargetMap.getInstance(project).getRulesForSourceFile(ioFile).isEmpty()) {
+        return;
+      }
+      WorkspaceRoot workspaceRoot = WorkspaceRoot.fromProjectSafe(project);
+      WorkspacePath path = workspaceRoot != null ? workspaceRoot.workspacePathForSafe(file) : null;
+      if (path == null) {
+        return;
+      }
+      Label label = BlazeQuerySourceToTargetProvider.getSourceLabel(project, path.relativePath());
+      if (label != null) {
+        ListenableFuture<?> unused = getInstance(project).getTargetsBuildingSource(label);
+      }
+    }
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.google.idea.blaze.base.filecache;
 
+import com.google.devtools.intellij.model.ProjectData.AggregateEntry;
 import com.google.devtools.intellij.model.ProjectData.LocalFile;
 import com.google.devtools.intellij.model.ProjectData.LocalFileOrOutputArtifact;
 import com.google.idea.blaze.base.command.buildresult.BlazeArtifact;
@@ -115,4 +116,58 @@ public interface ArtifactState {
       return blazeOutPath.equals(((LocalFileState) obj).blazeOutPath);
     }
   }
+
+  /**
+   * Serialization state related to artifacts read from an aggregate aspect output file. Entries are
+   * compared by content digest, so reading them requires no file system operations.
+   */
+  class AggregateEntryState implements ArtifactState {
+    private final String blazeOutPath;
+    private final String digest;
+
+    public AggregateEntryState(AggregateEntry entry) {
+      this(entry.getRelativePath(), entry.getDigest());
+    }
+
+    public AggregateEntryState(String blazeOutPath, String digest) {
+      this.blazeOutPath = blazeOutPath;
+      this.digest = digest;
+    }
+
+    @Override
+    public String getKey() {
+      return blazeOutPath;
+    }
+
+    @Override
+    public boolean isMoreRecent(ArtifactState output) {
+      return !(output instanceof AggregateEntryState)
+          || !digest.equals(((AggregateEntryState) output).digest);
+    }
+
+    @Override
+    public LocalFileOrOutputArtifact serializeToProto() {
+      return LocalFileOrOutputArtifact.newBuilder()
+          .setAggregateEntry(
+              AggregateEntry.newBuilder().setRelativePath(blazeOutPath).setDigest(digest))
+          .build();
+    }
+
+    @Override
+    public int hashCode() {
+      return blazeOutPath.hashCode();
+    }
+
+    /** Returns true for {@link AggregateEntryState} with the same key. */
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof AggregateEntryState)) {
+        return false;
+      }
+      return blazeOutPath.equals(((AggregateEntryState) obj).blazeOutPath);
+    }
+  }
 }
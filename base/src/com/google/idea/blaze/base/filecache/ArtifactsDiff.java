@@ -25,6 +25,9 @@ import com.google.common.collect.ImmutableSet;
 import com.google.idea.blaze.base.command.buildresult.BlazeArtifact.LocalFileArtifact;
 import com.google.idea.blaze.base.command.buildresult.OutputArtifact;
 import com.google.idea.blaze.base.io.FileAttributeScanner;
+import com.google.idea.blaze.base.metrics.Counter;
+import com.google.idea.blaze.base.metrics.LatencyHistogram;
+import com.google.idea.blaze.base.metrics.MetricsRegistry;
 import com.google.idea.blaze.base.prefetch.FetchExecutor;
 import java.util.Collection;
 import java.util.HashSet;
@@ -42,6 +45,15 @@ import javax.annotation.Nullable;
 @AutoValue
 public abstract class ArtifactsDiff {
 
+  private static final LatencyHistogram diffTime =
+      MetricsRegistry.getInstance().histogram("artifacts_diff.time");
+  private static final Counter artifactsDiffed =
+      MetricsRegistry.getInstance().counter("artifacts_diff.artifacts");
+  private static final Counter artifactsUpdated =
+      MetricsRegistry.getInstance().counter("artifacts_diff.updated");
+  private static final Counter artifactsRemoved =
+      MetricsRegistry.getInstance().counter("artifacts_diff.removed");
+
   public abstract ImmutableMap<String, ArtifactState> getNewState();
 
   public abstract ImmutableList<OutputArtifact> getUpdatedOutputs();
@@ -60,6 +72,7 @@ public abstract class ArtifactsDiff {
       @Nullable ImmutableMap<String, ArtifactState> oldState,
       ImmutableMap<String, OutputArtifact> newArtifacts)
       throws InterruptedException, ExecutionException {
+    long start = System.nanoTime();
     ImmutableMap<String, ArtifactState> newState = computeState(newArtifacts.values());
     // Find new/updated
     final ImmutableMap<String, ArtifactState> previous =
@@ -78,6 +91,10 @@ public abstract class ArtifactsDiff {
     Set<ArtifactState> removed = new HashSet<>(previous.values());
     newState.forEach((k, v) -> removed.remove(v));
 
+    diffTime.recordSince(start);
+    artifactsDiffed.add(newArtifacts.size());
+    artifactsUpdated.add(updated.size());
+    artifactsRemoved.add(removed.size());
     return new AutoValue_ArtifactsDiff(newState, updated, ImmutableSet.copyOf(removed));
   }
 
@@ -16,10 +16,14 @@
 package com.google.idea.blaze.base.filecache;
 
 import com.google.devtools.intellij.model.ProjectData.LocalFileOrOutputArtifact;
+import com.google.idea.blaze.base.filecache.ArtifactState.AggregateEntryState;
 import com.google.idea.blaze.base.filecache.ArtifactState.LocalFileState;
 import javax.annotation.Nullable;
 
-/** Implementation of {@link ArtifactStateProtoConverter} for {@link LocalFileState} */
+/**
+ * Implementation of {@link ArtifactStateProtoConverter} for {@link LocalFileState} and {@link
+ * AggregateEntryState}
+ */
 public class LocalArtifactStateProtoConverter implements ArtifactStateProtoConverter {
 
   @Override
@@ -28,6 +32,9 @@ public class LocalArtifactStateProtoConverter implements ArtifactStateProtoConve
     if (proto.hasLocalFile()) {
       return new LocalFileState(proto.getLocalFile());
     }
+    if (proto.hasAggregateEntry()) {
+      return new AggregateEntryState(proto.getAggregateEntry());
+    }
     return null;
   }
 }
@@ -36,6 +36,8 @@ import javax.annotation.Nullable;
 /** File system operations. Mocked out in tests involving file manipulations. */
 public class FileOperationProvider {
 
+  private static final long MIN_DIRECTORY_AGE_MILLIS = 2000;
+
   public static FileOperationProvider getInstance() {
     return ServiceManager.getService(FileOperationProvider.class);
   }
@@ -56,6 +58,14 @@ public class FileOperationProvider {
     return file.lastModified();
   }
 
+  /**
+   * Returns whether a directory's modification time is too recent to identify its contents.
+   * Directories modified this recently may be modified again without changing their timestamp.
+   */
+  public static boolean isRecentModifiedTime(long modifiedTime) {
+    return System.currentTimeMillis() - modifiedTime < MIN_DIRECTORY_AGE_MILLIS;
+  }
+
   public boolean setFileModifiedTime(File file, long time) {
     return file.setLastModified(time);
   }
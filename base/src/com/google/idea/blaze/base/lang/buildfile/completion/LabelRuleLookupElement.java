@@ -20,7 +20,10 @@ import com.google.idea.blaze.base.lang.buildfile.psi.BuildFile;
 import com.google.idea.blaze.base.lang.buildfile.psi.FuncallExpression;
 import com.google.idea.blaze.base.lang.buildfile.references.LabelUtils;
 import com.google.idea.blaze.base.lang.buildfile.references.QuoteType;
+import com.google.idea.blaze.base.lang.buildfile.search.BuildRuleIndex;
+import icons.BlazeIcons;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import javax.annotation.Nullable;
 import javax.swing.Icon;
@@ -43,6 +46,18 @@ public class LabelRuleLookupElement extends BuildLookupElement {
 
     String ruleFragment = LabelUtils.getRuleComponent(originalString);
     List<BuildLookupElement> lookups = Lists.newArrayList();
+    // avoid parsing the referenced BUILD file where possible
+    Map<String, String> indexedRules = BuildRuleIndex.getRules(file);
+    if (indexedRules != null) {
+      for (Map.Entry<String, String> rule : indexedRules.entrySet()) {
+        String targetName = rule.getKey();
+        if (!Objects.equals(targetName, excluded) && targetName.startsWith(ruleFragment)) {
+          lookups.add(
+              new LabelRuleLookupElement(packagePrefix, targetName, rule.getValue(), quoteType));
+        }
+      }
+      return lookups.toArray(BuildLookupElement.EMPTY_ARRAY);
+    }
     for (FuncallExpression target : file.findChildrenByClass(FuncallExpression.class)) {
       String targetName = target.getName();
       if (targetName == null
@@ -54,26 +69,19 @@ public class LabelRuleLookupElement extends BuildLookupElement {
       if (ruleType == null) {
         continue;
       }
-      lookups.add(
-          new LabelRuleLookupElement(packagePrefix, target, targetName, ruleType, quoteType));
+      lookups.add(new LabelRuleLookupElement(packagePrefix, targetName, ruleType, quoteType));
     }
     return lookups.isEmpty()
         ? BuildLookupElement.EMPTY_ARRAY
         : lookups.toArray(new BuildLookupElement[lookups.size()]);
   }
 
-  private final FuncallExpression target;
   private final String targetName;
   private final String ruleType;
 
   private LabelRuleLookupElement(
-      String packagePrefix,
-      FuncallExpression target,
-      String targetName,
-      String ruleType,
-      QuoteType quoteType) {
+      String packagePrefix, String targetName, String ruleType, QuoteType quoteType) {
     super(packagePrefix + targetName, quoteType);
-    this.target = target;
     this.targetName = targetName;
     this.ruleType = ruleType;
 
@@ -82,7 +90,8 @@ public class LabelRuleLookupElement extends BuildLookupElement {
 
   @Override
   public Icon getIcon() {
-    return target.getIcon(0);
+    // only top-level rules are included
+    return BlazeIcons.BuildRule;
   }
 
   @Override
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.lang.buildfile.globbing;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.idea.blaze.base.bazel.BuildSystemProvider;
+import com.google.idea.blaze.base.io.FileOperationProvider;
+import com.google.idea.blaze.base.io.VfsUtils;
+import com.google.idea.blaze.base.settings.Blaze;
+import com.google.idea.common.experiments.BoolExperiment;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VFileProperty;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileCopyEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileCreateEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * Caches the results of BUILD file globs, and the directory listings used to evaluate them.
+ *
+ * <p>Both are dropped in response to VFS events creating, deleting, moving or renaming files.
+ * Directories are listed through the VFS, so it reports later changes to their children. Content
+ * changes don't affect glob results, so are ignored.
+ */
+public final class GlobCache implements Disposable {
+
+  private static final BoolExperiment enabled =
+      new BoolExperiment("blaze.build.file.glob.cache", true);
+
+  // beyond these sizes, the caches are cleared rather than grown further
+  private static final int MAX_CACHED_GLOBS = 10_000;
+  private static final int MAX_CACHED_LISTINGS = 100_000;
+  // VFS event batches larger than this clear the caches, rather than invalidating each path
+  private static final int MAX_EVENTS_TO_INVALIDATE = 100;
+
+  public static GlobCache getInstance(Project project) {
+    return ServiceManager.getService(project, GlobCache.class);
+  }
+
+  private final Project project;
+  private final ConcurrentMap<GlobKey, ImmutableList<File>> globs = new ConcurrentHashMap<>();
+  private final ConcurrentMap<File, DirectoryListing> listings = new ConcurrentHashMap<>();
+  // incremented on each invalidation, so results computed concurrently aren't cached
+  private final AtomicLong modificationCount = new AtomicLong();
+  private final FileOperationProvider cachingFileOperations = new CachingFileOperations();
+
+  GlobCache(Project project) {
+    this.project = project;
+    project
+        .getMessageBus()
+        .connect(this)
+        .subscribe(VirtualFileManager.VFS_CHANGES, new InvalidatingListener());
+  }
+
+  /**
+   * Returns the files in the given blaze package matching the glob, in sorted order. Subdirectories
+   * which are themselves blaze packages aren't traversed.
+   */
+  public ImmutableList<File> glob(
+      File packageDirectory,
+      List<String> includes,
+      List<String> excludes,
+      boolean excludeDirectories)
+      throws IOException, InterruptedException {
+    if (!enabled.getValue()) {
+      return runGlob(
+          FileOperationProvider.getInstance(),
+          packageDirectory,
+          includes,
+          excludes,
+          excludeDirectories);
+    }
+    GlobKey key = new GlobKey(packageDirectory, includes, excludes, excludeDirectories);
+    ImmutableList<File> cached = globs.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    long count = modificationCount.get();
+    ImmutableList<File> result =
+        runGlob(cachingFileOperations, packageDirectory, includes, excludes, excludeDirectories);
+    if (globs.size() >= MAX_CACHED_GLOBS) {
+      globs.clear();
+    }
+    globs.put(key, result);
+    if (modificationCount.get() != count) {
+      // the result may be out of date
+      globs.remove(key, result);
+    }
+    return result;
+  }
+
+  private ImmutableList<File> runGlob(
+      FileOperationProvider fileOperations,
+      File packageDirectory,
+      List<String> includes,
+      List<String> excludes,
+      boolean excludeDirectories)
+      throws IOException, InterruptedException {
+    return ImmutableList.copyOf(
+        UnixGlob.forPath(packageDirectory)
+            .addPatterns(includes)
+            .addExcludes(excludes)
+            .setExcludeDirectories(excludeDirectories)
+            .setDirectoryFilter(directoryFilter(fileOperations, packageDirectory.getPath()))
+            .setFileOperationProvider(fileOperations)
+            .glob());
+  }
+
+  /** Don't traverse sub-directories which are themselves blaze packages */
+  private Predicate<File> directoryFilter(FileOperationProvider fileOperations, String base) {
+    BuildSystemProvider provider = Blaze.getBuildSystemProvider(project);
+    return directory -> {
+      if (base.equals(directory.getPath())) {
+        return true;
+      }
+      for (String name : provider.possibleBuildFileNames()) {
+        if (fileOperations.isFile(new File(directory, name))) {
+          return false;
+        }
+      }
+      return true;
+    };
+  }
+
+  @Nullable
+  private DirectoryListing getListing(File directory) {
+    DirectoryListing listing = listings.get(directory);
+    if (listing != null) {
+      return listing;
+    }
+    VirtualFile virtualFile = VfsUtils.resolveVirtualFile(directory, /* refreshIfNeeded= */ false);
+    if (virtualFile == null || !virtualFile.isDirectory()) {
+      return null;
+    }
+    long count = modificationCount.get();
+    listing = DirectoryListing.create(virtualFile.getChildren());
+    if (listings.size() >= MAX_CACHED_LISTINGS) {
+      listings.clear();
+    }
+    listings.put(directory, listing);
+    if (modificationCount.get() != count) {
+      listings.remove(directory, listing);
+    }
+    return listing;
+  }
+
+  private void invalidate(String path, boolean isDirectory) {
+    modificationCount.incrementAndGet();
+    File parent = new File(path).getParentFile();
+    if (parent != null) {
+      listings.remove(parent);
+    }
+    if (isDirectory) {
+      // the directory may have been replaced along with everything under it
+      listings
+          .keySet()
+          .removeIf(directory -> FileUtil.isAncestor(path, directory.getPath(), false));
+    }
+    // the file may be under the package, or be a directory containing it
+    globs
+        .keySet()
+        .removeIf(
+            key ->
+                FileUtil.isAncestor(key.packageDirectory, path, false)
+                    || FileUtil.isAncestor(path, key.packageDirectory, false));
+  }
+
+  private void invalidateAll() {
+    modificationCount.incrementAndGet();
+    listings.clear();
+    globs.clear();
+  }
+
+  @Override
+  public void dispose() {}
+
+  /** The name and type of each child of a directory. */
+  static final class DirectoryListing {
+    enum Type {
+      DIRECTORY,
+      FILE,
+      OTHER,
+    }
+
+    private final ImmutableMap<String, Type> children;
+
+    private DirectoryListing(ImmutableMap<String, Type> children) {
+      this.children = children;
+    }
+
+    static DirectoryListing create(VirtualFile[] children) {
+      ImmutableMap.Builder<String, Type> builder = ImmutableMap.builder();
+      for (VirtualFile child : children) {
+        builder.put(
+            child.getName(),
+            child.isDirectory()
+                ? Type.DIRECTORY
+                : child.is(VFileProperty.SPECIAL) ? Type.OTHER : Type.FILE);
+      }
+      return new DirectoryListing(builder.build());
+    }
+
+    @Nullable
+    Type getType(String name) {
+      return children.get(name);
+    }
+
+    File[] listFiles(File directory) {
+      return children.keySet().stream().map(name -> new File(directory, name)).toArray(File[]::new);
+    }
+  }
+
+  /** Answers glob file system queries from cached directory listings where possible. */
+  private class CachingFileOperations extends FileOperationProvider {
+    @Override
+    public boolean exists(File file) {
+      DirectoryListing listing = getParentListing(file);
+      return listing != null ? listing.getType(file.getName()) != null : super.exists(file);
+    }
+
+    @Override
+    public boolean isDirectory(File file) {
+      DirectoryListing listing = getParentListing(file);
+      return listing != null
+          ? listing.getType(file.getName()) == DirectoryListing.Type.DIRECTORY
+          : super.isDirectory(file);
+    }
+
+    @Override
+    public boolean isFile(File file) {
+      DirectoryListing listing = getParentListing(file);
+      return listing != null
+          ? listing.getType(file.getName()) == DirectoryListing.Type.FILE
+          : super.isFile(file);
+    }
+
+    @Override
+    public File[] listFiles(File file) {
+      DirectoryListing listing = getListing(file);
+      return listing != null ? listing.listFiles(file) : super.listFiles(file);
+    }
+
+    @Nullable
+    private DirectoryListing getParentListing(File file) {
+      File parent = file.getParentFile();
+      return parent != null ? getListing(parent) : null;
+    }
+  }
+
+  /** The package and arguments of a glob. */
+  private static final class GlobKey {
+    final String packageDirectory;
+    final ImmutableList<String> includes;
+    final ImmutableList<String> excludes;
+    final boolean excludeDirectories;
+
+    GlobKey(
+        File packageDirectory,
+        List<String> includes,
+        List<String> excludes,
+        boolean excludeDirectories) {
+      this.packageDirectory = packageDirectory.getPath();
+      this.includes = ImmutableList.copyOf(includes);
+      this.excludes = ImmutableList.copyOf(excludes);
+      this.excludeDirectories = excludeDirectories;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof GlobKey)) {
+        return false;
+      }
+      GlobKey other = (GlobKey) o;
+      return packageDirectory.equals(other.packageDirectory)
+          && includes.equals(other.includes)
+          && excludes.equals(other.excludes)
+          && excludeDirectories == other.excludeDirectories;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(packageDirectory, includes, excludes, excludeDirectories);
+    }
+  }
+
+  private class InvalidatingListener implements BulkFileListener {
+    @Override
+    public void after(List<? extends VFileEvent> events) {
+      if (listings.isEmpty() && globs.isEmpty()) {
+        return;
+      }
+      if (events.size() > MAX_EVENTS_TO_INVALIDATE) {
+        invalidateAll();
+        return;
+      }
+      for (VFileEvent event : events) {
+        if (event instanceof VFileCreateEvent) {
+          invalidate(event.getPath(), ((VFileCreateEvent) event).isDirectory());
+        } else if (event instanceof VFileDeleteEvent || event instanceof VFileCopyEvent) {
+          invalidate(event.getPath(), isDirectory(event));
+        } else if (event instanceof VFileMoveEvent) {
+          invalidate(((VFileMoveEvent) event).getOldPath(), isDirectory(event));
+          invalidate(((VFileMoveEvent) event).getNewPath(), isDirectory(event));
+        } else if (event instanceof VFilePropertyChangeEvent
+            && ((VFilePropertyChangeEvent) event).isRename()) {
+          invalidate(((VFilePropertyChangeEvent) event).getOldPath(), isDirectory(event));
+          invalidate(((VFilePropertyChangeEvent) event).getNewPath(), isDirectory(event));
+        }
+      }
+    }
+
+    private boolean isDirectory(VFileEvent event) {
+      VirtualFile file = event.getFile();
+      return file == null || file.isDirectory();
+    }
+  }
+}
@@ -66,10 +66,11 @@ public final class UnixGlob {
       Collection<String> patterns,
       boolean excludeDirectories,
       Predicate<File> dirPred,
-      ThreadPoolExecutor threadPool)
+      ThreadPoolExecutor threadPool,
+      FileOperationProvider fileOperationProvider)
       throws IOException, InterruptedException {
 
-    GlobVisitor visitor = (threadPool == null) ? new GlobVisitor() : new GlobVisitor(threadPool);
+    GlobVisitor visitor = new GlobVisitor(threadPool, fileOperationProvider);
     return visitor.glob(base, patterns, excludeDirectories, dirPred);
   }
 
@@ -217,6 +218,7 @@ public final class UnixGlob {
     private boolean excludeDirectories;
     private Predicate<File> pathFilter;
     private ThreadPoolExecutor threadPool;
+    private FileOperationProvider fileOperationProvider;
 
     /** Creates a glob builder with the given base path. */
     public Builder(File base) {
@@ -297,6 +299,16 @@ public final class UnixGlob {
       return this;
     }
 
+    /**
+     * Sets the file operations used to list and stat files, e.g. to read from a cache. If unset,
+     * {@link FileOperationProvider#getInstance()} is used.
+     */
+    @CanIgnoreReturnValue
+    public Builder setFileOperationProvider(FileOperationProvider fileOperationProvider) {
+      this.fileOperationProvider = fileOperationProvider;
+      return this;
+    }
+
     /**
      * If set, the given predicate is called for every directory encountered. If it returns false,
      * the corresponding item is not returned in the output and directories are not traversed
@@ -314,8 +326,14 @@ public final class UnixGlob {
      * @throws InterruptedException if the thread is interrupted.
      */
     public List<File> glob() throws IOException, InterruptedException {
-      Set<File> included = globInternal(base, patterns, excludeDirectories, pathFilter, threadPool);
-      Set<File> excluded = globInternal(base, excludes, excludeDirectories, pathFilter, threadPool);
+      FileOperationProvider fileOperations =
+          fileOperationProvider != null
+              ? fileOperationProvider
+              : FileOperationProvider.getInstance();
+      Set<File> included =
+          globInternal(base, patterns, excludeDirectories, pathFilter, threadPool, fileOperations);
+      Set<File> excluded =
+          globInternal(base, excludes, excludeDirectories, pathFilter, threadPool, fileOperations);
       included.removeAll(excluded);
       return Ordering.<File>natural().immutableSortedCopy(included);
     }
@@ -381,18 +399,16 @@ public final class UnixGlob {
     private final ThreadPoolExecutor executor;
     private final AtomicLong pendingOps = new AtomicLong(0);
     private final AtomicReference<IOException> failure = new AtomicReference<>();
-    private final FileOperationProvider fileOperationProvider = FileOperationProvider.getInstance();
+    private final FileOperationProvider fileOperationProvider;
     private volatile boolean canceled = false;
 
-    private GlobVisitor(ThreadPoolExecutor executor) {
+    private GlobVisitor(
+        @Nullable ThreadPoolExecutor executor, FileOperationProvider fileOperationProvider) {
       this.executor = executor;
+      this.fileOperationProvider = fileOperationProvider;
       this.result = new GlobFuture(this);
     }
 
-    private GlobVisitor() {
-      this(null);
-    }
-
     /**
      * Performs wildcard globbing: returns the sorted list of filenames that match any of {@code
      * patterns} relative to {@code base}. Directories are traversed if and only if they match
@@ -616,7 +632,7 @@ public final class UnixGlob {
 
     @Nullable
     private File[] getChildren(File file) {
-      return FileOperationProvider.getInstance().listFiles(file);
+      return fileOperationProvider.listFiles(file);
     }
   }
 }
@@ -17,10 +17,15 @@ package com.google.idea.blaze.base.lang.buildfile.lexer;
 
 import com.google.idea.blaze.base.lang.buildfile.lexer.BuildLexerBase.LexerMode;
 import com.intellij.lexer.LexerBase;
-import java.util.Iterator;
-import java.util.List;
+import javax.annotation.Nullable;
 
-/** Implementation of LexerBase using BuildLexerBase to tokenize the input. */
+/**
+ * Implementation of LexerBase using BuildLexerBase to tokenize the input.
+ *
+ * <p>The input is tokenized on demand, so the editor highlighter can restart lexing from the start
+ * of a modified region, and stop once the token stream matches the previous one again, without
+ * tokenizing the remainder of the file.
+ */
 public class BuildLexer extends LexerBase {
 
   private final LexerMode mode;
@@ -28,9 +33,11 @@ public class BuildLexer extends LexerBase {
   private int offsetEnd;
   private int offsetStart;
   private CharSequence buffer;
-  private Iterator<Token> tokens;
-  private Token currentToken;
+  private BuildLexerBase lexer;
+  @Nullable private Token currentToken;
   private int currentState;
+  // the end of the previous token, relative to offsetStart
+  private int previousTokenEnd;
 
   public BuildLexer(LexerMode mode) {
     this.mode = mode;
@@ -42,37 +49,45 @@ public class BuildLexer extends LexerBase {
     this.offsetEnd = endOffset;
     this.offsetStart = startOffset;
 
-    BuildLexerBase lexer =
-        new BuildLexerBase(charSequence.subSequence(startOffset, endOffset), initialState, mode);
-    checkNoCharactersMissing(
-        charSequence.subSequence(startOffset, endOffset).length(), lexer.getTokens());
-    tokens = lexer.getTokens().iterator();
-    currentToken = null;
-    if (tokens.hasNext()) {
-      currentToken = tokens.next();
-    }
-    currentState = lexer.getOpenParenStackDepth();
+    lexer =
+        new BuildLexerBase(
+            charSequence.subSequence(startOffset, endOffset),
+            initialState,
+            mode,
+            /* tokenizeEagerly= */ false);
+    previousTokenEnd = 0;
+    advance();
   }
 
   /** Temporary debugging code. We need to tokenize every character in the input string. */
-  private void checkNoCharactersMissing(int totalLength, List<Token> tokens) {
-    if (!tokens.isEmpty() && tokens.get(tokens.size() - 1).right != totalLength) {
-      String error =
-          String.format(
-              "Lengths don't match: %s instead of %s",
-              tokens.get(tokens.size() - 1).right, totalLength);
-      throw new RuntimeException(error);
-    }
-    int start = 0;
-    for (int i = 0; i < tokens.size(); i++) {
-      Token token = tokens.get(i);
-      if (token.left != start) {
-        throw new RuntimeException("Gap/inconsistency at: " + start);
+  private void checkNoCharactersMissing(@Nullable Token token) {
+    if (token == null) {
+      if (previousTokenEnd != offsetEnd - offsetStart) {
+        String error =
+            String.format(
+                "Lengths don't match: %s instead of %s",
+                previousTokenEnd, offsetEnd - offsetStart);
+        throw new RuntimeException(error);
       }
-      start = token.right;
+      return;
+    }
+    if (token.left != previousTokenEnd) {
+      throw new RuntimeException("Gap/inconsistency at: " + previousTokenEnd);
     }
+    previousTokenEnd = token.right;
   }
 
+  /**
+   * The state lexing can be restarted from at the current token.
+   *
+   * <p>When highlighting, each token is independent of those before it (string literals are single
+   * tokens, and whitespace is tokenized the same way regardless of the enclosing parens), so lexing
+   * can be restarted from any token, and the state is always the initial state.
+   *
+   * <p>When parsing, the state is the number of unclosed parens preceding the token, which
+   * determines how newlines are tokenized. The indentation stack isn't included, so restarting is
+   * only exact at the start of top-level statements.
+   */
   @Override
   public int getState() {
     return currentState;
@@ -104,10 +119,12 @@ public class BuildLexer extends LexerBase {
 
   @Override
   public void advance() {
-    if (tokens.hasNext()) {
-      currentToken = tokens.next();
+    currentToken = lexer.nextToken();
+    checkNoCharactersMissing(currentToken);
+    if (currentToken != null && mode == LexerMode.Parsing) {
+      currentState = lexer.getParenStackDepthAtLastToken();
     } else {
-      currentToken = null;
+      currentState = 0;
     }
   }
 
@@ -62,6 +62,10 @@ public class BuildLexerBase {
   private int pos;
 
   private final List<Token> tokens;
+  // when tokenizing on demand, the index of the next token to return from 'tokens', and the paren
+  // stack depth before it
+  private int nextTokenIndex = 0;
+  private int nextTokensParenStackDepth = 0;
 
   // The number of unclosed open-parens ("(", '{', '[') at the current point in
   // the stream. Whitespace is handled differently when this is nonzero.
@@ -78,15 +82,30 @@ public class BuildLexerBase {
    * lexing are reported on "handler".
    */
   public BuildLexerBase(CharSequence input, int initialStackDepth, LexerMode mode) {
+    this(input, initialStackDepth, mode, /* tokenizeEagerly= */ true);
+  }
+
+  /**
+   * If tokenizeEagerly is false, the input is instead tokenized on demand, as tokens are requested
+   * via {@link #nextToken}. This is much cheaper when only the start of the input is needed (e.g.
+   * when the syntax highlighter is relexing a changed region of a large file).
+   */
+  BuildLexerBase(
+      CharSequence input, int initialStackDepth, LexerMode mode, boolean tokenizeEagerly) {
     this.buffer = input.toString().toCharArray();
     // Empirical measurements show roughly 1 token per 8 characters in buffer.
-    this.tokens = Lists.newArrayListWithExpectedSize(buffer.length / 8);
+    this.tokens =
+        tokenizeEagerly
+            ? Lists.newArrayListWithExpectedSize(buffer.length / 8)
+            : Lists.newArrayList();
     this.pos = 0;
     this.openParenStackDepth = initialStackDepth;
     this.mode = mode;
 
     indentStack.push(0);
-    tokenize();
+    if (tokenizeEagerly) {
+      tokenize();
+    }
   }
 
   /** The number of unclosed open-parens ("(", '{', '[') at the end of this string. */
@@ -94,6 +113,35 @@ public class BuildLexerBase {
     return openParenStackDepth;
   }
 
+  /**
+   * Returns the next token, tokenizing more of the input if necessary, or null if the end of the
+   * input has been reached. Only for lexers which don't tokenize eagerly. Tokens which have already
+   * been returned are discarded.
+   */
+  @Nullable
+  Token nextToken() {
+    while (nextTokenIndex == tokens.size()) {
+      if (pos >= buffer.length) {
+        return null;
+      }
+      tokens.clear();
+      nextTokenIndex = 0;
+      nextTokensParenStackDepth = openParenStackDepth;
+      tokenizeNext();
+    }
+    return tokens.get(nextTokenIndex++);
+  }
+
+  /**
+   * The number of unclosed open-parens before the last token returned by {@link #nextToken}.
+   *
+   * <p>Each call to {@link #tokenizeNext} adds at most one paren token, before updating the stack
+   * depth, so this is the same for all the tokens it adds.
+   */
+  int getParenStackDepthAtLastToken() {
+    return nextTokensParenStackDepth;
+  }
+
   /**
    * Returns true if there were errors during scanning of this input file or string. The
    * BuildLexerBase may attempt to recover from errors, but clients should not rely on the results
@@ -668,141 +716,146 @@ public class BuildLexerBase {
   /** Performs tokenization of the character buffer of file contents provided to the constructor. */
   private void tokenize() {
     while (pos < buffer.length) {
-      if (tokenizeTwoChars()) {
-        pos += 2;
-        continue;
-      }
-      char c = buffer[pos];
-      pos++;
-      switch (c) {
-        case '{':
-          addToken(TokenKind.LBRACE, pos - 1, pos);
-          openParenStackDepth++;
-          break;
-        case '}':
-          addToken(TokenKind.RBRACE, pos - 1, pos);
-          popParen();
-          break;
-        case '(':
-          addToken(TokenKind.LPAREN, pos - 1, pos);
-          openParenStackDepth++;
-          break;
-        case ')':
-          addToken(TokenKind.RPAREN, pos - 1, pos);
-          popParen();
-          break;
-        case '[':
-          addToken(TokenKind.LBRACKET, pos - 1, pos);
-          openParenStackDepth++;
-          break;
-        case ']':
-          addToken(TokenKind.RBRACKET, pos - 1, pos);
-          popParen();
-          break;
-        case '>':
-          addToken(TokenKind.GREATER, pos - 1, pos);
-          break;
-        case '<':
-          addToken(TokenKind.LESS, pos - 1, pos);
-          break;
-        case ':':
-          addToken(TokenKind.COLON, pos - 1, pos);
-          break;
-        case ',':
-          addToken(TokenKind.COMMA, pos - 1, pos);
-          break;
-        case '+':
-          addToken(TokenKind.PLUS, pos - 1, pos);
-          break;
-        case '-':
-          addToken(TokenKind.MINUS, pos - 1, pos);
-          break;
-        case '|':
-          addToken(TokenKind.PIPE, pos - 1, pos);
-          break;
-        case '=':
-          addToken(TokenKind.EQUALS, pos - 1, pos);
-          break;
-        case '%':
-          addToken(TokenKind.PERCENT, pos - 1, pos);
-          break;
-        case '/':
-          if (lookaheadIs(0, '/') && lookaheadIs(1, '=')) {
-            addToken(TokenKind.SLASH_SLASH_EQUALS, pos - 1, pos + 2);
-            pos += 2;
-          } else if (lookaheadIs(0, '/')) {
-            addToken(TokenKind.SLASH_SLASH, pos - 1, pos + 1);
-            pos++;
+      tokenizeNext();
+    }
+  }
+
+  /** Tokenizes the next lexical element(s), starting at 'pos'. */
+  private void tokenizeNext() {
+    if (tokenizeTwoChars()) {
+      pos += 2;
+      return;
+    }
+    char c = buffer[pos];
+    pos++;
+    switch (c) {
+      case '{':
+        addToken(TokenKind.LBRACE, pos - 1, pos);
+        openParenStackDepth++;
+        break;
+      case '}':
+        addToken(TokenKind.RBRACE, pos - 1, pos);
+        popParen();
+        break;
+      case '(':
+        addToken(TokenKind.LPAREN, pos - 1, pos);
+        openParenStackDepth++;
+        break;
+      case ')':
+        addToken(TokenKind.RPAREN, pos - 1, pos);
+        popParen();
+        break;
+      case '[':
+        addToken(TokenKind.LBRACKET, pos - 1, pos);
+        openParenStackDepth++;
+        break;
+      case ']':
+        addToken(TokenKind.RBRACKET, pos - 1, pos);
+        popParen();
+        break;
+      case '>':
+        addToken(TokenKind.GREATER, pos - 1, pos);
+        break;
+      case '<':
+        addToken(TokenKind.LESS, pos - 1, pos);
+        break;
+      case ':':
+        addToken(TokenKind.COLON, pos - 1, pos);
+        break;
+      case ',':
+        addToken(TokenKind.COMMA, pos - 1, pos);
+        break;
+      case '+':
+        addToken(TokenKind.PLUS, pos - 1, pos);
+        break;
+      case '-':
+        addToken(TokenKind.MINUS, pos - 1, pos);
+        break;
+      case '|':
+        addToken(TokenKind.PIPE, pos - 1, pos);
+        break;
+      case '=':
+        addToken(TokenKind.EQUALS, pos - 1, pos);
+        break;
+      case '%':
+        addToken(TokenKind.PERCENT, pos - 1, pos);
+        break;
+      case '/':
+        if (lookaheadIs(0, '/') && lookaheadIs(1, '=')) {
+          addToken(TokenKind.SLASH_SLASH_EQUALS, pos - 1, pos + 2);
+          pos += 2;
+        } else if (lookaheadIs(0, '/')) {
+          addToken(TokenKind.SLASH_SLASH, pos - 1, pos + 1);
+          pos++;
+        } else {
+          // /= is handled by tokenizeTwoChars.
+          addToken(TokenKind.SLASH, pos - 1, pos);
+        }
+        break;
+      case ';':
+        addToken(TokenKind.SEMI, pos - 1, pos);
+        break;
+      case '.':
+        addToken(TokenKind.DOT, pos - 1, pos);
+        break;
+      case '*':
+        addToken(TokenKind.STAR, pos - 1, pos);
+        break;
+      case ' ':
+      case '\t':
+      case '\r':
+        addWhitespace();
+        break;
+      case '\\':
+        // Backslash character is valid only at the end of a line (or in a string)
+        if (lookaheadIs(0, '\n')) {
+          // treat end of line backslash and newline char as whitespace
+          // (they're ignored by the parser)
+          pos++;
+          addToken(TokenKind.WHITESPACE, pos - 2, pos, Character.toString(c));
+        } else {
+          addToken(TokenKind.ILLEGAL, pos - 1, pos, Character.toString(c));
+        }
+        break;
+      case '\n':
+        newline();
+        break;
+      case '#':
+        int oldPos = pos - 1;
+        while (pos < buffer.length) {
+          c = buffer[pos];
+          if (c == '\n') {
+            break;
           } else {
-            // /= is handled by tokenizeTwoChars.
-            addToken(TokenKind.SLASH, pos - 1, pos);
-          }
-          break;
-        case ';':
-          addToken(TokenKind.SEMI, pos - 1, pos);
-          break;
-        case '.':
-          addToken(TokenKind.DOT, pos - 1, pos);
-          break;
-        case '*':
-          addToken(TokenKind.STAR, pos - 1, pos);
-          break;
-        case ' ':
-        case '\t':
-        case '\r':
-          addWhitespace();
-          break;
-        case '\\':
-          // Backslash character is valid only at the end of a line (or in a string)
-          if (lookaheadIs(0, '\n')) {
-            // treat end of line backslash and newline char as whitespace
-            // (they're ignored by the parser)
             pos++;
-            addToken(TokenKind.WHITESPACE, pos - 2, pos, Character.toString(c));
-          } else {
-            addToken(TokenKind.ILLEGAL, pos - 1, pos, Character.toString(c));
           }
+        }
+        addToken(TokenKind.COMMENT, oldPos, pos, bufferSlice(oldPos, pos));
+        break;
+      case '\'':
+      case '\"':
+        addStringLiteral(c, false);
+        break;
+      default:
+        // detect raw strings, e.g. r"str"
+        if (c == 'r' && (lookaheadIs(0, '\'') || lookaheadIs(0, '\"'))) {
+          c = buffer[pos];
+          pos++;
+          addStringLiteral(c, true);
           break;
-        case '\n':
-          newline();
-          break;
-        case '#':
-          int oldPos = pos - 1;
-          while (pos < buffer.length) {
-            c = buffer[pos];
-            if (c == '\n') {
-              break;
-            } else {
-              pos++;
-            }
-          }
-          addToken(TokenKind.COMMENT, oldPos, pos, bufferSlice(oldPos, pos));
-          break;
-        case '\'':
-        case '\"':
-          addStringLiteral(c, false);
-          break;
-        default:
-          // detect raw strings, e.g. r"str"
-          if (c == 'r' && (lookaheadIs(0, '\'') || lookaheadIs(0, '\"'))) {
-            c = buffer[pos];
-            pos++;
-            addStringLiteral(c, true);
-            break;
-          }
+        }
 
-          if (Character.isDigit(c)) {
-            addInteger();
-          } else if (Character.isJavaIdentifierStart(c) && c != '$') {
-            addIdentifierOrKeyword();
-          } else {
-            // Some characters in Python are not recognized in Blaze syntax (e.g. '!')
-            addToken(TokenKind.ILLEGAL, pos - 1, pos, Character.toString(c));
-            error("invalid character: '" + c + "'");
-          }
-          break;
-      } // switch
-    } // while
+        if (Character.isDigit(c)) {
+          addInteger();
+        } else if (Character.isJavaIdentifierStart(c) && c != '$') {
+          addIdentifierOrKeyword();
+        } else {
+          // Some characters in Python are not recognized in Blaze syntax (e.g. '!')
+          addToken(TokenKind.ILLEGAL, pos - 1, pos, Character.toString(c));
+          error("invalid character: '" + c + "'");
+        }
+        break;
+    } // switch
   }
 
   /**
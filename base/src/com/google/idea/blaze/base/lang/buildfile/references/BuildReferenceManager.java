@@ -22,6 +22,7 @@ import com.google.idea.blaze.base.io.VirtualFileSystemProvider;
 import com.google.idea.blaze.base.lang.buildfile.completion.BuildLookupElement;
 import com.google.idea.blaze.base.lang.buildfile.psi.BuildFile;
 import com.google.idea.blaze.base.lang.buildfile.psi.FuncallExpression;
+import com.google.idea.blaze.base.lang.buildfile.search.BuildRuleIndex;
 import com.google.idea.blaze.base.model.primitives.Label;
 import com.google.idea.blaze.base.model.primitives.TargetName;
 import com.google.idea.blaze.base.model.primitives.WorkspacePath;
@@ -43,6 +44,7 @@ import com.intellij.util.PathUtil;
 import java.io.File;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.Nullable;
 
 /** Handles reference caching and resolving labels to PSI elements. */
@@ -93,9 +95,18 @@ public class BuildReferenceManager {
     return null;
   }
 
+  @Nullable
   private FuncallExpression findRule(File packageDir, String targetName) {
     BuildFile psiFile = findBuildFile(packageDir);
-    return psiFile != null ? psiFile.findRule(targetName) : null;
+    if (psiFile == null) {
+      return null;
+    }
+    Map<String, String> rules = BuildRuleIndex.getRules(psiFile);
+    if (rules != null && !rules.containsKey(targetName)) {
+      // no need to parse the BUILD file (e.g. for file labels)
+      return null;
+    }
+    return psiFile.findRule(targetName);
   }
 
   @Nullable
@@ -17,7 +17,7 @@ package com.google.idea.blaze.base.lang.buildfile.references;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
-import com.google.idea.blaze.base.bazel.BuildSystemProvider;
+import com.google.idea.blaze.base.lang.buildfile.globbing.GlobCache;
 import com.google.idea.blaze.base.lang.buildfile.globbing.UnixGlob;
 import com.google.idea.blaze.base.lang.buildfile.psi.BuildFile;
 import com.google.idea.blaze.base.lang.buildfile.psi.Expression;
@@ -25,7 +25,6 @@ import com.google.idea.blaze.base.lang.buildfile.psi.GlobExpression;
 import com.google.idea.blaze.base.lang.buildfile.psi.ListLiteral;
 import com.google.idea.blaze.base.lang.buildfile.psi.StringLiteral;
 import com.google.idea.blaze.base.lang.buildfile.psi.util.PsiUtils;
-import com.google.idea.blaze.base.settings.Blaze;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.TextRange;
@@ -38,7 +37,6 @@ import com.intellij.psi.impl.source.resolve.reference.impl.PsiPolyVariantCaching
 import com.intellij.util.IncorrectOperationException;
 import java.io.File;
 import java.util.List;
-import java.util.function.Predicate;
 
 /** References from a glob to a list of files contained in the same blaze package. */
 public class GlobReference extends PsiPolyVariantCachingReference {
@@ -114,12 +112,8 @@ public class GlobReference extends PsiPolyVariantCachingReference {
     Project project = element.getProject();
     try {
       List<File> files =
-          UnixGlob.forPath(containingDirectory)
-              .addPatterns(includes)
-              .addExcludes(excludes)
-              .setExcludeDirectories(directoriesExcluded)
-              .setDirectoryFilter(directoryFilter(project, containingDirectory.getPath()))
-              .glob();
+          GlobCache.getInstance(project)
+              .glob(containingDirectory, includes, excludes, directoriesExcluded);
 
       List<ResolveResult> results = Lists.newArrayListWithCapacity(files.size());
       for (File file : files) {
@@ -135,17 +129,6 @@ public class GlobReference extends PsiPolyVariantCachingReference {
     }
   }
 
-  /** Don't traverse sub-directories which are themselves blaze packages */
-  private static Predicate<File> directoryFilter(Project project, String base) {
-    BuildSystemProvider provider = Blaze.getBuildSystemProvider(project);
-    return file -> {
-      if (base.equals(file.getPath())) {
-        return true;
-      }
-      return provider.findBuildFileInDirectory(file) == null;
-    };
-  }
-
   private static List<String> resolveListContents(Expression expr) {
     if (expr == null) {
       return ImmutableList.of();
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.lang.buildfile.search;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.idea.blaze.base.lang.buildfile.language.BuildFileType;
+import com.google.idea.blaze.base.lang.buildfile.psi.BuildFile;
+import com.google.idea.blaze.base.lang.buildfile.psi.StringLiteral;
+import com.google.idea.blaze.base.lang.buildfile.psi.util.PsiUtils;
+import com.google.idea.blaze.base.lang.buildfile.references.LabelUtils;
+import com.google.idea.blaze.base.model.primitives.Label;
+import com.google.idea.blaze.base.model.primitives.TargetName;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Indexes the string literals in BUILD and Skylark files which could be labels, by normalized label
+ * string. The values are the start offsets of the string literals within the file.
+ *
+ * <p>Absolute labels are normalized to their canonical form (e.g. '//foo' to '//foo:foo'). Which
+ * package a relative label is resolved against depends on files other than the one being indexed,
+ * so package-relative labels are instead keyed by ':' followed by their target name (e.g. both
+ * 'bar' and ':bar' to ':bar'), and resolved against the containing package at search time, by
+ * restricting the search to that package.
+ */
+public class BuildLabelIndex extends FileBasedIndexExtension<String, List<Integer>> {
+
+  public static final ID<String, List<Integer>> NAME = ID.create("BuildLabelIndex");
+
+  private static final int VERSION = 1;
+
+  /**
+   * The key under which string literals referencing the given label from any package are indexed.
+   */
+  public static String absoluteKey(Label label) {
+    return label.toString();
+  }
+
+  /**
+   * The key under which string literals referencing the given label from within its own package
+   * are indexed.
+   */
+  public static String packageLocalKey(Label label) {
+    return ":" + label.targetName();
+  }
+
+  /**
+   * Returns the key for the contents of a string literal, or null if it can't be a label. See
+   * {@link LabelUtils#createLabelFromString}.
+   */
+  @Nullable
+  static String getKey(String labelString) {
+    if (labelString.isEmpty()) {
+      return null;
+    }
+    if (LabelUtils.isAbsolute(labelString)) {
+      Label label = LabelUtils.createLabelFromString(null, labelString);
+      return label != null ? absoluteKey(label) : null;
+    }
+    if (labelString.indexOf(':') > 0) {
+      return null;
+    }
+    String targetName = LabelUtils.getRuleComponent(labelString);
+    return TargetName.validate(targetName) == null ? ":" + targetName : null;
+  }
+
+  @Override
+  public ID<String, List<Integer>> getName() {
+    return NAME;
+  }
+
+  @Override
+  public DataIndexer<String, List<Integer>, FileContent> getIndexer() {
+    return BuildLabelIndex::indexFile;
+  }
+
+  private static Map<String, List<Integer>> indexFile(FileContent content) {
+    PsiFile file = content.getPsiFile();
+    if (!(file instanceof BuildFile)) {
+      return ImmutableMap.of();
+    }
+    Map<String, List<Integer>> map = new HashMap<>();
+    for (StringLiteral literal :
+        PsiUtils.findAllChildrenOfClassRecursive(file, StringLiteral.class)) {
+      String key = getKey(literal.getStringContents());
+      if (key != null) {
+        map.computeIfAbsent(key, k -> new ArrayList<>()).add(literal.getTextOffset());
+      }
+    }
+    return map;
+  }
+
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @Override
+  public DataExternalizer<List<Integer>> getValueExternalizer() {
+    return OffsetsExternalizer.INSTANCE;
+  }
+
+  @Override
+  public int getVersion() {
+    return VERSION;
+  }
+
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return new DefaultFileTypeSpecificInputFilter(BuildFileType.INSTANCE);
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  /** Writes the sorted offsets as deltas, to keep them small. */
+  private static class OffsetsExternalizer implements DataExternalizer<List<Integer>> {
+    static final OffsetsExternalizer INSTANCE = new OffsetsExternalizer();
+
+    @Override
+    public void save(DataOutput out, List<Integer> offsets) throws IOException {
+      DataInputOutputUtil.writeINT(out, offsets.size());
+      int previous = 0;
+      for (int offset : offsets) {
+        DataInputOutputUtil.writeINT(out, offset - previous);
+        previous = offset;
+      }
+    }
+
+    @Override
+    public List<Integer> read(DataInput in) throws IOException {
+      int size = DataInputOutputUtil.readINT(in);
+      List<Integer> offsets = new ArrayList<>(size);
+      int previous = 0;
+      for (int i = 0; i < size; i++) {
+        previous += DataInputOutputUtil.readINT(in);
+        offsets.add(previous);
+      }
+      return offsets;
+    }
+  }
+}
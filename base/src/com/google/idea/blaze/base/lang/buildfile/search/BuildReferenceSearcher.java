@@ -17,17 +17,25 @@ package com.google.idea.blaze.base.lang.buildfile.search;
 
 import com.google.common.collect.Lists;
 import com.google.idea.blaze.base.lang.buildfile.language.BuildFileType;
+import com.google.idea.blaze.base.lang.buildfile.psi.AssignmentStatement;
 import com.google.idea.blaze.base.lang.buildfile.psi.BuildFile;
 import com.google.idea.blaze.base.lang.buildfile.psi.BuildFile.BlazeFileType;
 import com.google.idea.blaze.base.lang.buildfile.psi.FuncallExpression;
+import com.google.idea.blaze.base.lang.buildfile.psi.FunctionStatement;
 import com.google.idea.blaze.base.lang.buildfile.psi.NamedBuildElement;
+import com.google.idea.blaze.base.lang.buildfile.psi.StringLiteral;
 import com.google.idea.blaze.base.lang.buildfile.psi.util.PsiUtils;
 import com.google.idea.blaze.base.lang.buildfile.references.LabelUtils;
 import com.google.idea.blaze.base.model.primitives.Label;
+import com.google.idea.common.experiments.BoolExperiment;
 import com.intellij.openapi.application.QueryExecutorBase;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiDirectory;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
 import com.intellij.psi.PsiReference;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.LocalSearchScope;
@@ -35,12 +43,23 @@ import com.intellij.psi.search.SearchScope;
 import com.intellij.psi.search.UsageSearchContext;
 import com.intellij.psi.search.searches.ReferencesSearch.SearchParameters;
 import com.intellij.util.Processor;
+import com.intellij.util.indexing.FileBasedIndex;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nullable;
 
 /** String search for references in BUILD files */
 public class BuildReferenceSearcher extends QueryExecutorBase<PsiReference, SearchParameters> {
 
+  private static final BoolExperiment useLabelIndex =
+      new BoolExperiment("blaze.build.file.label.index", true);
+  private static final BoolExperiment useLoadedSymbolIndex =
+      new BoolExperiment("blaze.build.file.loaded.symbol.index", true);
+
   public BuildReferenceSearcher() {
     super(true);
   }
@@ -51,14 +70,14 @@ public class BuildReferenceSearcher extends QueryExecutorBase<PsiReference, Sear
     if (element instanceof NamedBuildElement) {
       String fnName = ((NamedBuildElement) element).getName();
       if (fnName != null) {
-        searchForString(params, element, fnName);
+        searchForString(params, limitScopeToLoadingFiles(params, element), element, fnName);
       }
       return;
     }
 
     PsiFile file = ResolveUtil.asFileSearch(element);
     if (file != null) {
-      processFileReferences(params, file);
+      processFileReferences(params, file, consumer);
       return;
     }
     if (!(element instanceof FuncallExpression)) {
@@ -74,6 +93,18 @@ public class BuildReferenceSearcher extends QueryExecutorBase<PsiReference, Sear
       searchForExternalWorkspace(params, localFile, funcall);
       return;
     }
+    if (canUseLabelIndex(params)) {
+      GlobalSearchScope scope = (GlobalSearchScope) params.getScopeDeterminedByUser();
+      if (processIndexedLabels(BuildLabelIndex.absoluteKey(label), scope, element, consumer)) {
+        // only a valid reference from local package -- restrict the search scope accordingly
+        processIndexedLabels(
+            BuildLabelIndex.packageLocalKey(label),
+            scope.intersectWith(GlobalSearchScope.fileScope(localFile)),
+            element,
+            consumer);
+      }
+      return;
+    }
     List<String> stringsToSearch = LabelUtils.getAllValidLabelStrings(label, true);
     for (String string : stringsToSearch) {
       if (LabelUtils.isAbsolute(string)) {
@@ -89,7 +120,8 @@ public class BuildReferenceSearcher extends QueryExecutorBase<PsiReference, Sear
   }
 
   /** Find all references to the given file within BUILD files. */
-  private void processFileReferences(SearchParameters params, PsiFile file) {
+  private void processFileReferences(
+      SearchParameters params, PsiFile file, Processor<? super PsiReference> consumer) {
     if (file instanceof BuildFile) {
       BuildFile buildFile = (BuildFile) file;
       processBuildFileReferences(params, buildFile);
@@ -107,6 +139,19 @@ public class BuildReferenceSearcher extends QueryExecutorBase<PsiReference, Sear
     if (label == null) {
       return;
     }
+    if (canUseLabelIndex(params)) {
+      GlobalSearchScope scope = (GlobalSearchScope) params.getScopeDeterminedByUser();
+      if (!(file instanceof BuildFile)
+          && !processIndexedLabels(BuildLabelIndex.absoluteKey(label), scope, file, consumer)) {
+        return;
+      }
+      processIndexedLabels(
+          BuildLabelIndex.packageLocalKey(label),
+          scope.intersectWith(blazePackage.getSearchScope(true)),
+          file,
+          consumer);
+      return;
+    }
     if (!(file instanceof BuildFile)) {
       // search globally, for an absolute label reference
       String absoluteLabel = String.format("//%s:%s", label.blazePackage(), label.targetName());
@@ -143,6 +188,103 @@ public class BuildReferenceSearcher extends QueryExecutorBase<PsiReference, Sear
     }
   }
 
+  /**
+   * Whether references can be found via the {@link BuildLabelIndex}, rather than searching for
+   * each possible label string. The index can't be queried while indexing.
+   */
+  private static boolean canUseLabelIndex(SearchParameters params) {
+    return useLabelIndex.getValue()
+        && params.getScopeDeterminedByUser() instanceof GlobalSearchScope
+        && !DumbService.isDumb(params.getProject());
+  }
+
+  /**
+   * Processes the references to the given element from the string literals indexed under the
+   * given {@link BuildLabelIndex} key.
+   *
+   * @return false if the consumer stopped processing
+   */
+  private static boolean processIndexedLabels(
+      String key,
+      GlobalSearchScope scope,
+      PsiElement element,
+      Processor<? super PsiReference> consumer) {
+    // collect the candidates first, rather than resolving references while accessing the index
+    Map<VirtualFile, List<Integer>> offsetsByFile = new LinkedHashMap<>();
+    FileBasedIndex.getInstance()
+        .processValues(
+            BuildLabelIndex.NAME,
+            key,
+            null,
+            (file, offsets) -> {
+              offsetsByFile.computeIfAbsent(file, f -> new ArrayList<>()).addAll(offsets);
+              return true;
+            },
+            scope);
+    PsiManager psiManager = element.getManager();
+    for (Map.Entry<VirtualFile, List<Integer>> entry : offsetsByFile.entrySet()) {
+      ProgressManager.checkCanceled();
+      PsiFile file = psiManager.findFile(entry.getKey());
+      if (file == null) {
+        continue;
+      }
+      for (int offset : entry.getValue()) {
+        StringLiteral literal =
+            PsiUtils.getParentOfType(file.findElementAt(offset), StringLiteral.class, false);
+        if (literal == null) {
+          continue;
+        }
+        for (PsiReference reference : literal.getReferences()) {
+          if (reference.isReferenceTo(element) && !consumer.process(reference)) {
+            return false;
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Elements declared in a Skylark extension can only be referenced from that file, and from files
+   * loading the top-level symbol they're declared within. Where possible, restricts the search
+   * scope to those files.
+   */
+  private static SearchScope limitScopeToLoadingFiles(SearchParameters params, PsiElement element) {
+    SearchScope scope = params.getScopeDeterminedByUser();
+    PsiFile file = element.getContainingFile();
+    if (!useLoadedSymbolIndex.getValue()
+        || !(scope instanceof GlobalSearchScope)
+        || !(file instanceof BuildFile)
+        || ((BuildFile) file).getBlazeFileType() != BlazeFileType.SkylarkExtension
+        || file.getVirtualFile() == null
+        || DumbService.isDumb(params.getProject())) {
+      return scope;
+    }
+    String symbol = getTopLevelSymbol(file, element);
+    if (symbol == null) {
+      return scope;
+    }
+    Set<VirtualFile> files =
+        new HashSet<>(LoadedSymbolIndex.getLoadingFiles(symbol, (GlobalSearchScope) scope));
+    files.add(file.getVirtualFile());
+    return scope.intersectWith(GlobalSearchScope.filesScope(params.getProject(), files));
+  }
+
+  /** The name of the top-level function or variable the element is declared within, if any. */
+  @Nullable
+  private static String getTopLevelSymbol(PsiFile file, PsiElement element) {
+    while (element != null && element.getParent() != file) {
+      element = element.getParent();
+    }
+    if (element instanceof FunctionStatement) {
+      return ((FunctionStatement) element).getName();
+    }
+    if (element instanceof AssignmentStatement) {
+      return ((AssignmentStatement) element).getName();
+    }
+    return null;
+  }
+
   /**
    * Search for package-local references.<br>
    * Returns null if the resulting scope is empty
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.lang.buildfile.search;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.idea.blaze.base.lang.buildfile.language.BuildFileType;
+import com.google.idea.blaze.base.lang.buildfile.psi.BuildFile;
+import com.google.idea.blaze.base.lang.buildfile.psi.FuncallExpression;
+import com.google.idea.common.experiments.BoolExperiment;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Indexes the top-level rules in BUILD and Skylark files, from the value of their 'name' argument
+ * to the function called (i.e. the rule kind). See {@link BuildFile#findRule}.
+ */
+public class BuildRuleIndex extends FileBasedIndexExtension<String, String> {
+
+  public static final ID<String, String> NAME = ID.create("BuildRuleIndex");
+
+  private static final int VERSION = 1;
+
+  private static final BoolExperiment enabled =
+      new BoolExperiment("blaze.build.file.rule.index", true);
+
+  /**
+   * Returns the kinds of the top-level rules in the given file, by rule name, or null if the
+   * file's PSI should be used instead. That's the case if the file has already been parsed, or it
+   * can't be looked up in the index.
+   */
+  @Nullable
+  public static Map<String, String> getRules(BuildFile file) {
+    if (!enabled.getValue() || file.isContentsLoaded() || !file.isPhysical()) {
+      return null;
+    }
+    VirtualFile virtualFile = file.getVirtualFile();
+    if (virtualFile == null || DumbService.isDumb(file.getProject())) {
+      return null;
+    }
+    return FileBasedIndex.getInstance().getFileData(NAME, virtualFile, file.getProject());
+  }
+
+  @Override
+  public ID<String, String> getName() {
+    return NAME;
+  }
+
+  @Override
+  public DataIndexer<String, String, FileContent> getIndexer() {
+    return BuildRuleIndex::indexFile;
+  }
+
+  private static Map<String, String> indexFile(FileContent content) {
+    PsiFile file = content.getPsiFile();
+    if (!(file instanceof BuildFile)) {
+      return ImmutableMap.of();
+    }
+    Map<String, String> map = new HashMap<>();
+    for (FuncallExpression rule : ((BuildFile) file).childrenOfClass(FuncallExpression.class)) {
+      String name = rule.getNameArgumentValue();
+      String kind = rule.getFunctionName();
+      if (name != null && kind != null) {
+        // findRule returns the first rule with a given name
+        map.putIfAbsent(name, kind);
+      }
+    }
+    return map;
+  }
+
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @Override
+  public DataExternalizer<String> getValueExternalizer() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @Override
+  public int getVersion() {
+    return VERSION;
+  }
+
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return new DefaultFileTypeSpecificInputFilter(BuildFileType.INSTANCE);
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+}
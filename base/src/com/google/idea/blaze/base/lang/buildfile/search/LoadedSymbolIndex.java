@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.lang.buildfile.search;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.idea.blaze.base.lang.buildfile.language.BuildFileType;
+import com.google.idea.blaze.base.lang.buildfile.psi.BuildFile;
+import com.google.idea.blaze.base.lang.buildfile.psi.LoadStatement;
+import com.google.idea.blaze.base.lang.buildfile.psi.LoadedSymbol;
+import com.google.idea.blaze.base.lang.buildfile.psi.StringLiteral;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.indexing.ScalarIndexExtension;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Indexes the symbols loaded by BUILD and Skylark files, by their name in the loaded extension
+ * (i.e. ignoring any alias).
+ */
+public class LoadedSymbolIndex extends ScalarIndexExtension<String> {
+
+  public static final ID<String, Void> NAME = ID.create("BuildLoadedSymbolIndex");
+
+  private static final int VERSION = 1;
+
+  /** Returns the files within the given scope which load a symbol with the given name. */
+  public static Collection<VirtualFile> getLoadingFiles(String symbol, GlobalSearchScope scope) {
+    return FileBasedIndex.getInstance().getContainingFiles(NAME, symbol, scope);
+  }
+
+  @Override
+  public ID<String, Void> getName() {
+    return NAME;
+  }
+
+  @Override
+  public DataIndexer<String, Void, FileContent> getIndexer() {
+    return LoadedSymbolIndex::indexFile;
+  }
+
+  private static Map<String, Void> indexFile(FileContent content) {
+    PsiFile file = content.getPsiFile();
+    if (!(file instanceof BuildFile)) {
+      return ImmutableMap.of();
+    }
+    Map<String, Void> map = new HashMap<>();
+    for (LoadStatement load : ((BuildFile) file).childrenOfClass(LoadStatement.class)) {
+      for (LoadedSymbol symbol : load.getImportedSymbolElements()) {
+        StringLiteral loaded = symbol.getImport();
+        if (loaded != null) {
+          map.put(loaded.getStringContents(), null);
+        }
+      }
+    }
+    return map;
+  }
+
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @Override
+  public int getVersion() {
+    return VERSION;
+  }
+
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return new DefaultFileTypeSpecificInputFilter(BuildFileType.INSTANCE);
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** A monotonically increasing count, cheap to update from many threads at once. */
+public final class Counter {
+
+  private final LongAdder count = new LongAdder();
+
+  Counter() {}
+
+  public void increment() {
+    count.increment();
+  }
+
+  public void add(long delta) {
+    count.add(delta);
+  }
+
+  public long get() {
+    return count.sum();
+  }
+}
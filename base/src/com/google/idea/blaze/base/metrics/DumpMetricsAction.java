@@ -0,0 +1,59 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.metrics;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/** Internal action writing the current {@link MetricsRegistry} values to a JSON file. */
+public class DumpMetricsAction extends AnAction implements DumbAware {
+
+  private static final Logger logger = Logger.getInstance(DumpMetricsAction.class);
+
+  @Override
+  public void actionPerformed(AnActionEvent e) {
+    String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+    File file = new File(PathManager.getLogPath(), "blaze-metrics-" + timestamp + ".json");
+    try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+      MetricsRegistry.getInstance().writeJson(writer);
+    } catch (IOException ex) {
+      logger.warn("Failed to write metrics to " + file, ex);
+      Messages.showErrorDialog(e.getProject(), ex.getMessage(), "Failed to Dump Metrics");
+      return;
+    }
+    logger.info("Metrics written to " + file);
+    Project project = e.getProject();
+    VirtualFile virtualFile = LocalFileSystem.getInstance().refreshAndFindFileByIoFile(file);
+    if (project != null && virtualFile != null) {
+      FileEditorManager.getInstance(project).openFile(virtualFile, /* focusEditor= */ true);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.metrics;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records how long tasks wait in the queue and how long they run, along with the number of queued
+ * and running tasks.
+ */
+final class InstrumentedExecutorService extends AbstractExecutorService {
+
+  private final ExecutorService delegate;
+  private final LatencyHistogram queueTime;
+  private final LatencyHistogram runTime;
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicInteger running = new AtomicInteger();
+
+  InstrumentedExecutorService(MetricsRegistry registry, String name, ExecutorService delegate) {
+    this.delegate = delegate;
+    this.queueTime = registry.histogram(name + ".queue_time");
+    this.runTime = registry.histogram(name + ".run_time");
+    registry.gauge(name + ".queued", queued::get);
+    registry.gauge(name + ".running", running::get);
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    long submitted = System.nanoTime();
+    queued.incrementAndGet();
+    try {
+      delegate.execute(
+          () -> {
+            long started = System.nanoTime();
+            queued.decrementAndGet();
+            running.incrementAndGet();
+            queueTime.recordNanos(started - submitted);
+            try {
+              command.run();
+            } finally {
+              running.decrementAndGet();
+              runTime.recordSince(started);
+            }
+          });
+    } catch (RuntimeException e) {
+      queued.decrementAndGet();
+      throw e;
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    delegate.shutdown();
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    return delegate.shutdownNow();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return delegate.isShutdown();
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return delegate.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return delegate.awaitTermination(timeout, unit);
+  }
+}
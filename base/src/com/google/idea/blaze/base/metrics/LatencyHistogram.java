@@ -0,0 +1,147 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.metrics;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.annotations.VisibleForTesting;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in microseconds, with a bounded relative error (HdrHistogram-style
+ * log-linear buckets).
+ *
+ * <p>Each power of two is split into 16 linear sub-buckets, so recorded values are accurate to
+ * within ~6%. Buckets are striped by thread to keep concurrent updates cheap.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // values above 2^40us (~12 days) are clamped into the last bucket
+  private static final int MAX_MAGNITUDE = 40;
+  private static final int BUCKETS = bucketIndex((1L << (MAX_MAGNITUDE + 1)) - 1) + 1;
+  private static final int STRIPES = 4;
+
+  private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+  private final LongAdder sumMicros = new LongAdder();
+  private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+  LatencyHistogram() {
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new AtomicLongArray(BUCKETS);
+    }
+  }
+
+  public void recordNanos(long nanos) {
+    recordMicros(TimeUnit.NANOSECONDS.toMicros(nanos));
+  }
+
+  public void recordMicros(long micros) {
+    micros = Math.max(0, micros);
+    int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+    stripes[stripe].incrementAndGet(bucketIndex(micros));
+    sumMicros.add(micros);
+    maxMicros.accumulate(micros);
+  }
+
+  /** Records the time elapsed since the given {@link System#nanoTime()}. */
+  public void recordSince(long startNanos) {
+    recordNanos(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Returns summary statistics of the values recorded so far. Values recorded concurrently may or
+   * may not be included.
+   */
+  public Snapshot snapshot() {
+    long[] counts = new long[BUCKETS];
+    long total = 0;
+    for (AtomicLongArray stripe : stripes) {
+      for (int i = 0; i < BUCKETS; i++) {
+        long count = stripe.get(i);
+        counts[i] += count;
+        total += count;
+      }
+    }
+    long max = maxMicros.get();
+    return Snapshot.create(
+        total,
+        total == 0 ? 0 : sumMicros.sum() / total,
+        Math.min(max, percentile(counts, total, 0.5)),
+        Math.min(max, percentile(counts, total, 0.9)),
+        Math.min(max, percentile(counts, total, 0.99)),
+        max);
+  }
+
+  private static long percentile(long[] counts, long total, double percentile) {
+    if (total == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(percentile * total);
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return bucketUpperBound(i);
+      }
+    }
+    return bucketUpperBound(counts.length - 1);
+  }
+
+  @VisibleForTesting
+  static int bucketIndex(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    int magnitude = Math.min(63 - Long.numberOfLeadingZeros(micros), MAX_MAGNITUDE);
+    int shift = magnitude - SUB_BUCKET_BITS;
+    int subBucket = (int) Math.min((micros >>> shift) - SUB_BUCKETS, SUB_BUCKETS - 1);
+    return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+  }
+
+  @VisibleForTesting
+  static long bucketUpperBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+    long subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+    return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+  }
+
+  /** Summary statistics of a {@link LatencyHistogram}, all in microseconds. */
+  @AutoValue
+  public abstract static class Snapshot {
+    public abstract long count();
+
+    public abstract long meanMicros();
+
+    public abstract long p50Micros();
+
+    public abstract long p90Micros();
+
+    public abstract long p99Micros();
+
+    public abstract long maxMicros();
+
+    static Snapshot create(long count, long mean, long p50, long p90, long p99, long max) {
+      return new AutoValue_LatencyHistogram_Snapshot(count, mean, p50, p90, p99, max);
+    }
+  }
+}
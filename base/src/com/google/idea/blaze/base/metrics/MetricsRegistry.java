@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.metrics;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.LongSupplier;
+
+/**
+ * Live counters, gauges and latency histograms of the plugin's sync, cache and prefetch
+ * subsystems.
+ *
+ * <p>Unlike the sync stats logged once per sync, these are always up to date, so they can be
+ * inspected while an operation is running (see {@link DumpMetricsAction}). Metrics are created on
+ * first use and live for the lifetime of the application; names are dot-separated, with the
+ * subsystem first.
+ */
+public final class MetricsRegistry {
+
+  private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+  public static MetricsRegistry getInstance() {
+    return INSTANCE;
+  }
+
+  private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+  private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+  private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+  @VisibleForTesting
+  MetricsRegistry() {}
+
+  /** Returns the counter with the given name, creating it if necessary. */
+  public Counter counter(String name) {
+    return counters.computeIfAbsent(name, n -> new Counter());
+  }
+
+  /** Registers a gauge, replacing any previous gauge with the same name. */
+  public void gauge(String name, LongSupplier value) {
+    gauges.put(name, value);
+  }
+
+  /** Returns the latency histogram with the given name, creating it if necessary. */
+  public LatencyHistogram histogram(String name) {
+    return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+  }
+
+  /**
+   * Wraps the given executor, recording the queue and run times of its tasks, and the number of
+   * queued and running tasks, under the given name.
+   */
+  public ExecutorService instrument(String name, ExecutorService executor) {
+    return new InstrumentedExecutorService(this, name, executor);
+  }
+
+  /** Writes the current value of every metric as a JSON object. */
+  public void writeJson(Writer out) throws IOException {
+    JsonWriter json = new JsonWriter(out);
+    json.setIndent("  ");
+    json.beginObject();
+
+    json.name("counters").beginObject();
+    for (Map.Entry<String, Counter> entry : ImmutableSortedMap.copyOf(counters).entrySet()) {
+      json.name(entry.getKey()).value(entry.getValue().get());
+    }
+    json.endObject();
+
+    json.name("gauges").beginObject();
+    for (Map.Entry<String, LongSupplier> entry : ImmutableSortedMap.copyOf(gauges).entrySet()) {
+      json.name(entry.getKey()).value(entry.getValue().getAsLong());
+    }
+    json.endObject();
+
+    json.name("histograms").beginObject();
+    for (Map.Entry<String, LatencyHistogram> entry :
+        ImmutableSortedMap.copyOf(histograms).entrySet()) {
+      LatencyHistogram.Snapshot snapshot = entry.getValue().snapshot();
+      json.name(entry.getKey()).beginObject();
+      json.name("count").value(snapshot.count());
+      json.name("meanMicros").value(snapshot.meanMicros());
+      json.name("p50Micros").value(snapshot.p50Micros());
+      json.name("p90Micros").value(snapshot.p90Micros());
+      json.name("p99Micros").value(snapshot.p99Micros());
+      json.name("maxMicros").value(snapshot.maxMicros());
+      json.endObject();
+    }
+    json.endObject();
+
+    json.endObject();
+    json.flush();
+  }
+}
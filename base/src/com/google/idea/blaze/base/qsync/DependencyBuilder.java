@@ -20,8 +20,10 @@ import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.joining;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Functions;
 import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.devtools.intellij.qsync.ArtifactTrackerData;
@@ -49,17 +51,17 @@ import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy;
 import com.google.idea.blaze.base.sync.projectview.ImportRoots;
 import com.google.idea.blaze.common.Label;
 import com.google.idea.blaze.qsync.BlazeQueryParser;
-import com.google.protobuf.TextFormat;
 import com.intellij.ide.plugins.IdeaPluginDescriptor;
 import com.intellij.ide.plugins.PluginManager;
 import com.intellij.openapi.project.Project;
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -154,15 +156,43 @@ public class DependencyBuilder {
         artifactInfoFilesBuilder.build());
   }
 
+  /**
+   * Reads a target info file written by the {@code package_dependencies} aspect.
+   *
+   * <p>The first line is the top-level target. Each following line holds a dependency target and
+   * the output-relative paths of its artifacts, tab separated.
+   */
   private ArtifactTrackerData.TargetToDeps readArtifactInfoFile(BlazeArtifact file)
       throws IOException {
-    try (InputStream inputStream = file.getInputStream()) {
-      ArtifactTrackerData.TargetToDeps.Builder builder =
-          ArtifactTrackerData.TargetToDeps.newBuilder();
-      TextFormat.Parser parser = TextFormat.Parser.newBuilder().build();
-      parser.merge(new InputStreamReader(inputStream, UTF_8), builder);
+    try (BufferedReader reader =
+        new BufferedReader(new InputStreamReader(file.getInputStream(), UTF_8))) {
+      return parseArtifactInfo(reader);
+    }
+  }
+
+  @VisibleForTesting
+  static ArtifactTrackerData.TargetToDeps parseArtifactInfo(BufferedReader reader)
+      throws IOException {
+    ArtifactTrackerData.TargetToDeps.Builder builder =
+        ArtifactTrackerData.TargetToDeps.newBuilder();
+    String target = reader.readLine();
+    if (target == null) {
       return builder.build();
     }
+    builder.setTarget(target);
+    Splitter splitter = Splitter.on('\t').omitEmptyStrings();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      Iterator<String> parts = splitter.split(line).iterator();
+      if (!parts.hasNext()) {
+        continue;
+      }
+      ArtifactTrackerData.TargetToDirectArtifact.Builder dep =
+          ArtifactTrackerData.TargetToDirectArtifact.newBuilder().setTarget(parts.next());
+      parts.forEachRemaining(dep::addArtifactPaths);
+      builder.addDeps(dep);
+    }
+    return builder.build();
   }
 
   private static String directoryToLabel(WorkspacePath directory) {
@@ -33,6 +33,9 @@ import com.google.idea.blaze.base.command.buildresult.BlazeArtifact;
 import com.google.idea.blaze.base.command.buildresult.BlazeArtifact.LocalFileArtifact;
 import com.google.idea.blaze.base.command.buildresult.OutputArtifact;
 import com.google.idea.blaze.base.io.FileOperationProvider;
+import com.google.idea.blaze.base.metrics.Counter;
+import com.google.idea.blaze.base.metrics.LatencyHistogram;
+import com.google.idea.blaze.base.metrics.MetricsRegistry;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.util.PathUtil;
@@ -58,6 +61,17 @@ public class JarCache {
           AppExecutorUtil.createBoundedApplicationPoolExecutor("JarCacheExecutor", 128));
   private static final Logger logger = Logger.getInstance(JarCache.class);
 
+  private static final LatencyHistogram copyTime =
+      MetricsRegistry.getInstance().histogram("qsync_jar_cache.copy_time");
+  private static final Counter jarsCopied =
+      MetricsRegistry.getInstance().counter("qsync_jar_cache.copied");
+  private static final Counter jarsRemoved =
+      MetricsRegistry.getInstance().counter("qsync_jar_cache.removed");
+  private static final Counter cacheHits =
+      MetricsRegistry.getInstance().counter("qsync_jar_cache.hits");
+  private static final Counter cacheMisses =
+      MetricsRegistry.getInstance().counter("qsync_jar_cache.misses");
+
   // TODO(xinruiy): check if need to provide multi-threading support.
   // Map from local cache key to the local cached file. The local cache key is generated from the
   // OutputArtifact.getKey(). We keep the map in memory to avoid too many IO when finding the local
@@ -122,7 +136,10 @@ public class JarCache {
           EXECUTOR.submit(
               () -> {
                 Path destination = cacheDir.resolve(cacheKeyForArtifact(toUpdateArtifact.getKey()));
+                long start = System.nanoTime();
                 copyLocally(toUpdateArtifact, destination);
+                copyTime.recordSince(start);
+                jarsCopied.increment();
                 return destination;
               }));
     }
@@ -166,7 +183,9 @@ public class JarCache {
                   if (file.isPresent()) {
                     return EXECUTOR.submit(
                         () -> {
-                          Files.deleteIfExists(file.get());
+                          if (Files.deleteIfExists(file.get())) {
+                            jarsRemoved.increment();
+                          }
                           return artifactKey;
                         });
                   }
@@ -193,7 +212,13 @@ public class JarCache {
   @Nullable
   public Optional<Path> get(String artifactKey) {
     String key = cacheKeyForArtifact(artifactKey);
-    return Optional.ofNullable(cacheState.get(key));
+    Path path = cacheState.get(key);
+    if (path != null) {
+      cacheHits.increment();
+    } else {
+      cacheMisses.increment();
+    }
+    return Optional.ofNullable(path);
   }
 
   private static String cacheKeyForArtifact(String artifactKey) {
@@ -29,6 +29,12 @@ import com.intellij.psi.PsiElement;
 public abstract class BlazeRunConfigurationProducer<T extends RunConfiguration>
     extends RunConfigurationProducer<T> {
 
+  // producers run on every context menu and gutter icon computation, so their latency is reported
+  private final ProducerLatencyStats setupLatency =
+      new ProducerLatencyStats(getClass(), "setup-config-from-context");
+  private final ProducerLatencyStats isConfigLatency =
+      new ProducerLatencyStats(getClass(), "is-config-from-context");
+
   protected BlazeRunConfigurationProducer(ConfigurationType configurationType) {
     super(configurationType);
   }
@@ -54,7 +60,12 @@ public abstract class BlazeRunConfigurationProducer<T extends RunConfiguration>
     if (!validContext(context)) {
       return false;
     }
-    return doSetupConfigFromContext(configuration, context, sourceElement);
+    long start = System.nanoTime();
+    try {
+      return doSetupConfigFromContext(configuration, context, sourceElement);
+    } finally {
+      setupLatency.record(System.nanoTime() - start);
+    }
   }
 
   protected abstract boolean doSetupConfigFromContext(
@@ -68,7 +79,12 @@ public abstract class BlazeRunConfigurationProducer<T extends RunConfiguration>
     if (!validContext(context)) {
       return false;
     }
-    return doIsConfigFromContext(configuration, context);
+    long start = System.nanoTime();
+    try {
+      return doIsConfigFromContext(configuration, context);
+    } finally {
+      isConfigLatency.record(System.nanoTime() - start);
+    }
   }
 
   protected abstract boolean doIsConfigFromContext(T configuration, ConfigurationContext context);
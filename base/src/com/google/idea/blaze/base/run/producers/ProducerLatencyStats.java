@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.run.producers;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.idea.blaze.base.logging.EventLoggingService;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Collects the latencies of a run configuration producer, and periodically reports their
+ * percentiles via {@link EventLoggingService}.
+ */
+final class ProducerLatencyStats {
+
+  private static final int SAMPLES_PER_REPORT = 500;
+
+  private final Class<?> loggingClass;
+  private final String eventType;
+  private final long[] samples;
+  private int count = 0;
+
+  ProducerLatencyStats(Class<?> loggingClass, String eventType) {
+    this(loggingClass, eventType, SAMPLES_PER_REPORT);
+  }
+
+  @VisibleForTesting
+  ProducerLatencyStats(Class<?> loggingClass, String eventType, int samplesPerReport) {
+    this.loggingClass = loggingClass;
+    this.eventType = eventType;
+    this.samples = new long[samplesPerReport];
+  }
+
+  void record(long durationNanos) {
+    ImmutableMap<String, String> report = recordAndMaybeSummarize(durationNanos);
+    if (report != null) {
+      EventLoggingService.getInstance().logEvent(loggingClass, eventType, report);
+    }
+  }
+
+  /** Records a sample, returning a summary of all samples once enough have been collected. */
+  @VisibleForTesting
+  @Nullable
+  synchronized ImmutableMap<String, String> recordAndMaybeSummarize(long durationNanos) {
+    samples[count++] = durationNanos;
+    if (count < samples.length) {
+      return null;
+    }
+    long[] sorted = samples.clone();
+    Arrays.sort(sorted);
+    ImmutableMap<String, String> summary =
+        ImmutableMap.<String, String>builder()
+            .put("count", Integer.toString(count))
+            .put("p50Micros", toMicros(percentile(sorted, 50)))
+            .put("p90Micros", toMicros(percentile(sorted, 90)))
+            .put("p99Micros", toMicros(percentile(sorted, 99)))
+            .put("maxMicros", toMicros(sorted[sorted.length - 1]))
+            .build();
+    count = 0;
+    return summary;
+  }
+
+  private static long percentile(long[] sorted, int percentile) {
+    int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+  }
+
+  private static String toMicros(long nanos) {
+    return Long.toString(TimeUnit.NANOSECONDS.toMicros(nanos));
+  }
+}
@@ -15,45 +15,46 @@
  */
 package com.google.idea.blaze.base.run.testmap;
 
-import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Queues;
-import com.google.common.collect.Sets;
+import com.google.common.collect.Iterables;
 import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
-import com.google.idea.blaze.base.ideinfo.TargetKey;
 import com.google.idea.blaze.base.ideinfo.TargetMap;
 import com.google.idea.blaze.base.model.BlazeProjectData;
 import com.google.idea.blaze.base.sync.data.BlazeProjectDataManager;
-import com.google.idea.blaze.base.sync.workspace.ArtifactLocationDecoder;
-import com.google.idea.blaze.base.targetmaps.ReverseDependencyMap;
 import com.intellij.openapi.project.Project;
 import java.io.File;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Objects;
-import java.util.Queue;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Predicate;
 
-/** Filters a {@link TargetMap} according to a given filter. */
+/**
+ * Filters a {@link TargetMap} according to a given filter.
+ *
+ * <p>Lookups walk the {@link ReverseDependencyGraph} of the current sync, which is shared by all
+ * instances. Results for single source files are memoized.
+ */
 public class FilteredTargetMap {
 
   private final Project project;
-  private final Multimap<File, TargetKey> rootsMap;
-  private final TargetMap targetMap;
-  private final Predicate<TargetIdeInfo> filter;
+  private final ReverseDependencyGraph graph;
+  private final BitSet matchesFilter;
+  private final ConcurrentMap<File, ImmutableSet<TargetIdeInfo>> sourceFileCache =
+      new ConcurrentHashMap<>();
 
-  public FilteredTargetMap(
-      Project project,
-      ArtifactLocationDecoder decoder,
-      TargetMap targetMap,
-      Predicate<TargetIdeInfo> filter) {
+  FilteredTargetMap(
+      Project project, ReverseDependencyGraph graph, Predicate<TargetIdeInfo> filter) {
     this.project = project;
-    this.rootsMap = createRootsMap(decoder, targetMap.targets());
-    this.targetMap = targetMap;
-    this.filter = filter;
+    this.graph = graph;
+    this.matchesFilter = graph.matching(filter);
+  }
+
+  /** Returns a map of the given sync data, sharing its reverse dependency graph. */
+  public static FilteredTargetMap create(
+      Project project, BlazeProjectData projectData, Predicate<TargetIdeInfo> filter) {
+    return new FilteredTargetMap(project, ReverseDependencyGraph.get(project, projectData), filter);
   }
 
   public ImmutableSet<TargetIdeInfo> targetsForSourceFile(File sourceFile) {
@@ -63,47 +64,23 @@ public class FilteredTargetMap {
   public ImmutableSet<TargetIdeInfo> targetsForSourceFiles(Collection<File> sourceFiles) {
     BlazeProjectData blazeProjectData =
         BlazeProjectDataManager.getInstance(project).getBlazeProjectData();
-    if (blazeProjectData != null) {
-      return targetsForSourceFilesImpl(ReverseDependencyMap.get(project), sourceFiles);
+    if (blazeProjectData == null) {
+      return ImmutableSet.of();
     }
-    return ImmutableSet.of();
-  }
-
-  private ImmutableSet<TargetIdeInfo> targetsForSourceFilesImpl(
-      ImmutableMultimap<TargetKey, TargetKey> rdepsMap, Collection<File> sourceFiles) {
-    ImmutableSet.Builder<TargetIdeInfo> result = ImmutableSet.builder();
-    Set<TargetKey> roots =
-        sourceFiles.stream()
-            .flatMap(f -> rootsMap.get(f).stream())
-            .collect(ImmutableSet.toImmutableSet());
-
-    Queue<TargetKey> todo = Queues.newArrayDeque();
-    todo.addAll(roots);
-    Set<TargetKey> seen = Sets.newHashSet();
-    while (!todo.isEmpty()) {
-      TargetKey targetKey = todo.remove();
-      if (!seen.add(targetKey)) {
-        continue;
-      }
-
-      TargetIdeInfo target = targetMap.get(targetKey);
-      if (filter.test(target)) {
-        result.add(target);
-      }
-      todo.addAll(rdepsMap.get(targetKey));
+    if (sourceFiles.size() == 1) {
+      return targetsForSourceFileCached(Iterables.getOnlyElement(sourceFiles));
     }
+    // the targets reachable from several files are the union of those reachable from each
+    ImmutableSet.Builder<TargetIdeInfo> result = ImmutableSet.builder();
+    sourceFiles.forEach(f -> result.addAll(targetsForSourceFileCached(f)));
     return result.build();
   }
 
-  private static Multimap<File, TargetKey> createRootsMap(
-      ArtifactLocationDecoder decoder, Collection<TargetIdeInfo> targets) {
-    Multimap<File, TargetKey> result = ArrayListMultimap.create();
-    for (TargetIdeInfo target : targets) {
-      target.getSources().stream()
-          .map(decoder::resolveSource)
-          .filter(Objects::nonNull)
-          .forEach(f -> result.put(f, target.getKey()));
-    }
-    return result;
+  private ImmutableSet<TargetIdeInfo> targetsForSourceFileCached(File sourceFile) {
+    return sourceFileCache.computeIfAbsent(sourceFile, this::targetsForSourceFileImpl);
+  }
+
+  private ImmutableSet<TargetIdeInfo> targetsForSourceFileImpl(File sourceFile) {
+    return graph.reachableTargets(sourceFile, matchesFilter);
   }
 }
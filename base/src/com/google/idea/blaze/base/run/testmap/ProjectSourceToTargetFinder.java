@@ -22,12 +22,10 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.Futures;
 import com.google.idea.blaze.base.dependencies.TargetInfo;
 import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
-import com.google.idea.blaze.base.ideinfo.TargetMap;
 import com.google.idea.blaze.base.model.BlazeProjectData;
 import com.google.idea.blaze.base.model.primitives.RuleType;
 import com.google.idea.blaze.base.run.SourceToTargetFinder;
 import com.google.idea.blaze.base.sync.SyncCache;
-import com.google.idea.blaze.base.sync.workspace.ArtifactLocationDecoder;
 import com.intellij.openapi.project.Project;
 import java.io.File;
 import java.util.Collection;
@@ -60,12 +58,6 @@ public class ProjectSourceToTargetFinder implements SourceToTargetFinder {
   }
 
   private static FilteredTargetMap computeTargetMap(Project project, BlazeProjectData projectData) {
-    return computeTargetMap(
-        project, projectData.getArtifactLocationDecoder(), projectData.getTargetMap());
-  }
-
-  private static FilteredTargetMap computeTargetMap(
-      Project project, ArtifactLocationDecoder decoder, TargetMap targetMap) {
-    return new FilteredTargetMap(project, decoder, targetMap, t -> true);
+    return FilteredTargetMap.create(project, projectData, t -> true);
   }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.run.testmap;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+import com.google.common.primitives.Ints;
+import com.google.idea.blaze.base.ideinfo.Dependency;
+import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
+import com.google.idea.blaze.base.ideinfo.TargetKey;
+import com.google.idea.blaze.base.ideinfo.TargetMap;
+import com.google.idea.blaze.base.model.BlazeProjectData;
+import com.google.idea.blaze.base.sync.SyncCache;
+import com.google.idea.blaze.base.sync.workspace.ArtifactLocationDecoder;
+import com.intellij.openapi.project.Project;
+import java.io.File;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * The reverse dependency graph of a {@link TargetMap}, in a compact form: targets are numbered,
+ * and the rdeps of each target are a range of a single int array.
+ *
+ * <p>It is built once per sync, and shared by all {@link FilteredTargetMap}s.
+ */
+final class ReverseDependencyGraph {
+
+  // all targets, indexed by their id
+  private final TargetIdeInfo[] targets;
+  // the rdeps of target i are rdeps[rdepsOffsets[i]] to rdeps[rdepsOffsets[i + 1] - 1]
+  private final int[] rdepsOffsets;
+  private final int[] rdeps;
+  // the ids of the targets each source file belongs to
+  private final ImmutableMap<File, int[]> rootsMap;
+
+  private ReverseDependencyGraph(
+      TargetIdeInfo[] targets, int[] rdepsOffsets, int[] rdeps, ImmutableMap<File, int[]> roots) {
+    this.targets = targets;
+    this.rdepsOffsets = rdepsOffsets;
+    this.rdeps = rdeps;
+    this.rootsMap = roots;
+  }
+
+  /** Returns the graph of the current sync, computing it if necessary. */
+  static ReverseDependencyGraph get(Project project, BlazeProjectData projectData) {
+    ReverseDependencyGraph graph =
+        SyncCache.getInstance(project)
+            .get(
+                ReverseDependencyGraph.class,
+                (p, data) -> create(data.getArtifactLocationDecoder(), data.getTargetMap()));
+    return graph != null
+        ? graph
+        : create(projectData.getArtifactLocationDecoder(), projectData.getTargetMap());
+  }
+
+  static ReverseDependencyGraph create(ArtifactLocationDecoder decoder, TargetMap targetMap) {
+    TargetIdeInfo[] targets = targetMap.targets().toArray(new TargetIdeInfo[0]);
+    Map<TargetKey, Integer> ids = new HashMap<>(targets.length * 2);
+    for (int i = 0; i < targets.length; i++) {
+      ids.put(targets[i].getKey(), i);
+    }
+    int[] rdepsOffsets = new int[targets.length + 1];
+    for (TargetIdeInfo target : targets) {
+      for (Dependency dep : target.getDependencies()) {
+        Integer depId = ids.get(dep.getTargetKey());
+        if (depId != null) {
+          rdepsOffsets[depId + 1]++;
+        }
+      }
+    }
+    for (int i = 0; i < targets.length; i++) {
+      rdepsOffsets[i + 1] += rdepsOffsets[i];
+    }
+    int[] rdeps = new int[rdepsOffsets[targets.length]];
+    int[] next = Arrays.copyOf(rdepsOffsets, targets.length);
+    for (int i = 0; i < targets.length; i++) {
+      for (Dependency dep : targets[i].getDependencies()) {
+        Integer depId = ids.get(dep.getTargetKey());
+        if (depId != null) {
+          rdeps[next[depId]++] = i;
+        }
+      }
+    }
+    return new ReverseDependencyGraph(
+        targets, rdepsOffsets, rdeps, createRootsMap(decoder, targets));
+  }
+
+  /** Returns the ids of the targets matching the filter. */
+  BitSet matching(Predicate<TargetIdeInfo> filter) {
+    BitSet result = new BitSet(targets.length);
+    for (int i = 0; i < targets.length; i++) {
+      if (filter.test(targets[i])) {
+        result.set(i);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the targets in {@code matching} which contain the source file, or transitively depend
+   * on a target containing it.
+   */
+  ImmutableSet<TargetIdeInfo> reachableTargets(File sourceFile, BitSet matching) {
+    int[] roots = rootsMap.get(sourceFile);
+    if (roots == null) {
+      return ImmutableSet.of();
+    }
+    ImmutableSet.Builder<TargetIdeInfo> result = ImmutableSet.builder();
+    BitSet seen = new BitSet(targets.length);
+    int[] todo = new int[Math.max(roots.length, 16)];
+    int head = 0;
+    int tail = 0;
+    for (int root : roots) {
+      if (!seen.get(root)) {
+        seen.set(root);
+        todo[tail++] = root;
+      }
+    }
+    while (head < tail) {
+      int id = todo[head++];
+      if (matching.get(id)) {
+        result.add(targets[id]);
+      }
+      for (int i = rdepsOffsets[id]; i < rdepsOffsets[id + 1]; i++) {
+        int rdep = rdeps[i];
+        if (seen.get(rdep)) {
+          continue;
+        }
+        seen.set(rdep);
+        if (tail == todo.length) {
+          todo = Arrays.copyOf(todo, Math.min(todo.length * 2, targets.length));
+        }
+        todo[tail++] = rdep;
+      }
+    }
+    return result.build();
+  }
+
+  private static ImmutableMap<File, int[]> createRootsMap(
+      ArtifactLocationDecoder decoder, TargetIdeInfo[] targets) {
+    ListMultimap<File, Integer> roots = ArrayListMultimap.create();
+    for (int i = 0; i < targets.length; i++) {
+      int id = i;
+      targets[i].getSources().stream()
+          .map(decoder::resolveSource)
+          .filter(Objects::nonNull)
+          .forEach(f -> roots.put(f, id));
+    }
+    ImmutableMap.Builder<File, int[]> result = ImmutableMap.builder();
+    roots.asMap().forEach((file, ids) -> result.put(file, Ints.toArray(ids)));
+    return result.build();
+  }
+}
@@ -19,7 +19,9 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
 import com.google.idea.blaze.base.sync.SyncResult;
 import com.google.idea.blaze.base.sync.SyncScope.SyncCanceledException;
 import com.google.idea.blaze.common.Context;
@@ -27,8 +29,10 @@ import com.google.idea.blaze.common.Output;
 import com.intellij.openapi.progress.ProcessCanceledException;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nullable;
+import org.jetbrains.ide.PooledThreadExecutor;
 
 /** Scoped operation context. */
 public class BlazeContext implements Context {
@@ -53,8 +57,19 @@ public class BlazeContext implements Context {
   private boolean hasErrors;
   private boolean propagatesErrors = true;
 
+  // Dispatches concurrent output to the sinks, one output at a time and in the order produced.
+  private final Executor outputDispatcher =
+      MoreExecutors.newSequentialExecutor(PooledThreadExecutor.INSTANCE);
+  private final Object pendingOutputsLock = new Object();
+
+  @GuardedBy("pendingOutputsLock")
+  private int pendingOutputs;
+
+  private volatile boolean concurrentOutput;
+
   private BlazeContext(@Nullable BlazeContext parentContext) {
     this.parentContext = parentContext;
+    this.concurrentOutput = parentContext != null && parentContext.concurrentOutput;
   }
 
   public static BlazeContext create() {
@@ -82,6 +97,7 @@ public class BlazeContext implements Context {
       return;
     }
     isEnding = true;
+    flushOutput();
     for (int i = scopes.size() - 1; i >= 0; i--) {
       scopes.get(i).onScopeEnd(this);
     }
@@ -241,10 +257,73 @@ public class BlazeContext implements Context {
     return this;
   }
 
+  /**
+   * Sets whether output may be produced from many threads at once, e.g. by parallel build shards.
+   *
+   * <p>Concurrent output doesn't block the producing thread on the sinks of this context. Outputs
+   * are queued, and dispatched to the sinks by a single pooled thread per context, in the order
+   * they were produced, so outputs of each child context keep their relative order. An output may
+   * be dispatched after {@link #output} returns. All queued outputs are dispatched before the
+   * scopes of this context end, or when calling {@link #flushOutput}.
+   *
+   * <p>Child contexts created afterwards inherit this setting.
+   */
+  public void setConcurrentOutput(boolean concurrentOutput) {
+    if (!concurrentOutput) {
+      flushOutput();
+    }
+    this.concurrentOutput = concurrentOutput;
+  }
+
+  public boolean isConcurrentOutput() {
+    return concurrentOutput;
+  }
+
   /** Produces output by sending it to any registered sinks. */
-  @SuppressWarnings("unchecked")
   @Override
-  public synchronized <T extends Output> void output(T output) {
+  public <T extends Output> void output(T output) {
+    if (!concurrentOutput) {
+      synchronized (this) {
+        dispatch(output);
+      }
+      return;
+    }
+    synchronized (pendingOutputsLock) {
+      pendingOutputs++;
+    }
+    outputDispatcher.execute(
+        () -> {
+          try {
+            // uncontended, except while switching from synchronous output
+            synchronized (this) {
+              dispatch(output);
+            }
+          } finally {
+            synchronized (pendingOutputsLock) {
+              if (--pendingOutputs == 0) {
+                pendingOutputsLock.notifyAll();
+              }
+            }
+          }
+        });
+  }
+
+  /** Waits until all outputs queued by concurrent output have been dispatched to the sinks. */
+  public void flushOutput() {
+    synchronized (pendingOutputsLock) {
+      while (pendingOutputs > 0) {
+        try {
+          pendingOutputsLock.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends Output> void dispatch(T output) {
     Class<? extends Output> outputClass = output.getClass();
     List<OutputSink<?>> outputSinks = this.outputSinks.get(outputClass);
 
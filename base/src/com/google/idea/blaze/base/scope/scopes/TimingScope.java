@@ -45,6 +45,9 @@ public class TimingScope implements BlazeScope {
   private final EventType eventType;
 
   private Instant startTime;
+  private Thread startThread;
+  // identifies this scope in the enclosing TimingTraceScope, if any
+  private int traceEventId;
 
   private Optional<Duration> duration = Optional.empty();
 
@@ -62,6 +65,8 @@ public class TimingScope implements BlazeScope {
   @Override
   public void onScopeBegin(BlazeContext context) {
     startTime = Instant.now();
+    startThread = Thread.currentThread();
+    traceEventId = TimingTraceScope.nextEventId();
     parentScope = context.getParentScope(this);
 
     if (parentScope != null) {
@@ -71,6 +76,17 @@ public class TimingScope implements BlazeScope {
 
   @Override
   public void onScopeEnd(BlazeContext context) {
+    TimingTraceScope trace = context.getScope(TimingTraceScope.class);
+    if (trace != null) {
+      trace.recordScope(
+          name,
+          eventType,
+          startTime,
+          Instant.now(),
+          startThread,
+          traceEventId,
+          parentScope != null ? parentScope.traceEventId : 0);
+    }
     if (context.isCancelled()) {
       duration = Optional.of(Duration.ZERO);
       return;
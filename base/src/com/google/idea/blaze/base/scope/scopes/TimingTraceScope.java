@@ -0,0 +1,363 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.scope.scopes;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gson.stream.JsonWriter;
+import com.google.idea.blaze.base.scope.BlazeContext;
+import com.google.idea.blaze.base.scope.BlazeScope;
+import com.google.idea.blaze.base.scope.scopes.TimingScope.EventType;
+import com.google.idea.blaze.common.PrintOutput;
+import com.google.idea.common.experiments.BoolExperiment;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * Records every {@link TimingScope} ending within this scope, along with any counters, and writes
+ * them to a trace-event JSON file when the scope ends. The file can be opened in chrome://tracing
+ * or Perfetto, e.g. alongside the output of blaze's --profile flag.
+ *
+ * <p>An operation spanning several contexts, like a sync running its phases in separate contexts,
+ * pushes a {@link #createNestedScope nested scope} in each of them, so that it produces a single
+ * trace, written when the context calling {@link #writeTraceOnScopeEnd} ends.
+ */
+public class TimingTraceScope implements BlazeScope {
+
+  private static final Logger logger = Logger.getInstance(TimingTraceScope.class);
+
+  private static final BoolExperiment enabled =
+      new BoolExperiment("blaze.timing.trace.export", false);
+
+  // the number of trace files kept in the trace directory; older ones are deleted
+  private static final int MAX_TRACE_FILES = 20;
+
+  // identifies recorded events, so that children can refer to their parent. 0 means no event.
+  private static final AtomicInteger nextEventId = new AtomicInteger(1);
+
+  /** Returns a new trace scope if trace export is enabled, otherwise null. */
+  @Nullable
+  public static TimingTraceScope createIfEnabled(String traceName) {
+    return enabled.getValue() ? new TimingTraceScope(traceName, getTraceDirectory()) : null;
+  }
+
+  /** Records a counter value in the enclosing trace, if any. */
+  public static void recordCounter(BlazeContext context, String name, long value) {
+    TimingTraceScope scope = context.getScope(TimingTraceScope.class);
+    if (scope != null) {
+      scope.trace.events.add(
+          new TraceEvent(
+              name,
+              'C',
+              "counter",
+              micros(Instant.now()),
+              /* durationMicros= */ 0,
+              Thread.currentThread(),
+              /* id= */ 0,
+              /* parentId= */ 0,
+              value));
+    }
+  }
+
+  static int nextEventId() {
+    return nextEventId.getAndIncrement();
+  }
+
+  private final Trace trace;
+  private final TimingTraceScope root;
+  private final String name;
+  private final int id;
+  private final int parentId;
+  private volatile boolean writesTrace;
+  private Instant startTime = Instant.now();
+  private Thread startThread = Thread.currentThread();
+
+  @VisibleForTesting
+  TimingTraceScope(String traceName, File traceDirectory) {
+    this.trace = new Trace(traceName, traceDirectory);
+    this.root = this;
+    this.name = traceName;
+    this.id = trace.rootId;
+    this.parentId = 0;
+    this.writesTrace = true;
+  }
+
+  private TimingTraceScope(TimingTraceScope parent, String name) {
+    this.trace = parent.trace;
+    this.root = parent.root;
+    this.name = name;
+    this.id = nextEventId();
+    this.parentId = parent.id;
+    this.writesTrace = false;
+  }
+
+  /**
+   * Returns a scope recording into the same trace, as a span nested in this one. The trace isn't
+   * written when the nested scope ends, unless {@link #writeTraceOnScopeEnd} is called on it.
+   */
+  public TimingTraceScope createNestedScope(String name) {
+    return new TimingTraceScope(this, name);
+  }
+
+  /** Returns the outermost scope of this trace. */
+  public TimingTraceScope getRootScope() {
+    return root;
+  }
+
+  /** Writes the trace when this scope ends, e.g. in the last of several contexts sharing it. */
+  public void writeTraceOnScopeEnd() {
+    writesTrace = true;
+  }
+
+  /** Includes the events of another trace when this trace is written, e.g. for combined syncs. */
+  public void mergeTrace(TimingTraceScope other) {
+    if (other.trace != trace) {
+      trace.mergedTraces.add(other.trace);
+    }
+  }
+
+  /**
+   * Called by a {@link TimingScope} when it ends. Scopes without a parent {@link TimingScope} are
+   * nested in this scope.
+   */
+  void recordScope(
+      String name,
+      EventType eventType,
+      Instant startTime,
+      Instant endTime,
+      Thread thread,
+      int id,
+      int parentId) {
+    recordSpan(
+        name, eventType.name(), startTime, endTime, thread, id, parentId != 0 ? parentId : this.id);
+  }
+
+  private void recordSpan(
+      String name,
+      String category,
+      Instant startTime,
+      Instant endTime,
+      Thread thread,
+      int id,
+      int parentId) {
+    long start = micros(startTime);
+    trace.events.add(
+        new TraceEvent(
+            name, 'X', category, start, micros(endTime) - start, thread, id, parentId, 0));
+  }
+
+  @Override
+  public void onScopeBegin(BlazeContext context) {
+    startTime = Instant.now();
+    startThread = Thread.currentThread();
+    if (parentId == 0) {
+      trace.startTime = startTime;
+      trace.startThread = startThread;
+    }
+  }
+
+  @Override
+  public void onScopeEnd(BlazeContext context) {
+    if (parentId != 0) {
+      recordSpan(name, "Trace", startTime, Instant.now(), startThread, id, parentId);
+    }
+    if (writesTrace) {
+      write(context);
+    }
+  }
+
+  private void write(BlazeContext context) {
+    if (!trace.written.compareAndSet(false, true) || !trace.hasEvents()) {
+      return;
+    }
+    // the root span lasts until the trace is written, which may be in another context
+    recordSpan(
+        trace.name,
+        "Trace",
+        trace.startTime,
+        Instant.now(),
+        trace.startThread,
+        trace.rootId,
+        /* parentId= */ 0);
+    String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+    File file = new File(trace.directory, String.format("%s-%s.json", trace.name, timestamp));
+    try {
+      Files.createDirectories(trace.directory.toPath());
+      try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+        writeTrace(writer);
+      }
+      deleteOldTraces();
+      context.output(PrintOutput.log("Timing trace written to " + file.getPath()));
+    } catch (IOException e) {
+      logger.warn("Failed to write timing trace to " + file, e);
+    }
+  }
+
+  /** Writes the recorded events in the JSON object format of the trace-event spec. */
+  @VisibleForTesting
+  void writeTrace(Writer out) throws IOException {
+    JsonWriter json = new JsonWriter(out);
+    json.beginObject();
+    json.name("displayTimeUnit").value("ms");
+    json.name("traceEvents").beginArray();
+    Map<Long, String> threadNames = new HashMap<>();
+    for (Trace recorded : trace.withMergedTraces()) {
+      for (TraceEvent event : recorded.events) {
+        threadNames.putIfAbsent(event.threadId, event.threadName);
+        writeEvent(json, event);
+      }
+    }
+    for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+      json.beginObject();
+      json.name("name").value("thread_name");
+      json.name("ph").value("M");
+      json.name("pid").value(1);
+      json.name("tid").value(thread.getKey());
+      json.name("args").beginObject().name("name").value(thread.getValue()).endObject();
+      json.endObject();
+    }
+    json.endArray();
+    json.endObject();
+    json.flush();
+  }
+
+  private static void writeEvent(JsonWriter json, TraceEvent event) throws IOException {
+    json.beginObject();
+    json.name("name").value(event.name);
+    json.name("cat").value(event.category);
+    json.name("ph").value(String.valueOf(event.phase));
+    json.name("ts").value(event.timestampMicros);
+    json.name("pid").value(1);
+    json.name("tid").value(event.threadId);
+    if (event.phase == 'X') {
+      json.name("dur").value(event.durationMicros);
+      json.name("args").beginObject().name("id").value(event.id);
+      if (event.parentId != 0) {
+        // scopes can run on a different thread than their parent, so it isn't implied by nesting
+        json.name("parent").value(event.parentId);
+      }
+      json.endObject();
+    } else {
+      json.name("args").beginObject().name(event.name).value(event.value).endObject();
+    }
+    json.endObject();
+  }
+
+  private void deleteOldTraces() {
+    File[] traces = trace.directory.listFiles((dir, name) -> name.endsWith(".json"));
+    if (traces == null || traces.length <= MAX_TRACE_FILES) {
+      return;
+    }
+    Arrays.sort(traces, Comparator.comparingLong(File::lastModified));
+    for (int i = 0; i < traces.length - MAX_TRACE_FILES; i++) {
+      if (!traces[i].delete()) {
+        logger.info("Couldn't delete old timing trace " + traces[i]);
+      }
+    }
+  }
+
+  private static File getTraceDirectory() {
+    return new File(PathManager.getLogPath(), "blaze-traces");
+  }
+
+  private static long micros(Instant instant) {
+    return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+  }
+
+  /** The state shared by a trace scope and the scopes nested in it. */
+  private static class Trace {
+    final String name;
+    final File directory;
+    final int rootId = nextEventId();
+    volatile Instant startTime = Instant.now();
+    volatile Thread startThread = Thread.currentThread();
+    final Queue<TraceEvent> events = new ConcurrentLinkedQueue<>();
+    final Queue<Trace> mergedTraces = new ConcurrentLinkedQueue<>();
+    final AtomicBoolean written = new AtomicBoolean();
+
+    Trace(String name, File directory) {
+      this.name = name;
+      this.directory = directory;
+    }
+
+    List<Trace> withMergedTraces() {
+      List<Trace> traces = new ArrayList<>();
+      traces.add(this);
+      for (Trace merged : mergedTraces) {
+        traces.addAll(merged.withMergedTraces());
+      }
+      return traces;
+    }
+
+    boolean hasEvents() {
+      return withMergedTraces().stream().anyMatch(trace -> !trace.events.isEmpty());
+    }
+  }
+
+  private static class TraceEvent {
+    final String name;
+    final char phase;
+    final String category;
+    final long timestampMicros;
+    final long durationMicros;
+    final long threadId;
+    final String threadName;
+    final int id;
+    final int parentId;
+    final long value;
+
+    TraceEvent(
+        String name,
+        char phase,
+        String category,
+        long timestampMicros,
+        long durationMicros,
+        Thread thread,
+        int id,
+        int parentId,
+        long value) {
+      this.name = name;
+      this.phase = phase;
+      this.category = category;
+      this.timestampMicros = timestampMicros;
+      this.durationMicros = durationMicros;
+      this.threadId = thread.getId();
+      this.threadName = thread.getName();
+      this.id = id;
+      this.parentId = parentId;
+      this.value = value;
+    }
+  }
+}
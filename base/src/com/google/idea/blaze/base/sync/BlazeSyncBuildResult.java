@@ -49,6 +49,16 @@ public abstract class BlazeSyncBuildResult {
     return getBuildResult() != null && !getBuildResult().allBuildsFailed();
   }
 
+  /**
+   * Cancels reading the ide-info files parsed while building. Called when the sync finishes
+   * without updating the project from this result.
+   */
+  public void cancelPipelinedReads() {
+    if (getBuildResult() != null) {
+      getBuildResult().cancelPipelinedReads();
+    }
+  }
+
   public abstract BlazeInfo getBlazeInfo();
 
   @Nullable
@@ -44,6 +44,7 @@ import com.google.idea.blaze.base.scope.output.SummaryOutput;
 import com.google.idea.blaze.base.scope.output.SummaryOutput.Prefix;
 import com.google.idea.blaze.base.scope.scopes.TimingScope;
 import com.google.idea.blaze.base.scope.scopes.TimingScope.EventType;
+import com.google.idea.blaze.base.scope.scopes.TimingTraceScope;
 import com.google.idea.blaze.base.settings.Blaze;
 import com.google.idea.blaze.base.settings.BlazeImportSettings;
 import com.google.idea.blaze.base.settings.BlazeImportSettingsManager;
@@ -233,7 +234,9 @@ public final class BuildPhaseSyncTask {
               .mapToInt(Integer::intValue)
               .sum();
       printShardingSummary(context, targetCount, shardedTargets.shardCount(), parallel);
+      TimingTraceScope.recordCounter(context, "targets", targetCount);
     }
+    TimingTraceScope.recordCounter(context, "shards", shardedTargets.shardCount());
 
     BuildInvoker syncBuildInvoker =
         parallel
@@ -264,6 +267,7 @@ public final class BuildPhaseSyncTask {
         .setBepBytesConsumed(blazeBuildResult.bepBytesConsumed);
 
     if (context.isCancelled()) {
+      blazeBuildResult.cancelPipelinedReads();
       throw new SyncCanceledException();
     }
     String invocationResultMsg = "Build invocation result: " + blazeBuildResult.buildResult.status;
@@ -275,6 +279,7 @@ public final class BuildPhaseSyncTask {
 
       if (!continueSyncOnOom.getValue() || blazeBuildResult.artifacts.isEmpty()) {
         context.output(PrintOutput.error(invocationResultMsg));
+        blazeBuildResult.cancelPipelinedReads();
         throw new SyncFailedException();
       }
     }
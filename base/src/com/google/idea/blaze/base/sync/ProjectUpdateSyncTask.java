@@ -16,6 +16,7 @@
 package com.google.idea.blaze.base.sync;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.idea.blaze.base.async.FutureUtil;
 import com.google.idea.blaze.base.async.FutureUtil.FutureResult;
@@ -42,6 +43,7 @@ import com.google.idea.blaze.base.scope.output.StatusOutput;
 import com.google.idea.blaze.base.scope.scopes.NetworkTrafficTrackingScope.NetworkTrafficUsedOutput;
 import com.google.idea.blaze.base.scope.scopes.TimingScope;
 import com.google.idea.blaze.base.scope.scopes.TimingScope.EventType;
+import com.google.idea.blaze.base.scope.scopes.TimingTraceScope;
 import com.google.idea.blaze.base.settings.BlazeImportSettings;
 import com.google.idea.blaze.base.settings.BlazeImportSettingsManager;
 import com.google.idea.blaze.base.sync.BlazeSyncPlugin.ModuleEditor;
@@ -159,6 +161,7 @@ final class ProjectUpdateSyncTask {
 
   private void run(BlazeContext context) throws SyncCanceledException, SyncFailedException {
     TargetMap targetMap = targetData.targetMap();
+    TimingTraceScope.recordCounter(context, "targetMapSize", targetMap.size());
     RemoteOutputArtifacts oldRemoteState = RemoteOutputArtifacts.fromProjectData(oldProjectData);
     RemoteOutputArtifacts newRemoteState = targetData.remoteOutputs;
 
@@ -312,9 +315,16 @@ final class ProjectUpdateSyncTask {
           context.push(new TimingScope("UpdateProjectStructure", EventType.Other));
           context.output(new StatusOutput("Initializing project SDKs..."));
           ApplicationManager.getApplication().invokeAndWait(() -> createSdks(newBlazeProjectData));
-          context.output(new StatusOutput("Committing project structure..."));
 
           try {
+            List<BlazeLibrary> libraries =
+                BlazeLibraryCollector.getLibraries(projectViewSet, newBlazeProjectData);
+            context.output(new StatusOutput("Updating project libraries..."));
+            ImmutableList<String> unusedLibraries =
+                LibraryEditor.updateProjectLibraries(
+                    project, context, projectViewSet, newBlazeProjectData, libraries);
+
+            context.output(new StatusOutput("Committing project structure..."));
             Transactions.submitWriteActionTransactionAndWait(
                 () ->
                     ProjectRootManagerEx.getInstanceEx(this.project)
@@ -326,8 +336,10 @@ final class ProjectUpdateSyncTask {
                                   projectViewSet,
                                   blazeVersionData,
                                   directoryStructure,
+                                  libraries,
                                   newBlazeProjectData,
                                   oldBlazeProjectData);
+                              LibraryEditor.removeLibraries(project, unusedLibraries);
                             }));
           } catch (ProcessCanceledException e) {
             context.setCancelled();
@@ -350,6 +362,7 @@ final class ProjectUpdateSyncTask {
       ProjectViewSet projectViewSet,
       BlazeVersionData blazeVersionData,
       DirectoryStructure directoryStructure,
+      List<BlazeLibrary> libraries,
       BlazeProjectData newBlazeProjectData,
       @Nullable BlazeProjectData oldBlazeProjectData) {
 
@@ -386,10 +399,6 @@ final class ProjectUpdateSyncTask {
         directoryStructure,
         workspaceModifiableModel);
 
-    List<BlazeLibrary> libraries =
-        BlazeLibraryCollector.getLibraries(projectViewSet, newBlazeProjectData);
-    LibraryEditor.updateProjectLibraries(
-        project, context, projectViewSet, newBlazeProjectData, libraries);
     LibraryEditor.configureDependencies(project, workspaceModifiableModel, libraries);
 
     for (BlazeSyncPlugin blazeSyncPlugin : BlazeSyncPlugin.EP_NAME.getExtensions()) {
@@ -18,6 +18,9 @@ package com.google.idea.blaze.base.sync;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.idea.blaze.base.metrics.Counter;
+import com.google.idea.blaze.base.metrics.LatencyHistogram;
+import com.google.idea.blaze.base.metrics.MetricsRegistry;
 import com.google.idea.blaze.base.model.BlazeProjectData;
 import com.google.idea.blaze.base.projectview.ProjectViewSet;
 import com.google.idea.blaze.base.scope.BlazeContext;
@@ -36,6 +39,11 @@ public class SyncCache {
     T compute(Project project, BlazeProjectData projectData);
   }
 
+  private static final Counter hits = MetricsRegistry.getInstance().counter("sync_cache.hits");
+  private static final Counter misses = MetricsRegistry.getInstance().counter("sync_cache.misses");
+  private static final LatencyHistogram computeTime =
+      MetricsRegistry.getInstance().histogram("sync_cache.compute_time");
+
   private final Project project;
   private final Map<Object, Object> cache = Maps.newHashMap();
 
@@ -52,6 +60,7 @@ public class SyncCache {
   @SuppressWarnings("unchecked")
   public synchronized <T> T get(Object key, SyncCacheComputable<T> computable) {
     if (cache.containsKey(key)) {
+      hits.increment();
       return (T) cache.get(key);
     }
     BlazeProjectData blazeProjectData =
@@ -59,7 +68,10 @@ public class SyncCache {
     if (blazeProjectData == null) {
       return null;
     }
+    misses.increment();
+    long start = System.nanoTime();
     T value = computable.compute(project, blazeProjectData);
+    computeTime.recordSince(start);
     cache.put(key, value);
     return value;
   }
@@ -19,6 +19,7 @@ import static java.util.stream.Collectors.joining;
 
 import com.google.auto.value.AutoValue;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ascii;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -57,6 +58,7 @@ import com.google.idea.blaze.base.scope.scopes.SharedStringPoolScope;
 import com.google.idea.blaze.base.scope.scopes.TimingScope;
 import com.google.idea.blaze.base.scope.scopes.TimingScope.EventType;
 import com.google.idea.blaze.base.scope.scopes.TimingScopeListener.TimedEvent;
+import com.google.idea.blaze.base.scope.scopes.TimingTraceScope;
 import com.google.idea.blaze.base.scope.scopes.ToolWindowScope;
 import com.google.idea.blaze.base.settings.Blaze;
 import com.google.idea.blaze.base.settings.BlazeImportSettings;
@@ -130,6 +132,10 @@ final class SyncPhaseCoordinator {
 
     abstract BuildBinaryType buildBinaryType();
 
+    /** The timing trace of the whole sync, if trace export is enabled. */
+    @Nullable
+    abstract TimingTraceScope trace();
+
     abstract Builder toBuilder();
 
     static Builder builder() {
@@ -153,6 +159,8 @@ final class SyncPhaseCoordinator {
 
       abstract Builder setBuildBinaryType(BuildBinaryType value);
 
+      abstract Builder setTrace(@Nullable TimingTraceScope value);
+
       abstract UpdatePhaseTask build();
     }
 
@@ -162,12 +170,17 @@ final class SyncPhaseCoordinator {
           ImmutableSet.<Integer>builder().addAll(a.buildIds()).addAll(b.buildIds()).build();
       UpdatePhaseTask first = a.startTime().isBefore(b.startTime()) ? a : b;
       UpdatePhaseTask second = a.startTime().isBefore(b.startTime()) ? b : a;
+      TimingTraceScope trace = combineTraces(first.trace(), second.trace());
       // if one of the builds failed entirely, ignore the build result
       if (!first.syncResult().successful()) {
-        return second.toBuilder().setStartTime(first.startTime()).setBuildIds(buildIds).build();
+        return second.toBuilder()
+            .setStartTime(first.startTime())
+            .setBuildIds(buildIds)
+            .setTrace(trace)
+            .build();
       }
       if (!second.syncResult().successful()) {
-        return first.toBuilder().setBuildIds(buildIds).build();
+        return first.toBuilder().setBuildIds(buildIds).setTrace(trace).build();
       }
       // take the most recent version of the project data, and combine the blaze build outputs
       return builder()
@@ -177,8 +190,22 @@ final class SyncPhaseCoordinator {
           .setBuildIds(buildIds)
           .setBuildResult(first.buildResult().updateResult(second.buildResult()))
           .setSyncResult(SyncResult.combine(first.syncResult(), second.syncResult()))
+          .setTrace(trace)
           .build();
     }
+
+    /** The combined syncs are written as a single trace. */
+    @Nullable
+    private static TimingTraceScope combineTraces(
+        @Nullable TimingTraceScope first, @Nullable TimingTraceScope second) {
+      if (first == null) {
+        return second;
+      }
+      if (second != null) {
+        first.mergeTrace(second);
+      }
+      return first;
+    }
   }
 
   // an application-wide cap on the number of concurrent remote builds
@@ -250,7 +277,8 @@ final class SyncPhaseCoordinator {
                           context,
                           indicator,
                           singleThreaded ? SyncPhase.ALL_PHASES : SyncPhase.BUILD,
-                          syncTask);
+                          syncTask,
+                          TimingTraceScope.createIfEnabled("sync"));
                       parentContext.output(
                           SummaryOutput.output(
                               Prefix.TIMESTAMP, String.format("%s started", syncTask.getName())));
@@ -297,7 +325,8 @@ final class SyncPhaseCoordinator {
                               context,
                               indicator,
                               SyncPhase.ALL_PHASES,
-                              new Task(project, params.title(), Task.Type.SYNC));
+                              new Task(project, params.title(), Task.Type.SYNC),
+                              TimingTraceScope.createIfEnabled("sync"));
                           context.output(
                               SummaryOutput.output(
                                   Prefix.TIMESTAMP, String.format("%s started", params.title())));
@@ -403,6 +432,7 @@ final class SyncPhaseCoordinator {
   void runSync(BlazeSyncParams params, boolean singleThreaded, BlazeContext context) {
     Instant startTime = Instant.now();
     int buildId = nextBuildId.getAndIncrement();
+    BlazeSyncBuildResult buildResult = null;
     try {
       SaveUtil.saveAllFiles();
       onSyncStart(project, context, params.syncMode());
@@ -429,8 +459,9 @@ final class SyncPhaseCoordinator {
             SyncStats.builder());
         return;
       }
+      TimingTraceScope trace = context.getScope(TimingTraceScope.class);
       SyncProjectState projectState = ProjectStateSyncTask.collectProjectState(project, context);
-      BlazeSyncBuildResult buildResult =
+      buildResult =
           BuildPhaseSyncTask.runBuildPhase(
               project, params, projectState, buildId, context, buildSystem);
 
@@ -448,6 +479,7 @@ final class SyncPhaseCoordinator {
                       .flatMap(Optional::stream)
                       .findFirst()
                       .orElse(BuildBinaryType.NONE))
+              .setTrace(trace != null ? trace.getRootScope() : null)
               .build();
 
       if (singleThreaded) {
@@ -458,6 +490,9 @@ final class SyncPhaseCoordinator {
     } catch (Throwable e) {
       logSyncError(context, e);
       context.onException(e);
+      if (buildResult != null) {
+        buildResult.cancelPipelinedReads();
+      }
       finishSync(
           params,
           startTime,
@@ -491,7 +526,8 @@ final class SyncPhaseCoordinator {
                           context,
                           indicator,
                           SyncPhase.PROJECT_UPDATE,
-                          new Task(project, "Updating project", Task.Type.SYNC));
+                          new Task(project, "Updating project", Task.Type.SYNC),
+                          updateTask.trace());
                       updateProjectAndFinishSync(updateTask, context);
                     }));
   }
@@ -574,6 +610,8 @@ final class SyncPhaseCoordinator {
       logSyncError(context, e);
       syncResult = SyncResult.FAILURE;
     } finally {
+      // no-op if the project update already took the ide-info files read while building
+      updateTask.buildResult().cancelPipelinedReads();
       SyncProjectState projectState = updateTask.projectState();
       finishSync(
           updateTask.syncParams(),
@@ -647,21 +685,34 @@ final class SyncPhaseCoordinator {
     } catch (Throwable e) {
       logSyncError(context, e);
     } finally {
+      TimingTraceScope trace = context.getScope(TimingTraceScope.class);
+      if (trace != null) {
+        // the sync ends with the phase finishing it
+        trace.writeTraceOnScopeEnd();
+      }
       afterSync(project, syncParams, context, syncResult, buildIds);
     }
   }
 
-  /** Sets up the root {@link BlazeContext} for the given {@link SyncPhase}. */
+  /**
+   * Sets up the root {@link BlazeContext} for the given {@link SyncPhase}.
+   *
+   * @param trace the timing trace of the whole sync, in which this phase is nested
+   */
   private void setupScopes(
       BlazeSyncParams syncParams,
       BlazeContext context,
       ProgressIndicator indicator,
       SyncPhase phase,
-      Task task) {
+      Task task,
+      @Nullable TimingTraceScope trace) {
     boolean clearProblems = phase != SyncPhase.PROJECT_UPDATE;
     boolean notifyFinished = phase != SyncPhase.BUILD;
 
     context.push(new ExperimentScope());
+    if (trace != null) {
+      context.push(trace.createNestedScope(Ascii.toLowerCase(phase.name())));
+    }
     if (BlazeUserSettings.getInstance().getShowPerformanceWarnings()) {
       context.push(new PerformanceWarningScope());
     }
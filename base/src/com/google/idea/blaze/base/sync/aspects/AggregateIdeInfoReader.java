@@ -0,0 +1,320 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.aspects;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.devtools.intellij.ideinfo.IntellijIdeInfo;
+import com.google.errorprone.annotations.MustBeClosed;
+import com.google.idea.blaze.base.command.buildresult.BlazeArtifact;
+import com.google.idea.blaze.base.command.buildresult.OutputArtifact;
+import com.google.idea.blaze.base.filecache.ArtifactState;
+import com.google.idea.blaze.base.filecache.ArtifactState.AggregateEntryState;
+import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * Splits the aggregate aspect output files (one per top-level target, each concatenating the
+ * intellij-info.txt files of the target and its transitive deps within the same package) into
+ * {@link OutputArtifact}s.
+ *
+ * <p>The returned artifacts are keyed and diffed exactly like the per-target files they replace,
+ * but their state is a content digest, so diffing them requires no file system operations. Only
+ * the digest and location of each entry are kept in memory. The changed entries are then parsed
+ * in a single sequential pass over each aggregate file, see {@link #readUpdatedEntries}.
+ */
+final class AggregateIdeInfoReader {
+
+  private static final byte[] HEADER = AspectStrategy.AGGREGATE_ENTRY_HEADER.getBytes(UTF_8);
+
+  private AggregateIdeInfoReader() {}
+
+  /**
+   * Reads the given aggregate files in parallel, returning the entries keyed by their blaze-out
+   * relative path. Entries appearing in several aggregate files are only returned once.
+   */
+  static ListenableFuture<ImmutableMap<String, OutputArtifact>> readEntries(
+      Collection<? extends BlazeArtifact> aggregateFiles, ListeningExecutorService executor) {
+    Map<String, OutputArtifact> entries = new ConcurrentHashMap<>();
+    List<ListenableFuture<?>> futures = new ArrayList<>();
+    for (BlazeArtifact file : aggregateFiles) {
+      futures.add(
+          executor.submit(
+              () -> {
+                readEntries(file, entries);
+                return null;
+              }));
+    }
+    return Futures.whenAllSucceed(futures)
+        .call(() -> ImmutableMap.copyOf(entries), MoreExecutors.directExecutor());
+  }
+
+  @VisibleForTesting
+  static void readEntries(BlazeArtifact file, Map<String, OutputArtifact> entries)
+      throws IOException {
+    try (InputStream in = file.getInputStream()) {
+      LineReader line = new LineReader(in);
+      long position = 0;
+      String path = null;
+      long start = 0;
+      Hasher hasher = null;
+      while (line.read()) {
+        long lineStart = position;
+        position += line.length;
+        if (line.startsWith(HEADER)) {
+          addEntry(file, path, start, lineStart, hasher, entries);
+          path = toBlazeOutRelativePath(line.toString(HEADER.length));
+          start = position;
+          hasher = newHasher();
+        } else if (hasher != null) {
+          hasher.putBytes(line.bytes, 0, line.length);
+        }
+      }
+      addEntry(file, path, start, position, hasher, entries);
+    }
+  }
+
+  /**
+   * Parses the given updated aspect output files which are aggregate file entries, returning them
+   * by artifact key. Each aggregate file is opened once, and its updated entries are read in order
+   * of their location. Other files are ignored.
+   */
+  static ImmutableMap<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> readUpdatedEntries(
+      Collection<? extends OutputArtifact> updatedFiles, ListeningExecutorService executor) {
+    Map<BlazeArtifact, List<AggregateEntryArtifact>> entriesByFile = new LinkedHashMap<>();
+    for (OutputArtifact file : updatedFiles) {
+      if (file instanceof AggregateEntryArtifact) {
+        AggregateEntryArtifact entry = (AggregateEntryArtifact) file;
+        entriesByFile.computeIfAbsent(entry.aggregateFile, f -> new ArrayList<>()).add(entry);
+      }
+    }
+    ImmutableMap.Builder<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> result =
+        ImmutableMap.builder();
+    entriesByFile.forEach(
+        (file, entries) -> {
+          ListenableFuture<Map<String, IntellijIdeInfo.TargetIdeInfo>> parsed =
+              executor.submit(() -> parseEntries(file, entries));
+          for (AggregateEntryArtifact entry : entries) {
+            result.put(
+                entry.getKey(),
+                Futures.transform(
+                    parsed, m -> m.get(entry.getKey()), MoreExecutors.directExecutor()));
+          }
+        });
+    return result.buildOrThrow();
+  }
+
+  @VisibleForTesting
+  static Map<String, IntellijIdeInfo.TargetIdeInfo> parseEntries(
+      BlazeArtifact file, List<AggregateEntryArtifact> entries) throws IOException {
+    List<AggregateEntryArtifact> sorted = new ArrayList<>(entries);
+    sorted.sort(Comparator.comparingLong(e -> e.offset));
+    Map<String, IntellijIdeInfo.TargetIdeInfo> parsed = new HashMap<>();
+    try (InputStream in = file.getInputStream()) {
+      long position = 0;
+      for (AggregateEntryArtifact entry : sorted) {
+        ByteStreams.skipFully(in, entry.offset - position);
+        InputStream entryStream = ByteStreams.limit(in, entry.length);
+        parsed.put(entry.getKey(), AspectStrategy.parseAspectFile(entryStream));
+        ByteStreams.exhaust(entryStream);
+        position = entry.offset + entry.length;
+      }
+    }
+    return parsed;
+  }
+
+  private static Hasher newHasher() {
+    return Hashing.murmur3_128().newHasher();
+  }
+
+  private static void addEntry(
+      BlazeArtifact file,
+      @Nullable String path,
+      long start,
+      long end,
+      @Nullable Hasher hasher,
+      Map<String, OutputArtifact> entries) {
+    if (path == null || hasher == null) {
+      return;
+    }
+    entries.putIfAbsent(
+        path, new AggregateEntryArtifact(path, file, start, end - start, hasher.hash().toString()));
+  }
+
+  /** Converts an execution-root-relative path of a blaze output to a blaze-out-relative path. */
+  @VisibleForTesting
+  static String toBlazeOutRelativePath(String execPath) {
+    for (String prefix : new String[] {"blaze-out/", "bazel-out/"}) {
+      if (execPath.startsWith(prefix)) {
+        return execPath.substring(prefix.length());
+      }
+    }
+    return execPath;
+  }
+
+  /**
+   * Reads lines from a stream in large chunks, holding the current line, including its line
+   * terminator, in a reusable buffer.
+   */
+  private static final class LineReader {
+    private final InputStream in;
+    private final byte[] chunk = new byte[64 * 1024];
+    private int chunkPosition;
+    private int chunkLimit;
+    private byte[] bytes = new byte[1024];
+    private int length;
+
+    LineReader(InputStream in) {
+      this.in = in;
+    }
+
+    /** Reads the next line, returning false at the end of the stream. */
+    boolean read() throws IOException {
+      length = 0;
+      while (true) {
+        if (chunkPosition == chunkLimit) {
+          chunkLimit = in.read(chunk);
+          chunkPosition = 0;
+          if (chunkLimit == -1) {
+            chunkLimit = 0;
+            return length > 0;
+          }
+        }
+        int end = chunkPosition;
+        while (end < chunkLimit && chunk[end] != '\n') {
+          end++;
+        }
+        boolean foundNewline = end < chunkLimit;
+        int count = (foundNewline ? end + 1 : end) - chunkPosition;
+        if (length + count > bytes.length) {
+          bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+        }
+        System.arraycopy(chunk, chunkPosition, bytes, length, count);
+        length += count;
+        chunkPosition += count;
+        if (foundNewline) {
+          return true;
+        }
+      }
+    }
+
+    boolean startsWith(byte[] prefix) {
+      if (length < prefix.length) {
+        return false;
+      }
+      for (int i = 0; i < prefix.length; i++) {
+        if (bytes[i] != prefix[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** Returns the line from the given offset, without its line terminator. */
+    String toString(int offset) {
+      int end = length > 0 && bytes[length - 1] == '\n' ? length - 1 : length;
+      return new String(bytes, offset, end - offset, UTF_8);
+    }
+  }
+
+  /**
+   * A single intellij-info.txt file within an aggregate file.
+   *
+   * <p>Sync parses updated entries with {@link #readUpdatedEntries}, which reads each aggregate
+   * file once. {@link #getInputStream} opens the aggregate file for this entry alone.
+   */
+  @VisibleForTesting
+  static final class AggregateEntryArtifact implements OutputArtifact {
+    private final String blazeOutRelativePath;
+    private final BlazeArtifact aggregateFile;
+    private final long offset;
+    private final long length;
+    private final String digest;
+
+    AggregateEntryArtifact(
+        String blazeOutRelativePath,
+        BlazeArtifact aggregateFile,
+        long offset,
+        long length,
+        String digest) {
+      this.blazeOutRelativePath = blazeOutRelativePath;
+      this.aggregateFile = aggregateFile;
+      this.offset = offset;
+      this.length = length;
+      this.digest = digest;
+    }
+
+    @Override
+    public String getConfigurationMnemonic() {
+      int ix = blazeOutRelativePath.indexOf('/');
+      return ix == -1 ? "" : blazeOutRelativePath.substring(0, ix);
+    }
+
+    @Override
+    public String getRelativePath() {
+      return blazeOutRelativePath;
+    }
+
+    @Override
+    public ArtifactState toArtifactState() {
+      return new AggregateEntryState(getKey(), digest);
+    }
+
+    @Override
+    public long getLength() {
+      return length;
+    }
+
+    @Override
+    @MustBeClosed
+    public BufferedInputStream getInputStream() throws IOException {
+      InputStream in = aggregateFile.getInputStream();
+      try {
+        ByteStreams.skipFully(in, offset);
+      } catch (IOException e) {
+        in.close();
+        throw e;
+      }
+      return new BufferedInputStream(ByteStreams.limit(in, length));
+    }
+
+    @Override
+    public String toString() {
+      return blazeOutRelativePath;
+    }
+  }
+}
@@ -37,7 +37,8 @@ import java.util.stream.Stream;
 public class BlazeBuildOutputs {
 
   public static BlazeBuildOutputs noOutputs(BuildResult buildResult) {
-    return new BlazeBuildOutputs(buildResult, ImmutableMap.of(), ImmutableMap.of(), 0L);
+    return new BlazeBuildOutputs(
+        buildResult, ImmutableMap.of(), ImmutableMap.of(), 0L, ImmutableList.of());
   }
 
   public static BlazeBuildOutputs fromParsedBepOutput(
@@ -52,7 +53,8 @@ public class BlazeBuildOutputs {
             ? ImmutableMap.of()
             : parsedOutput.getFullArtifactData(),
         buildIdWithResult,
-        parsedOutput.getBepBytesConsumed());
+        parsedOutput.getBepBytesConsumed(),
+        ImmutableList.of());
   }
 
   public final BuildResult buildResult;
@@ -66,15 +68,20 @@ public class BlazeBuildOutputs {
   /** The artifacts transitively associated with each top-level target. */
   private final ImmutableSetMultimap<String, OutputArtifact> perTargetArtifacts;
 
+  /** The readers of ide-info files parsed while building, oldest build first. */
+  private final ImmutableList<PipelinedIdeInfoReader> pipelinedReaders;
+
   private BlazeBuildOutputs(
       BuildResult buildResult,
       Map<String, BepArtifactData> artifacts,
       ImmutableMap<String, BuildResult> buildShardResults,
-      long bepBytesConsumed) {
+      long bepBytesConsumed,
+      ImmutableList<PipelinedIdeInfoReader> pipelinedReaders) {
     this.buildResult = buildResult;
     this.artifacts = ImmutableMap.copyOf(artifacts);
     this.buildShardResults = buildShardResults;
     this.bepBytesConsumed = bepBytesConsumed;
+    this.pipelinedReaders = pipelinedReaders;
 
     ImmutableSetMultimap.Builder<String, OutputArtifact> perTarget = ImmutableSetMultimap.builder();
     artifacts.values().forEach(a -> a.topLevelTargets.forEach(t -> perTarget.put(t, a.artifact)));
@@ -140,7 +147,36 @@ public class BlazeBuildOutputs {
             .collect(
                 // On duplicate buildIds, preserve most recent result
                 toImmutableMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1)),
-        bepBytesConsumed + nextOutputs.bepBytesConsumed);
+        bepBytesConsumed + nextOutputs.bepBytesConsumed,
+        ImmutableList.<PipelinedIdeInfoReader>builder()
+            .addAll(pipelinedReaders)
+            .addAll(nextOutputs.pipelinedReaders)
+            .build());
+  }
+
+  /** Returns a copy of these outputs, carrying the ide-info files read while building them. */
+  BlazeBuildOutputs withPipelinedReader(PipelinedIdeInfoReader reader) {
+    return new BlazeBuildOutputs(
+        buildResult,
+        artifacts,
+        buildShardResults,
+        bepBytesConsumed,
+        ImmutableList.<PipelinedIdeInfoReader>builder()
+            .addAll(pipelinedReaders)
+            .add(reader)
+            .build());
+  }
+
+  ImmutableList<PipelinedIdeInfoReader> getPipelinedReaders() {
+    return pipelinedReaders;
+  }
+
+  /**
+   * Cancels reading the ide-info files parsed while building. Called when these outputs won't be
+   * used to update the project.
+   */
+  public void cancelPipelinedReads() {
+    pipelinedReaders.forEach(PipelinedIdeInfoReader::close);
   }
 
   public ImmutableList<String> getBuildIds() {
@@ -87,11 +87,13 @@ import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy.OutputGro
 import com.google.idea.blaze.base.sync.projectview.ImportRoots;
 import com.google.idea.blaze.base.sync.projectview.LanguageSupport;
 import com.google.idea.blaze.base.sync.projectview.WorkspaceLanguageSettings;
+import com.google.idea.blaze.base.sync.sharding.BuildCostHistory;
 import com.google.idea.blaze.base.sync.sharding.ShardedBuildProgressTracker;
 import com.google.idea.blaze.base.sync.sharding.ShardedTargetList;
 import com.google.idea.blaze.base.toolwindow.Task;
 import com.google.idea.blaze.common.PrintOutput;
 import com.google.idea.common.experiments.BoolExperiment;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.project.Project;
@@ -103,8 +105,10 @@ import java.io.File;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -164,7 +168,10 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
   private static ImmutableSet<OutputArtifact> getTrackedOutputs(BlazeBuildOutputs buildOutput) {
     // don't track intellij-info.txt outputs -- they're already tracked in
     // BlazeIdeInterfaceState
-    Predicate<String> pathFilter = AspectStrategy.ASPECT_OUTPUT_FILE_PREDICATE.negate();
+    Predicate<String> pathFilter =
+        AspectStrategy.ASPECT_OUTPUT_FILE_PREDICATE
+            .or(AspectStrategy.AGGREGATE_OUTPUT_FILE_PREDICATE)
+            .negate();
     return buildOutput.getOutputGroupArtifacts(group -> true).stream()
         .filter(a -> pathFilter.test(a.getRelativePath()))
         .collect(toImmutableSet());
@@ -191,14 +198,26 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
         oldProjectData != null ? oldProjectData.getTargetData().ideInterfaceState : null;
 
     Predicate<String> ideInfoPredicate = AspectStrategy.ASPECT_OUTPUT_FILE_PREDICATE;
-    Collection<OutputArtifact> files =
+    ImmutableList<OutputArtifact> infoArtifacts =
         buildResult
             .getBuildResult()
-            .getOutputGroupArtifacts(group -> group.startsWith(OutputGroup.INFO.prefix))
-            .stream()
+            .getOutputGroupArtifacts(group -> group.startsWith(OutputGroup.INFO.prefix));
+    Collection<OutputArtifact> files =
+        infoArtifacts.stream()
             .filter(f -> ideInfoPredicate.test(f.getKey()))
             .distinct()
             .collect(toImmutableList());
+    ImmutableList<OutputArtifact> aggregateFiles =
+        infoArtifacts.stream()
+            .filter(f -> AspectStrategy.AGGREGATE_OUTPUT_FILE_PREDICATE.test(f.getKey()))
+            .distinct()
+            .collect(toImmutableList());
+    if (!aggregateFiles.isEmpty()) {
+      files = readAggregateFiles(project, context, aggregateFiles, files);
+      if (files == null) {
+        return null;
+      }
+    }
 
     ArtifactsDiff diff;
     try {
@@ -221,15 +240,38 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
                 "Total rules: %d, new/changed: %d, removed: %d",
                 targetCount, diff.getUpdatedOutputs().size(), removedCount)));
 
+    // ide-info files already read while the build shards were running
+    Map<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> pipelinedFiles =
+        takePipelinedFiles(buildResult.getBuildResult(), diff);
+    if (!pipelinedFiles.isEmpty()) {
+      context.output(
+          PrintOutput.log(
+              String.format(
+                  "%d of %d new/changed aspect files were read while building",
+                  pipelinedFiles.size(), diff.getUpdatedOutputs().size())));
+    }
+    // changed aggregate file entries, read in one pass over each aggregate file
+    Map<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> prereadFiles =
+        new HashMap<>(pipelinedFiles);
+    AggregateIdeInfoReader.readUpdatedEntries(
+            diff.getUpdatedOutputs().stream()
+                .filter(f -> !pipelinedFiles.containsKey(f.getKey()))
+                .collect(toImmutableList()),
+            BlazeExecutor.getInstance().getExecutor())
+        .forEach(prereadFiles::put);
+    ImmutableList<OutputArtifact> filesToFetch =
+        diff.getUpdatedOutputs().stream()
+            .filter(f -> !prereadFiles.containsKey(f.getKey()))
+            .collect(toImmutableList());
+
     ListenableFuture<?> downloadArtifactsFuture =
         RemoteArtifactPrefetcher.getInstance()
             .downloadArtifacts(
                 /* projectName= */ project.getName(),
-                /* outputArtifacts= */ BlazeArtifact.getRemoteArtifacts(diff.getUpdatedOutputs()));
+                /* outputArtifacts= */ BlazeArtifact.getRemoteArtifacts(filesToFetch));
     ListenableFuture<?> loadFilesInJvmFuture =
         RemoteArtifactPrefetcher.getInstance()
-            .loadFilesInJvm(
-                /* outputArtifacts= */ BlazeArtifact.getRemoteArtifacts(diff.getUpdatedOutputs()));
+            .loadFilesInJvm(/* outputArtifacts= */ BlazeArtifact.getRemoteArtifacts(filesToFetch));
 
     if (!FutureUtil.waitForFuture(
             context, Futures.allAsList(downloadArtifactsFuture, loadFilesInJvmFuture))
@@ -243,7 +285,7 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
     ListenableFuture<?> fetchLocalFilesFuture =
         PrefetchService.getInstance()
             .prefetchFiles(
-                /* files= */ BlazeArtifact.getLocalFiles(diff.getUpdatedOutputs()),
+                /* files= */ BlazeArtifact.getLocalFiles(filesToFetch),
                 /* refetchCachedFiles= */ true,
                 /* fetchFileTypes= */ false);
     if (!FutureUtil.waitForFuture(context, fetchLocalFilesFuture)
@@ -267,6 +309,7 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
             context,
             prevState,
             diff,
+            prereadFiles,
             configHandler,
             projectState.getBlazeVersionData(),
             projectState.getLanguageSettings(),
@@ -290,12 +333,80 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
     return state;
   }
 
+  /**
+   * Returns the updated ide-info files which were already read while the sync build shards were
+   * running, by artifact key. Files which have changed since they were read are excluded.
+   */
+  private static Map<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> takePipelinedFiles(
+      BlazeBuildOutputs buildOutputs, ArtifactsDiff diff) {
+    Map<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> files = new HashMap<>();
+    // the most recent build's reads take precedence
+    for (PipelinedIdeInfoReader reader : buildOutputs.getPipelinedReaders().reverse()) {
+      List<OutputArtifact> remaining =
+          diff.getUpdatedOutputs().stream()
+              .filter(f -> !files.containsKey(f.getKey()))
+              .collect(toImmutableList());
+      files.putAll(reader.take(remaining, diff.getNewState()));
+    }
+    return files;
+  }
+
+  /**
+   * Reads the aggregate aspect output files, returning the entries they contain in place of the
+   * corresponding per-target files. Per-target files not covered by any aggregate file are
+   * returned as-is, so they're diffed and read individually.
+   */
+  @Nullable
+  private static Collection<OutputArtifact> readAggregateFiles(
+      Project project,
+      BlazeContext context,
+      ImmutableList<OutputArtifact> aggregateFiles,
+      Collection<OutputArtifact> perTargetFiles) {
+    ListenableFuture<?> downloadFuture =
+        RemoteArtifactPrefetcher.getInstance()
+            .downloadArtifacts(
+                /* projectName= */ project.getName(),
+                /* outputArtifacts= */ BlazeArtifact.getRemoteArtifacts(aggregateFiles));
+    if (!FutureUtil.waitForFuture(context, downloadFuture)
+        .timed("PrefetchAggregateAspectOutput", EventType.Prefetching)
+        .withProgressMessage("Reading IDE info result...")
+        .run()
+        .success()) {
+      return null;
+    }
+    FutureUtil.FutureResult<ImmutableMap<String, OutputArtifact>> entries =
+        FutureUtil.waitForFuture(
+                context,
+                AggregateIdeInfoReader.readEntries(
+                    aggregateFiles, BlazeExecutor.getInstance().getExecutor()))
+            .timed("ReadAggregateAspectOutput", EventType.Other)
+            .withProgressMessage("Reading IDE info result...")
+            .onError("Failed to read aggregate aspect output files")
+            .run();
+    if (!entries.success()) {
+      return null;
+    }
+    List<OutputArtifact> files = new ArrayList<>(entries.result().values());
+    perTargetFiles.stream()
+        .filter(f -> !entries.result().containsKey(f.getKey()))
+        .forEach(files::add);
+    context.output(
+        PrintOutput.log(
+            String.format(
+                "Read %d aspect outputs from %d aggregate files, %d read individually",
+                entries.result().size(),
+                aggregateFiles.size(),
+                files.size() - entries.result().size())));
+    return files;
+  }
+
   @Nullable
   private static TargetMapAndInterfaceState updateState(
       Project project,
       BlazeContext parentContext,
       @Nullable BlazeIdeInterfaceState prevState,
       ArtifactsDiff fileState,
+      Map<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> prereadFiles,
       BlazeConfigurationHandler configHandler,
       BlazeVersionData versionData,
       WorkspaceLanguageSettings languageSettings,
@@ -348,6 +459,26 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
               // Read protos from any new files
               List<ListenableFuture<TargetFilePair>> futures = Lists.newArrayList();
               for (OutputArtifact file : fileState.getUpdatedOutputs()) {
+                ListenableFuture<IntellijIdeInfo.TargetIdeInfo> preread =
+                    prereadFiles.get(file.getKey());
+                if (preread != null) {
+                  futures.add(
+                      Futures.transform(
+                          preread,
+                          message -> {
+                            totalSizeLoaded.addAndGet(file.getLength());
+                            return new TargetFilePair(
+                                file,
+                                protoToTarget(
+                                    languageSettings,
+                                    importRoots,
+                                    message,
+                                    ignoredLanguages,
+                                    syncTime));
+                          },
+                          executor));
+                  continue;
+                }
                 futures.add(
                     executor.submit(
                         () -> {
@@ -575,9 +706,14 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
     AspectStrategy aspectStrategy = AspectStrategy.getInstance(blazeVersion);
 
     final Ref<BlazeBuildOutputs> combinedResult = new Ref<>();
+    // outputs of shards which ran out of memory, until it's known whether they're retried
+    final Map<List<? extends TargetExpression>, BlazeBuildOutputs> outOfMemoryResults =
+        Collections.synchronizedMap(new IdentityHashMap<>());
 
     // The build is a sync iff INFO output group is present
     boolean isSync = outputGroups.contains(OutputGroup.INFO);
+    PipelinedIdeInfoReader pipelinedReader =
+        isSync ? PipelinedIdeInfoReader.create(project, blazeVersion) : null;
 
     Function<Integer, String> progressMessage =
         count ->
@@ -622,6 +758,7 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
                   setupToolWindow(project, childContext, workspaceRoot, task);
                   progressTracker.onBuildStarted(context);
 
+                  long startTimeMillis = System.currentTimeMillis();
                   BlazeBuildOutputs result =
                       runBuildForTargets(
                           project,
@@ -640,26 +777,77 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
                         String.format(
                             "Build shard failed with OOM error build-id=%s",
                             result.getBuildIds().stream().findFirst().orElse(null)));
+                  } else if (isSync
+                      && result.buildResult.status != Status.FATAL_ERROR
+                      && BuildCostHistory.isEnabled()) {
+                    BuildCostHistory.getInstance(project)
+                        .recordShard(
+                            targets, System.currentTimeMillis() - startTimeMillis, result);
                   }
 
                   progressTracker.onBuildCompleted(context); // TODO(b/216104482) track failures
                   printShardFinishedSummary(context, task.getName(), result, invoker);
-                  synchronized (combinedResult) {
-                    combinedResult.set(
-                        combinedResult.isNull()
-                            ? result
-                            : combinedResult.get().updateOutputs(result));
+                  if (result.buildResult.outOfMemory()) {
+                    outOfMemoryResults.put(targets, result);
+                  } else {
+                    addShardOutputs(combinedResult, pipelinedReader, result);
                   }
                   return result.buildResult;
                 });
-    BuildResult buildResult =
-        shardedTargets.runShardedCommand(project, context, progressMessage, invocation, invoker);
+    BuildResult buildResult;
+    try {
+      buildResult =
+          shardedTargets.runShardedCommand(
+              project,
+              context,
+              progressMessage,
+              invocation,
+              // the retries rebuild the targets, so the incomplete outputs aren't needed
+              outOfMemoryResults::remove,
+              invoker);
+    } catch (RuntimeException | Error e) {
+      if (pipelinedReader != null) {
+        pipelinedReader.close();
+      }
+      throw e;
+    }
+    synchronized (outOfMemoryResults) {
+      outOfMemoryResults
+          .values()
+          .forEach(result -> addShardOutputs(combinedResult, pipelinedReader, result));
+    }
+    if (isSync && BuildCostHistory.isEnabled()) {
+      ApplicationManager.getApplication()
+          .executeOnPooledThread(() -> BuildCostHistory.getInstance(project).save());
+    }
     if (combinedResult.isNull()
         || (!BuildPhaseSyncTask.continueSyncOnOom.getValue()
-            && buildResult.status == Status.FATAL_ERROR)) {
+            && buildResult.status == Status.FATAL_ERROR
+            && !buildResult.outOfMemory())) {
+      if (pipelinedReader != null) {
+        pipelinedReader.close();
+      }
       return BlazeBuildOutputs.noOutputs(buildResult);
     }
-    return combinedResult.get();
+    BlazeBuildOutputs outputs =
+        buildResult.outOfMemory()
+            // keep the outputs of the other shards, and of shards which weren't retried
+            ? combinedResult.get().updateOutputs(BlazeBuildOutputs.noOutputs(buildResult))
+            : combinedResult.get();
+    return pipelinedReader != null ? outputs.withPipelinedReader(pipelinedReader) : outputs;
+  }
+
+  private static void addShardOutputs(
+      Ref<BlazeBuildOutputs> combinedResult,
+      @Nullable PipelinedIdeInfoReader pipelinedReader,
+      BlazeBuildOutputs result) {
+    synchronized (combinedResult) {
+      combinedResult.set(
+          combinedResult.isNull() ? result : combinedResult.get().updateOutputs(result));
+    }
+    if (pipelinedReader != null) {
+      pipelinedReader.onShardBuilt(result);
+    }
   }
 
   /* Prints summary only for failed shards */
@@ -739,7 +927,7 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
       }
 
       aspectStrategy.addAspectAndOutputGroups(
-          builder, outputGroups, activeLanguages, onlyDirectDeps);
+          builder, outputGroups, activeLanguages, onlyDirectDeps, /* aggregateIdeInfo= */ true);
 
       return invoker
           .getCommandRunner()
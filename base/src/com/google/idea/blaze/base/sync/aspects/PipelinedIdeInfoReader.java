@@ -0,0 +1,238 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.aspects;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.devtools.intellij.ideinfo.IntellijIdeInfo;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import com.google.idea.blaze.base.async.executor.BlazeExecutor;
+import com.google.idea.blaze.base.command.buildresult.BlazeArtifact;
+import com.google.idea.blaze.base.command.buildresult.OutputArtifact;
+import com.google.idea.blaze.base.command.buildresult.RemoteOutputArtifact;
+import com.google.idea.blaze.base.filecache.ArtifactState;
+import com.google.idea.blaze.base.filecache.ArtifactsDiff;
+import com.google.idea.blaze.base.model.BlazeProjectData;
+import com.google.idea.blaze.base.model.BlazeVersionData;
+import com.google.idea.blaze.base.prefetch.RemoteArtifactPrefetcher;
+import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy;
+import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy.OutputGroup;
+import com.google.idea.blaze.base.sync.data.BlazeProjectDataManager;
+import com.google.idea.common.experiments.BoolExperiment;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Downloads and parses the ide-info files of each sync build shard as soon as the shard completes,
+ * so that parsing overlaps with the remaining shards.
+ *
+ * <p>A reader is created for each sync build, and carried to the project update phase in its
+ * {@link BlazeBuildOutputs}. The project update phase takes the parsed files ({@link #take}), using
+ * them in place of reading any updated ide-info file whose state is unchanged since it was parsed.
+ * Everything else (diffing against the previous sync, merging into the target map) is still done
+ * once all shards are complete.
+ *
+ * <p>Once taken or closed, the reader stops reading, and cancels any outstanding reads.
+ */
+final class PipelinedIdeInfoReader {
+
+  private static final Logger logger = Logger.getInstance(PipelinedIdeInfoReader.class);
+
+  private static final BoolExperiment enabled =
+      new BoolExperiment("blaze.sync.pipelined.ide.info.parsing", true);
+
+  private final String projectName;
+  private final AspectStrategy aspectStrategy;
+  @Nullable private final ImmutableMap<String, ArtifactState> previousState;
+  private final ListeningExecutorService executor;
+
+  @GuardedBy("this")
+  private final List<ListenableFuture<?>> pendingReads = new ArrayList<>();
+
+  @GuardedBy("this")
+  private final Map<String, ParsedFile> parsedFiles = new HashMap<>();
+
+  @GuardedBy("this")
+  private boolean closed;
+
+  @VisibleForTesting
+  PipelinedIdeInfoReader(
+      String projectName,
+      AspectStrategy aspectStrategy,
+      @Nullable ImmutableMap<String, ArtifactState> previousState,
+      ListeningExecutorService executor) {
+    this.projectName = projectName;
+    this.aspectStrategy = aspectStrategy;
+    this.previousState = previousState;
+    this.executor = executor;
+  }
+
+  /** Returns a new reader for a sync build, or null if pipelined parsing is disabled. */
+  @Nullable
+  static PipelinedIdeInfoReader create(Project project, BlazeVersionData versionData) {
+    if (!enabled.getValue()) {
+      return null;
+    }
+    return new PipelinedIdeInfoReader(
+        project.getName(),
+        AspectStrategy.getInstance(versionData),
+        previousState(project),
+        BlazeExecutor.getInstance().getExecutor());
+  }
+
+  @Nullable
+  private static ImmutableMap<String, ArtifactState> previousState(Project project) {
+    BlazeProjectData projectData =
+        BlazeProjectDataManager.getInstance(project).getBlazeProjectData();
+    BlazeIdeInterfaceState state =
+        projectData != null ? projectData.getTargetData().ideInterfaceState : null;
+    return state != null ? state.ideInfoFileState : null;
+  }
+
+  /** Starts downloading and parsing the updated ide-info files of a completed build shard. */
+  void onShardBuilt(BlazeBuildOutputs outputs) {
+    ImmutableList<OutputArtifact> infoArtifacts =
+        outputs.getOutputGroupArtifacts(group -> group.startsWith(OutputGroup.INFO.prefix));
+    if (infoArtifacts.stream()
+        .anyMatch(f -> AspectStrategy.AGGREGATE_OUTPUT_FILE_PREDICATE.test(f.getKey()))) {
+      // aggregate files are read in bulk by the project update phase
+      return;
+    }
+    readFiles(
+        infoArtifacts.stream()
+            .filter(f -> AspectStrategy.ASPECT_OUTPUT_FILE_PREDICATE.test(f.getKey()))
+            .distinct()
+            .collect(toImmutableList()));
+  }
+
+  @VisibleForTesting
+  synchronized void readFiles(ImmutableList<OutputArtifact> files) {
+    if (closed || files.isEmpty()) {
+      return;
+    }
+    pendingReads.add(executor.submit(() -> parseUpdatedFiles(files)));
+  }
+
+  private Void parseUpdatedFiles(ImmutableList<OutputArtifact> files) throws Exception {
+    ArtifactsDiff diff = ArtifactsDiff.diffArtifacts(previousState, files);
+    ImmutableList<RemoteOutputArtifact> remoteArtifacts =
+        BlazeArtifact.getRemoteArtifacts(diff.getUpdatedOutputs());
+    synchronized (this) {
+      if (closed) {
+        return null;
+      }
+      // shared by all files, so cancelling the read of one file mustn't cancel the download
+      ListenableFuture<?> fetched =
+          Futures.nonCancellationPropagating(
+              remoteArtifacts.isEmpty()
+                  ? Futures.immediateFuture(null)
+                  : Futures.allAsList(
+                      RemoteArtifactPrefetcher.getInstance()
+                          .downloadArtifacts(projectName, remoteArtifacts),
+                      RemoteArtifactPrefetcher.getInstance().loadFilesInJvm(remoteArtifacts)));
+      for (OutputArtifact file : diff.getUpdatedOutputs()) {
+        ListenableFuture<IntellijIdeInfo.TargetIdeInfo> message =
+            Futures.transformAsync(
+                fetched,
+                unused -> executor.submit(() -> aspectStrategy.readAspectFile(file)),
+                MoreExecutors.directExecutor());
+        ArtifactState state = diff.getNewState().get(file.getKey());
+        ParsedFile previous = parsedFiles.put(file.getKey(), new ParsedFile(state, message));
+        if (previous != null) {
+          previous.message.cancel(true);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the parsed contents of those of the given ide-info files which were read while
+   * building, and haven't changed since, by artifact key. Then closes the reader, cancelling the
+   * outstanding reads of any other files.
+   */
+  synchronized ImmutableMap<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> take(
+      Collection<OutputArtifact> files, Map<String, ArtifactState> newState) {
+    Map<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> taken = new HashMap<>();
+    for (OutputArtifact file : files) {
+      ListenableFuture<IntellijIdeInfo.TargetIdeInfo> parsed =
+          getParsed(file, newState.get(file.getKey()));
+      if (parsed != null) {
+        taken.put(file.getKey(), parsed);
+        parsedFiles.remove(file.getKey());
+      }
+    }
+    close();
+    return ImmutableMap.copyOf(taken);
+  }
+
+  @GuardedBy("this")
+  @Nullable
+  private ListenableFuture<IntellijIdeInfo.TargetIdeInfo> getParsed(
+      OutputArtifact file, @Nullable ArtifactState state) {
+    ParsedFile parsed = parsedFiles.get(file.getKey());
+    if (parsed == null || parsed.state == null || state == null) {
+      return null;
+    }
+    if (parsed.state.isMoreRecent(state) || state.isMoreRecent(parsed.state)) {
+      return null;
+    }
+    return Futures.catchingAsync(
+        parsed.message,
+        Exception.class,
+        e -> {
+          logger.info("Re-reading " + file.getKey() + " after pipelined read failed", e);
+          return executor.submit(() -> aspectStrategy.readAspectFile(file));
+        },
+        MoreExecutors.directExecutor());
+  }
+
+  /**
+   * Stops reading ide-info files, and cancels any outstanding reads which haven't been taken.
+   * Called when the build outputs won't reach the project update phase.
+   */
+  synchronized void close() {
+    closed = true;
+    pendingReads.forEach(f -> f.cancel(true));
+    pendingReads.clear();
+    parsedFiles.values().forEach(f -> f.message.cancel(true));
+    parsedFiles.clear();
+  }
+
+  private static final class ParsedFile {
+    @Nullable final ArtifactState state;
+    final ListenableFuture<IntellijIdeInfo.TargetIdeInfo> message;
+
+    ParsedFile(
+        @Nullable ArtifactState state, ListenableFuture<IntellijIdeInfo.TargetIdeInfo> message) {
+      this.state = state;
+      this.message = message;
+    }
+  }
+}
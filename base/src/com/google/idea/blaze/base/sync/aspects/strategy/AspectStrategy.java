@@ -15,8 +15,8 @@
  */
 package com.google.idea.blaze.base.sync.aspects.strategy;
 
-import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toCollection;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
@@ -33,6 +33,7 @@ import com.google.protobuf.TextFormat;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
@@ -47,6 +48,19 @@ public abstract class AspectStrategy {
   public static final Predicate<String> ASPECT_OUTPUT_FILE_PREDICATE =
       str -> str.endsWith(".intellij-info.txt");
 
+  /**
+   * Matches the per-top-level-target files concatenating the intellij-info.txt files of the
+   * target and its transitive deps within the same package.
+   */
+  public static final Predicate<String> AGGREGATE_OUTPUT_FILE_PREDICATE =
+      str -> str.endsWith(".intellij-info-aggregate.txt");
+
+  /** The output group containing the aggregate intellij-info files. */
+  public static final String AGGREGATE_OUTPUT_GROUP = "intellij-info-aggregate";
+
+  /** The header line preceding each intellij-info.txt entry in an aggregate file. */
+  public static final String AGGREGATE_ENTRY_HEADER = "# intellij-info-file: ";
+
   /** A Blaze output group created by the aspect. */
   public enum OutputGroup {
     INFO("intellij-info-"),
@@ -79,6 +93,14 @@ public abstract class AspectStrategy {
   private static final BoolExperiment directDepsTrimmingEnabled =
       new BoolExperiment("sync.allow.requesting.direct.deps", true);
 
+  /**
+   * Whether to additionally request the aggregate intellij-info output group, so that sync can
+   * read and diff the aspect output in a few large sequential files rather than one file per
+   * target.
+   */
+  private static final BoolExperiment aggregateIdeInfoEnabled =
+      new BoolExperiment("sync.aggregate.ide.info.outputs", false);
+
   /** True if the aspect available to the plugin supports direct deps trimming. */
   private final boolean aspectSupportsDirectDepsTrimming;
 
@@ -90,6 +112,14 @@ public abstract class AspectStrategy {
 
   protected abstract List<String> getAspectFlags();
 
+  /**
+   * The flags applying the aspect which builds the aggregate intellij-info files of the top-level
+   * targets, or an empty list if it isn't supported.
+   */
+  protected List<String> getAggregateAspectFlags() {
+    return ImmutableList.of();
+  }
+
   /**
    * Add the aspect to the build and request the given {@code OutputGroup}s. This method should only
    * be called once.
@@ -102,13 +132,40 @@ public abstract class AspectStrategy {
       Collection<OutputGroup> outputGroups,
       Set<LanguageClass> activeLanguages,
       boolean directDepsOnly) {
+    addAspectAndOutputGroups(
+        builder, outputGroups, activeLanguages, directDepsOnly, /* aggregateIdeInfo= */ false);
+  }
+
+  /**
+   * Add the aspect to the build and request the given {@code OutputGroup}s. This method should only
+   * be called once.
+   *
+   * @param directDepsOnly when supported for a language, the build outputs will be trimmed to
+   *     direct deps of the top-level targets.
+   * @param aggregateIdeInfo whether to also request the aggregate intellij-info files of the
+   *     top-level targets, if enabled. Each covers its target's transitive deps within the same
+   *     package.
+   */
+  public final void addAspectAndOutputGroups(
+      BlazeCommand.Builder builder,
+      Collection<OutputGroup> outputGroups,
+      Set<LanguageClass> activeLanguages,
+      boolean directDepsOnly,
+      boolean aggregateIdeInfo) {
     List<String> groups =
         outputGroups.stream()
             .flatMap(g -> getOutputGroups(g, activeLanguages, directDepsOnly).stream())
-            .collect(toImmutableList());
-    builder
-        .addBlazeFlags(getAspectFlags())
-        .addBlazeFlags("--output_groups=" + Joiner.on(',').join(groups));
+            .collect(toCollection(ArrayList::new));
+    builder.addBlazeFlags(getAspectFlags());
+    if (aggregateIdeInfo
+        && outputGroups.contains(OutputGroup.INFO)
+        && aggregateIdeInfoEnabled.getValue()
+        && !getAggregateAspectFlags().isEmpty()) {
+      // must be applied after the main aspect, whose provider it requires
+      builder.addBlazeFlags(getAggregateAspectFlags());
+      groups.add(AGGREGATE_OUTPUT_GROUP);
+    }
+    builder.addBlazeFlags("--output_groups=" + Joiner.on(',').join(groups));
   }
 
   /**
@@ -162,13 +219,19 @@ public abstract class AspectStrategy {
 
   public final IntellijIdeInfo.TargetIdeInfo readAspectFile(BlazeArtifact file) throws IOException {
     try (InputStream inputStream = file.getInputStream()) {
-      IntellijIdeInfo.TargetIdeInfo.Builder builder = IntellijIdeInfo.TargetIdeInfo.newBuilder();
-      TextFormat.Parser parser = TextFormat.Parser.newBuilder().setAllowUnknownFields(true).build();
-      parser.merge(new InputStreamReader(inputStream, UTF_8), builder);
-      return builder.build();
+      return parseAspectFile(inputStream);
     }
   }
 
+  /** Parses an intellij-info.txt file from the given stream, without closing it. */
+  public static IntellijIdeInfo.TargetIdeInfo parseAspectFile(InputStream inputStream)
+      throws IOException {
+    IntellijIdeInfo.TargetIdeInfo.Builder builder = IntellijIdeInfo.TargetIdeInfo.newBuilder();
+    TextFormat.Parser parser = TextFormat.Parser.newBuilder().setAllowUnknownFields(true).build();
+    parser.merge(new InputStreamReader(inputStream, UTF_8), builder);
+    return builder.build();
+  }
+
   @Nullable
   private String getOutputGroupForLanguage(
       OutputGroup group, LanguageClass language, boolean directDepsOnly) {
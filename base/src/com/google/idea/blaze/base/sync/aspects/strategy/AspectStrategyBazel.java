@@ -28,6 +28,7 @@ import javax.annotation.Nullable;
 /** Aspect strategy for Bazel, where the aspect is situated in an external repository. */
 public class AspectStrategyBazel extends AspectStrategy {
   private final String aspectFlag;
+  private final String aggregateAspectFlag;
 
   static final class Provider implements AspectStrategyProvider {
     @Override
@@ -44,8 +45,12 @@ public class AspectStrategyBazel extends AspectStrategy {
     super(/* aspectSupportsDirectDepsTrimming= */ true);
     if (versionData.bazelIsAtLeastVersion(6, 0, 0)) {
       aspectFlag = "--aspects=@@intellij_aspect//:intellij_info_bundled.bzl%intellij_info_aspect";
+      aggregateAspectFlag =
+          "--aspects=@@intellij_aspect//:intellij_info_bundled.bzl%intellij_info_aggregate_aspect";
     } else {
       aspectFlag = "--aspects=@intellij_aspect//:intellij_info_bundled.bzl%intellij_info_aspect";
+      aggregateAspectFlag =
+          "--aspects=@intellij_aspect//:intellij_info_bundled.bzl%intellij_info_aggregate_aspect";
     }
   }
 
@@ -67,6 +72,11 @@ public class AspectStrategyBazel extends AspectStrategy {
     return ImmutableList.of(aspectFlag, getAspectRepositoryOverrideFlag());
   }
 
+  @Override
+  protected List<String> getAggregateAspectFlags() {
+    return ImmutableList.of(aggregateAspectFlag);
+  }
+
   private static File findAspectDirectory() {
     IdeaPluginDescriptor plugin =
         PluginManager.getPlugin(PluginManager.getPluginByClassName(AspectStrategy.class.getName()));
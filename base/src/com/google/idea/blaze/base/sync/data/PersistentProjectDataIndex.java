@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.idea.blaze.base.model.BlazeProjectData;
+import com.google.idea.blaze.base.settings.BlazeImportSettings;
+import com.google.idea.blaze.base.settings.BlazeImportSettingsManager;
+import com.google.idea.blaze.base.sync.SyncCache;
+import com.google.idea.blaze.base.util.SerializationUtil;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import javax.annotation.Nullable;
+
+/**
+ * An index derived from the project data, which is rebuilt when the project data changes.
+ *
+ * <p>The state the index is built from is persisted in the project data directory, so it can be
+ * updated incrementally, including on the first sync after restarting the IDE. Building the index
+ * doesn't use the {@link SyncCache}, so it may be requested while computing a {@link SyncCache}
+ * entry.
+ *
+ * @param <S> the persisted state
+ * @param <T> the index built from the state
+ */
+public final class PersistentProjectDataIndex<S extends Serializable, T> {
+  private static final Logger logger = Logger.getInstance(PersistentProjectDataIndex.class);
+
+  /** Computes the persisted state and the index of new project data. */
+  public interface Builder<S, T> {
+    /**
+     * Returns the state of the given project data. The previous state, if any, may be reused. It
+     * is only persisted again if a different instance is returned.
+     */
+    S updateState(BlazeProjectData projectData, @Nullable S previous);
+
+    T buildIndex(BlazeProjectData projectData, S state);
+  }
+
+  private final Project project;
+  private final String relativePath;
+  private final Class<? super S> stateClass;
+  private final Builder<S, T> builder;
+
+  @Nullable private BlazeProjectData indexedProjectData;
+  @Nullable private S state;
+  @Nullable private T index;
+  private boolean loadedFromDisk;
+
+  /**
+   * @param relativePath the path of the persisted state, relative to the project data directory
+   * @param stateClass the class of the persisted state, to validate the state loaded from disk
+   */
+  public PersistentProjectDataIndex(
+      Project project, String relativePath, Class<? super S> stateClass, Builder<S, T> builder) {
+    this.project = project;
+    this.relativePath = relativePath;
+    this.stateClass = stateClass;
+    this.builder = builder;
+  }
+
+  /** Returns the index of the current project data, building it if necessary. */
+  @Nullable
+  public T get() {
+    BlazeProjectData projectData =
+        BlazeProjectDataManager.getInstance(project).getBlazeProjectData();
+    return projectData != null ? get(projectData) : null;
+  }
+
+  /** Returns the index of the given project data, building it if necessary. */
+  public synchronized T get(BlazeProjectData projectData) {
+    if (indexedProjectData == projectData && index != null) {
+      return index;
+    }
+    File file = getFile();
+    if (!loadedFromDisk) {
+      loadedFromDisk = true;
+      if (state == null && file != null) {
+        state = load(file);
+      }
+    }
+    S previous = state;
+    state = builder.updateState(projectData, previous);
+    index = builder.buildIndex(projectData, state);
+    indexedProjectData = projectData;
+    if (state != previous && file != null) {
+      S toSave = state;
+      ApplicationManager.getApplication().executeOnPooledThread(() -> save(file, toSave));
+    }
+    return index;
+  }
+
+  @Nullable
+  private File getFile() {
+    BlazeImportSettings importSettings =
+        BlazeImportSettingsManager.getInstance(project).getImportSettings();
+    if (importSettings == null) {
+      return null;
+    }
+    return new File(BlazeDataStorage.getProjectDataDir(importSettings), relativePath);
+  }
+
+  @Nullable
+  @SuppressWarnings("unchecked") // the loaded state is checked against the state class
+  private S load(File file) {
+    if (!file.exists()) {
+      return null;
+    }
+    try {
+      // the builder is defined by the plugin which defines the state classes
+      Object loaded =
+          SerializationUtil.loadFromDisk(
+              file, ImmutableList.of(builder.getClass().getClassLoader()));
+      return stateClass.isInstance(loaded) ? (S) loaded : null;
+    } catch (IOException e) {
+      logger.info("Failed to load " + relativePath, e);
+      return null;
+    }
+  }
+
+  private void save(File file, S state) {
+    try {
+      SerializationUtil.saveToDisk(file, state);
+    } catch (IOException e) {
+      logger.warn("Failed to save " + relativePath, e);
+    }
+  }
+}
@@ -20,87 +20,139 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
 import com.google.idea.blaze.base.model.BlazeLibrary;
 import com.google.idea.blaze.base.model.BlazeProjectData;
 import com.google.idea.blaze.base.model.LibraryFilesProvider;
-import com.google.idea.blaze.base.model.LibraryKey;
 import com.google.idea.blaze.base.projectview.ProjectViewSet;
 import com.google.idea.blaze.base.scope.BlazeContext;
 import com.google.idea.blaze.base.sync.BlazeSyncPlugin;
 import com.google.idea.blaze.common.PrintOutput;
+import com.google.idea.common.experiments.BoolExperiment;
+import com.google.idea.common.experiments.IntExperiment;
+import com.google.idea.common.util.Transactions;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.externalSystem.service.project.IdeModifiableModelsProvider;
 import com.intellij.openapi.externalSystem.service.project.IdeModifiableModelsProviderImpl;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.DependencyScope;
 import com.intellij.openapi.roots.ModifiableRootModel;
+import com.intellij.openapi.roots.ex.ProjectRootManagerEx;
 import com.intellij.openapi.roots.libraries.Library;
 import com.intellij.openapi.roots.libraries.LibraryTable;
 import com.intellij.openapi.roots.libraries.LibraryTablesRegistrar;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 /** Edits IntelliJ libraries */
 public class LibraryEditor {
   private static final Logger logger = Logger.getInstance(LibraryEditor.class);
 
-  public static void updateProjectLibraries(
+  private static final BoolExperiment skipUnchangedLibraries =
+      new BoolExperiment("blaze.sync.skip.unchanged.libraries", true);
+  private static final IntExperiment maxLibrariesPerWriteAction =
+      new IntExperiment("blaze.sync.libraries.per.write.action", 500);
+
+  /**
+   * Brings the project's libraries in line with the given blaze libraries, and returns the names of
+   * the unused ones. These are still referenced by the committed modules, so are removed by {@link
+   * #removeLibraries} once the modules are committed.
+   *
+   * <p>Only libraries whose roots changed are modified. The modifications are committed in several
+   * write actions of bounded size, so must not be called from within a write action.
+   */
+  public static ImmutableList<String> updateProjectLibraries(
       Project project,
       BlazeContext context,
       ProjectViewSet projectViewSet,
       BlazeProjectData blazeProjectData,
       Collection<BlazeLibrary> libraries) {
-    Set<LibraryKey> intelliJLibraryState = Sets.newHashSet();
-    IdeModifiableModelsProvider modelsProvider = new IdeModifiableModelsProviderImpl(project);
-    for (Library library : modelsProvider.getAllLibraries()) {
-      String name = library.getName();
-      if (name != null) {
-        intelliJLibraryState.add(LibraryKey.fromIntelliJLibraryName(name));
-      }
-    }
     context.output(PrintOutput.log(String.format("Workspace has %d libraries", libraries.size())));
 
-    try {
-      Set<String> newLibraryKeys = new HashSet<>();
-      libraries.forEach(
-          library -> {
-            LibraryFilesProvider libraryFilesProvider =
-                LibraryFilesProviderFactory.getInstance(project).get(library);
-            String key = libraryFilesProvider.getName();
-            if (newLibraryKeys.add(key)) {
-              updateLibrary(modelsProvider, blazeProjectData, libraryFilesProvider);
-            }
-          });
+    // computed before taking the write lock, as this checks that each library file exists
+    Map<String, LibraryRoots> newLibraries = new LinkedHashMap<>();
+    for (BlazeLibrary library : libraries) {
+      LibraryFilesProvider libraryFilesProvider =
+          LibraryFilesProviderFactory.getInstance(project).get(library);
+      newLibraries.computeIfAbsent(
+          libraryFilesProvider.getName(),
+          name -> LibraryRoots.compute(libraryFilesProvider, blazeProjectData));
+    }
 
-      // Garbage collect unused libraries
-      List<LibrarySource> librarySources = Lists.newArrayList();
-      for (BlazeSyncPlugin syncPlugin : BlazeSyncPlugin.EP_NAME.getExtensions()) {
-        LibrarySource librarySource = syncPlugin.getLibrarySource(projectViewSet, blazeProjectData);
-        if (librarySource != null) {
-          librarySources.add(librarySource);
-        }
+    // Garbage collect unused libraries
+    List<LibrarySource> librarySources = Lists.newArrayList();
+    for (BlazeSyncPlugin syncPlugin : BlazeSyncPlugin.EP_NAME.getExtensions()) {
+      LibrarySource librarySource = syncPlugin.getLibrarySource(projectViewSet, blazeProjectData);
+      if (librarySource != null) {
+        librarySources.add(librarySource);
       }
-      Predicate<Library> gcRetentionFilter =
-          librarySources.stream()
-              .map(LibrarySource::getGcRetentionFilter)
-              .filter(Objects::nonNull)
-              .reduce(Predicate::or)
-              .orElse(o -> false);
-
-      for (LibraryKey libraryKey : intelliJLibraryState) {
-        String libraryIntellijName = libraryKey.getIntelliJLibraryName();
-        if (!newLibraryKeys.contains(libraryIntellijName)) {
-          Library library = modelsProvider.getLibraryByName(libraryIntellijName);
-          if (!gcRetentionFilter.test(library)) {
-            if (library != null) {
-              modelsProvider.removeLibrary(library);
+    }
+    Predicate<Library> gcRetentionFilter =
+        librarySources.stream()
+            .map(LibrarySource::getGcRetentionFilter)
+            .filter(Objects::nonNull)
+            .reduce(Predicate::or)
+            .orElse(o -> false);
+
+    LibraryTable libraryTable = LibraryTablesRegistrar.getInstance().getLibraryTable(project);
+    List<LibraryRoots> changedLibraries = new ArrayList<>();
+    List<String> unusedLibraries = new ArrayList<>();
+    ReadAction.run(
+        () -> {
+          for (LibraryRoots roots : newLibraries.values()) {
+            if (!skipUnchangedLibraries.getValue()
+                || !roots.matches(libraryTable.getLibraryByName(roots.name))) {
+              changedLibraries.add(roots);
             }
           }
+          for (Library library : libraryTable.getLibraries()) {
+            String name = library.getName();
+            if (name != null
+                && !newLibraries.containsKey(name)
+                && !gcRetentionFilter.test(library)) {
+              unusedLibraries.add(name);
+            }
+          }
+        });
+    context.output(
+        PrintOutput.log(
+            String.format(
+                "Updating %d changed libraries, removing %d unused libraries",
+                changedLibraries.size(), unusedLibraries.size())));
+
+    int chunkSize = Math.max(1, maxLibrariesPerWriteAction.getValue());
+    for (List<LibraryRoots> chunk : Lists.partition(changedLibraries, chunkSize)) {
+      commitInWriteAction(
+          project,
+          modelsProvider -> {
+            for (LibraryRoots roots : chunk) {
+              LibraryModifier.setRoots(modelsProvider, roots);
+            }
+          });
+    }
+    return ImmutableList.copyOf(unusedLibraries);
+  }
+
+  /**
+   * Removes the named libraries, if they exist. Must be called from within a write action, after
+   * committing the modules which referenced them, so both are part of the same roots change.
+   */
+  public static void removeLibraries(Project project, Collection<String> libraryNames) {
+    if (libraryNames.isEmpty()) {
+      return;
+    }
+    IdeModifiableModelsProvider modelsProvider = new IdeModifiableModelsProviderImpl(project);
+    try {
+      for (String name : libraryNames) {
+        Library library = modelsProvider.getLibraryByName(name);
+        if (library != null) {
+          modelsProvider.removeLibrary(library);
         }
       }
     } finally {
@@ -108,6 +160,23 @@ public class LibraryEditor {
     }
   }
 
+  private static void commitInWriteAction(
+      Project project, Consumer<IdeModifiableModelsProvider> modification) {
+    Transactions.submitWriteActionTransactionAndWait(
+        () ->
+            ProjectRootManagerEx.getInstanceEx(project)
+                .mergeRootsChangesDuring(
+                    () -> {
+                      IdeModifiableModelsProvider modelsProvider =
+                          new IdeModifiableModelsProviderImpl(project);
+                      try {
+                        modification.accept(modelsProvider);
+                      } finally {
+                        modelsProvider.commit();
+                      }
+                    }));
+  }
+
   /**
    * Updates the library in IntelliJ's project model.
    *
@@ -15,24 +15,15 @@
  */
 package com.google.idea.blaze.base.sync.libraries;
 
-import com.google.idea.blaze.base.io.VirtualFileSystemProvider;
 import com.google.idea.blaze.base.model.BlazeProjectData;
 import com.google.idea.blaze.base.model.LibraryFilesProvider;
-import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.externalSystem.service.project.IdeModifiableModelsProvider;
 import com.intellij.openapi.roots.OrderRootType;
 import com.intellij.openapi.roots.libraries.Library;
 import com.intellij.openapi.roots.libraries.Library.ModifiableModel;
-import com.intellij.openapi.util.io.FileUtil;
-import com.intellij.openapi.util.io.FileUtilRt;
-import com.intellij.openapi.vfs.StandardFileSystems;
-import com.intellij.openapi.vfs.VirtualFileManager;
-import com.intellij.util.io.URLUtil;
-import java.io.File;
 
 /** Modifies {@link Library} content in {@link Library.ModifiableModel}. */
 public class LibraryModifier {
-  private static final Logger logger = Logger.getInstance(LibraryModifier.class);
   private final LibraryFilesProvider libraryFilesProvider;
   private final Library.ModifiableModel modifiableModel;
 
@@ -48,17 +39,28 @@ public class LibraryModifier {
 
   /** Writes the library content to its {@link Library.ModifiableModel}. */
   public void updateModifiableModel(BlazeProjectData blazeProjectData) {
-    removeAllContents();
-    for (File classFile : libraryFilesProvider.getClassFiles(blazeProjectData)) {
-      addRoot(classFile, OrderRootType.CLASSES);
-    }
+    setRoots(modifiableModel, LibraryRoots.compute(libraryFilesProvider, blazeProjectData));
+  }
+
+  /**
+   * Replaces the content of the named library with the given, precomputed roots, creating the
+   * library if necessary.
+   */
+  static void setRoots(IdeModifiableModelsProvider modelsProvider, LibraryRoots roots) {
+    setRoots(getLibraryModifiableModel(modelsProvider, roots.name), roots);
+  }
 
-    for (File sourceFile : libraryFilesProvider.getSourceFiles(blazeProjectData)) {
-      addRoot(sourceFile, OrderRootType.SOURCES);
+  private static void setRoots(Library.ModifiableModel modifiableModel, LibraryRoots roots) {
+    removeAllContents(modifiableModel);
+    for (String url : roots.classUrls) {
+      modifiableModel.addRoot(url, OrderRootType.CLASSES);
+    }
+    for (String url : roots.sourceUrls) {
+      modifiableModel.addRoot(url, OrderRootType.SOURCES);
     }
   }
 
-  private ModifiableModel getLibraryModifiableModel(
+  private static ModifiableModel getLibraryModifiableModel(
       IdeModifiableModelsProvider modelsProvider, String libraryName) {
     Library library = modelsProvider.getLibraryByName(libraryName);
     boolean libraryExists = library != null;
@@ -68,34 +70,7 @@ public class LibraryModifier {
     return modelsProvider.getModifiableLibraryModel(library);
   }
 
-  private void addRoot(File file, OrderRootType orderRootType) {
-    if (!file.exists()) {
-      logger.warn("No local file found for " + file);
-      return;
-    }
-    modifiableModel.addRoot(pathToUrl(file), orderRootType);
-  }
-
-  private String pathToUrl(File path) {
-    String name = path.getName();
-    boolean isJarFile =
-        FileUtilRt.extensionEquals(name, "jar")
-            || FileUtilRt.extensionEquals(name, "srcjar")
-            || FileUtilRt.extensionEquals(name, "zip");
-    // .jar files require an URL with "jar" protocol.
-    String protocol =
-        isJarFile
-            ? StandardFileSystems.JAR_PROTOCOL
-            : VirtualFileSystemProvider.getInstance().getSystem().getProtocol();
-    String filePath = FileUtil.toSystemIndependentName(path.getPath());
-    String url = VirtualFileManager.constructUrl(protocol, filePath);
-    if (isJarFile) {
-      url += URLUtil.JAR_SEPARATOR;
-    }
-    return url;
-  }
-
-  private void removeAllContents() {
+  private static void removeAllContents(Library.ModifiableModel modifiableModel) {
     for (String url : modifiableModel.getUrls(OrderRootType.CLASSES)) {
       modifiableModel.removeRoot(url, OrderRootType.CLASSES);
     }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.libraries;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.idea.blaze.base.io.VirtualFileSystemProvider;
+import com.google.idea.blaze.base.model.BlazeProjectData;
+import com.google.idea.blaze.base.model.LibraryFilesProvider;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.roots.OrderRootType;
+import com.intellij.openapi.roots.libraries.Library;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.io.FileUtilRt;
+import com.intellij.openapi.vfs.StandardFileSystems;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.util.io.URLUtil;
+import java.io.File;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * The class and source root URLs of a library, as provided by its {@link LibraryFilesProvider}.
+ *
+ * <p>Computing these checks each file exists, so is done before taking the write lock. Comparing
+ * them with an existing {@link Library} tells whether the library needs to be modified at all.
+ */
+final class LibraryRoots {
+  private static final Logger logger = Logger.getInstance(LibraryRoots.class);
+
+  final String name;
+  final ImmutableList<String> classUrls;
+  final ImmutableList<String> sourceUrls;
+
+  @VisibleForTesting
+  LibraryRoots(
+      String name, ImmutableList<String> classUrls, ImmutableList<String> sourceUrls) {
+    this.name = name;
+    this.classUrls = classUrls;
+    this.sourceUrls = sourceUrls;
+  }
+
+  static LibraryRoots compute(
+      LibraryFilesProvider libraryFilesProvider, BlazeProjectData blazeProjectData) {
+    return new LibraryRoots(
+        libraryFilesProvider.getName(),
+        toUrls(libraryFilesProvider.getClassFiles(blazeProjectData)),
+        toUrls(libraryFilesProvider.getSourceFiles(blazeProjectData)));
+  }
+
+  /** Returns true if the given library exists and has exactly these roots, in the same order. */
+  boolean matches(@Nullable Library library) {
+    return library != null
+        && Arrays.asList(library.getUrls(OrderRootType.CLASSES)).equals(classUrls)
+        && Arrays.asList(library.getUrls(OrderRootType.SOURCES)).equals(sourceUrls);
+  }
+
+  private static ImmutableList<String> toUrls(ImmutableList<File> files) {
+    ImmutableList.Builder<String> urls = ImmutableList.builder();
+    for (File file : files) {
+      if (!file.exists()) {
+        logger.warn("No local file found for " + file);
+        continue;
+      }
+      urls.add(pathToUrl(file));
+    }
+    return urls.build();
+  }
+
+  private static String pathToUrl(File path) {
+    String name = path.getName();
+    boolean isJarFile =
+        FileUtilRt.extensionEquals(name, "jar")
+            || FileUtilRt.extensionEquals(name, "srcjar")
+            || FileUtilRt.extensionEquals(name, "zip");
+    // .jar files require an URL with "jar" protocol.
+    String protocol =
+        isJarFile
+            ? StandardFileSystems.JAR_PROTOCOL
+            : VirtualFileSystemProvider.getInstance().getSystem().getProtocol();
+    String filePath = FileUtil.toSystemIndependentName(path.getPath());
+    String url = VirtualFileManager.constructUrl(protocol, filePath);
+    if (isJarFile) {
+      url += URLUtil.JAR_SEPARATOR;
+    }
+    return url;
+  }
+}
@@ -15,7 +15,9 @@
  */
 package com.google.idea.blaze.base.sync.projectstructure;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
 import com.google.common.collect.Lists;
@@ -34,15 +36,21 @@ import com.intellij.openapi.project.Project;
 import java.io.File;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
 
 /**
  * Directory structure representation used by {@link ContentEntryEditor}.
  *
  * <p>The purpose of this class is to pull out all file system operations out of the project
  * structure commit step, as this step locks the UI.
+ *
+ * <p>The directory tree is persisted between syncs ({@link DirectoryStructureCache}), and only
+ * directories which changed since the previous sync are listed again.
  */
 public class DirectoryStructure {
 
@@ -75,91 +83,223 @@ public class DirectoryStructure {
       ProjectViewSet projectViewSet,
       AtomicBoolean cancelled)
       throws ExecutionException, InterruptedException {
-    FileOperationProvider fileOperationProvider = FileOperationProvider.getInstance();
     ImportRoots importRoots =
         ImportRoots.builder(workspaceRoot, Blaze.getBuildSystemName(project))
             .add(projectViewSet)
             .build();
-    Collection<WorkspacePath> rootDirectories = importRoots.rootDirectories();
-    Set<WorkspacePath> excludeDirectories = importRoots.excludeDirectories();
-    List<ListenableFuture<PathStructurePair>> futures =
-        Lists.newArrayListWithExpectedSize(rootDirectories.size());
-    for (WorkspacePath rootDirectory : rootDirectories) {
-      futures.add(
-          walkDirectoryStructure(
+    DirectoryStructureCache cache = DirectoryStructureCache.getInstance(project);
+    DirectoryStructureCache.Baseline baseline = cache.startRefresh(workspaceRoot);
+    boolean finished = false;
+    try {
+      Walker walker =
+          new Walker(
               workspaceRoot,
-              excludeDirectories,
-              fileOperationProvider,
+              importRoots.excludeDirectories(),
+              FileOperationProvider.getInstance(),
               FetchExecutor.EXECUTOR,
-              rootDirectory,
-              cancelled));
-    }
-    ImmutableMap.Builder<WorkspacePath, DirectoryStructure> result = ImmutableMap.builder();
-    for (PathStructurePair pair : Futures.allAsList(futures).get()) {
-      if (pair != null) {
-        result.put(pair.path, pair.directoryStructure);
+              baseline,
+              cancelled);
+      DirectoryStructure result = walker.walk(importRoots.rootDirectories());
+      if (!cancelled.get()) {
+        cache.finishRefresh(walker.snapshot());
+        finished = true;
+      }
+      return result;
+    } finally {
+      if (!finished) {
+        cache.abandonRefresh(baseline);
       }
     }
-    return new DirectoryStructure(result.build());
   }
 
-  private static ListenableFuture<PathStructurePair> walkDirectoryStructure(
-      WorkspaceRoot workspaceRoot,
-      Set<WorkspacePath> excludeDirectories,
-      FileOperationProvider fileOperationProvider,
-      ListeningExecutorService executorService,
-      WorkspacePath workspacePath,
-      AtomicBoolean cancelled) {
-    if (cancelled.get() || excludeDirectories.contains(workspacePath)) {
-      return Futures.immediateFuture(null);
+  /**
+   * Walks the directory tree below the import roots, reusing the subdirectories recorded in the
+   * previous sync's snapshot for directories which haven't changed since.
+   */
+  @VisibleForTesting
+  static final class Walker {
+    // Directories this deep below an import root are walked with their whole subtree in a single
+    // task, so checking an unchanged tree doesn't need one task per directory.
+    private static final int BATCH_DEPTH = 3;
+
+    private final WorkspaceRoot workspaceRoot;
+    private final Set<WorkspacePath> excludeDirectories;
+    private final FileOperationProvider fileOperationProvider;
+    private final ListeningExecutorService executorService;
+    private final DirectoryStructureCache.Baseline baseline;
+    private final AtomicBoolean cancelled;
+    private final Map<String, DirectoryStructureSnapshot.Entry> visited =
+        new ConcurrentHashMap<>();
+
+    Walker(
+        WorkspaceRoot workspaceRoot,
+        Set<WorkspacePath> excludeDirectories,
+        FileOperationProvider fileOperationProvider,
+        ListeningExecutorService executorService,
+        DirectoryStructureCache.Baseline baseline,
+        AtomicBoolean cancelled) {
+      this.workspaceRoot = workspaceRoot;
+      this.excludeDirectories = excludeDirectories;
+      this.fileOperationProvider = fileOperationProvider;
+      this.executorService = executorService;
+      this.baseline = baseline;
+      this.cancelled = cancelled;
+    }
+
+    DirectoryStructure walk(Collection<WorkspacePath> rootDirectories)
+        throws ExecutionException, InterruptedException {
+      List<ListenableFuture<PathStructurePair>> futures =
+          Lists.newArrayListWithExpectedSize(rootDirectories.size());
+      for (WorkspacePath rootDirectory : rootDirectories) {
+        futures.add(walkDirectoryStructure(rootDirectory, /* subtreeChanged= */ false, 0));
+      }
+      ImmutableMap.Builder<WorkspacePath, DirectoryStructure> result = ImmutableMap.builder();
+      for (PathStructurePair pair : Futures.allAsList(futures).get()) {
+        if (pair != null) {
+          result.put(pair.path, pair.directoryStructure);
+        }
+      }
+      return new DirectoryStructure(result.build());
     }
-    File file = workspaceRoot.fileForPath(workspacePath);
-    if (!fileOperationProvider.isDirectory(file)) {
-      return Futures.immediateFuture(null);
+
+    /** Returns the directories visited by {@link #walk}. */
+    DirectoryStructureSnapshot snapshot() {
+      return new DirectoryStructureSnapshot(workspaceRoot.directory().getPath(), visited);
     }
-    ListenableFuture<File[]> childrenFuture =
-        executorService.submit(() -> fileOperationProvider.listFiles(file));
-    return Futures.transformAsync(
-        childrenFuture,
-        children -> {
-          if (cancelled.get() || children == null) {
-            return Futures.immediateFuture(null);
-          }
-          List<ListenableFuture<PathStructurePair>> futures =
-              Lists.newArrayListWithExpectedSize(children.length);
-          for (File child : children) {
-            WorkspacePath childWorkspacePath;
-            try {
-              childWorkspacePath = workspaceRoot.workspacePathFor(child);
-            } catch (IllegalArgumentException e) {
-              // stop at directories with unhandled characters.
-              continue;
+
+    private ListenableFuture<PathStructurePair> walkDirectoryStructure(
+        WorkspacePath workspacePath, boolean subtreeChanged, int depth) {
+      if (cancelled.get() || excludeDirectories.contains(workspacePath)) {
+        return Futures.immediateFuture(null);
+      }
+      if (depth >= BATCH_DEPTH) {
+        return executorService.submit(() -> walkSubtree(workspacePath, subtreeChanged));
+      }
+      subtreeChanged = subtreeChanged || baseline.changedSubtrees.contains(workspacePath);
+      DirectoryStructureSnapshot.Entry previous = previousEntry(workspacePath, subtreeChanged);
+      if (previous != null && baseline.skipUnchangedDirectories) {
+        return walkSubdirectories(workspacePath, previous, subtreeChanged, depth);
+      }
+      boolean childrenChanged = subtreeChanged;
+      File file = workspaceRoot.fileForPath(workspacePath);
+      ListenableFuture<DirectoryStructureSnapshot.Entry> entryFuture =
+          executorService.submit(() -> readDirectory(file, previous));
+      return Futures.transformAsync(
+          entryFuture,
+          entry -> {
+            if (cancelled.get() || entry == null) {
+              return Futures.immediateFuture(null);
             }
-            futures.add(
-                walkDirectoryStructure(
-                    workspaceRoot,
-                    excludeDirectories,
-                    fileOperationProvider,
-                    executorService,
-                    childWorkspacePath,
-                    cancelled));
-          }
-          return Futures.transform(
-              Futures.allAsList(futures),
-              (Function<List<PathStructurePair>, PathStructurePair>)
-                  pairs -> {
-                    Builder<WorkspacePath, DirectoryStructure> result = ImmutableMap.builder();
-                    for (PathStructurePair pair : pairs) {
-                      if (pair != null) {
-                        result.put(pair.path, pair.directoryStructure);
-                      }
-                    }
-                    return new PathStructurePair(
-                        workspacePath, new DirectoryStructure(result.build()));
-                  },
-              executorService);
-        },
-        executorService);
+            return walkSubdirectories(workspacePath, entry, childrenChanged, depth);
+          },
+          executorService);
+    }
+
+    private ListenableFuture<PathStructurePair> walkSubdirectories(
+        WorkspacePath workspacePath,
+        DirectoryStructureSnapshot.Entry entry,
+        boolean subtreeChanged,
+        int depth) {
+      visited.put(workspacePath.relativePath(), entry);
+      List<WorkspacePath> children = childPaths(workspacePath, entry);
+      List<ListenableFuture<PathStructurePair>> futures =
+          Lists.newArrayListWithExpectedSize(children.size());
+      for (WorkspacePath child : children) {
+        futures.add(walkDirectoryStructure(child, subtreeChanged, depth + 1));
+      }
+      return Futures.transform(
+          Futures.allAsList(futures),
+          (Function<List<PathStructurePair>, PathStructurePair>)
+              pairs -> toPathStructurePair(workspacePath, pairs),
+          MoreExecutors.directExecutor());
+    }
+
+    /** Walks the directory and its whole subtree on the calling thread. */
+    @Nullable
+    private PathStructurePair walkSubtree(WorkspacePath workspacePath, boolean subtreeChanged) {
+      if (cancelled.get() || excludeDirectories.contains(workspacePath)) {
+        return null;
+      }
+      subtreeChanged = subtreeChanged || baseline.changedSubtrees.contains(workspacePath);
+      DirectoryStructureSnapshot.Entry previous = previousEntry(workspacePath, subtreeChanged);
+      DirectoryStructureSnapshot.Entry entry =
+          previous != null && baseline.skipUnchangedDirectories
+              ? previous
+              : readDirectory(workspaceRoot.fileForPath(workspacePath), previous);
+      if (cancelled.get() || entry == null) {
+        return null;
+      }
+      visited.put(workspacePath.relativePath(), entry);
+      List<WorkspacePath> children = childPaths(workspacePath, entry);
+      List<PathStructurePair> pairs = Lists.newArrayListWithExpectedSize(children.size());
+      for (WorkspacePath child : children) {
+        pairs.add(walkSubtree(child, subtreeChanged));
+      }
+      return toPathStructurePair(workspacePath, pairs);
+    }
+
+    @Nullable
+    private DirectoryStructureSnapshot.Entry previousEntry(
+        WorkspacePath workspacePath, boolean subtreeChanged) {
+      return subtreeChanged || baseline.changedDirectories.contains(workspacePath)
+          ? null
+          : baseline.snapshot.get(workspacePath);
+    }
+
+    private static List<WorkspacePath> childPaths(
+        WorkspacePath workspacePath, DirectoryStructureSnapshot.Entry entry) {
+      List<WorkspacePath> children =
+          Lists.newArrayListWithExpectedSize(entry.subdirectories.size());
+      for (String name : entry.subdirectories) {
+        try {
+          children.add(new WorkspacePath(workspacePath, name));
+        } catch (IllegalArgumentException e) {
+          // stop at directories with unhandled characters.
+        }
+      }
+      return children;
+    }
+
+    private static PathStructurePair toPathStructurePair(
+        WorkspacePath workspacePath, List<PathStructurePair> children) {
+      Builder<WorkspacePath, DirectoryStructure> result = ImmutableMap.builder();
+      for (PathStructurePair pair : children) {
+        if (pair != null) {
+          result.put(pair.path, pair.directoryStructure);
+        }
+      }
+      return new PathStructurePair(workspacePath, new DirectoryStructure(result.build()));
+    }
+
+    /**
+     * Returns the subdirectories of the given directory, or null if it isn't a directory. The
+     * previous entry is reused if the directory's modification time is unchanged.
+     */
+    @Nullable
+    private DirectoryStructureSnapshot.Entry readDirectory(
+        File file, @Nullable DirectoryStructureSnapshot.Entry previous) {
+      long modifiedTime = fileOperationProvider.getFileModifiedTime(file);
+      if (previous != null && previous.modifiedTime != 0 && previous.modifiedTime == modifiedTime) {
+        return previous;
+      }
+      if (!fileOperationProvider.isDirectory(file)) {
+        return null;
+      }
+      File[] children = fileOperationProvider.listFiles(file);
+      if (children == null) {
+        return null;
+      }
+      ImmutableList.Builder<String> subdirectories = ImmutableList.builder();
+      for (File child : children) {
+        if (fileOperationProvider.isDirectory(child)) {
+          subdirectories.add(child.getName());
+        }
+      }
+      if (FileOperationProvider.isRecentModifiedTime(modifiedTime)) {
+        modifiedTime = 0;
+      }
+      return new DirectoryStructureSnapshot.Entry(modifiedTime, subdirectories.build());
+    }
   }
 
   private static class PathStructurePair {
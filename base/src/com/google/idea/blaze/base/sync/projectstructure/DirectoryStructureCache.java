@@ -0,0 +1,269 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.projectstructure;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
+import com.google.idea.blaze.base.settings.BlazeImportSettings;
+import com.google.idea.blaze.base.settings.BlazeImportSettingsManager;
+import com.google.idea.blaze.base.sync.data.BlazeDataStorage;
+import com.google.idea.blaze.base.util.SerializationUtil;
+import com.google.idea.common.experiments.BoolExperiment;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileCopyEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileCreateEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the {@link DirectoryStructureSnapshot} of the last sync, in memory and in the project data
+ * directory, and tracks which directories changed since it was taken.
+ *
+ * <p>Directories touched by a VFS event are listed again. Every other directory's modification time
+ * is checked, since the VFS doesn't report changes made outside the IDE to directories it hasn't
+ * loaded.
+ */
+final class DirectoryStructureCache implements Disposable {
+
+  private static final Logger logger = Logger.getInstance(DirectoryStructureCache.class);
+
+  private static final BoolExperiment enabled =
+      new BoolExperiment("blaze.directory.structure.incremental", true);
+  // reuse directories no VFS event touched without checking them, only safe if the VFS has loaded
+  // the entire workspace
+  private static final BoolExperiment trustVfsEvents =
+      new BoolExperiment("blaze.directory.structure.trust.vfs.events", false);
+
+  // beyond this many changed paths, fall back to checking the modification time of every directory
+  private static final int MAX_TRACKED_CHANGES = 10_000;
+
+  static DirectoryStructureCache getInstance(Project project) {
+    return ServiceManager.getService(project, DirectoryStructureCache.class);
+  }
+
+  private final Project project;
+
+  // all guarded by 'this'
+  @Nullable private DirectoryStructureSnapshot snapshot;
+  private boolean loadedFromDisk;
+  // true if VFS events have been tracked for as long as the in-memory snapshot has existed
+  private boolean snapshotTracked;
+  private Set<WorkspacePath> changedDirectories = new HashSet<>();
+  private Set<WorkspacePath> changedSubtrees = new HashSet<>();
+  // true if changes stopped being tracked because there were too many of them
+  private boolean tooManyChanges;
+
+  DirectoryStructureCache(Project project) {
+    this.project = project;
+    project
+        .getMessageBus()
+        .connect(this)
+        .subscribe(VirtualFileManager.VFS_CHANGES, new DirectoryListener());
+  }
+
+  /**
+   * Returns the previous snapshot and the directories changed since, and starts tracking changes
+   * for the snapshot about to be taken. Must be followed by either {@link #finishRefresh} or
+   * {@link #abandonRefresh}.
+   */
+  synchronized Baseline startRefresh(WorkspaceRoot workspaceRoot) {
+    DirectoryStructureSnapshot previous = enabled.getValue() ? getSnapshot() : null;
+    if (previous != null && !previous.workspaceRoot.equals(workspaceRoot.directory().getPath())) {
+      previous = null;
+    }
+    boolean skipUnchanged =
+        previous != null
+            && snapshotTracked
+            && trustVfsEvents.getValue()
+            && !tooManyChanges;
+    Baseline baseline =
+        new Baseline(
+            previous != null ? previous : DirectoryStructureSnapshot.EMPTY,
+            ImmutableSet.copyOf(changedDirectories),
+            ImmutableSet.copyOf(changedSubtrees),
+            skipUnchanged);
+    changedDirectories = new HashSet<>();
+    changedSubtrees = new HashSet<>();
+    tooManyChanges = false;
+    return baseline;
+  }
+
+  /** Stores the new snapshot, replacing the previous one. */
+  void finishRefresh(DirectoryStructureSnapshot newSnapshot) {
+    synchronized (this) {
+      snapshot = newSnapshot;
+      snapshotTracked = true;
+    }
+    File file = getSnapshotFile();
+    if (file == null || !enabled.getValue()) {
+      return;
+    }
+    ApplicationManager.getApplication()
+        .executeOnPooledThread(
+            () -> {
+              try {
+                SerializationUtil.saveToDisk(file, newSnapshot);
+              } catch (IOException e) {
+                logger.warn("Failed to save directory structure", e);
+              }
+            });
+  }
+
+  /** Restores the changes handed out by an unsuccessful refresh, so the next one sees them. */
+  synchronized void abandonRefresh(Baseline baseline) {
+    if (!baseline.skipUnchangedDirectories) {
+      // the changes may not have been tracked, so the next refresh checks every directory too
+      tooManyChanges = true;
+    }
+    if (tooManyChanges) {
+      changedDirectories.clear();
+      changedSubtrees.clear();
+      return;
+    }
+    changedDirectories.addAll(baseline.changedDirectories);
+    changedSubtrees.addAll(baseline.changedSubtrees);
+  }
+
+  @Nullable
+  private DirectoryStructureSnapshot getSnapshot() {
+    if (snapshot == null && !loadedFromDisk) {
+      loadedFromDisk = true;
+      snapshot = loadSnapshot();
+      // changes made while the IDE wasn't running aren't known
+      snapshotTracked = false;
+    }
+    return snapshot;
+  }
+
+  @Nullable
+  private DirectoryStructureSnapshot loadSnapshot() {
+    File file = getSnapshotFile();
+    if (file == null || !file.exists()) {
+      return null;
+    }
+    try {
+      Object loaded =
+          SerializationUtil.loadFromDisk(
+              file, ImmutableList.of(DirectoryStructureSnapshot.class.getClassLoader()));
+      return loaded instanceof DirectoryStructureSnapshot
+          ? (DirectoryStructureSnapshot) loaded
+          : null;
+    } catch (IOException e) {
+      logger.info("Failed to load directory structure", e);
+      return null;
+    }
+  }
+
+  @Nullable
+  private File getSnapshotFile() {
+    BlazeImportSettings importSettings =
+        BlazeImportSettingsManager.getInstance(project).getImportSettings();
+    return importSettings != null
+        ? new File(BlazeDataStorage.getProjectDataDir(importSettings), "directory_structure.dat")
+        : null;
+  }
+
+  /** Records that a file or directory was created, deleted or moved at the given path. */
+  private synchronized void pathAddedOrRemoved(WorkspacePath path) {
+    if (tooManyChanges) {
+      return;
+    }
+    if (changedSubtrees.size() >= MAX_TRACKED_CHANGES) {
+      // every directory's modification time will be checked instead
+      tooManyChanges = true;
+      changedDirectories.clear();
+      changedSubtrees.clear();
+      return;
+    }
+    changedSubtrees.add(path);
+    WorkspacePath parent = path.getParent();
+    if (parent != null) {
+      changedDirectories.add(parent);
+    }
+  }
+
+  @Override
+  public void dispose() {}
+
+  /** The previous snapshot, and what changed since it was taken. */
+  static final class Baseline {
+    final DirectoryStructureSnapshot snapshot;
+    /** Directories whose list of children changed. */
+    final ImmutableSet<WorkspacePath> changedDirectories;
+    /** Paths whose entire subtree may have been replaced. */
+    final ImmutableSet<WorkspacePath> changedSubtrees;
+    /** Whether directories not known to be changed can be reused without checking them. */
+    final boolean skipUnchangedDirectories;
+
+    Baseline(
+        DirectoryStructureSnapshot snapshot,
+        ImmutableSet<WorkspacePath> changedDirectories,
+        ImmutableSet<WorkspacePath> changedSubtrees,
+        boolean skipUnchangedDirectories) {
+      this.snapshot = snapshot;
+      this.changedDirectories = changedDirectories;
+      this.changedSubtrees = changedSubtrees;
+      this.skipUnchangedDirectories = skipUnchangedDirectories;
+    }
+  }
+
+  private class DirectoryListener implements BulkFileListener {
+    @Override
+    public void after(List<? extends VFileEvent> events) {
+      WorkspaceRoot workspaceRoot = WorkspaceRoot.fromProjectSafe(project);
+      if (workspaceRoot == null) {
+        return;
+      }
+      for (VFileEvent event : events) {
+        if (event instanceof VFileCreateEvent
+            || event instanceof VFileDeleteEvent
+            || event instanceof VFileCopyEvent) {
+          pathAddedOrRemoved(workspaceRoot, event.getPath());
+        } else if (event instanceof VFileMoveEvent) {
+          pathAddedOrRemoved(workspaceRoot, ((VFileMoveEvent) event).getOldPath());
+          pathAddedOrRemoved(workspaceRoot, ((VFileMoveEvent) event).getNewPath());
+        } else if (event instanceof VFilePropertyChangeEvent
+            && ((VFilePropertyChangeEvent) event).isRename()) {
+          pathAddedOrRemoved(workspaceRoot, ((VFilePropertyChangeEvent) event).getOldPath());
+          pathAddedOrRemoved(workspaceRoot, ((VFilePropertyChangeEvent) event).getNewPath());
+        }
+      }
+    }
+
+    private void pathAddedOrRemoved(WorkspaceRoot workspaceRoot, String path) {
+      WorkspacePath workspacePath = workspaceRoot.workspacePathForSafe(new File(path));
+      if (workspacePath != null) {
+        DirectoryStructureCache.this.pathAddedOrRemoved(workspacePath);
+      }
+    }
+  }
+}
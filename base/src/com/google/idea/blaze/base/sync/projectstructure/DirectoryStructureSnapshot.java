@@ -0,0 +1,68 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.projectstructure;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * The directories visited by the last {@link DirectoryStructure} computation, with the
+ * subdirectories and modification time of each. Used to skip listing unchanged directories in the
+ * next sync.
+ */
+final class DirectoryStructureSnapshot implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  static final DirectoryStructureSnapshot EMPTY =
+      new DirectoryStructureSnapshot("", ImmutableMap.of());
+
+  final String workspaceRoot;
+  private final HashMap<String, Entry> directories;
+
+  DirectoryStructureSnapshot(String workspaceRoot, Map<String, Entry> directories) {
+    this.workspaceRoot = workspaceRoot;
+    this.directories = new HashMap<>(directories);
+  }
+
+  @Nullable
+  Entry get(WorkspacePath directory) {
+    return directories.get(directory.relativePath());
+  }
+
+  int size() {
+    return directories.size();
+  }
+
+  /** The subdirectories of a single directory. */
+  static final class Entry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Zero if the modification time can't be relied upon to detect later changes. */
+    final long modifiedTime;
+
+    final ImmutableList<String> subdirectories;
+
+    Entry(long modifiedTime, ImmutableList<String> subdirectories) {
+      this.modifiedTime = modifiedTime;
+      this.subdirectories = subdirectories;
+    }
+  }
+}
@@ -16,6 +16,8 @@
 package com.google.idea.blaze.base.sync.projectstructure;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.idea.blaze.base.io.FileOperationProvider;
@@ -24,6 +26,7 @@ import com.google.idea.blaze.base.settings.BlazeImportSettings;
 import com.google.idea.blaze.base.sync.BlazeSyncPlugin;
 import com.google.idea.blaze.base.sync.data.BlazeDataStorage;
 import com.google.idea.blaze.common.PrintOutput;
+import com.google.idea.common.experiments.BoolExperiment;
 import com.intellij.ide.highlighter.ModuleFileType;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
@@ -35,7 +38,13 @@ import com.intellij.openapi.module.ModuleManager;
 import com.intellij.openapi.module.ModuleType;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.CompilerModuleExtension;
+import com.intellij.openapi.roots.ContentEntry;
+import com.intellij.openapi.roots.ExportableOrderEntry;
 import com.intellij.openapi.roots.ModifiableRootModel;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.ModuleRootModel;
+import com.intellij.openapi.roots.OrderEntry;
+import com.intellij.openapi.roots.SourceFolder;
 import com.intellij.openapi.roots.impl.ModifiableModelCommitter;
 import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -44,6 +53,10 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
+import org.jetbrains.jps.model.JpsDummyElement;
+import org.jetbrains.jps.model.JpsElement;
+import org.jetbrains.jps.model.java.JavaResourceRootProperties;
+import org.jetbrains.jps.model.java.JavaSourceRootProperties;
 
 /** Module editor implementation. */
 public class ModuleEditorImpl implements BlazeSyncPlugin.ModuleEditor {
@@ -51,11 +64,15 @@ public class ModuleEditorImpl implements BlazeSyncPlugin.ModuleEditor {
   private static final String EXTERNAL_SYSTEM_ID_KEY = "external.system.id";
   private static final String EXTERNAL_SYSTEM_ID_VALUE = "Blaze";
 
+  private static final BoolExperiment skipUnchangedModules =
+      new BoolExperiment("blaze.sync.skip.unchanged.module.commit", true);
+
   private final Project project;
   private final IdeModifiableModelsProvider modelsProvider;
   private final ModifiableModuleModel moduleModel;
   private final File imlDirectory;
   @VisibleForTesting public Map<String, ModifiableRootModel> modules = Maps.newHashMap();
+  private int unchangedModuleCount;
 
   public ModuleEditorImpl(Project project, BlazeImportSettings importSettings) {
     this.project = project;
@@ -138,11 +155,90 @@ public class ModuleEditorImpl implements BlazeSyncPlugin.ModuleEditor {
     context.output(PrintOutput.log(String.format("Workspace has %s modules", modules.size())));
 
     commit();
+    if (unchangedModuleCount > 0) {
+      context.output(
+          PrintOutput.log(
+              String.format("Skipped committing %d unchanged modules", unchangedModuleCount)));
+    }
   }
 
   @Override
   public void commit() {
-    ModifiableModelCommitter.multiCommit(modules.values(), moduleModel);
+    List<ModifiableRootModel> changedModels = Lists.newArrayList();
+    for (ModifiableRootModel model : modules.values()) {
+      if (skipUnchangedModules.getValue() && isUnchanged(model)) {
+        model.dispose();
+      } else {
+        changedModels.add(model);
+      }
+    }
+    unchangedModuleCount = modules.size() - changedModels.size();
+    ModifiableModelCommitter.multiCommit(changedModels, moduleModel);
+  }
+
+  @VisibleForTesting
+  static boolean isUnchanged(ModifiableRootModel model) {
+    ModuleRootModel committed = ModuleRootManager.getInstance(model.getModule());
+    return fingerprint(model).equals(fingerprint(committed));
+  }
+
+  /**
+   * Returns the parts of a module's root model set up during sync, in a form which can be compared
+   * between the modifiable and committed models. Modules are recreated from scratch during sync,
+   * so a modifiable model is always marked as changed, even if it's identical to the committed one.
+   */
+  private static ImmutableList<Object> fingerprint(ModuleRootModel model) {
+    ImmutableList.Builder<Object> fingerprint = ImmutableList.builder();
+    for (ContentEntry contentEntry : model.getContentEntries()) {
+      fingerprint.add(
+          contentEntry.getUrl(),
+          contentEntry.getExcludeFolderUrls(),
+          contentEntry.getExcludePatterns());
+      for (SourceFolder sourceFolder : contentEntry.getSourceFolders()) {
+        fingerprint.add(
+            sourceFolder.getUrl(),
+            sourceFolder.isTestSource(),
+            sourceFolder.getPackagePrefix(),
+            sourceFolder.getRootType(),
+            rootPropertiesFingerprint(sourceFolder));
+      }
+    }
+    for (OrderEntry orderEntry : model.getOrderEntries()) {
+      fingerprint.add(orderEntry.getClass(), orderEntry.getPresentableName());
+      if (orderEntry instanceof ExportableOrderEntry) {
+        ExportableOrderEntry exportable = (ExportableOrderEntry) orderEntry;
+        fingerprint.add(exportable.getScope(), exportable.isExported());
+      }
+    }
+    fingerprint.add(model.isSdkInherited(), Strings.nullToEmpty(model.getSdkName()));
+    CompilerModuleExtension compilerSettings =
+        model.getModuleExtension(CompilerModuleExtension.class);
+    if (compilerSettings != null) {
+      fingerprint.add(
+          compilerSettings.isCompilerOutputPathInherited(),
+          Strings.nullToEmpty(compilerSettings.getCompilerOutputUrl()),
+          Strings.nullToEmpty(compilerSettings.getCompilerOutputUrlForTests()));
+    }
+    return fingerprint.build();
+  }
+
+  /** Returns the properties of a source folder set up during sync, beyond its root type. */
+  private static ImmutableList<Object> rootPropertiesFingerprint(SourceFolder sourceFolder) {
+    JpsElement properties = sourceFolder.getJpsElement().getProperties();
+    if (properties instanceof JavaSourceRootProperties) {
+      // the package prefix is already part of the fingerprint
+      return ImmutableList.of(((JavaSourceRootProperties) properties).isForGeneratedSources());
+    }
+    if (properties instanceof JavaResourceRootProperties) {
+      JavaResourceRootProperties resourceProperties = (JavaResourceRootProperties) properties;
+      return ImmutableList.of(
+          resourceProperties.getRelativeOutputPath(), resourceProperties.isForGeneratedSources());
+    }
+    if (properties instanceof JpsDummyElement) {
+      return ImmutableList.of();
+    }
+    // other properties can't be compared, so the module is always committed
+    return ImmutableList.of(new Object());
   }
 
   private File getImlDirectory(BlazeImportSettings importSettings) {
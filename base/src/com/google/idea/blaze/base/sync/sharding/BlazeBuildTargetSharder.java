@@ -150,7 +150,10 @@ public class BlazeBuildTargetSharder {
 
         return new ShardedTargetsResult(
             shardSingleTargets(
-                expandedTargets.singleTargets, parallelStrategy, getTargetShardSize(viewSet)),
+                project,
+                expandedTargets.singleTargets,
+                parallelStrategy,
+                getTargetShardSize(viewSet)),
             expandedTargets.buildResult);
       default:
         throw new IllegalStateException("Unhandled sharding approach: " + approach);
@@ -185,13 +188,13 @@ public class BlazeBuildTargetSharder {
       ProjectViewSet projectViewSet,
       WorkspacePathResolver pathResolver,
       List<TargetExpression> targets) {
-    List<WildcardTargetPattern> includes = getWildcardPatterns(targets);
-    if (includes.isEmpty()) {
+    List<WildcardTargetPattern> wildcardPatterns = getWildcardPatterns(targets);
+    if (wildcardPatterns.stream().allMatch(WildcardTargetPattern::isExcluded)) {
       return new ExpandedTargetsResult(targets, BuildResult.SUCCESS);
     }
     Map<TargetExpression, List<TargetExpression>> expandedTargets =
         WildcardTargetExpander.expandToNonRecursiveWildcardTargets(
-            project, context, pathResolver, includes);
+            project, context, pathResolver, wildcardPatterns);
     if (expandedTargets == null) {
       return new ExpandedTargetsResult(ImmutableList.of(), BuildResult.FATAL_ERROR);
     }
@@ -230,9 +233,9 @@ public class BlazeBuildTargetSharder {
    */
   @VisibleForTesting
   static ShardedTargetList shardSingleTargets(
-      List<TargetExpression> targets, SyncStrategy syncStrategy, int shardSize) {
+      Project project, List<TargetExpression> targets, SyncStrategy syncStrategy, int shardSize) {
     return BuildBatchingService.batchTargets(
-        canonicalizeSingleTargets(targets), syncStrategy, shardSize);
+        project, canonicalizeSingleTargets(targets), syncStrategy, shardSize);
   }
 
   /**
@@ -284,10 +287,9 @@ public class BlazeBuildTargetSharder {
     return TargetExpressionList.create(targets).getTargets();
   }
 
-  /** Returns the wildcard target patterns, ignoring exclude patterns (those starting with '-') */
+  /** Returns the included and excluded wildcard patterns, in their original order. */
   private static List<WildcardTargetPattern> getWildcardPatterns(List<TargetExpression> targets) {
     return targets.stream()
-        .filter(t -> !t.isExcluded())
         .map(WildcardTargetPattern::fromExpression)
         .filter(Objects::nonNull)
         .collect(Collectors.toList());
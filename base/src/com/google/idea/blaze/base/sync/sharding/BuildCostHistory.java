@@ -0,0 +1,234 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.sharding;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.idea.blaze.base.command.buildresult.OutputArtifact;
+import com.google.idea.blaze.base.model.primitives.Label;
+import com.google.idea.blaze.base.model.primitives.TargetExpression;
+import com.google.idea.blaze.base.settings.BlazeImportSettings;
+import com.google.idea.blaze.base.settings.BlazeImportSettingsManager;
+import com.google.idea.blaze.base.sync.aspects.BlazeBuildOutputs;
+import com.google.idea.blaze.base.sync.data.BlazeDataStorage;
+import com.google.idea.blaze.base.util.SerializationUtil;
+import com.google.idea.common.experiments.BoolExperiment;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * The cost of building the sync aspect for the targets of each blaze package, as observed in
+ * previous syncs. Used by {@link CostAwareTargetSharder} to balance shards.
+ *
+ * <p>The cost of a shard is its build time, attributed to its targets in proportion to the size of
+ * their outputs. The history is kept per project, in the project data directory.
+ */
+public final class BuildCostHistory {
+
+  private static final Logger logger = Logger.getInstance(BuildCostHistory.class);
+
+  private static final BoolExperiment enabled =
+      new BoolExperiment("cost.aware.target.sharder.enabled", false);
+
+  // weight of the newest sample in each package's moving average
+  private static final double SMOOTHING = 0.5;
+  // outputs smaller than this still account for some of the build time
+  private static final long MIN_TARGET_WEIGHT_BYTES = 4096;
+  private static final int MAX_PACKAGES = 50_000;
+
+  /** Whether build costs are recorded, and used to balance sync shards. */
+  public static boolean isEnabled() {
+    return enabled.getValue();
+  }
+
+  public static BuildCostHistory getInstance(Project project) {
+    return ServiceManager.getService(project, BuildCostHistory.class);
+  }
+
+  // null if the project isn't a blaze project, in which case the history isn't persisted
+  private final Supplier<File> file;
+  private volatile Map<String, PackageCost> costs;
+
+  public BuildCostHistory(Project project) {
+    this.file = () -> getHistoryFile(project);
+  }
+
+  @VisibleForTesting
+  BuildCostHistory(@Nullable File file) {
+    this.file = () -> file;
+  }
+
+  @Nullable
+  private static File getHistoryFile(Project project) {
+    BlazeImportSettings importSettings =
+        BlazeImportSettingsManager.getInstance(project).getImportSettings();
+    return importSettings != null
+        ? new File(BlazeDataStorage.getProjectDataDir(importSettings), "build_cost_history.dat")
+        : null;
+  }
+
+  /** Records the cost of a successfully built sync shard. */
+  public void recordShard(
+      Collection<? extends TargetExpression> targets,
+      long durationMillis,
+      BlazeBuildOutputs outputs) {
+    Map<Label, Long> outputBytes = new HashMap<>();
+    for (TargetExpression target : targets) {
+      if (target instanceof Label) {
+        Label label = (Label) target;
+        long bytes =
+            outputs.artifactsForTarget(label.toString()).stream()
+                .mapToLong(OutputArtifact::getLength)
+                .sum();
+        outputBytes.put(label, bytes);
+      }
+    }
+    recordShard(ImmutableMap.copyOf(outputBytes), durationMillis);
+  }
+
+  @VisibleForTesting
+  void recordShard(ImmutableMap<Label, Long> outputBytesByTarget, long durationMillis) {
+    if (outputBytesByTarget.isEmpty()) {
+      return;
+    }
+    double totalWeight =
+        outputBytesByTarget.values().stream()
+            .mapToDouble(b -> Math.max(b, MIN_TARGET_WEIGHT_BYTES))
+            .sum();
+    Map<String, List<Label>> byPackage =
+        outputBytesByTarget.keySet().stream()
+            .collect(Collectors.groupingBy(BuildCostHistory::packageOf));
+    Map<String, PackageCost> costs = getCosts();
+    long now = System.currentTimeMillis();
+    byPackage.forEach(
+        (pkg, labels) -> {
+          double weight = 0;
+          for (Label label : labels) {
+            weight += Math.max(outputBytesByTarget.get(label), MIN_TARGET_WEIGHT_BYTES);
+          }
+          double millisPerTarget = durationMillis * (weight / totalWeight) / labels.size();
+          costs.merge(
+              pkg,
+              new PackageCost(millisPerTarget, now),
+              (old, sample) ->
+                  new PackageCost(smooth(old.millisPerTarget, sample.millisPerTarget), now));
+        });
+  }
+
+  /**
+   * Returns the predicted time to build a single target of the given package, or null if it was
+   * never built.
+   */
+  @Nullable
+  Double predictedMillisPerTarget(String blazePackage) {
+    PackageCost cost = getCosts().get(blazePackage);
+    return cost != null ? cost.millisPerTarget : null;
+  }
+
+  static String packageOf(Label label) {
+    return label.blazePackage().relativePath();
+  }
+
+  /** Persists the history, keeping only the most recently built packages. */
+  public void save() {
+    File file = this.file.get();
+    if (file == null) {
+      return;
+    }
+    HashMap<String, PackageCost> toSave = new HashMap<>(getCosts());
+    if (toSave.size() > MAX_PACKAGES) {
+      ImmutableList<String> oldest =
+          toSave.entrySet().stream()
+              .sorted(Comparator.comparingLong(e -> e.getValue().lastUpdated))
+              .limit(toSave.size() - MAX_PACKAGES)
+              .map(Map.Entry::getKey)
+              .collect(toImmutableList());
+      oldest.forEach(toSave::remove);
+      oldest.forEach(getCosts()::remove);
+    }
+    try {
+      SerializationUtil.saveToDisk(file, toSave);
+    } catch (IOException e) {
+      logger.warn("Failed to save build cost history", e);
+    }
+  }
+
+  private Map<String, PackageCost> getCosts() {
+    Map<String, PackageCost> costs = this.costs;
+    if (costs == null) {
+      synchronized (this) {
+        costs = this.costs;
+        if (costs == null) {
+          costs = new ConcurrentHashMap<>(load());
+          this.costs = costs;
+        }
+      }
+    }
+    return costs;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, PackageCost> load() {
+    File file = this.file.get();
+    if (file == null || !file.exists()) {
+      return new HashMap<>();
+    }
+    try {
+      Object loaded =
+          SerializationUtil.loadFromDisk(
+              file, ImmutableList.of(BuildCostHistory.class.getClassLoader()));
+      if (loaded instanceof Map) {
+        return (Map<String, PackageCost>) loaded;
+      }
+    } catch (IOException e) {
+      logger.info("Failed to load build cost history", e);
+    }
+    return new HashMap<>();
+  }
+
+  private static double smooth(double old, double sample) {
+    return old + SMOOTHING * (sample - old);
+  }
+
+  /** The moving-average build cost of a single target in a package. */
+  private static final class PackageCost implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final double millisPerTarget;
+    final long lastUpdated;
+
+    PackageCost(double millisPerTarget, long lastUpdated) {
+      this.millisPerTarget = millisPerTarget;
+      this.lastUpdated = lastUpdated;
+    }
+  }
+}
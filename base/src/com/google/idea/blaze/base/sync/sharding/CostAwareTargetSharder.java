@@ -0,0 +1,195 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.sharding;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.idea.blaze.base.sync.sharding.ShardedTargetList.remoteConcurrentSyncs;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.idea.blaze.base.bazel.BuildSystem.SyncStrategy;
+import com.google.idea.blaze.base.logging.utils.ShardStats.ShardingApproach;
+import com.google.idea.blaze.base.model.primitives.Label;
+import com.intellij.openapi.project.Project;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Splits targets into shards of roughly equal predicted build cost, based on the build times of
+ * previous syncs ({@link BuildCostHistory}).
+ *
+ * <p>Uses the same number of shards and maximum shard size as {@link LexicographicTargetSharder},
+ * but assigns packages, most expensive first, to the currently cheapest shard. Packages are only
+ * split if they cost more than a single balanced shard. Defers to {@link
+ * LexicographicTargetSharder} if too few of the targets have any history, or if the project isn't
+ * known.
+ */
+public class CostAwareTargetSharder implements BuildBatchingService {
+
+  // the fraction of targets which must have a known package cost
+  private static final double MIN_HISTORY_COVERAGE = 0.5;
+
+  @Override
+  @Nullable
+  public ImmutableList<ImmutableList<Label>> calculateTargetBatches(
+      Set<Label> targets, SyncStrategy syncStrategy, int suggestedShardSize) {
+    // the build cost history is per project
+    return null;
+  }
+
+  @Override
+  @Nullable
+  public ImmutableList<ImmutableList<Label>> calculateTargetBatches(
+      Project project, Set<Label> targets, SyncStrategy syncStrategy, int suggestedShardSize) {
+    if (!BuildCostHistory.isEnabled() || syncStrategy == SyncStrategy.SERIAL || targets.isEmpty()) {
+      return null;
+    }
+    int shardSize =
+        LexicographicTargetSharder.computeParallelShardSize(
+            targets.size(),
+            LexicographicTargetSharder.parallelThreshold.getValue(),
+            remoteConcurrentSyncs.getValue(),
+            LexicographicTargetSharder.minimumRemoteShardSize.getValue(),
+            LexicographicTargetSharder.maximumRemoteShardSize.getValue(),
+            suggestedShardSize);
+    return balance(BuildCostHistory.getInstance(project), targets, shardSize);
+  }
+
+  /**
+   * Assigns targets to ceil(targets / shardSize) shards with at most shardSize targets each,
+   * balancing their predicted cost. Returns null if there isn't enough history.
+   */
+  @VisibleForTesting
+  @Nullable
+  static ImmutableList<ImmutableList<Label>> balance(
+      BuildCostHistory history, Set<Label> targets, int shardSize) {
+    int shardCount = (targets.size() + shardSize - 1) / shardSize;
+    if (shardCount <= 1) {
+      return null;
+    }
+    // sorted, so packages of equal cost are assigned deterministically
+    Map<String, List<Label>> packages =
+        targets.stream()
+            .sorted(Comparator.comparing(Label::toString))
+            .collect(
+                Collectors.groupingBy(
+                    BuildCostHistory::packageOf, TreeMap::new, Collectors.toList()));
+
+    List<PackageTargets> costed = new ArrayList<>();
+    List<String> unknown = new ArrayList<>();
+    double knownCost = 0;
+    int knownTargets = 0;
+    for (Map.Entry<String, List<Label>> entry : packages.entrySet()) {
+      Double millisPerTarget = history.predictedMillisPerTarget(entry.getKey());
+      if (millisPerTarget == null) {
+        unknown.add(entry.getKey());
+        continue;
+      }
+      costed.add(new PackageTargets(entry.getValue(), millisPerTarget));
+      knownCost += millisPerTarget * entry.getValue().size();
+      knownTargets += entry.getValue().size();
+    }
+    if (knownTargets < targets.size() * MIN_HISTORY_COVERAGE) {
+      return null;
+    }
+    // packages never built before are assumed to cost the average
+    double averageMillisPerTarget = knownCost / knownTargets;
+    for (String pkg : unknown) {
+      costed.add(new PackageTargets(packages.get(pkg), averageMillisPerTarget));
+    }
+    // packages costing more than an evenly balanced shard are split into cheaper chunks
+    double totalCost = costed.stream().mapToDouble(PackageTargets::totalCost).sum();
+    double costPerShard = totalCost / shardCount;
+    List<PackageTargets> chunks = new ArrayList<>();
+    for (PackageTargets pkg : costed) {
+      int chunkSize =
+          pkg.millisPerTarget > 0
+              ? (int) Math.max(1, Math.min(shardSize, costPerShard / pkg.millisPerTarget))
+              : shardSize;
+      for (List<Label> chunk : Lists.partition(pkg.targets, chunkSize)) {
+        chunks.add(new PackageTargets(chunk, pkg.millisPerTarget));
+      }
+    }
+    chunks.sort(Comparator.comparingDouble((PackageTargets p) -> -p.totalCost()));
+
+    PriorityQueue<Shard> shards =
+        new PriorityQueue<>(
+            Comparator.comparingDouble((Shard s) -> s.cost).thenComparingInt(s -> s.index));
+    for (int i = 0; i < shardCount; i++) {
+      shards.add(new Shard(i));
+    }
+    List<Shard> full = new ArrayList<>();
+    for (PackageTargets pkg : chunks) {
+      int next = 0;
+      // a chunk larger than the cheapest shard's remaining capacity is split across shards
+      while (next < pkg.targets.size()) {
+        Shard shard = shards.poll();
+        int count = Math.min(shardSize - shard.targets.size(), pkg.targets.size() - next);
+        shard.targets.addAll(pkg.targets.subList(next, next + count));
+        shard.cost += count * pkg.millisPerTarget;
+        next += count;
+        if (shard.targets.size() < shardSize) {
+          shards.add(shard);
+        } else {
+          full.add(shard);
+        }
+      }
+    }
+    full.addAll(shards);
+    return full.stream()
+        .filter(s -> !s.targets.isEmpty())
+        .sorted(Comparator.comparingInt(s -> s.index))
+        .map(s -> ImmutableList.sortedCopyOf(Comparator.comparing(Label::toString), s.targets))
+        .collect(toImmutableList());
+  }
+
+  @Override
+  public ShardingApproach getShardingApproach() {
+    return ShardingApproach.COST_AWARE_TARGET_SHARDER;
+  }
+
+  private static class PackageTargets {
+    final List<Label> targets;
+    final double millisPerTarget;
+
+    PackageTargets(List<Label> targets, double millisPerTarget) {
+      this.targets = targets;
+      this.millisPerTarget = millisPerTarget;
+    }
+
+    double totalCost() {
+      return targets.size() * millisPerTarget;
+    }
+  }
+
+  private static class Shard {
+    final int index;
+    final List<Label> targets = new ArrayList<>();
+    double cost;
+
+    Shard(int index) {
+      this.index = index;
+    }
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.sharding;
+
+import static java.util.stream.Collectors.joining;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import com.google.idea.blaze.base.model.primitives.TargetExpression;
+import com.google.idea.blaze.base.sync.aspects.BuildResult;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * Runs build shards in parallel, adapting the shards to the available workers.
+ *
+ * <p>At most {@code maxConcurrentShards} shards are built at once. Whenever there are fewer
+ * pending shards than idle workers, the largest pending shard is split in two, so the tail of the
+ * build is spread across all workers rather than left to a few large shards. Shards which run out
+ * of memory are retried as two shards of half the size.
+ */
+final class DynamicShardScheduler {
+
+  private final ListeningExecutorService executor;
+  private final Function<List<? extends TargetExpression>, BuildResult> invocation;
+  private final Consumer<List<? extends TargetExpression>> onShardRetried;
+  private final int maxConcurrentShards;
+  private final int minSplitSize;
+  private final int maxOomSplits;
+  private final long startNanos = System.nanoTime();
+
+  private final SettableFuture<BuildResult> result = SettableFuture.create();
+
+  @GuardedBy("this")
+  private final List<Shard> pending = new ArrayList<>();
+
+  @GuardedBy("this")
+  private final Set<ListenableFuture<BuildResult>> running = new HashSet<>();
+
+  @GuardedBy("this")
+  private final List<Shard> finished = new ArrayList<>();
+
+  @GuardedBy("this")
+  @Nullable
+  private BuildResult combined;
+
+  /**
+   * @param onShardRetried called with the targets passed to an invocation which ran out of memory,
+   *     once its targets have been re-scheduled as smaller shards
+   * @param minSplitSize shards are only split to fill idle workers if both halves have at least
+   *     this many targets
+   * @param maxOomSplits the number of times a shard may be halved after running out of memory
+   */
+  DynamicShardScheduler(
+      ListeningExecutorService executor,
+      Function<List<? extends TargetExpression>, BuildResult> invocation,
+      Consumer<List<? extends TargetExpression>> onShardRetried,
+      int maxConcurrentShards,
+      int minSplitSize,
+      int maxOomSplits) {
+    this.executor = executor;
+    this.invocation = invocation;
+    this.onShardRetried = onShardRetried;
+    this.maxConcurrentShards = Math.max(1, maxConcurrentShards);
+    this.minSplitSize = Math.max(1, minSplitSize);
+    this.maxOomSplits = maxOomSplits;
+  }
+
+  /**
+   * Starts building the given shards, returning the combined result of all builds. Cancelling the
+   * returned future cancels the running builds.
+   */
+  ListenableFuture<BuildResult> start(List<? extends List<? extends TargetExpression>> shards) {
+    synchronized (this) {
+      for (int i = 0; i < shards.size(); i++) {
+        pending.add(new Shard(Integer.toString(i + 1), shards.get(i), 0));
+      }
+    }
+    result.addListener(
+        () -> {
+          if (result.isCancelled()) {
+            cancelRunning();
+          }
+        },
+        MoreExecutors.directExecutor());
+    dispatch();
+    return result;
+  }
+
+  private synchronized void dispatch() {
+    if (result.isDone()) {
+      return;
+    }
+    splitForIdleWorkers();
+    while (running.size() < maxConcurrentShards && !pending.isEmpty()) {
+      Shard shard = pending.remove(0);
+      shard.startNanos = System.nanoTime();
+      ListenableFuture<BuildResult> future;
+      try {
+        future = executor.submit(() -> invocation.apply(shard.targets));
+      } catch (RuntimeException e) {
+        result.setException(e);
+        return;
+      }
+      running.add(future);
+      future.addListener(() -> onCompleted(shard, future), MoreExecutors.directExecutor());
+    }
+    if (running.isEmpty() && pending.isEmpty()) {
+      result.set(combined != null ? combined : BuildResult.SUCCESS);
+    }
+  }
+
+  @GuardedBy("this")
+  private void splitForIdleWorkers() {
+    while (pending.size() < maxConcurrentShards - running.size()) {
+      int largest = -1;
+      for (int i = 0; i < pending.size(); i++) {
+        if (largest == -1 || pending.get(i).targets.size() > pending.get(largest).targets.size()) {
+          largest = i;
+        }
+      }
+      if (largest == -1 || pending.get(largest).targets.size() < 2 * minSplitSize) {
+        return;
+      }
+      Shard shard = pending.remove(largest);
+      pending.addAll(largest, shard.split(shard.oomSplits));
+    }
+  }
+
+  private synchronized void onCompleted(Shard shard, ListenableFuture<BuildResult> future) {
+    running.remove(future);
+    if (result.isDone()) {
+      return;
+    }
+    BuildResult buildResult;
+    try {
+      buildResult = Futures.getDone(future);
+    } catch (CancellationException e) {
+      result.cancel(false);
+      return;
+    } catch (ExecutionException e) {
+      result.setException(e.getCause());
+      return;
+    }
+    shard.endNanos = System.nanoTime();
+    shard.result = buildResult;
+    finished.add(shard);
+    if (buildResult.outOfMemory()
+        && shard.targets.size() > 1
+        && shard.oomSplits < maxOomSplits) {
+      // retry the shard's targets first, at half the size
+      shard.retriedAs = shard.split(shard.oomSplits + 1);
+      pending.addAll(0, shard.retriedAs);
+      onShardRetried.accept(shard.targets);
+    } else {
+      combined = combined == null ? buildResult : BuildResult.combine(combined, buildResult);
+    }
+    dispatch();
+  }
+
+  private void cancelRunning() {
+    ImmutableList<ListenableFuture<BuildResult>> toCancel;
+    synchronized (this) {
+      pending.clear();
+      toCancel = ImmutableList.copyOf(running);
+    }
+    toCancel.forEach(f -> f.cancel(true));
+  }
+
+  /** Returns a description of when each shard ran and how it finished, one line per shard. */
+  synchronized String formatTimeline() {
+    StringBuilder sb = new StringBuilder("Shard timeline:");
+    for (Shard shard : finished) {
+      sb.append(
+          String.format(
+              Locale.ROOT,
+              "\n  Shard %s (%d targets): %.1fs - %.1fs, %s",
+              shard.id,
+              shard.targets.size(),
+              secondsSinceStart(shard.startNanos),
+              secondsSinceStart(shard.endNanos),
+              shard.result.outOfMemory() ? "out of memory" : shard.result.status));
+      if (shard.retriedAs != null) {
+        sb.append(", retried as shards ")
+            .append(shard.retriedAs.stream().map(s -> s.id).collect(joining(", ")));
+      }
+    }
+    return sb.toString();
+  }
+
+  private double secondsSinceStart(long nanos) {
+    return (nanos - startNanos) / 1e9;
+  }
+
+  private static final class Shard {
+    final String id;
+    final List<? extends TargetExpression> targets;
+    final int oomSplits;
+
+    long startNanos;
+    long endNanos;
+    @Nullable BuildResult result;
+    @Nullable ImmutableList<Shard> retriedAs;
+
+    Shard(String id, List<? extends TargetExpression> targets, int oomSplits) {
+      this.id = id;
+      this.targets = targets;
+      this.oomSplits = oomSplits;
+    }
+
+    ImmutableList<Shard> split(int oomSplits) {
+      int half = (targets.size() + 1) / 2;
+      return ImmutableList.of(
+          new Shard(id + ".1", targets.subList(0, half), oomSplits),
+          new Shard(id + ".2", targets.subList(half, targets.size()), oomSplits));
+    }
+  }
+}
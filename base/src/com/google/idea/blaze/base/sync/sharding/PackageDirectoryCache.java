@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.sharding;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.idea.blaze.base.io.FileOperationProvider;
+import com.google.idea.common.experiments.IntExperiment;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * Remembers, across syncs, whether each directory traversed during wildcard target expansion
+ * contains a BUILD file, and which subdirectories it has.
+ *
+ * <p>Both only change when entries are added to or removed from the directory, which updates its
+ * modification time, so an entry is valid as long as the directory's modification time is
+ * unchanged.
+ */
+public final class PackageDirectoryCache {
+
+  private static final IntExperiment maxEntriesExperiment =
+      new IntExperiment("blaze.package.directory.cache.max.entries", 200_000);
+
+  public static PackageDirectoryCache getInstance(Project project) {
+    return ServiceManager.getService(project, PackageDirectoryCache.class);
+  }
+
+  private final int maxEntries;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  public PackageDirectoryCache() {
+    this(maxEntriesExperiment.getValue());
+  }
+
+  @VisibleForTesting
+  PackageDirectoryCache(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  /** Returns the cached entry for the given directory, or null if it has been modified. */
+  @Nullable
+  Entry get(File directory, long modifiedTime) {
+    Entry entry = entries.get(directory.getPath());
+    return entry != null && entry.modifiedTime == modifiedTime ? entry : null;
+  }
+
+  void put(File directory, Entry entry) {
+    if (entry.modifiedTime <= 0 || FileOperationProvider.isRecentModifiedTime(entry.modifiedTime)) {
+      return;
+    }
+    if (entries.size() >= maxEntries && !entries.containsKey(directory.getPath())) {
+      return;
+    }
+    entries.put(directory.getPath(), entry);
+  }
+
+  /** The contents of a directory relevant to finding blaze packages. */
+  static final class Entry {
+    final long modifiedTime;
+    final boolean hasBuildFile;
+    final ImmutableList<String> subdirectories;
+
+    Entry(long modifiedTime, boolean hasBuildFile, ImmutableList<String> subdirectories) {
+      this.modifiedTime = modifiedTime;
+      this.hasBuildFile = hasBuildFile;
+      this.subdirectories = subdirectories;
+    }
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.google.idea.blaze.base.sync.sharding;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -32,6 +33,8 @@ import com.google.idea.blaze.base.scope.BlazeContext;
 import com.google.idea.blaze.base.scope.scopes.TimingScope.EventType;
 import com.google.idea.blaze.base.sync.workspace.WorkspacePathResolver;
 import com.google.idea.blaze.base.util.WorkspacePathUtil;
+import com.google.idea.common.experiments.BoolExperiment;
+import com.google.idea.common.experiments.IntExperiment;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -40,7 +43,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.function.Predicate;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
@@ -50,17 +53,31 @@ import javax.annotation.Nullable;
  */
 class PackageLister {
 
+  // whether to traverse directories in parallel, pruning excluded subtrees
+  private static final BoolExperiment parallelTraversal =
+      new BoolExperiment("blaze.wildcard.expansion.parallel.traversal", true);
+
+  // the number of directories read concurrently; directory reads are IO-bound
+  private static final IntExperiment traversalParallelism =
+      new IntExperiment("blaze.wildcard.expansion.parallelism", 16);
+
   private PackageLister() {}
 
-  /** The set of blaze packages to prefetch prior to traversing the directory tree. */
+  /**
+   * The set of blaze packages to prefetch prior to traversing the directory tree. Packages
+   * excluded by a later exclude pattern aren't prefetched.
+   *
+   * @param wildcardPatterns the included and excluded wildcard patterns, in project view order
+   */
   static Set<File> getDirectoriesToPrefetch(
-      WorkspacePathResolver pathResolver,
-      Collection<WildcardTargetPattern> includes,
-      Predicate<WorkspacePath> excluded) {
+      WorkspacePathResolver pathResolver, List<WildcardTargetPattern> wildcardPatterns) {
     Set<WorkspacePath> prefetchPaths = new HashSet<>();
-    for (WildcardTargetPattern pattern : includes) {
+    for (int i = 0; i < wildcardPatterns.size(); i++) {
+      WildcardTargetPattern pattern = wildcardPatterns.get(i);
       WorkspacePath workspacePath = pattern.getBasePackage();
-      if (excluded.test(workspacePath)) {
+      if (pattern.isExcluded()
+          || wildcardPatterns.subList(i + 1, wildcardPatterns.size()).stream()
+              .anyMatch(p -> p.isExcluded() && p.coversPackage(workspacePath))) {
         continue;
       }
       prefetchPaths.add(workspacePath);
@@ -75,10 +92,75 @@ class PackageLister {
    * Expands all-in-package-recursive wildcard targets into all-in-single-package targets by
    * traversing the file system, looking for child blaze packages.
    *
+   * <p>Subtrees excluded by a later recursive exclude pattern are not traversed, since those
+   * packages would be excluded again when the expanded patterns are queried.
+   *
    * <p>Returns null if directory traversal failed or was cancelled.
+   *
+   * @param wildcardPatterns the wildcard patterns to expand, along with any excluded wildcard
+   *     patterns, in project view order
    */
   @Nullable
   static Map<TargetExpression, List<TargetExpression>> expandPackageTargets(
+      BuildSystemProvider provider,
+      PackageDirectoryCache cache,
+      BlazeContext context,
+      WorkspacePathResolver pathResolver,
+      List<WildcardTargetPattern> wildcardPatterns) {
+    if (!parallelTraversal.getValue()) {
+      return expandPackageTargetsSerially(provider, context, pathResolver, wildcardPatterns);
+    }
+    ForkJoinPool pool = new ForkJoinPool(Math.max(1, traversalParallelism.getValue()));
+    ParallelPackageWalker walker =
+        new ParallelPackageWalker(
+            pool,
+            FileOperationProvider.getInstance(),
+            pathResolver,
+            ImmutableList.copyOf(provider.possibleBuildFileNames()),
+            cache);
+    List<ListenableFuture<Entry<TargetExpression, List<TargetExpression>>>> futures =
+        Lists.newArrayList();
+    for (int i = 0; i < wildcardPatterns.size(); i++) {
+      WildcardTargetPattern pattern = wildcardPatterns.get(i);
+      if (!pattern.isRecursive() || pattern.isExcluded()) {
+        continue;
+      }
+      File dir = pathResolver.resolveToFile(pattern.getBasePackage());
+      if (!FileOperationProvider.getInstance().isDirectory(dir)) {
+        continue;
+      }
+      PackagePathTrie excluded =
+          excludedSubtrees(wildcardPatterns.subList(i + 1, wildcardPatterns.size()));
+      futures.add(
+          FetchExecutor.EXECUTOR.submit(
+              () ->
+                  Maps.immutableEntry(
+                      pattern.originalPattern,
+                      walker.findPackages(dir, excluded).stream()
+                          .map(TargetExpression::allFromPackageNonRecursive)
+                          .collect(Collectors.toList()))));
+    }
+    try {
+      return waitForExpansion(context, futures);
+    } finally {
+      walker.cancel();
+      pool.shutdown();
+    }
+  }
+
+  /** Returns the subtrees excluded by the given recursive exclude patterns. */
+  private static PackagePathTrie excludedSubtrees(List<WildcardTargetPattern> patterns) {
+    PackagePathTrie trie = new PackagePathTrie();
+    for (WildcardTargetPattern pattern : patterns) {
+      if (pattern.isExcluded() && pattern.isRecursive()) {
+        trie.addSubtree(pattern.getBasePackage());
+      }
+    }
+    return trie;
+  }
+
+  @Nullable
+  private static Map<TargetExpression, List<TargetExpression>> expandPackageTargetsSerially(
       BuildSystemProvider provider,
       BlazeContext context,
       WorkspacePathResolver pathResolver,
@@ -101,6 +183,13 @@ class PackageLister {
                 return Maps.immutableEntry(pattern.originalPattern, expandedTargets);
               }));
     }
+    return waitForExpansion(context, futures);
+  }
+
+  @Nullable
+  private static Map<TargetExpression, List<TargetExpression>> waitForExpansion(
+      BlazeContext context,
+      List<ListenableFuture<Entry<TargetExpression, List<TargetExpression>>>> futures) {
     if (futures.isEmpty()) {
       return ImmutableMap.of();
     }
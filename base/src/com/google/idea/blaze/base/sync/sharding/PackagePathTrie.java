@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.sharding;
+
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A set of workspace directory subtrees, stored as a trie of path segments so that membership
+ * checks are linear in the depth of the path rather than the number of subtrees.
+ */
+final class PackagePathTrie {
+
+  private final Node root = new Node();
+  private boolean empty = true;
+
+  /** Adds the given directory and everything below it. */
+  void addSubtree(WorkspacePath path) {
+    Node node = root;
+    if (!path.isWorkspaceRoot()) {
+      for (String segment : path.relativePath().split("/")) {
+        node = node.children.computeIfAbsent(segment, s -> new Node());
+      }
+    }
+    node.coversSubtree = true;
+    empty = false;
+  }
+
+  /** Returns true if the given directory is in any of the added subtrees. */
+  boolean covers(WorkspacePath path) {
+    if (empty) {
+      return false;
+    }
+    Node node = root;
+    if (node.coversSubtree) {
+      return true;
+    }
+    if (path.isWorkspaceRoot()) {
+      return false;
+    }
+    for (String segment : path.relativePath().split("/")) {
+      node = node.children.get(segment);
+      if (node == null) {
+        return false;
+      }
+      if (node.coversSubtree) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static final class Node {
+    final Map<String, Node> children = new HashMap<>();
+    boolean coversSubtree;
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.sharding;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.idea.blaze.base.io.FileOperationProvider;
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import com.google.idea.blaze.base.sync.workspace.WorkspacePathResolver;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import javax.annotation.Nullable;
+
+/**
+ * Finds the blaze packages below a directory, visiting subdirectories in parallel on a {@link
+ * ForkJoinPool}.
+ *
+ * <p>Excluded subtrees are not visited at all. Directory contents are looked up in a {@link
+ * PackageDirectoryCache}, so unchanged directories only cost a single timestamp check.
+ */
+final class ParallelPackageWalker {
+
+  private final ForkJoinPool pool;
+  private final FileOperationProvider files;
+  private final WorkspacePathResolver pathResolver;
+  private final ImmutableList<String> buildFileNames;
+  private final PackageDirectoryCache cache;
+  private volatile boolean cancelled;
+
+  ParallelPackageWalker(
+      ForkJoinPool pool,
+      FileOperationProvider files,
+      WorkspacePathResolver pathResolver,
+      ImmutableList<String> buildFileNames,
+      PackageDirectoryCache cache) {
+    this.pool = pool;
+    this.files = files;
+    this.pathResolver = pathResolver;
+    this.buildFileNames = buildFileNames;
+    this.cache = cache;
+  }
+
+  /**
+   * Returns the packages at or below the given directory which aren't covered by the excluded
+   * subtrees, sorted by path.
+   */
+  ImmutableList<WorkspacePath> findPackages(File root, PackagePathTrie excluded) {
+    WorkspacePath rootPath = pathResolver.getWorkspacePath(root);
+    if (rootPath == null) {
+      return ImmutableList.of();
+    }
+    Queue<WorkspacePath> packages = new ConcurrentLinkedQueue<>();
+    pool.invoke(new Visit(root, rootPath, excluded, packages));
+    return packages.stream()
+        .sorted(Comparator.comparing(WorkspacePath::relativePath))
+        .collect(toImmutableList());
+  }
+
+  /** Stops visiting new directories; in-progress calls to {@link #findPackages} return early. */
+  void cancel() {
+    cancelled = true;
+  }
+
+  @Nullable
+  private PackageDirectoryCache.Entry readDirectory(File dir) {
+    long modifiedTime = files.getFileModifiedTime(dir);
+    PackageDirectoryCache.Entry entry = cache.get(dir, modifiedTime);
+    if (entry != null) {
+      return entry;
+    }
+    File[] children = files.listFiles(dir);
+    if (children == null) {
+      return null;
+    }
+    boolean hasBuildFile = false;
+    ImmutableList.Builder<String> subdirectories = ImmutableList.builder();
+    for (File child : children) {
+      String name = child.getName();
+      if (buildFileNames.contains(name) && files.isFile(child)) {
+        hasBuildFile = true;
+      } else if (files.isDirectory(child)) {
+        subdirectories.add(name);
+      }
+    }
+    entry = new PackageDirectoryCache.Entry(modifiedTime, hasBuildFile, subdirectories.build());
+    cache.put(dir, entry);
+    return entry;
+  }
+
+  private final class Visit extends RecursiveAction {
+    private final File dir;
+    private final WorkspacePath path;
+    private final PackagePathTrie excluded;
+    private final Queue<WorkspacePath> packages;
+
+    Visit(File dir, WorkspacePath path, PackagePathTrie excluded, Queue<WorkspacePath> packages) {
+      this.dir = dir;
+      this.path = path;
+      this.excluded = excluded;
+      this.packages = packages;
+    }
+
+    @Override
+    protected void compute() {
+      if (cancelled || excluded.covers(path)) {
+        return;
+      }
+      PackageDirectoryCache.Entry entry = readDirectory(dir);
+      if (entry == null) {
+        return;
+      }
+      if (entry.hasBuildFile) {
+        packages.add(path);
+      }
+      List<Visit> subtasks = new ArrayList<>(entry.subdirectories.size());
+      for (String name : entry.subdirectories) {
+        File child = new File(dir, name);
+        WorkspacePath childPath = pathResolver.getWorkspacePath(child);
+        if (childPath != null) {
+          subtasks.add(new Visit(child, childPath, excluded, packages));
+        }
+      }
+      invokeAll(subtasks);
+    }
+  }
+}
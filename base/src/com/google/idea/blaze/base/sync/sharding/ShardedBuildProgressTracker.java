@@ -28,7 +28,9 @@ import com.intellij.openapi.util.text.StringUtil;
  */
 public final class ShardedBuildProgressTracker {
 
-  private final int totalShards;
+  // shards may be split while building, so this grows if more builds are started
+  @GuardedBy("this")
+  private int totalShards;
 
   @GuardedBy("this")
   private int buildsInProgress;
@@ -42,6 +44,7 @@ public final class ShardedBuildProgressTracker {
 
   public synchronized void onBuildStarted(BlazeContext context) {
     buildsInProgress++;
+    totalShards = Math.max(totalShards, buildsCompleted + buildsInProgress);
     sendUpdate(context);
   }
 
@@ -34,10 +34,13 @@ import com.google.idea.blaze.base.scope.output.IssueOutput;
 import com.google.idea.blaze.base.scope.output.StatusOutput;
 import com.google.idea.blaze.base.settings.Blaze;
 import com.google.idea.blaze.base.sync.aspects.BuildResult;
+import com.google.idea.blaze.common.PrintOutput;
+import com.google.idea.common.experiments.BoolExperiment;
 import com.google.idea.common.experiments.IntExperiment;
 import com.intellij.openapi.project.Project;
 import com.intellij.util.concurrency.AppExecutorUtil;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /** Partitioned list of blaze targets. */
@@ -47,6 +50,17 @@ public class ShardedTargetList {
   public static final IntExperiment remoteConcurrentSyncs =
       new IntExperiment("number.concurrent.remote.syncs.2", 10);
 
+  // whether output from parallel shards is dispatched without blocking the shard threads
+  private static final BoolExperiment concurrentShardOutput =
+      new BoolExperiment("blaze.parallel.shards.concurrent.output", true);
+
+  // whether parallel shards are split to fill idle workers, and retried at half size on OOM
+  private static final BoolExperiment dynamicShardScheduling =
+      new BoolExperiment("blaze.parallel.shards.dynamic.scheduling", false);
+
+  // the number of times a shard which runs out of memory is halved and retried
+  private static final int MAX_OOM_SPLITS = 3;
+
   @VisibleForTesting
   final ImmutableList<? extends ImmutableList<? extends TargetExpression>> shardedTargets;
 
@@ -82,14 +96,19 @@ public class ShardedTargetList {
 
   /**
    * Runs the provided blaze invocation on each target list shard, returning the combined {@link
-   * BuildResult}. If running serially, attempts to work around out of memory errors caused by lack
-   * of blaze garbage collection where possible.
+   * BuildResult}. Attempts to work around out of memory errors where possible: serial builds retry
+   * the shard once the blaze server has restarted, parallel builds retry it as smaller shards.
+   *
+   * @param onShardRetried called with the targets passed to an invocation which ran out of memory,
+   *     if they're then built again by later invocations. Not called for invocations which aren't
+   *     retried, whose result is part of the combined result.
    */
   public BuildResult runShardedCommand(
       Project project,
       BlazeContext context,
       Function<Integer, String> progressMessage,
       Function<List<? extends TargetExpression>, BuildResult> invocation,
+      Consumer<List<? extends TargetExpression>> onShardRetried,
       BuildInvoker binary) {
     if (isEmpty()) {
       return BuildResult.SUCCESS;
@@ -98,7 +117,7 @@ public class ShardedTargetList {
       return invocation.apply(shardedTargets.get(0));
     }
     if (binary.supportsParallelism()) {
-      return runInParallel(project, context, invocation);
+      return runInParallel(project, context, invocation, onShardRetried);
     }
     int progress = 0;
     BuildResult output = null;
@@ -109,6 +128,7 @@ public class ShardedTargetList {
         // re-try now that blaze server has restarted
         progress = 0;
         IssueOutput.warn(retryOnOomMessage(project, i)).submit(context);
+        onShardRetried.accept(shardedTargets.get(i));
         result = invocation.apply(shardedTargets.get(i));
       }
       output = output == null ? result : BuildResult.combine(output, result);
@@ -122,7 +142,8 @@ public class ShardedTargetList {
   private BuildResult runInParallel(
       Project project,
       BlazeContext context,
-      Function<List<? extends TargetExpression>, BuildResult> invocation) {
+      Function<List<? extends TargetExpression>, BuildResult> invocation,
+      Consumer<List<? extends TargetExpression>> onShardRetried) {
     // new executor for each sync, so we get an up-to-date experiment value. This is fine, because
     // it's just a view of the single application pool executor. Doesn't need to be shutdown for the
     // same reason
@@ -131,6 +152,17 @@ public class ShardedTargetList {
             AppExecutorUtil.createBoundedApplicationPoolExecutor(
                 "RemoteBlazeExecutor", remoteConcurrentSyncs.getValue()));
 
+    boolean wasConcurrentOutput = context.isConcurrentOutput();
+    if (concurrentShardOutput.getValue()) {
+      context.setConcurrentOutput(true);
+    }
+    if (dynamicShardScheduling.getValue()) {
+      try {
+        return runWithDynamicScheduling(project, context, executor, invocation, onShardRetried);
+      } finally {
+        context.setConcurrentOutput(wasConcurrentOutput);
+      }
+    }
     ListenableFuture<List<BuildResult>> future =
         Futures.allAsList(
             Streams.mapWithIndex(
@@ -140,17 +172,49 @@ public class ShardedTargetList {
     context.addCancellationHandler(() -> future.cancel(true));
 
     String buildSystem = Blaze.buildSystemName(project);
-    List<BuildResult> results =
-        FutureUtil.waitForFuture(context, future)
-            .onError(String.format("%s build failed", buildSystem))
-            .run()
-            .result();
+    List<BuildResult> results;
+    try {
+      results =
+          FutureUtil.waitForFuture(context, future)
+              .onError(String.format("%s build failed", buildSystem))
+              .run()
+              .result();
+    } finally {
+      context.setConcurrentOutput(wasConcurrentOutput);
+    }
     if (results == null) {
       return BuildResult.FATAL_ERROR;
     }
     return results.stream().reduce(BuildResult::combine).orElse(BuildResult.FATAL_ERROR);
   }
 
+  private BuildResult runWithDynamicScheduling(
+      Project project,
+      BlazeContext context,
+      ListeningExecutorService executor,
+      Function<List<? extends TargetExpression>, BuildResult> invocation,
+      Consumer<List<? extends TargetExpression>> onShardRetried) {
+    // shards split to fill idle workers are no smaller than regular remote shards
+    DynamicShardScheduler scheduler =
+        new DynamicShardScheduler(
+            executor,
+            invocation,
+            onShardRetried,
+            remoteConcurrentSyncs.getValue(),
+            LexicographicTargetSharder.minimumRemoteShardSize.getValue(),
+            MAX_OOM_SPLITS);
+    ListenableFuture<BuildResult> future = scheduler.start(shardedTargets);
+    context.addCancellationHandler(() -> future.cancel(true));
+
+    BuildResult result =
+        FutureUtil.waitForFuture(context, future)
+            .onError(String.format("%s build failed", Blaze.buildSystemName(project)))
+            .run()
+            .result();
+    context.output(PrintOutput.log(scheduler.formatTimeline()));
+    return result != null ? result : BuildResult.FATAL_ERROR;
+  }
+
   private String retryOnOomMessage(Project project, int shardIndex) {
     String buildSystem = Blaze.buildSystemName(project);
     return String.format(
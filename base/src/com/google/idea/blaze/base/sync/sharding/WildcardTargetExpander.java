@@ -28,7 +28,6 @@ import com.google.idea.blaze.base.command.BlazeInvocationContext;
 import com.google.idea.blaze.base.console.BlazeConsoleLineProcessorProvider;
 import com.google.idea.blaze.base.model.primitives.TargetExpression;
 import com.google.idea.blaze.base.model.primitives.WildcardTargetPattern;
-import com.google.idea.blaze.base.model.primitives.WorkspacePath;
 import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
 import com.google.idea.blaze.base.prefetch.PrefetchService;
 import com.google.idea.blaze.base.projectview.ProjectViewSet;
@@ -47,7 +46,6 @@ import com.google.idea.blaze.base.sync.workspace.WorkspacePathResolver;
 import com.google.idea.common.experiments.BoolExperiment;
 import com.intellij.openapi.project.Project;
 import java.io.File;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -85,7 +83,8 @@ public class WildcardTargetExpander {
    * Expand recursive wildcard blaze target patterns into single-package wildcard patterns, via a
    * file system traversal.
    *
-   * <p>Exclude target patterns (beginning with '-') are not expanded.
+   * <p>Exclude target patterns (beginning with '-') are not expanded, but subtrees they exclude
+   * are skipped when expanding earlier patterns.
    *
    * <p>Returns null if operation failed or was cancelled.
    */
@@ -95,21 +94,7 @@ public class WildcardTargetExpander {
       BlazeContext context,
       WorkspacePathResolver pathResolver,
       List<WildcardTargetPattern> wildcardPatterns) {
-
-    Set<WildcardTargetPattern> excludes =
-        wildcardPatterns.stream()
-            .filter(WildcardTargetPattern::isExcluded)
-            .collect(Collectors.toSet());
-
-    Predicate<WorkspacePath> excludePredicate =
-        workspacePath ->
-            excludes.stream().anyMatch(pattern -> pattern.coversPackage(workspacePath));
-
-    List<WildcardTargetPattern> includes = new ArrayList<>(wildcardPatterns);
-    includes.removeAll(excludes);
-
-    Set<File> toPrefetch =
-        PackageLister.getDirectoriesToPrefetch(pathResolver, includes, excludePredicate);
+    Set<File> toPrefetch = PackageLister.getDirectoriesToPrefetch(pathResolver, wildcardPatterns);
 
     ListenableFuture<?> prefetchFuture =
         PrefetchService.getInstance().prefetchFiles(toPrefetch, false, false);
@@ -123,7 +108,11 @@ public class WildcardTargetExpander {
     }
 
     return PackageLister.expandPackageTargets(
-        Blaze.getBuildSystemProvider(project), context, pathResolver, includes);
+        Blaze.getBuildSystemProvider(project),
+        PackageDirectoryCache.getInstance(project),
+        context,
+        pathResolver,
+        wildcardPatterns);
   }
 
   /** Runs a sharded blaze query to expand wildcard targets to individual blaze targets */
@@ -15,8 +15,11 @@
  */
 package com.google.idea.blaze.base.ui.problems;
 
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
 import com.google.idea.blaze.base.io.AbsolutePathPatcher.AbsolutePathPatcherUtil;
 import com.google.idea.blaze.base.io.VfsUtils;
+import com.google.idea.blaze.base.io.VirtualFileSystemProvider;
 import com.google.idea.blaze.base.scope.output.IssueOutput;
 import com.google.idea.blaze.base.settings.Blaze;
 import com.google.idea.blaze.base.settings.BlazeUserSettings.FocusBehavior;
@@ -31,6 +34,7 @@ import com.intellij.openapi.fileEditor.OpenFileDescriptor;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.IconLoader;
+import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowAnchor;
@@ -39,21 +43,30 @@ import com.intellij.pom.Navigatable;
 import com.intellij.ui.content.Content;
 import com.intellij.ui.content.ContentFactory;
 import com.intellij.util.ArrayUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.intellij.util.concurrency.SequentialTaskExecutor;
 import com.intellij.util.ui.MessageCategory;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 import javax.swing.Icon;
@@ -70,9 +83,16 @@ public class BlazeProblemsView {
   private static final EnumSet<ErrorTreeElementKind> ALL_MESSAGE_KINDS =
       EnumSet.allOf(ErrorTreeElementKind.class);
   private static final int MAX_ISSUES = 2000;
+  // Issues are added to the view in batches, at most once per this interval.
+  private static final long MIN_VIEW_UPDATE_INTERVAL_MILLIS = 100;
+  private static final int MAX_INGESTION_BATCH_SIZE = 500;
 
   private final ExecutorService viewUpdater =
       SequentialTaskExecutor.createSequentialApplicationPoolExecutor("BlazeProblemsView pool");
+  // Resolves the files of queued issues in bulk, before handing them to the view updater.
+  private final ExecutorService ingestionExecutor =
+      SequentialTaskExecutor.createSequentialApplicationPoolExecutor(
+          "BlazeProblemsView ingestion");
   private final Icon activeIcon = AllIcons.Toolwindows.Problems;
   private final Icon passiveIcon = IconLoader.getDisabledIcon(activeIcon);
 
@@ -86,6 +106,12 @@ public class BlazeProblemsView {
   private volatile FocusBehavior focusBehavior;
   private volatile UUID currentSessionId = UUID.randomUUID();
 
+  private final Queue<QueuedIssue> queuedIssues = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean ingestionScheduled = new AtomicBoolean(false);
+  // incremented for each new problems context, so stale queued issues can be dropped
+  private final AtomicInteger contextGeneration = new AtomicInteger(0);
+  private volatile long lastViewUpdateNanos = System.nanoTime() - TimeUnit.SECONDS.toNanos(1);
+
   public BlazeProblemsView(Project project) {
     this.project = project;
     this.toolWindowId = Blaze.getBuildSystemName(project).getName() + " Problems";
@@ -128,6 +154,8 @@ public class BlazeProblemsView {
     if (panel == null) {
       return;
     }
+    contextGeneration.incrementAndGet();
+    queuedIssues.clear();
     viewUpdater.execute(
         () -> {
           currentSessionId = UUID.randomUUID();
@@ -157,30 +185,14 @@ public class BlazeProblemsView {
       issue =
           IssueOutput.warn("Too many problems found. Only showing the first " + MAX_ISSUES).build();
     }
-    VirtualFile file = issue.getFile() != null ? resolveVirtualFile(issue.getFile()) : null;
-    Navigatable navigatable = issue.getNavigatable();
-    if (navigatable == null && file != null) {
-      navigatable =
-          new OpenFileDescriptor(project, file, issue.getLine() - 1, issue.getColumn() - 1);
-    }
-    IssueOutput.Category category = issue.getCategory();
-    int type = translateCategory(category);
-    String[] text = convertMessage(issue);
-    String groupName = file != null ? file.getPresentableUrl() : category.name();
-    addMessage(
-        type,
-        text,
-        groupName,
-        file,
-        navigatable,
-        openInConsole,
-        getExportTextPrefix(issue),
-        getRenderTextPrefix(issue),
-        panel);
+    // resolving files may hit the file system, so is done in bulk in the background
+    queuedIssues.add(new QueuedIssue(issue, openInConsole, contextGeneration.get()));
+    scheduleIngestion();
 
     if (didFocusProblemsView) {
       return;
     }
+    IssueOutput.Category category = issue.getCategory();
     boolean focus =
         focusBehavior == FocusBehavior.ALWAYS
             || (focusBehavior == FocusBehavior.ON_ERROR && category == IssueOutput.Category.ERROR);
@@ -190,13 +202,105 @@ public class BlazeProblemsView {
     }
   }
 
+  private void scheduleIngestion() {
+    if (ingestionScheduled.compareAndSet(false, true)) {
+      ingestionExecutor.execute(this::ingestQueuedIssues);
+    }
+  }
+
   /**
-   * Finds the virtual file associated with the given file path, resolving symlinks where relevant.
+   * Resolves the files of a batch of queued issues, and adds them to the view in a single update.
+   * Waits until at least {@link #MIN_VIEW_UPDATE_INTERVAL_MILLIS} have passed since the previous
+   * update, accumulating issues in the meantime.
    */
-  @Nullable
-  private static VirtualFile resolveVirtualFile(File file) {
-    VirtualFile vf = VfsUtils.resolveVirtualFile(file, /* refreshIfNeeded= */ true);
-    return vf != null ? resolveSymlinks(vf) : null;
+  private void ingestQueuedIssues() {
+    long waitMillis =
+        MIN_VIEW_UPDATE_INTERVAL_MILLIS
+            - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastViewUpdateNanos);
+    if (waitMillis > 0) {
+      AppExecutorUtil.getAppScheduledExecutorService()
+          .schedule(
+              () -> ingestionExecutor.execute(this::ingestQueuedIssues),
+              waitMillis,
+              TimeUnit.MILLISECONDS);
+      return;
+    }
+    ingestionScheduled.set(false);
+    BlazeProblemsViewPanel panel = getPanel();
+    List<QueuedIssue> batch = new ArrayList<>();
+    QueuedIssue next;
+    while (batch.size() < MAX_INGESTION_BATCH_SIZE && (next = queuedIssues.poll()) != null) {
+      batch.add(next);
+    }
+    if (!queuedIssues.isEmpty()) {
+      scheduleIngestion();
+    }
+    if (panel == null || batch.isEmpty()) {
+      return;
+    }
+    Map<File, VirtualFile> files =
+        resolveVirtualFiles(
+            batch.stream()
+                .map(queued -> queued.issue.getFile())
+                .filter(Objects::nonNull)
+                .collect(toImmutableSet()));
+    List<ProblemMessage> messages = new ArrayList<>(batch.size());
+    for (QueuedIssue queued : batch) {
+      if (queued.contextGeneration == contextGeneration.get()) {
+        File file = queued.issue.getFile();
+        messages.add(toMessage(queued, file != null ? files.get(file) : null));
+      }
+    }
+    lastViewUpdateNanos = System.nanoTime();
+    addMessages(messages, panel);
+  }
+
+  private ProblemMessage toMessage(QueuedIssue queued, @Nullable VirtualFile file) {
+    IssueOutput issue = queued.issue;
+    Navigatable navigatable = issue.getNavigatable();
+    if (navigatable == null && file != null) {
+      navigatable =
+          new OpenFileDescriptor(project, file, issue.getLine() - 1, issue.getColumn() - 1);
+    }
+    IssueOutput.Category category = issue.getCategory();
+    return new ProblemMessage(
+        translateCategory(category),
+        convertMessage(issue),
+        file != null ? file.getPresentableUrl() : category.name(),
+        file,
+        navigatable,
+        queued.openInConsole,
+        getExportTextPrefix(issue),
+        getRenderTextPrefix(issue));
+  }
+
+  /**
+   * Finds the virtual files associated with the given file paths, resolving symlinks where
+   * relevant. Files not yet in the VFS are refreshed together.
+   */
+  private static Map<File, VirtualFile> resolveVirtualFiles(Collection<File> files) {
+    Map<File, VirtualFile> resolved = new HashMap<>();
+    List<File> unresolved = new ArrayList<>();
+    for (File file : files) {
+      VirtualFile vf = VfsUtils.resolveVirtualFile(file, /* refreshIfNeeded= */ false);
+      if (vf != null) {
+        resolved.put(file, vf);
+      } else {
+        unresolved.add(file);
+      }
+    }
+    if (!unresolved.isEmpty()) {
+      LocalFileSystem fileSystem = VirtualFileSystemProvider.getInstance().getSystem();
+      fileSystem.refreshIoFiles(unresolved);
+      for (File file : unresolved) {
+        VirtualFile vf = fileSystem.findFileByIoFile(file);
+        if (vf != null) {
+          resolved.put(file, vf);
+        }
+      }
+    }
+    resolved.replaceAll((file, vf) -> resolveSymlinks(vf));
+    return resolved;
   }
 
   /**
@@ -256,51 +360,52 @@ public class BlazeProblemsView {
     return "";
   }
 
-  private void addMessage(
-      int type,
-      String[] text,
-      String groupName,
-      @Nullable VirtualFile file,
-      @Nullable Navigatable navigatable,
-      @Nullable Navigatable openInConsole,
-      String exportTextPrefix,
-      String rendererTextPrefix,
-      BlazeProblemsViewPanel panel) {
-    UUID sessionId = currentSessionId;
+  private void addMessages(List<ProblemMessage> messages, BlazeProblemsViewPanel panel) {
+    if (messages.isEmpty()) {
+      return;
+    }
     viewUpdater.execute(
         () -> {
-          final ErrorViewStructure structure = panel.getErrorViewStructure();
-          final GroupingElement group = structure.lookupGroupingElement(groupName);
-          if (group != null && !sessionId.equals(group.getData())) {
-            structure.removeElement(group);
-          }
-          if (openInConsole != null) {
-            panel.addNavigableMessageElement(
-                groupName,
-                new ProblemsViewMessageElement(
-                    ErrorTreeElementKind.convertMessageFromCompilerErrorType(type),
-                    structure.getGroupingElement(groupName, sessionId, file),
-                    text,
-                    navigatable != null ? navigatable : openInConsole,
-                    openInConsole,
-                    exportTextPrefix,
-                    rendererTextPrefix));
-          } else if (navigatable != null) {
-            panel.addMessage(
-                type,
-                text,
-                groupName,
-                navigatable,
-                exportTextPrefix,
-                rendererTextPrefix,
-                sessionId);
-          } else {
-            panel.addMessage(type, text, null, -1, -1, sessionId);
+          UUID sessionId = currentSessionId;
+          for (ProblemMessage message : messages) {
+            addMessage(message, sessionId, panel);
           }
           updateIcon(panel);
         });
   }
 
+  private static void addMessage(
+      ProblemMessage message, UUID sessionId, BlazeProblemsViewPanel panel) {
+    final ErrorViewStructure structure = panel.getErrorViewStructure();
+    final GroupingElement group = structure.lookupGroupingElement(message.groupName);
+    if (group != null && !sessionId.equals(group.getData())) {
+      structure.removeElement(group);
+    }
+    if (message.openInConsole != null) {
+      panel.addNavigableMessageElement(
+          message.groupName,
+          new ProblemsViewMessageElement(
+              ErrorTreeElementKind.convertMessageFromCompilerErrorType(message.type),
+              structure.getGroupingElement(message.groupName, sessionId, message.file),
+              message.text,
+              message.navigatable != null ? message.navigatable : message.openInConsole,
+              message.openInConsole,
+              message.exportTextPrefix,
+              message.rendererTextPrefix));
+    } else if (message.navigatable != null) {
+      panel.addMessage(
+          message.type,
+          message.text,
+          message.groupName,
+          message.navigatable,
+          message.exportTextPrefix,
+          message.rendererTextPrefix,
+          sessionId);
+    } else {
+      panel.addMessage(message.type, message.text, null, -1, -1, sessionId);
+    }
+  }
+
   private void updateIcon(BlazeProblemsViewPanel panel) {
     ApplicationManager.getApplication()
         .invokeLater(
@@ -327,4 +432,48 @@ public class BlazeProblemsView {
               }
             });
   }
+
+  /** An issue waiting to be added to the view. */
+  private static class QueuedIssue {
+    final IssueOutput issue;
+    @Nullable final Navigatable openInConsole;
+    final int contextGeneration;
+
+    QueuedIssue(IssueOutput issue, @Nullable Navigatable openInConsole, int contextGeneration) {
+      this.issue = issue;
+      this.openInConsole = openInConsole;
+      this.contextGeneration = contextGeneration;
+    }
+  }
+
+  /** A resolved issue, ready to be added to the error tree. */
+  private static class ProblemMessage {
+    final int type;
+    final String[] text;
+    final String groupName;
+    @Nullable final VirtualFile file;
+    @Nullable final Navigatable navigatable;
+    @Nullable final Navigatable openInConsole;
+    final String exportTextPrefix;
+    final String rendererTextPrefix;
+
+    ProblemMessage(
+        int type,
+        String[] text,
+        String groupName,
+        @Nullable VirtualFile file,
+        @Nullable Navigatable navigatable,
+        @Nullable Navigatable openInConsole,
+        String exportTextPrefix,
+        String rendererTextPrefix) {
+      this.type = type;
+      this.text = text;
+      this.groupName = groupName;
+      this.file = file;
+      this.navigatable = navigatable;
+      this.openInConsole = openInConsole;
+      this.exportTextPrefix = exportTextPrefix;
+      this.rendererTextPrefix = rendererTextPrefix;
+    }
+  }
 }
@@ -171,6 +171,30 @@ public class GlobReferenceTest extends BuildFileIntegrationTestCase {
     assertThat(references).isEmpty();
   }
 
+  @Test
+  public void testGlobReflectsFilesAddedAfterResolving() {
+    PsiFile foo = workspace.createPsiFile(new WorkspacePath("java/com/google/Foo.java"));
+    BuildFile file =
+        createBuildFile(new WorkspacePath("java/com/google/BUILD"), "glob(['**/*.java'])");
+    GlobExpression glob = PsiUtils.findFirstChildOfClassRecursive(file, GlobExpression.class);
+    assertThat(multiResolve(glob)).containsExactly(foo);
+
+    PsiFile test = workspace.createPsiFile(new WorkspacePath("java/com/google/tests/Test.java"));
+    assertThat(multiResolve(glob)).containsExactly(foo, test);
+  }
+
+  @Test
+  public void testGlobReflectsNewSubpackage() {
+    workspace.createPsiFile(new WorkspacePath("java/com/google/other/Other.java"));
+    BuildFile file =
+        createBuildFile(new WorkspacePath("java/com/google/BUILD"), "glob(['**/*.java'])");
+    GlobExpression glob = PsiUtils.findFirstChildOfClassRecursive(file, GlobExpression.class);
+    assertThat(multiResolve(glob)).hasSize(1);
+
+    createBuildFile(new WorkspacePath("java/com/google/other/BUILD"));
+    assertThat(multiResolve(glob)).isEmpty();
+  }
+
   private List<PsiElement> multiResolve(GlobExpression glob) {
     ResolveResult[] result = glob.getReference().multiResolve(false);
     return Arrays.stream(result)
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.lang.buildfile.search;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.idea.blaze.base.lang.buildfile.BuildFileIntegrationTestCase;
+import com.google.idea.blaze.base.lang.buildfile.psi.BuildFile;
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.FileBasedIndex;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link BuildLabelIndex}. */
+@RunWith(JUnit4.class)
+public class BuildLabelIndexTest extends BuildFileIntegrationTestCase {
+
+  @Test
+  public void testKeysNormalizeLabelStrings() {
+    assertThat(BuildLabelIndex.getKey("//java/com/google:lib")).isEqualTo("//java/com/google:lib");
+    assertThat(BuildLabelIndex.getKey("//java/com/google")).isEqualTo("//java/com/google:google");
+    assertThat(BuildLabelIndex.getKey("@repo")).isEqualTo("@repo//:repo");
+    assertThat(BuildLabelIndex.getKey(":lib")).isEqualTo(":lib");
+    assertThat(BuildLabelIndex.getKey("lib")).isEqualTo(":lib");
+    assertThat(BuildLabelIndex.getKey("src/Foo.java")).isEqualTo(":src/Foo.java");
+  }
+
+  @Test
+  public void testNonLabelStringsNotIndexed() {
+    assertThat(BuildLabelIndex.getKey("")).isNull();
+    assertThat(BuildLabelIndex.getKey("java/com:lib")).isNull();
+    assertThat(BuildLabelIndex.getKey("//java/com:")).isNull();
+  }
+
+  @Test
+  public void testIndexesOffsetsOfStringLiterals() {
+    BuildFile file =
+        createBuildFile(
+            new WorkspacePath("java/com/google/BUILD"),
+            "java_library(name = 'lib')",
+            "java_library(name = 'other', deps = [':lib', '//java/com/google:lib'])");
+
+    String text = file.getText();
+    assertThat(getOffsets(file, ":lib"))
+        .containsExactly(text.indexOf("'lib'"), text.indexOf("':lib'"));
+    assertThat(getOffsets(file, "//java/com/google:lib"))
+        .containsExactly(text.indexOf("'//java/com/google:lib'"));
+  }
+
+  private List<Integer> getOffsets(BuildFile file, String key) {
+    List<List<Integer>> values =
+        FileBasedIndex.getInstance()
+            .getValues(
+                BuildLabelIndex.NAME,
+                key,
+                GlobalSearchScope.fileScope(getProject(), file.getVirtualFile()));
+    assertThat(values).hasSize(1);
+    return values.get(0);
+  }
+}
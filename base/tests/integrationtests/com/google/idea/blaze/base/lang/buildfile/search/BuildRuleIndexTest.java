@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.lang.buildfile.search;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.idea.blaze.base.lang.buildfile.BuildFileIntegrationTestCase;
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.indexing.FileBasedIndex;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link BuildRuleIndex}. */
+@RunWith(JUnit4.class)
+public class BuildRuleIndexTest extends BuildFileIntegrationTestCase {
+
+  @Test
+  public void testIndexesTopLevelRulesByName() {
+    VirtualFile file =
+        workspace.createFile(
+            new WorkspacePath("java/com/google/BUILD"),
+            "java_library(name = 'lib')",
+            "java_test(name = 'test', deps = [':lib'])",
+            "java_binary(name = 'lib')",
+            "def macro():",
+            "  native.java_library(name = 'nested')",
+            "filegroup(srcs = ['unnamed'])");
+
+    assertThat(FileBasedIndex.getInstance().getFileData(BuildRuleIndex.NAME, file, getProject()))
+        .containsExactlyEntriesIn(ImmutableMap.of("lib", "java_library", "test", "java_test"));
+  }
+}
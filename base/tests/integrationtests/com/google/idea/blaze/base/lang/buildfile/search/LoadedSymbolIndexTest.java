@@ -0,0 +1,49 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.lang.buildfile.search;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.idea.blaze.base.lang.buildfile.BuildFileIntegrationTestCase;
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link LoadedSymbolIndex}. */
+@RunWith(JUnit4.class)
+public class LoadedSymbolIndexTest extends BuildFileIntegrationTestCase {
+
+  @Test
+  public void testIndexesLoadedSymbolsIgnoringAliases() {
+    workspace.createFile(
+        new WorkspacePath("java/com/google/tools/build_defs.bzl"), "def fn(): pass");
+    VirtualFile direct =
+        workspace.createFile(
+            new WorkspacePath("java/com/google/BUILD"),
+            "load('//java/com/google/tools:build_defs.bzl', 'fn')");
+    VirtualFile aliased =
+        workspace.createFile(
+            new WorkspacePath("java/com/google/other/BUILD"),
+            "load('//java/com/google/tools:build_defs.bzl', other = 'fn')");
+
+    GlobalSearchScope scope = GlobalSearchScope.allScope(getProject());
+    assertThat(LoadedSymbolIndex.getLoadingFiles("fn", scope)).containsExactly(direct, aliased);
+    assertThat(LoadedSymbolIndex.getLoadingFiles("other", scope)).isEmpty();
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.libraries;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.idea.blaze.base.BlazeIntegrationTestCase;
+import com.intellij.openapi.application.WriteAction;
+import com.intellij.openapi.roots.OrderRootType;
+import com.intellij.openapi.roots.libraries.Library;
+import com.intellij.openapi.roots.libraries.LibraryTable;
+import com.intellij.openapi.roots.libraries.LibraryTablesRegistrar;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Integration tests for {@link LibraryEditor}. */
+@RunWith(JUnit4.class)
+public class LibraryEditorTest extends BlazeIntegrationTestCase {
+
+  private static final String CLASS_JAR_A = "jar:///src/out/a.jar!/";
+  private static final String CLASS_JAR_B = "jar:///src/out/b.jar!/";
+  private static final String SOURCE_JAR = "jar:///src/out/a-src.jar!/";
+
+  @After
+  public final void removeAllLibraries() {
+    WriteAction.run(
+        () -> {
+          LibraryTable.ModifiableModel model = libraryTable().getModifiableModel();
+          Arrays.stream(model.getLibraries()).forEach(model::removeLibrary);
+          model.commit();
+        });
+  }
+
+  @Test
+  public void testRemoveLibrariesRemovesOnlyNamedLibraries() {
+    createLibrary("used", ImmutableList.of(CLASS_JAR_A), ImmutableList.of());
+    createLibrary("unused", ImmutableList.of(CLASS_JAR_B), ImmutableList.of());
+
+    WriteAction.run(
+        () -> LibraryEditor.removeLibraries(getProject(), ImmutableList.of("unused", "missing")));
+
+    assertThat(Arrays.stream(libraryTable().getLibraries()).map(Library::getName))
+        .containsExactly("used");
+  }
+
+  @Test
+  public void testRootsMatchLibraryWithSameRootsInSameOrder() {
+    Library library =
+        createLibrary(
+            "lib", ImmutableList.of(CLASS_JAR_A, CLASS_JAR_B), ImmutableList.of(SOURCE_JAR));
+
+    assertThat(
+            new LibraryRoots(
+                    "lib", ImmutableList.of(CLASS_JAR_A, CLASS_JAR_B), ImmutableList.of(SOURCE_JAR))
+                .matches(library))
+        .isTrue();
+  }
+
+  @Test
+  public void testRootsDoNotMatchChangedLibrary() {
+    Library library =
+        createLibrary(
+            "lib", ImmutableList.of(CLASS_JAR_A, CLASS_JAR_B), ImmutableList.of(SOURCE_JAR));
+
+    assertThat(
+            new LibraryRoots(
+                    "lib", ImmutableList.of(CLASS_JAR_B, CLASS_JAR_A), ImmutableList.of(SOURCE_JAR))
+                .matches(library))
+        .isFalse();
+    assertThat(
+            new LibraryRoots("lib", ImmutableList.of(CLASS_JAR_A, CLASS_JAR_B), ImmutableList.of())
+                .matches(library))
+        .isFalse();
+    assertThat(
+            new LibraryRoots(
+                    "lib", ImmutableList.of(CLASS_JAR_A, CLASS_JAR_B), ImmutableList.of(SOURCE_JAR))
+                .matches(null))
+        .isFalse();
+  }
+
+  private Library createLibrary(String name, List<String> classUrls, List<String> sourceUrls) {
+    return WriteAction.compute(
+        () -> {
+          LibraryTable.ModifiableModel tableModel = libraryTable().getModifiableModel();
+          Library library = tableModel.createLibrary(name);
+          Library.ModifiableModel libraryModel = library.getModifiableModel();
+          classUrls.forEach(url -> libraryModel.addRoot(url, OrderRootType.CLASSES));
+          sourceUrls.forEach(url -> libraryModel.addRoot(url, OrderRootType.SOURCES));
+          libraryModel.commit();
+          tableModel.commit();
+          return library;
+        });
+  }
+
+  private LibraryTable libraryTable() {
+    return LibraryTablesRegistrar.getInstance().getLibraryTable(getProject());
+  }
+}
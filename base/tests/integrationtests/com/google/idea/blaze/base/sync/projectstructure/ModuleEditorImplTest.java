@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.projectstructure;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.idea.blaze.base.BlazeIntegrationTestCase;
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import com.intellij.openapi.application.WriteAction;
+import com.intellij.openapi.roots.ContentEntry;
+import com.intellij.openapi.roots.ModifiableRootModel;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import java.util.function.Consumer;
+import org.jetbrains.jps.model.java.JavaResourceRootType;
+import org.jetbrains.jps.model.java.JavaSourceRootType;
+import org.jetbrains.jps.model.java.JpsJavaExtensionService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Integration tests for {@link ModuleEditorImpl}. */
+@RunWith(JUnit4.class)
+public class ModuleEditorImplTest extends BlazeIntegrationTestCase {
+
+  private VirtualFile sourceRoot;
+
+  @Before
+  public final void setUpSourceFolder() {
+    sourceRoot = workspace.createDirectory(new WorkspacePath("java"));
+    ModifiableRootModel model = modelWithSourceFolder(this::addSourceFolder);
+    WriteAction.run(model::commit);
+  }
+
+  @After
+  public final void tearDownSourceFolder() {
+    ModifiableRootModel model = modelWithSourceFolder(contentEntry -> {});
+    WriteAction.run(model::commit);
+  }
+
+  @Test
+  public void testIdenticalModuleIsUnchanged() {
+    ModifiableRootModel model = modelWithSourceFolder(this::addSourceFolder);
+    try {
+      assertThat(ModuleEditorImpl.isUnchanged(model)).isTrue();
+    } finally {
+      model.dispose();
+    }
+  }
+
+  @Test
+  public void testChangedGeneratedSourcesPropertyIsDetected() {
+    ModifiableRootModel model =
+        modelWithSourceFolder(
+            contentEntry ->
+                contentEntry.addSourceFolder(
+                    sourceRoot.getUrl(),
+                    JavaSourceRootType.SOURCE,
+                    JpsJavaExtensionService.getInstance()
+                        .createSourceRootProperties("", /* isGenerated= */ true)));
+    try {
+      assertThat(ModuleEditorImpl.isUnchanged(model)).isFalse();
+    } finally {
+      model.dispose();
+    }
+  }
+
+  @Test
+  public void testChangedRootTypeIsDetected() {
+    ModifiableRootModel model =
+        modelWithSourceFolder(
+            contentEntry ->
+                contentEntry.addSourceFolder(
+                    sourceRoot.getUrl(),
+                    JavaResourceRootType.RESOURCE,
+                    JpsJavaExtensionService.getInstance().createResourceRootProperties("", false)));
+    try {
+      assertThat(ModuleEditorImpl.isUnchanged(model)).isFalse();
+    } finally {
+      model.dispose();
+    }
+  }
+
+  private void addSourceFolder(ContentEntry contentEntry) {
+    contentEntry.addSourceFolder(
+        sourceRoot.getUrl(),
+        JavaSourceRootType.SOURCE,
+        JpsJavaExtensionService.getInstance()
+            .createSourceRootProperties("", /* isGenerated= */ false));
+  }
+
+  /** Returns a modifiable model whose source folders are replaced by the given ones. */
+  private ModifiableRootModel modelWithSourceFolder(Consumer<ContentEntry> addSourceFolders) {
+    ModifiableRootModel model =
+        ModuleRootManager.getInstance(testFixture.getModule()).getModifiableModel();
+    ContentEntry contentEntry = model.getContentEntries()[0];
+    contentEntry.clearSourceFolders();
+    addSourceFolders.accept(contentEntry);
+    return model;
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.dependencies;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.devtools.build.lib.query2.proto.proto2api.Build.QueryResult;
+import com.google.devtools.build.lib.query2.proto.proto2api.Build.Rule;
+import com.google.devtools.build.lib.query2.proto.proto2api.Build.Target;
+import com.google.idea.blaze.base.model.primitives.Label;
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import com.intellij.openapi.project.Project;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link SourceToTargetQueryCache}. */
+@RunWith(JUnit4.class)
+public class SourceToTargetQueryCacheTest {
+
+  private static final Label FOO_SOURCE = Label.create("//foo:Foo.java");
+  private static final Label BAR_SOURCE = Label.create("//bar:Bar.java");
+  private static final TargetInfo FOO_LIB =
+      TargetInfo.builder(Label.create("//foo:lib"), "java_library").build();
+  private static final TargetInfo BAR_LIB =
+      TargetInfo.builder(Label.create("//bar:lib"), "java_library").build();
+
+  private final List<Collection<Label>> queries = new ArrayList<>();
+  private final List<Runnable> scheduled = new ArrayList<>();
+  private final Executor executor = scheduled::add;
+
+  private final SourceToTargetQueryCache cache =
+      new SourceToTargetQueryCache(
+          mock(Project.class),
+          labels -> {
+            queries.add(ImmutableList.copyOf(labels));
+            ImmutableMap.Builder<Label, ImmutableList<TargetInfo>> result = ImmutableMap.builder();
+            if (labels.contains(FOO_SOURCE)) {
+              result.put(FOO_SOURCE, ImmutableList.of(FOO_LIB));
+            }
+            if (labels.contains(BAR_SOURCE)) {
+              result.put(BAR_SOURCE, ImmutableList.of(BAR_LIB));
+            }
+            return result.build();
+          },
+          executor);
+
+  @Test
+  public void concurrentRequests_coalescedIntoSingleQuery() throws Exception {
+    ListenableFuture<List<TargetInfo>> foo = cache.getTargetsBuildingSource(FOO_SOURCE);
+    ListenableFuture<List<TargetInfo>> bar = cache.getTargetsBuildingSource(BAR_SOURCE);
+    runScheduled();
+
+    assertThat(queries).hasSize(1);
+    assertThat(queries.get(0)).containsExactly(FOO_SOURCE, BAR_SOURCE);
+    assertThat(foo.get()).containsExactly(FOO_LIB);
+    assertThat(bar.get()).containsExactly(BAR_LIB);
+  }
+
+  @Test
+  public void repeatedRequest_servedFromCache() throws Exception {
+    cache.getTargetsBuildingSource(FOO_SOURCE);
+    runScheduled();
+
+    assertThat(cache.getTargetsBuildingSource(FOO_SOURCE).get()).containsExactly(FOO_LIB);
+    assertThat(scheduled).isEmpty();
+    assertThat(queries).hasSize(1);
+  }
+
+  @Test
+  public void buildFileChange_invalidatesOnlyThatPackage() throws Exception {
+    cache.getTargetsBuildingSource(FOO_SOURCE);
+    cache.getTargetsBuildingSource(BAR_SOURCE);
+    runScheduled();
+
+    cache.invalidatePackage(new WorkspacePath("foo"));
+    cache.getTargetsBuildingSource(FOO_SOURCE);
+    cache.getTargetsBuildingSource(BAR_SOURCE);
+    runScheduled();
+
+    assertThat(queries).hasSize(2);
+    assertThat(queries.get(1)).containsExactly(FOO_SOURCE);
+  }
+
+  @Test
+  public void parseBatchedRdeps_attributesRulesToTheirInputs() {
+    QueryResult result =
+        QueryResult.newBuilder()
+            .addTarget(rule("//foo:lib", "java_library", "//foo:Foo.java", "//foo:Other.java"))
+            .addTarget(rule("//foo:test", "java_test", "//foo:Foo.java", "//bar:Bar.java"))
+            .build();
+
+    ImmutableMap<Label, ImmutableList<TargetInfo>> targets =
+        BlazeQuerySourceToTargetProvider.parseBatchedRdeps(
+            ImmutableList.of(FOO_SOURCE, BAR_SOURCE), result);
+
+    assertThat(labels(targets.get(FOO_SOURCE)))
+        .containsExactly(Label.create("//foo:lib"), Label.create("//foo:test"));
+    assertThat(labels(targets.get(BAR_SOURCE))).containsExactly(Label.create("//foo:test"));
+  }
+
+  private static ImmutableList<Label> labels(List<TargetInfo> targets) {
+    return targets.stream().map(t -> t.label).collect(toImmutableList());
+  }
+
+  private void runScheduled() {
+    while (!scheduled.isEmpty()) {
+      scheduled.remove(0).run();
+    }
+  }
+
+  private static Target rule(String name, String kind, String... inputs) {
+    return Target.newBuilder()
+        .setType(Target.Discriminator.RULE)
+        .setRule(
+            Rule.newBuilder()
+                .setName(name)
+                .setRuleClass(kind)
+                .addAllRuleInput(ImmutableList.copyOf(inputs)))
+        .build();
+  }
+}
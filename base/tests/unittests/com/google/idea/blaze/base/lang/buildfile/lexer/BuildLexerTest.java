@@ -0,0 +1,148 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.lang.buildfile.lexer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.idea.blaze.base.lang.buildfile.lexer.BuildLexerBase.LexerMode;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for the on-demand tokenization and lexer states of {@link BuildLexer}. */
+@RunWith(JUnit4.class)
+public class BuildLexerTest {
+
+  private static final String SKYLARK_FILE =
+      String.join(
+          "\n",
+          "\"\"\"Module docstring,",
+          "spanning 'multiple' lines.\"\"\"",
+          "",
+          "load(\"//tools:defs.bzl\", \"macro\", alias = \"other\")",
+          "",
+          "def _impl(ctx, deps = [], **kwargs):",
+          "    # comment with (unbalanced parens",
+          "    srcs = [f for f in ctx.files.srcs if f.path.endswith(r'.java')]",
+          "    if len(srcs) >= 2 and \\",
+          "        kwargs.get('x', {'a': (1, 2)}):",
+          "        return struct(files = depset(srcs), text = '''a\\n'b'",
+          "c''')",
+          "    return None",
+          "",
+          "java_library(",
+          "    name = 'lib',",
+          "    srcs = glob(['**/*.java'], exclude = [\"Foo.java\"]),",
+          ")",
+          "unclosed(['a', 'b'");
+
+  @Test
+  public void testHighlightingStatesAreAlwaysInitial() {
+    for (LexedToken token : lex(LexerMode.SyntaxHighlighting, SKYLARK_FILE, 0, 0)) {
+      assertThat(token.state).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void testHighlightingLexerRestartableFromEveryToken() {
+    List<LexedToken> tokens = lex(LexerMode.SyntaxHighlighting, SKYLARK_FILE, 0, 0);
+    for (int i = 0; i < tokens.size(); i++) {
+      LexedToken token = tokens.get(i);
+      List<LexedToken> relexed =
+          lex(LexerMode.SyntaxHighlighting, SKYLARK_FILE, token.start, token.state);
+      assertThat(relexed).containsExactlyElementsIn(tokens.subList(i, tokens.size())).inOrder();
+    }
+  }
+
+  @Test
+  public void testParsingStateIsParenDepthBeforeToken() {
+    List<LexedToken> tokens = lex(LexerMode.Parsing, "f(a, [b], {", 0, 0);
+    List<Integer> states = new ArrayList<>();
+    for (LexedToken token : tokens) {
+      states.add(token.state);
+    }
+    // f ( a , ws [ b ] , ws {
+    assertThat(states).containsExactly(0, 0, 1, 1, 1, 1, 2, 2, 1, 1, 1).inOrder();
+  }
+
+  @Test
+  public void testParsingLexerRestartableWithinParens() {
+    String text = "x = foo(\n    'a',\n    [1, 2],\n)\ny = 1\n";
+    List<LexedToken> tokens = lex(LexerMode.Parsing, text, 0, 0);
+    for (int i = 0; i < tokens.size(); i++) {
+      LexedToken token = tokens.get(i);
+      if (token.state == 0) {
+        // restarting at depth 0 loses the indentation stack, so only check within parens
+        continue;
+      }
+      List<LexedToken> relexed = lex(LexerMode.Parsing, text, token.start, token.state);
+      assertThat(relexed).containsExactlyElementsIn(tokens.subList(i, tokens.size())).inOrder();
+    }
+  }
+
+  private static List<LexedToken> lex(LexerMode mode, String text, int start, int state) {
+    BuildLexer lexer = new BuildLexer(mode);
+    lexer.start(text, start, text.length(), state);
+    List<LexedToken> tokens = new ArrayList<>();
+    while (lexer.getTokenEnd() != 0) {
+      tokens.add(
+          new LexedToken(
+              lexer.getTokenKind(), lexer.getTokenStart(), lexer.getTokenEnd(), lexer.getState()));
+      lexer.advance();
+    }
+    assertThat(tokens.isEmpty() ? start : tokens.get(tokens.size() - 1).end)
+        .isEqualTo(text.length());
+    return tokens;
+  }
+
+  private static class LexedToken {
+    final TokenKind kind;
+    final int start;
+    final int end;
+    final int state;
+
+    LexedToken(TokenKind kind, int start, int end, int state) {
+      this.kind = kind;
+      this.start = start;
+      this.end = end;
+      this.state = state;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof LexedToken)) {
+        return false;
+      }
+      LexedToken other = (LexedToken) o;
+      return kind == other.kind
+          && start == other.start
+          && end == other.end
+          && state == other.state;
+    }
+
+    @Override
+    public int hashCode() {
+      return start;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s[%d,%d) state %d", kind, start, end, state);
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.metrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.StringWriter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link LatencyHistogram} and {@link MetricsRegistry}. */
+@RunWith(JUnit4.class)
+public class LatencyHistogramTest {
+
+  @Test
+  public void bucketsHaveBoundedRelativeError() {
+    for (long value = 1; value < (1L << 40); value = value * 3 + 1) {
+      long upperBound = LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(value));
+      assertThat(upperBound).isAtLeast(value);
+      assertThat((double) (upperBound - value) / value).isAtMost(1.0 / 16);
+    }
+  }
+
+  @Test
+  public void snapshotReportsPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.recordMicros(i * 1000);
+    }
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertThat(snapshot.count()).isEqualTo(100);
+    assertThat(snapshot.meanMicros()).isEqualTo(50500);
+    assertThat((double) snapshot.p50Micros()).isWithin(50000 / 16.0).of(50000);
+    assertThat((double) snapshot.p99Micros()).isWithin(99000 / 16.0).of(99000);
+    assertThat(snapshot.maxMicros()).isEqualTo(100000);
+  }
+
+  @Test
+  public void instrumentedExecutorRecordsTasks() throws Exception {
+    MetricsRegistry registry = new MetricsRegistry();
+    ExecutorService executor =
+        registry.instrument("test_executor", Executors.newSingleThreadExecutor());
+    for (int i = 0; i < 10; i++) {
+      executor.execute(() -> {});
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+    assertThat(registry.histogram("test_executor.run_time").snapshot().count()).isEqualTo(10);
+    assertThat(registry.histogram("test_executor.queue_time").snapshot().count()).isEqualTo(10);
+  }
+
+  @Test
+  public void writeJsonIncludesAllMetrics() throws Exception {
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.counter("cache.hits").add(3);
+    registry.gauge("cache.size", () -> 42);
+    registry.histogram("cache.load_time").recordMicros(7);
+
+    StringWriter out = new StringWriter();
+    registry.writeJson(out);
+
+    JsonObject json = JsonParser.parseString(out.toString()).getAsJsonObject();
+    assertThat(json.getAsJsonObject("counters").get("cache.hits").getAsLong()).isEqualTo(3);
+    assertThat(json.getAsJsonObject("gauges").get("cache.size").getAsLong()).isEqualTo(42);
+    JsonObject histogram = json.getAsJsonObject("histograms").getAsJsonObject("cache.load_time");
+    assertThat(histogram.get("count").getAsLong()).isEqualTo(1);
+    assertThat(histogram.get("maxMicros").getAsLong()).isEqualTo(7);
+  }
+}
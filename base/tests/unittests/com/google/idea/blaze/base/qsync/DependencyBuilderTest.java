@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.qsync;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.devtools.intellij.qsync.ArtifactTrackerData.TargetToDeps;
+import com.google.devtools.intellij.qsync.ArtifactTrackerData.TargetToDirectArtifact;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link DependencyBuilder}. */
+@RunWith(JUnit4.class)
+public class DependencyBuilderTest {
+
+  @Test
+  public void parseArtifactInfo_readsTargetAndDeps() throws IOException {
+    TargetToDeps info =
+        DependencyBuilder.parseArtifactInfo(
+            new BufferedReader(
+                new StringReader(
+                    "//java/com/app:app\n"
+                        + "//java/com/lib:lib\tk8-fastbuild/bin/java/com/lib/liblib-hjar.jar\n"
+                        + "//third_party:guava\tguava-a.jar\tguava-b.jar\n")));
+
+    assertThat(info)
+        .isEqualTo(
+            TargetToDeps.newBuilder()
+                .setTarget("//java/com/app:app")
+                .addDeps(
+                    TargetToDirectArtifact.newBuilder()
+                        .setTarget("//java/com/lib:lib")
+                        .addArtifactPaths("k8-fastbuild/bin/java/com/lib/liblib-hjar.jar"))
+                .addDeps(
+                    TargetToDirectArtifact.newBuilder()
+                        .setTarget("//third_party:guava")
+                        .addArtifactPaths("guava-a.jar")
+                        .addArtifactPaths("guava-b.jar"))
+                .build());
+  }
+
+  @Test
+  public void parseArtifactInfo_targetWithoutArtifacts() throws IOException {
+    TargetToDeps info =
+        DependencyBuilder.parseArtifactInfo(
+            new BufferedReader(new StringReader("//java/com/app:app\n//java/com/lib:lib\n")));
+
+    assertThat(info.getDepsList())
+        .containsExactly(
+            TargetToDirectArtifact.newBuilder().setTarget("//java/com/lib:lib").build());
+  }
+
+  @Test
+  public void parseArtifactInfo_readsFileWrittenByAspect() throws IOException {
+    // written by //base:target_info_test_fixture, using the same code as the aspect
+    TargetToDeps info;
+    try (BufferedReader reader =
+        Files.newBufferedReader(
+            Paths.get(System.getProperty("target_info_test_fixture")), StandardCharsets.UTF_8)) {
+      info = DependencyBuilder.parseArtifactInfo(reader);
+    }
+
+    assertThat(info.getTarget()).isEqualTo("//java/com/app:app");
+    assertThat(info.getDepsList().stream().map(TargetToDirectArtifact::getTarget))
+        .containsExactly("//third_party/foo:foo$bar'baz", "//java/com/app:no_artifacts");
+    TargetToDirectArtifact withArtifacts =
+        info.getDepsList().stream()
+            .filter(dep -> dep.getArtifactPathsCount() > 0)
+            .findFirst()
+            .orElseThrow(AssertionError::new);
+    assertThat(withArtifacts.getArtifactPathsList()).hasSize(2);
+    // output relative and unquoted, e.g. k8-fastbuild/bin/...
+    assertThat(withArtifacts.getArtifactPaths(0))
+        .matches("[\\w-]+/bin/base/target_info_test_fixture/lib\\.jar");
+    assertThat(withArtifacts.getArtifactPaths(1))
+        .matches("[\\w-]+/bin/base/target_info_test_fixture/lib-src\\.jar");
+  }
+}
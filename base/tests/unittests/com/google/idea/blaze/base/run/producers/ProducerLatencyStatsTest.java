@@ -0,0 +1,59 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.run.producers;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ProducerLatencyStats}. */
+@RunWith(JUnit4.class)
+public class ProducerLatencyStatsTest {
+
+  @Test
+  public void summarizesOnceEnoughSamplesCollected() {
+    ProducerLatencyStats stats = new ProducerLatencyStats(getClass(), "producer", 100);
+    ImmutableMap<String, String> summary = null;
+    for (int i = 1; i <= 100; i++) {
+      summary = stats.recordAndMaybeSummarize(TimeUnit.MICROSECONDS.toNanos(i));
+      if (i < 100) {
+        assertThat(summary).isNull();
+      }
+    }
+
+    assertThat(summary)
+        .containsExactly(
+            "count", "100",
+            "p50Micros", "50",
+            "p90Micros", "90",
+            "p99Micros", "99",
+            "maxMicros", "100");
+  }
+
+  @Test
+  public void resetsAfterSummary() {
+    ProducerLatencyStats stats = new ProducerLatencyStats(getClass(), "producer", 2);
+    stats.recordAndMaybeSummarize(1000);
+    stats.recordAndMaybeSummarize(1000);
+
+    assertThat(stats.recordAndMaybeSummarize(5000)).isNull();
+    assertThat(stats.recordAndMaybeSummarize(7000)).containsEntry("p50Micros", "5");
+  }
+}
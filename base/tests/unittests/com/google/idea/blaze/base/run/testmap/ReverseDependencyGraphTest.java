@@ -0,0 +1,128 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.run.testmap;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.idea.blaze.base.ideinfo.ArtifactLocation;
+import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
+import com.google.idea.blaze.base.ideinfo.TargetMap;
+import com.google.idea.blaze.base.ideinfo.TargetMapBuilder;
+import com.google.idea.blaze.base.sync.workspace.MockArtifactLocationDecoder;
+import java.io.File;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ReverseDependencyGraph}. */
+@RunWith(JUnit4.class)
+public class ReverseDependencyGraphTest {
+
+  @Test
+  public void reachableTargets_includesTransitiveRdeps() {
+    ReverseDependencyGraph graph =
+        graph(
+            TargetMapBuilder.builder()
+                .addTarget(target("//test:lib").addSource(source("test/Lib.java")))
+                .addTarget(target("//test:lib2").addDependency("//test:lib"))
+                .addTarget(target("//test:lib3").addDependency("//test:lib2"))
+                .addTarget(target("//test:unrelated").addSource(source("test/Other.java")))
+                .build());
+
+    assertThat(labels(graph.reachableTargets(file("test/Lib.java"), graph.matching(t -> true))))
+        .containsExactly("//test:lib", "//test:lib2", "//test:lib3");
+  }
+
+  @Test
+  public void reachableTargets_terminatesOnCycles() {
+    ReverseDependencyGraph graph =
+        graph(
+            TargetMapBuilder.builder()
+                .addTarget(
+                    target("//test:a").addSource(source("test/A.java")).addDependency("//test:c"))
+                .addTarget(target("//test:b").addDependency("//test:a"))
+                .addTarget(target("//test:c").addDependency("//test:b"))
+                .build());
+
+    assertThat(labels(graph.reachableTargets(file("test/A.java"), graph.matching(t -> true))))
+        .containsExactly("//test:a", "//test:b", "//test:c");
+  }
+
+  @Test
+  public void reachableTargets_onlyReturnsMatchingTargets() {
+    ReverseDependencyGraph graph =
+        graph(
+            TargetMapBuilder.builder()
+                .addTarget(target("//test:lib").addSource(source("test/Lib.java")))
+                .addTarget(target("//test:lib2").addDependency("//test:lib"))
+                .addTarget(target("//test:lib_test").addDependency("//test:lib2"))
+                .build());
+
+    BitSet tests = graph.matching(t -> t.getKey().getLabel().toString().endsWith("_test"));
+    // non-matching targets are still traversed
+    assertThat(labels(graph.reachableTargets(file("test/Lib.java"), tests)))
+        .containsExactly("//test:lib_test");
+  }
+
+  @Test
+  public void reachableTargets_unknownSourceFile_returnsNothing() {
+    ReverseDependencyGraph graph =
+        graph(
+            TargetMapBuilder.builder()
+                .addTarget(target("//test:lib").addSource(source("test/Lib.java")))
+                .build());
+
+    assertThat(graph.reachableTargets(file("test/Missing.java"), graph.matching(t -> true)))
+        .isEmpty();
+  }
+
+  @Test
+  public void reachableTargets_sourceInSeveralTargets_findsAll() {
+    ReverseDependencyGraph graph =
+        graph(
+            TargetMapBuilder.builder()
+                .addTarget(target("//test:lib").addSource(source("test/Lib.java")))
+                .addTarget(target("//test:lib2").addSource(source("test/Lib.java")))
+                .addTarget(target("//test:bin").addDependency("//test:lib"))
+                .build());
+
+    assertThat(labels(graph.reachableTargets(file("test/Lib.java"), graph.matching(t -> true))))
+        .containsExactly("//test:lib", "//test:lib2", "//test:bin");
+  }
+
+  private static ReverseDependencyGraph graph(TargetMap targetMap) {
+    return ReverseDependencyGraph.create(new MockArtifactLocationDecoder(), targetMap);
+  }
+
+  private static TargetIdeInfo.Builder target(String label) {
+    return TargetIdeInfo.builder().setBuildFile(source("test/BUILD")).setLabel(label);
+  }
+
+  private static ArtifactLocation source(String relativePath) {
+    return ArtifactLocation.builder().setRelativePath(relativePath).setIsSource(true).build();
+  }
+
+  private static File file(String relativePath) {
+    return new MockArtifactLocationDecoder().resolveSource(source(relativePath));
+  }
+
+  private static Collection<String> labels(Collection<TargetIdeInfo> targets) {
+    return targets.stream().map(t -> t.getKey().getLabel().toString()).collect(Collectors.toList());
+  }
+}
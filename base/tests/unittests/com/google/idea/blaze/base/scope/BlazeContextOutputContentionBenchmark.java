@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.scope;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.idea.blaze.common.PrintOutput;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Measures how long parallel shard threads spend producing output into a shared {@link
+ * BlazeContext}, with synchronous and concurrent output.
+ */
+@RunWith(JUnit4.class)
+public class BlazeContextOutputContentionBenchmark {
+
+  private static final int THREADS = 8;
+  private static final int OUTPUTS_PER_THREAD = 20_000;
+
+  @Test
+  public void compareSynchronousAndConcurrentOutput() throws Exception {
+    // warm up both paths before measuring
+    run(/* concurrentOutput= */ false);
+    run(/* concurrentOutput= */ true);
+
+    long synchronousNanos = run(/* concurrentOutput= */ false);
+    long concurrentNanos = run(/* concurrentOutput= */ true);
+    System.out.printf(
+        "%s threads x %s outputs: synchronous %sms, concurrent %sms%n",
+        THREADS,
+        OUTPUTS_PER_THREAD,
+        TimeUnit.NANOSECONDS.toMillis(synchronousNanos),
+        TimeUnit.NANOSECONDS.toMillis(concurrentNanos));
+  }
+
+  /** Returns the total time the producing threads spent in {@link BlazeContext#output}. */
+  private static long run(boolean concurrentOutput) throws InterruptedException {
+    BlazeContext context = BlazeContext.create();
+    context.setConcurrentOutput(concurrentOutput);
+    AtomicLong received = new AtomicLong();
+    context.addOutputSink(
+        PrintOutput.class,
+        output -> {
+          received.incrementAndGet();
+          return OutputSink.Propagation.Continue;
+        });
+
+    AtomicLong producingNanos = new AtomicLong();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    for (int t = 0; t < THREADS; t++) {
+      String prefix = "shard " + t + ": ";
+      executor.execute(
+          () -> {
+            BlazeContext shardContext = BlazeContext.create(context);
+            try {
+              start.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              return;
+            }
+            long startNanos = System.nanoTime();
+            for (int i = 0; i < OUTPUTS_PER_THREAD; i++) {
+              shardContext.output(PrintOutput.output(prefix + i));
+            }
+            producingNanos.addAndGet(System.nanoTime() - startNanos);
+            shardContext.endScope();
+          });
+    }
+    start.countDown();
+    executor.shutdown();
+    assertThat(executor.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+    context.endScope();
+
+    assertThat(received.get()).isEqualTo((long) THREADS * OUTPUTS_PER_THREAD);
+    return producingNanos.get();
+  }
+}
@@ -27,7 +27,14 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.idea.blaze.base.BlazeTestCase;
 import com.google.idea.blaze.common.Output;
+import com.google.idea.blaze.common.PrintOutput;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -412,4 +419,95 @@ public class BlazeContextTest extends BlazeTestCase {
     verify(handler, times(1)).run();
     assertThat(context.isCancelled()).isTrue();
   }
+
+  @Test
+  public void testConcurrentOutputKeepsOrderOfEachChildContext() throws Exception {
+    BlazeContext parentContext = BlazeContext.create();
+    parentContext.setConcurrentOutput(true);
+    List<PrintOutput> received = Collections.synchronizedList(new ArrayList<>());
+    parentContext.addOutputSink(PrintOutput.class, collectInto(received));
+
+    int threads = 4;
+    int outputsPerThread = 1000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    for (int t = 0; t < threads; t++) {
+      String prefix = t + ":";
+      executor.execute(
+          () -> {
+            BlazeContext childContext = BlazeContext.create(parentContext);
+            for (int i = 0; i < outputsPerThread; i++) {
+              childContext.output(PrintOutput.output(prefix + i));
+            }
+            childContext.endScope();
+          });
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    parentContext.flushOutput();
+
+    assertThat(received).hasSize(threads * outputsPerThread);
+    int[] next = new int[threads];
+    for (PrintOutput output : received) {
+      String[] parts = output.getText().split(":");
+      int thread = Integer.parseInt(parts[0]);
+      assertThat(Integer.parseInt(parts[1])).isEqualTo(next[thread]++);
+    }
+  }
+
+  @Test
+  public void testConcurrentOutputDoesNotBlockProducerOnSlowSink() throws Exception {
+    BlazeContext context = BlazeContext.create();
+    context.setConcurrentOutput(true);
+    CountDownLatch sinkReleased = new CountDownLatch(1);
+    List<PrintOutput> received = Collections.synchronizedList(new ArrayList<>());
+    context.addOutputSink(
+        PrintOutput.class,
+        output -> {
+          try {
+            sinkReleased.await();
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+          received.add(output);
+          return OutputSink.Propagation.Continue;
+        });
+
+    // returns while the sink is still blocked
+    context.output(PrintOutput.output("first"));
+    context.output(PrintOutput.output("second"));
+    assertThat(received).isEmpty();
+
+    sinkReleased.countDown();
+    context.flushOutput();
+    assertThat(received.stream().map(PrintOutput::getText))
+        .containsExactly("first", "second")
+        .inOrder();
+  }
+
+  @Test
+  public void testConcurrentOutputFlushedWhenScopeEnds() {
+    BlazeContext context = BlazeContext.create();
+    context.setConcurrentOutput(true);
+    List<PrintOutput> received = Collections.synchronizedList(new ArrayList<>());
+    context.addOutputSink(PrintOutput.class, collectInto(received));
+    for (int i = 0; i < 100; i++) {
+      context.output(PrintOutput.output("line " + i));
+    }
+    context.endScope();
+    assertThat(received).hasSize(100);
+  }
+
+  @Test
+  public void testConcurrentOutputInheritedByChildContexts() {
+    BlazeContext parentContext = BlazeContext.create();
+    parentContext.setConcurrentOutput(true);
+    assertThat(BlazeContext.create(parentContext).isConcurrentOutput()).isTrue();
+  }
+
+  private static OutputSink<PrintOutput> collectInto(List<PrintOutput> outputs) {
+    return output -> {
+      outputs.add(output);
+      return OutputSink.Propagation.Continue;
+    };
+  }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.scope.scopes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.idea.blaze.base.scope.BlazeContext;
+import com.google.idea.blaze.base.scope.scopes.TimingScope.EventType;
+import java.io.File;
+import java.io.FileReader;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link TimingTraceScope}. */
+@RunWith(JUnit4.class)
+public class TimingTraceScopeTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void traceContainsTimingScopesAndCounters() throws Exception {
+    File traceDir = temporaryFolder.newFolder("traces");
+    BlazeContext context = BlazeContext.create();
+    context.push(new TimingTraceScope("sync", traceDir));
+    context.push(new TimingScope("Sync", EventType.Other));
+
+    BlazeContext child = BlazeContext.create(context);
+    child.push(new TimingScope("Build", EventType.BlazeInvocation));
+    TimingTraceScope.recordCounter(child, "shards", 3);
+    child.endScope();
+    context.endScope();
+
+    Map<String, JsonObject> events = readSingleTrace(traceDir);
+    JsonObject build = events.get("Build");
+    assertThat(build.get("ph").getAsString()).isEqualTo("X");
+    assertThat(build.get("cat").getAsString()).isEqualTo("BlazeInvocation");
+    assertThat(parentId(build)).isEqualTo(id(events.get("Sync")));
+    assertThat(parentId(events.get("Sync"))).isEqualTo(id(events.get("sync")));
+    assertThat(events.get("sync").getAsJsonObject("args").has("parent")).isFalse();
+    assertThat(events.get("shards").get("ph").getAsString()).isEqualTo("C");
+    assertThat(events.get("shards").getAsJsonObject("args").get("shards").getAsLong())
+        .isEqualTo(3);
+    assertThat(events.get("thread_name").get("ph").getAsString()).isEqualTo("M");
+  }
+
+  @Test
+  public void nestedScopesInSeparateContextsWriteSingleTrace() throws Exception {
+    File traceDir = temporaryFolder.newFolder("traces");
+    TimingTraceScope trace = new TimingTraceScope("sync", traceDir);
+
+    BlazeContext buildPhase = BlazeContext.create();
+    buildPhase.push(trace.createNestedScope("build"));
+    buildPhase.push(new TimingScope("Build", EventType.BlazeInvocation));
+    buildPhase.endScope();
+    assertThat(traceDir.listFiles()).isEmpty();
+
+    BlazeContext updatePhase = BlazeContext.create();
+    TimingTraceScope updateScope = trace.createNestedScope("project_update");
+    updatePhase.push(updateScope);
+    updatePhase.push(new TimingScope("Update", EventType.Other));
+    updateScope.writeTraceOnScopeEnd();
+    updatePhase.endScope();
+
+    Map<String, JsonObject> events = readSingleTrace(traceDir);
+    int syncId = id(events.get("sync"));
+    assertThat(parentId(events.get("build"))).isEqualTo(syncId);
+    assertThat(parentId(events.get("project_update"))).isEqualTo(syncId);
+    assertThat(parentId(events.get("Build"))).isEqualTo(id(events.get("build")));
+    assertThat(parentId(events.get("Update"))).isEqualTo(id(events.get("project_update")));
+  }
+
+  @Test
+  public void mergedTraceWrittenWithTrace() throws Exception {
+    File traceDir = temporaryFolder.newFolder("traces");
+    TimingTraceScope first = new TimingTraceScope("sync", traceDir);
+    TimingTraceScope second = new TimingTraceScope("sync", traceDir);
+    first.mergeTrace(second);
+
+    BlazeContext context = BlazeContext.create();
+    context.push(second.createNestedScope("build"));
+    context.push(new TimingScope("Second build", EventType.BlazeInvocation));
+    context.endScope();
+
+    context = BlazeContext.create();
+    context.push(first);
+    context.push(new TimingScope("First build", EventType.BlazeInvocation));
+    context.endScope();
+
+    Map<String, JsonObject> events = readSingleTrace(traceDir);
+    assertThat(events).containsKey("First build");
+    assertThat(events).containsKey("Second build");
+  }
+
+  @Test
+  public void noTraceWrittenWithoutEvents() throws Exception {
+    File traceDir = temporaryFolder.newFolder("traces");
+    BlazeContext context = BlazeContext.create();
+    context.push(new TimingTraceScope("sync", traceDir));
+    context.endScope();
+
+    assertThat(traceDir.listFiles()).isEmpty();
+  }
+
+  private static Map<String, JsonObject> readSingleTrace(File traceDir) throws Exception {
+    File[] traces = traceDir.listFiles();
+    assertThat(traces).hasLength(1);
+    assertThat(traces[0].getName()).startsWith("sync-");
+
+    Map<String, JsonObject> events = new HashMap<>();
+    try (Reader reader = new FileReader(traces[0])) {
+      JsonArray traceEvents =
+          JsonParser.parseReader(reader).getAsJsonObject().getAsJsonArray("traceEvents");
+      for (JsonElement element : traceEvents) {
+        JsonObject event = element.getAsJsonObject();
+        events.put(event.get("name").getAsString(), event);
+      }
+    }
+    return events;
+  }
+
+  private static int id(JsonObject event) {
+    return event.getAsJsonObject("args").get("id").getAsInt();
+  }
+
+  private static int parentId(JsonObject event) {
+    return event.getAsJsonObject("args").get("parent").getAsInt();
+  }
+}
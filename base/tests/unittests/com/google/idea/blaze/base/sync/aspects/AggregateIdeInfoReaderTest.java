@@ -0,0 +1,203 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.aspects;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.devtools.intellij.ideinfo.IntellijIdeInfo;
+import com.google.idea.blaze.base.command.buildresult.BlazeArtifact;
+import com.google.idea.blaze.base.command.buildresult.OutputArtifact;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link AggregateIdeInfoReader}. */
+@RunWith(JUnit4.class)
+public class AggregateIdeInfoReaderTest {
+
+  @Test
+  public void readEntries_splitsOnHeaders() throws IOException {
+    Map<String, OutputArtifact> entries = new HashMap<>();
+    AggregateIdeInfoReader.readEntries(
+        artifact(
+            "# intellij-info-file: bazel-out/k8-fastbuild/bin/foo/a.intellij-info.txt",
+            "kind_string: \"java_library\"",
+            "",
+            "# intellij-info-file: bazel-out/k8-fastbuild/bin/foo/b.intellij-info.txt",
+            "kind_string: \"java_test\"",
+            ""),
+        entries);
+
+    assertThat(entries.keySet())
+        .containsExactly(
+            "k8-fastbuild/bin/foo/a.intellij-info.txt", "k8-fastbuild/bin/foo/b.intellij-info.txt");
+    OutputArtifact a = entries.get("k8-fastbuild/bin/foo/a.intellij-info.txt");
+    assertThat(a.getConfigurationMnemonic()).isEqualTo("k8-fastbuild");
+    assertThat(contents(a)).isEqualTo("kind_string: \"java_library\"\n\n");
+    assertThat(contents(entries.get("k8-fastbuild/bin/foo/b.intellij-info.txt")))
+        .isEqualTo("kind_string: \"java_test\"\n");
+  }
+
+  @Test
+  public void readEntries_keepsFirstDuplicateEntry() throws IOException {
+    Map<String, OutputArtifact> entries = new HashMap<>();
+    AggregateIdeInfoReader.readEntries(
+        artifact("# intellij-info-file: bazel-out/cfg/bin/a.intellij-info.txt", "first"), entries);
+    AggregateIdeInfoReader.readEntries(
+        artifact("# intellij-info-file: bazel-out/cfg/bin/a.intellij-info.txt", "second"), entries);
+
+    assertThat(entries).hasSize(1);
+    assertThat(contents(entries.get("cfg/bin/a.intellij-info.txt"))).isEqualTo("first");
+  }
+
+  @Test
+  public void artifactState_comparesContentDigest() throws IOException {
+    Map<String, OutputArtifact> oldEntries = new HashMap<>();
+    Map<String, OutputArtifact> newEntries = new HashMap<>();
+    Map<String, OutputArtifact> changedEntries = new HashMap<>();
+    AggregateIdeInfoReader.readEntries(
+        artifact("# intellij-info-file: bazel-out/cfg/bin/a.intellij-info.txt", "same"),
+        oldEntries);
+    AggregateIdeInfoReader.readEntries(
+        artifact("# intellij-info-file: bazel-out/cfg/bin/a.intellij-info.txt", "same"),
+        newEntries);
+    AggregateIdeInfoReader.readEntries(
+        artifact("# intellij-info-file: bazel-out/cfg/bin/a.intellij-info.txt", "changed"),
+        changedEntries);
+
+    String key = "cfg/bin/a.intellij-info.txt";
+    assertThat(
+            oldEntries
+                .get(key)
+                .toArtifactState()
+                .isMoreRecent(newEntries.get(key).toArtifactState()))
+        .isFalse();
+    assertThat(
+            oldEntries
+                .get(key)
+                .toArtifactState()
+                .isMoreRecent(changedEntries.get(key).toArtifactState()))
+        .isTrue();
+  }
+
+  @Test
+  public void readEntries_keepsOnlyLocationOfEntries() throws IOException {
+    Map<String, OutputArtifact> entries = new HashMap<>();
+    AggregateIdeInfoReader.readEntries(
+        artifact(
+            "# intellij-info-file: bazel-out/cfg/bin/a.intellij-info.txt",
+            "first",
+            "# intellij-info-file: bazel-out/cfg/bin/b.intellij-info.txt",
+            "second",
+            "line"),
+        entries);
+
+    OutputArtifact b = entries.get("cfg/bin/b.intellij-info.txt");
+    assertThat(b.getLength()).isEqualTo("second\nline".length());
+    assertThat(contents(b)).isEqualTo("second\nline");
+    // entries can be read repeatedly, e.g. when retrying a failed parse
+    assertThat(contents(b)).isEqualTo("second\nline");
+  }
+
+  @Test
+  public void readEntries_splitsLinesLongerThanReadChunk() throws IOException {
+    String longLine = "# " + Strings.repeat("x", 200 * 1024);
+    Map<String, OutputArtifact> entries = new HashMap<>();
+    AggregateIdeInfoReader.readEntries(
+        artifact(
+            "# intellij-info-file: bazel-out/cfg/bin/a.intellij-info.txt",
+            longLine,
+            "# intellij-info-file: bazel-out/cfg/bin/b.intellij-info.txt",
+            "second"),
+        entries);
+
+    assertThat(contents(entries.get("cfg/bin/a.intellij-info.txt"))).isEqualTo(longLine + "\n");
+    assertThat(contents(entries.get("cfg/bin/b.intellij-info.txt"))).isEqualTo("second");
+  }
+
+  @Test
+  public void readUpdatedEntries_readsEachAggregateFileOnce() throws Exception {
+    TestArtifact aggregate =
+        artifact(
+            "# intellij-info-file: bazel-out/cfg/bin/a.intellij-info.txt",
+            "kind_string: \"java_library\"",
+            "# intellij-info-file: bazel-out/cfg/bin/b.intellij-info.txt",
+            "kind_string: \"java_test\"",
+            "# intellij-info-file: bazel-out/cfg/bin/c.intellij-info.txt",
+            "kind_string: \"java_binary\"");
+    Map<String, OutputArtifact> entries = new HashMap<>();
+    AggregateIdeInfoReader.readEntries(aggregate, entries);
+    aggregate.opens.set(0);
+
+    Map<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> parsed =
+        AggregateIdeInfoReader.readUpdatedEntries(
+            ImmutableList.of(
+                entries.get("cfg/bin/c.intellij-info.txt"),
+                entries.get("cfg/bin/a.intellij-info.txt")),
+            MoreExecutors.newDirectExecutorService());
+
+    assertThat(parsed.keySet())
+        .containsExactly("cfg/bin/a.intellij-info.txt", "cfg/bin/c.intellij-info.txt");
+    assertThat(parsed.get("cfg/bin/a.intellij-info.txt").get().getKindString())
+        .isEqualTo("java_library");
+    assertThat(parsed.get("cfg/bin/c.intellij-info.txt").get().getKindString())
+        .isEqualTo("java_binary");
+    assertThat(aggregate.opens.get()).isEqualTo(1);
+  }
+
+  private static TestArtifact artifact(String... lines) {
+    return new TestArtifact(String.join("\n", lines).getBytes(UTF_8));
+  }
+
+  private static class TestArtifact implements BlazeArtifact {
+    private final byte[] contents;
+    private final AtomicInteger opens = new AtomicInteger();
+
+    TestArtifact(byte[] contents) {
+      this.contents = contents;
+    }
+
+    @Override
+    public long getLength() {
+      return contents.length;
+    }
+
+    @Override
+    public BufferedInputStream getInputStream() {
+      opens.incrementAndGet();
+      return new BufferedInputStream(new ByteArrayInputStream(contents));
+    }
+  }
+
+  private static String contents(OutputArtifact artifact) throws IOException {
+    try (InputStream in = artifact.getInputStream()) {
+      return new String(ByteStreams.toByteArray(in), UTF_8);
+    }
+  }
+}
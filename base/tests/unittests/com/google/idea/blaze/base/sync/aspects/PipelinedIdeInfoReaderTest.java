@@ -0,0 +1,254 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.aspects;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.devtools.intellij.ideinfo.IntellijIdeInfo;
+import com.google.idea.blaze.base.command.buildresult.OutputArtifact;
+import com.google.idea.blaze.base.filecache.ArtifactState;
+import com.google.idea.blaze.base.filecache.ArtifactState.LocalFileState;
+import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link PipelinedIdeInfoReader}. */
+@RunWith(JUnit4.class)
+public class PipelinedIdeInfoReaderTest {
+
+  private final QueueingExecutor executor = new QueueingExecutor();
+
+  @Test
+  public void take_returnsFilesParsedWhileBuilding() throws Exception {
+    TestArtifact a = new TestArtifact("cfg/bin/a.intellij-info.txt", 1, "java_library");
+    PipelinedIdeInfoReader reader = createReader(/* previousState= */ null);
+
+    reader.readFiles(ImmutableList.of(a));
+    executor.runAll();
+
+    Map<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> taken = take(reader, a);
+    assertThat(taken.keySet()).containsExactly(a.getKey());
+    assertThat(taken.get(a.getKey()).get().getKindString()).isEqualTo("java_library");
+    assertThat(a.reads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void take_skipsFilesChangedSinceParsed() {
+    TestArtifact oldA = new TestArtifact("cfg/bin/a.intellij-info.txt", 1, "java_library");
+    TestArtifact newA = new TestArtifact("cfg/bin/a.intellij-info.txt", 2, "java_test");
+    PipelinedIdeInfoReader reader = createReader(/* previousState= */ null);
+
+    reader.readFiles(ImmutableList.of(oldA));
+    executor.runAll();
+
+    assertThat(take(reader, newA)).isEmpty();
+  }
+
+  @Test
+  public void readFiles_skipsFilesUnchangedSincePreviousSync() {
+    TestArtifact a = new TestArtifact("cfg/bin/a.intellij-info.txt", 1, "java_library");
+    PipelinedIdeInfoReader reader =
+        createReader(ImmutableMap.of(a.getKey(), a.toArtifactState()));
+
+    reader.readFiles(ImmutableList.of(a));
+    executor.runAll();
+
+    assertThat(take(reader, a)).isEmpty();
+    assertThat(a.reads.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void take_cancelsReadsOfOtherFiles() throws Exception {
+    TestArtifact a = new TestArtifact("cfg/bin/a.intellij-info.txt", 1, "java_library");
+    TestArtifact b = new TestArtifact("cfg/bin/b.intellij-info.txt", 1, "java_test");
+    PipelinedIdeInfoReader reader = createReader(/* previousState= */ null);
+
+    reader.readFiles(ImmutableList.of(a, b));
+    // diff the files, queueing the reads
+    executor.runNext();
+
+    Map<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> taken = take(reader, a);
+    executor.runAll();
+
+    assertThat(taken.get(a.getKey()).get().getKindString()).isEqualTo("java_library");
+    assertThat(a.reads.get()).isEqualTo(1);
+    assertThat(b.reads.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void take_cancelsReadsStartedAfterwards() {
+    TestArtifact a = new TestArtifact("cfg/bin/a.intellij-info.txt", 1, "java_library");
+    TestArtifact b = new TestArtifact("cfg/bin/b.intellij-info.txt", 1, "java_test");
+    PipelinedIdeInfoReader reader = createReader(/* previousState= */ null);
+
+    reader.readFiles(ImmutableList.of(a));
+    assertThat(take(reader, a, b)).isEmpty();
+    reader.readFiles(ImmutableList.of(b));
+    executor.runAll();
+
+    assertThat(a.reads.get()).isEqualTo(0);
+    assertThat(b.reads.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void close_cancelsOutstandingReads() {
+    TestArtifact a = new TestArtifact("cfg/bin/a.intellij-info.txt", 1, "java_library");
+    TestArtifact b = new TestArtifact("cfg/bin/b.intellij-info.txt", 1, "java_test");
+    PipelinedIdeInfoReader reader = createReader(/* previousState= */ null);
+
+    reader.readFiles(ImmutableList.of(a));
+    executor.runNext();
+    reader.readFiles(ImmutableList.of(b));
+    reader.close();
+    executor.runAll();
+
+    assertThat(a.reads.get()).isEqualTo(0);
+    assertThat(b.reads.get()).isEqualTo(0);
+    assertThat(take(reader, a, b)).isEmpty();
+  }
+
+  private PipelinedIdeInfoReader createReader(
+      @Nullable ImmutableMap<String, ArtifactState> previousState) {
+    return new PipelinedIdeInfoReader(
+        "project",
+        new TestAspectStrategy(),
+        previousState,
+        MoreExecutors.listeningDecorator(executor));
+  }
+
+  private static Map<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> take(
+      PipelinedIdeInfoReader reader, TestArtifact... files) {
+    return reader.take(
+        Arrays.asList(files),
+        Arrays.stream(files)
+            .collect(ImmutableMap.toImmutableMap(f -> f.key, TestArtifact::toArtifactState)));
+  }
+
+  private static class TestArtifact implements OutputArtifact {
+    private final String key;
+    private final long timestamp;
+    private final byte[] contents;
+    private final AtomicInteger reads = new AtomicInteger();
+
+    TestArtifact(String key, long timestamp, String kind) {
+      this.key = key;
+      this.timestamp = timestamp;
+      this.contents = String.format("kind_string: \"%s\"", kind).getBytes(UTF_8);
+    }
+
+    @Override
+    public String getConfigurationMnemonic() {
+      return "cfg";
+    }
+
+    @Override
+    public String getRelativePath() {
+      return key;
+    }
+
+    @Override
+    public ArtifactState toArtifactState() {
+      return new LocalFileState(key, timestamp);
+    }
+
+    @Override
+    public long getLength() {
+      return contents.length;
+    }
+
+    @Override
+    public BufferedInputStream getInputStream() {
+      reads.incrementAndGet();
+      return new BufferedInputStream(new ByteArrayInputStream(contents));
+    }
+  }
+
+  private static class TestAspectStrategy extends AspectStrategy {
+    private TestAspectStrategy() {
+      super(/* aspectSupportsDirectDepsTrimming= */ true);
+    }
+
+    @Override
+    public String getName() {
+      return "TestAspectStrategy";
+    }
+
+    @Override
+    protected List<String> getAspectFlags() {
+      return ImmutableList.of();
+    }
+  }
+
+  /** Runs submitted tasks only when asked to, so tests control the interleaving. */
+  private static class QueueingExecutor extends AbstractExecutorService {
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    void runNext() {
+      tasks.remove().run();
+    }
+
+    void runAll() {
+      while (!tasks.isEmpty()) {
+        runNext();
+      }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      tasks.add(command);
+    }
+
+    @Override
+    public void shutdown() {}
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return ImmutableList.of();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return false;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return false;
+    }
+  }
+}
@@ -39,6 +39,13 @@ import org.junit.runners.JUnit4;
 public class AspectStrategyTest extends BlazeTestCase {
 
   private static final MockAspectStrategy strategy = new MockAspectStrategy();
+  private static final MockAspectStrategy aggregatingStrategy =
+      new MockAspectStrategy() {
+        @Override
+        protected List<String> getAggregateAspectFlags() {
+          return ImmutableList.of("--aspects=aggregate");
+        }
+      };
   private MockExperimentService experiments;
 
   @Override
@@ -185,6 +192,61 @@ public class AspectStrategyTest extends BlazeTestCase {
         .containsExactly("intellij-info-generic", "intellij-info-java", "intellij-resolve-java");
   }
 
+  @Test
+  public void testAggregateAspectRequestedWhenEnabled() {
+    experiments.setExperimentRaw("sync.aggregate.ide.info.outputs", true);
+    BlazeCommand.Builder builder = emptyBuilder();
+
+    aggregatingStrategy.addAspectAndOutputGroups(
+        builder,
+        ImmutableList.of(OutputGroup.INFO, OutputGroup.RESOLVE),
+        ImmutableSet.of(LanguageClass.JAVA),
+        /* directDepsOnly= */ false,
+        /* aggregateIdeInfo= */ true);
+
+    List<String> blazeFlags = getBlazeFlags(builder);
+    assertThat(blazeFlags).hasSize(2);
+    assertThat(blazeFlags.get(0)).isEqualTo("--aspects=aggregate");
+    assertThat(blazeFlags.get(1).substring("--output_groups=".length()).split(","))
+        .asList()
+        .containsExactly(
+            "intellij-info-aggregate",
+            "intellij-info-generic",
+            "intellij-info-java",
+            "intellij-resolve-java");
+  }
+
+  @Test
+  public void testAggregateAspectNotRequestedWhenDisabled() {
+    BlazeCommand.Builder builder = emptyBuilder();
+
+    aggregatingStrategy.addAspectAndOutputGroups(
+        builder,
+        ImmutableList.of(OutputGroup.INFO),
+        ImmutableSet.of(LanguageClass.JAVA),
+        /* directDepsOnly= */ false,
+        /* aggregateIdeInfo= */ true);
+
+    assertThat(getOutputGroups(builder))
+        .containsExactly("intellij-info-generic", "intellij-info-java");
+  }
+
+  @Test
+  public void testAggregateAspectNotRequestedForBuild() {
+    experiments.setExperimentRaw("sync.aggregate.ide.info.outputs", true);
+    BlazeCommand.Builder builder = emptyBuilder();
+
+    aggregatingStrategy.addAspectAndOutputGroups(
+        builder,
+        ImmutableList.of(OutputGroup.INFO),
+        ImmutableSet.of(LanguageClass.JAVA),
+        /* directDepsOnly= */ false,
+        /* aggregateIdeInfo= */ false);
+
+    assertThat(getOutputGroups(builder))
+        .containsExactly("intellij-info-generic", "intellij-info-java");
+  }
+
   private static BlazeCommand.Builder emptyBuilder() {
     return BlazeCommand.builder("/usr/bin/blaze", BlazeCommandName.BUILD);
   }
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.projectstructure;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ForwardingListeningExecutorService;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.idea.blaze.base.io.FileOperationProvider;
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
+import java.io.File;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link DirectoryStructure}. */
+@RunWith(JUnit4.class)
+public class DirectoryStructureTest {
+
+  private static final ImmutableList<WorkspacePath> ROOTS =
+      ImmutableList.of(new WorkspacePath("java"));
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  private WorkspaceRoot workspaceRoot;
+  private final long oldModifiedTime = System.currentTimeMillis() - 60_000;
+
+  @Before
+  public void setUp() {
+    workspaceRoot = new WorkspaceRoot(folder.getRoot());
+  }
+
+  @Test
+  public void testInitialWalkFindsAllDirectoriesExceptExcluded() throws Exception {
+    createDirectories("java/com/a", "java/com/b/c", "java/excluded/d", "other/e");
+    createFile("java/com/file.txt");
+
+    DirectoryStructure.Walker walker =
+        walker(
+            baseline(DirectoryStructureSnapshot.EMPTY, /* skipUnchanged= */ false),
+            ImmutableSet.of(new WorkspacePath("java/excluded")));
+
+    assertThat(paths(walker.walk(ROOTS)))
+        .containsExactly("java", "java/com", "java/com/a", "java/com/b", "java/com/b/c");
+    assertThat(walker.snapshot().size()).isEqualTo(5);
+  }
+
+  @Test
+  public void testUnmodifiedDirectoriesAreNotListedAgain() throws Exception {
+    createDirectories("java/com/a");
+    setOldModifiedTimes("java", "java/com", "java/com/a");
+    DirectoryStructureSnapshot snapshot = walkFromScratch();
+
+    // a directory added without changing its parent's timestamp isn't noticed
+    createDirectories("java/com/new");
+    setOldModifiedTimes("java/com");
+    assertThat(paths(walker(baseline(snapshot, false), ImmutableSet.of()).walk(ROOTS)))
+        .containsExactly("java", "java/com", "java/com/a");
+
+    File com = workspaceRoot.fileForPath(new WorkspacePath("java/com"));
+    assertThat(com.setLastModified(oldModifiedTime + 1000)).isTrue();
+    assertThat(paths(walker(baseline(snapshot, false), ImmutableSet.of()).walk(ROOTS)))
+        .containsExactly("java", "java/com", "java/com/a", "java/com/new");
+  }
+
+  @Test
+  public void testTrackedChangesAreListedAgain() throws Exception {
+    createDirectories("java/com/a/b");
+    DirectoryStructureSnapshot snapshot = walkFromScratch();
+    createDirectories("java/com/new", "java/com/a/b/c");
+
+    // without any tracked changes, the previous snapshot is reused as is
+    assertThat(paths(walker(baseline(snapshot, true), ImmutableSet.of()).walk(ROOTS)))
+        .containsExactly("java", "java/com", "java/com/a", "java/com/a/b");
+
+    DirectoryStructureCache.Baseline baseline =
+        new DirectoryStructureCache.Baseline(
+            snapshot,
+            ImmutableSet.of(new WorkspacePath("java/com")),
+            ImmutableSet.of(new WorkspacePath("java/com/a")),
+            /* skipUnchangedDirectories= */ true);
+    assertThat(paths(walker(baseline, ImmutableSet.of()).walk(ROOTS)))
+        .containsExactly(
+            "java", "java/com", "java/com/a", "java/com/a/b", "java/com/a/b/c", "java/com/new");
+  }
+
+  @Test
+  public void testDeepSubtreesAreWalkedInOneTask() throws Exception {
+    createDirectories("java/com/a/b/c/d", "java/com/a/b/e", "java/com/a/b/excluded/f");
+    AtomicInteger tasks = new AtomicInteger();
+    DirectoryStructure.Walker walker =
+        new DirectoryStructure.Walker(
+            workspaceRoot,
+            ImmutableSet.of(new WorkspacePath("java/com/a/b/excluded")),
+            new FileOperationProvider(),
+            countingExecutor(tasks),
+            baseline(DirectoryStructureSnapshot.EMPTY, false),
+            new AtomicBoolean(false));
+
+    assertThat(paths(walker.walk(ROOTS)))
+        .containsExactly(
+            "java",
+            "java/com",
+            "java/com/a",
+            "java/com/a/b",
+            "java/com/a/b/c",
+            "java/com/a/b/c/d",
+            "java/com/a/b/e");
+    // one task for each of java, java/com and java/com/a, and one for the subtree at java/com/a/b
+    assertThat(tasks.get()).isEqualTo(4);
+  }
+
+  @Test
+  public void testModifiedDirectoriesInDeepSubtreesAreListedAgain() throws Exception {
+    createDirectories("java/com/a/b/c/d");
+    setOldModifiedTimes("java", "java/com", "java/com/a", "java/com/a/b", "java/com/a/b/c");
+    DirectoryStructureSnapshot snapshot = walkFromScratch();
+
+    createDirectories("java/com/a/b/c/new");
+    File c = workspaceRoot.fileForPath(new WorkspacePath("java/com/a/b/c"));
+    assertThat(c.setLastModified(oldModifiedTime + 1000)).isTrue();
+    assertThat(paths(walker(baseline(snapshot, false), ImmutableSet.of()).walk(ROOTS)))
+        .containsExactly(
+            "java",
+            "java/com",
+            "java/com/a",
+            "java/com/a/b",
+            "java/com/a/b/c",
+            "java/com/a/b/c/d",
+            "java/com/a/b/c/new");
+  }
+
+  private DirectoryStructureSnapshot walkFromScratch() throws Exception {
+    DirectoryStructure.Walker walker =
+        walker(baseline(DirectoryStructureSnapshot.EMPTY, false), ImmutableSet.of());
+    walker.walk(ROOTS);
+    return walker.snapshot();
+  }
+
+  private DirectoryStructure.Walker walker(
+      DirectoryStructureCache.Baseline baseline, Set<WorkspacePath> excludes) {
+    return new DirectoryStructure.Walker(
+        workspaceRoot,
+        excludes,
+        new FileOperationProvider(),
+        MoreExecutors.newDirectExecutorService(),
+        baseline,
+        new AtomicBoolean(false));
+  }
+
+  /** Returns a direct executor which counts the submitted tasks. */
+  private static ListeningExecutorService countingExecutor(AtomicInteger tasks) {
+    ListeningExecutorService delegate = MoreExecutors.newDirectExecutorService();
+    return new ForwardingListeningExecutorService() {
+      @Override
+      protected ListeningExecutorService delegate() {
+        return delegate;
+      }
+
+      @Override
+      public <T> ListenableFuture<T> submit(Callable<T> task) {
+        tasks.incrementAndGet();
+        return super.submit(task);
+      }
+    };
+  }
+
+  private static DirectoryStructureCache.Baseline baseline(
+      DirectoryStructureSnapshot snapshot, boolean skipUnchanged) {
+    return new DirectoryStructureCache.Baseline(
+        snapshot, ImmutableSet.of(), ImmutableSet.of(), skipUnchanged);
+  }
+
+  private static Set<String> paths(DirectoryStructure structure) {
+    Set<String> paths = new TreeSet<>();
+    addPaths(structure, paths);
+    return paths;
+  }
+
+  private static void addPaths(DirectoryStructure structure, Set<String> paths) {
+    for (Map.Entry<WorkspacePath, DirectoryStructure> entry : structure.directories.entrySet()) {
+      paths.add(entry.getKey().relativePath());
+      addPaths(entry.getValue(), paths);
+    }
+  }
+
+  private void createDirectories(String... paths) {
+    for (String path : paths) {
+      assertThat(workspaceRoot.fileForPath(new WorkspacePath(path)).mkdirs()).isTrue();
+    }
+  }
+
+  private void createFile(String path) throws Exception {
+    assertThat(workspaceRoot.fileForPath(new WorkspacePath(path)).createNewFile()).isTrue();
+  }
+
+  private void setOldModifiedTimes(String... paths) {
+    for (String path : paths) {
+      File dir = workspaceRoot.fileForPath(new WorkspacePath(path));
+      assertThat(dir.setLastModified(oldModifiedTime)).isTrue();
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.sharding;
+
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.idea.blaze.base.model.primitives.Label;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link CostAwareTargetSharder} and {@link BuildCostHistory}. */
+@RunWith(JUnit4.class)
+public class CostAwareTargetSharderTest {
+
+  private static final Label SLOW_ONE = Label.create("//slow:one");
+  private static final Label SLOW_TWO = Label.create("//slow:two");
+  private static final Label FAST_A_ONE = Label.create("//fast/a:one");
+  private static final Label FAST_A_TWO = Label.create("//fast/a:two");
+  private static final Label FAST_B_ONE = Label.create("//fast/b:one");
+  private static final Label FAST_B_TWO = Label.create("//fast/b:two");
+
+  private final BuildCostHistory history = new BuildCostHistory(/* file= */ null);
+
+  @Test
+  public void testHistoryAttributesShardTimeToPackages() {
+    history.recordShard(ImmutableMap.of(SLOW_ONE, 0L, SLOW_TWO, 0L, FAST_A_ONE, 0L), 300);
+
+    assertThat(history.predictedMillisPerTarget("slow")).isWithin(0.001).of(100);
+    assertThat(history.predictedMillisPerTarget("fast/a")).isWithin(0.001).of(100);
+    assertThat(history.predictedMillisPerTarget("fast/b")).isNull();
+  }
+
+  @Test
+  public void testHistoryWeightsTargetsByOutputSize() {
+    history.recordShard(ImmutableMap.of(SLOW_ONE, 3 * 4096L, FAST_A_ONE, 4096L), 400);
+
+    assertThat(history.predictedMillisPerTarget("slow")).isWithin(0.001).of(300);
+    assertThat(history.predictedMillisPerTarget("fast/a")).isWithin(0.001).of(100);
+  }
+
+  @Test
+  public void testHistoryIsMovingAverage() {
+    history.recordShard(ImmutableMap.of(SLOW_ONE, 0L), 100);
+    history.recordShard(ImmutableMap.of(SLOW_ONE, 0L), 300);
+
+    assertThat(history.predictedMillisPerTarget("slow")).isWithin(0.001).of(200);
+  }
+
+  @Test
+  public void testExpensiveTargetsSpreadAcrossShards() {
+    history.recordShard(ImmutableMap.of(SLOW_ONE, 0L, SLOW_TWO, 0L), 200);
+    history.recordShard(ImmutableMap.of(FAST_A_ONE, 0L, FAST_A_TWO, 0L), 2);
+    history.recordShard(ImmutableMap.of(FAST_B_ONE, 0L, FAST_B_TWO, 0L), 2);
+
+    ImmutableList<ImmutableList<Label>> shards =
+        CostAwareTargetSharder.balance(
+            history,
+            ImmutableSet.of(SLOW_ONE, SLOW_TWO, FAST_A_ONE, FAST_A_TWO, FAST_B_ONE, FAST_B_TWO),
+            /* shardSize= */ 3);
+
+    // lexicographic sharding would put both slow targets in the same shard
+    assertThat(shards)
+        .containsExactly(
+            ImmutableList.of(FAST_A_ONE, FAST_A_TWO, SLOW_ONE),
+            ImmutableList.of(FAST_B_ONE, FAST_B_TWO, SLOW_TWO))
+        .inOrder();
+  }
+
+  @Test
+  public void testShardSizeIsRespected() {
+    history.recordShard(
+        ImmutableMap.of(
+            SLOW_ONE, 0L, SLOW_TWO, 0L, FAST_A_ONE, 0L, FAST_A_TWO, 0L, FAST_B_ONE, 0L),
+        500);
+
+    ImmutableList<ImmutableList<Label>> shards =
+        CostAwareTargetSharder.balance(
+            history,
+            ImmutableSet.of(SLOW_ONE, SLOW_TWO, FAST_A_ONE, FAST_A_TWO, FAST_B_ONE, FAST_B_TWO),
+            /* shardSize= */ 2);
+
+    assertThat(shards).hasSize(3);
+    assertThat(shards.stream().mapToInt(ImmutableList::size).max().getAsInt()).isEqualTo(2);
+    assertThat(shards.stream().flatMap(ImmutableList::stream).collect(toImmutableSet()))
+        .hasSize(6);
+  }
+
+  @Test
+  public void testFallsBackWithoutEnoughHistory() {
+    history.recordShard(ImmutableMap.of(SLOW_ONE, 0L), 100);
+
+    assertThat(
+            CostAwareTargetSharder.balance(
+                history,
+                ImmutableSet.of(SLOW_ONE, FAST_A_ONE, FAST_A_TWO, FAST_B_ONE),
+                /* shardSize= */ 2))
+        .isNull();
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.sharding;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.idea.blaze.base.model.primitives.Label;
+import com.google.idea.blaze.base.model.primitives.TargetExpression;
+import com.google.idea.blaze.base.sync.aspects.BuildResult;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link DynamicShardScheduler}. */
+@RunWith(JUnit4.class)
+public class DynamicShardSchedulerTest {
+
+  private static final BuildResult OUT_OF_MEMORY = BuildResult.fromExitCode(33);
+
+  private final ListeningExecutorService executor =
+      MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(8));
+  private final ConcurrentLinkedQueue<Integer> shardSizes = new ConcurrentLinkedQueue<>();
+  private final ConcurrentLinkedQueue<Integer> retriedShardSizes = new ConcurrentLinkedQueue<>();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testOutOfMemoryShardIsRetriedAtHalfSize() throws Exception {
+    DynamicShardScheduler scheduler =
+        scheduler(
+            targets -> targets.size() > 2 ? OUT_OF_MEMORY : BuildResult.SUCCESS,
+            /* maxConcurrentShards= */ 1,
+            /* minSplitSize= */ 100,
+            /* maxOomSplits= */ 3);
+
+    BuildResult result = scheduler.start(ImmutableList.of(targets(8))).get(10, TimeUnit.SECONDS);
+
+    assertThat(result).isEqualTo(BuildResult.SUCCESS);
+    assertThat(shardSizes).containsExactly(8, 4, 2, 2, 4, 2, 2).inOrder();
+    assertThat(scheduler.formatTimeline()).contains("Shard 1 (8 targets)");
+    assertThat(scheduler.formatTimeline()).contains("out of memory, retried as shards 1.1, 1.2");
+  }
+
+  @Test
+  public void testOutOfMemoryRetriesAreBounded() throws Exception {
+    DynamicShardScheduler scheduler =
+        scheduler(
+            targets -> OUT_OF_MEMORY,
+            /* maxConcurrentShards= */ 1,
+            /* minSplitSize= */ 100,
+            /* maxOomSplits= */ 1);
+
+    BuildResult result = scheduler.start(ImmutableList.of(targets(4))).get(10, TimeUnit.SECONDS);
+
+    assertThat(result.outOfMemory()).isTrue();
+    assertThat(shardSizes).containsExactly(4, 2, 2).inOrder();
+    // only the first shard was re-scheduled; the outputs of the others are final
+    assertThat(retriedShardSizes).containsExactly(4);
+  }
+
+  @Test
+  public void testRetriedShardsAreReported() throws Exception {
+    DynamicShardScheduler scheduler =
+        scheduler(
+            targets -> targets.size() > 2 ? OUT_OF_MEMORY : BuildResult.SUCCESS,
+            /* maxConcurrentShards= */ 1,
+            /* minSplitSize= */ 100,
+            /* maxOomSplits= */ 3);
+
+    scheduler.start(ImmutableList.of(targets(8), targets(2))).get(10, TimeUnit.SECONDS);
+
+    assertThat(retriedShardSizes).containsExactly(8, 4, 4);
+  }
+
+  @Test
+  public void testPendingShardsAreSplitForIdleWorkers() throws Exception {
+    DynamicShardScheduler scheduler =
+        scheduler(
+            targets -> BuildResult.SUCCESS,
+            /* maxConcurrentShards= */ 4,
+            /* minSplitSize= */ 2,
+            /* maxOomSplits= */ 3);
+
+    BuildResult result = scheduler.start(ImmutableList.of(targets(8))).get(10, TimeUnit.SECONDS);
+
+    assertThat(result).isEqualTo(BuildResult.SUCCESS);
+    assertThat(shardSizes).containsExactly(2, 2, 2, 2);
+  }
+
+  @Test
+  public void testShardsAreNotSplitBelowMinimumSize() throws Exception {
+    DynamicShardScheduler scheduler =
+        scheduler(
+            targets -> BuildResult.SUCCESS,
+            /* maxConcurrentShards= */ 4,
+            /* minSplitSize= */ 3,
+            /* maxOomSplits= */ 3);
+
+    scheduler.start(ImmutableList.of(targets(8))).get(10, TimeUnit.SECONDS);
+
+    assertThat(shardSizes).containsExactly(4, 4);
+  }
+
+  @Test
+  public void testConcurrentShardsAreBounded() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    DynamicShardScheduler scheduler =
+        scheduler(
+            targets -> {
+              maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+              try {
+                Thread.sleep(20);
+              } catch (InterruptedException e) {
+                throw new AssertionError(e);
+              } finally {
+                running.decrementAndGet();
+              }
+              return BuildResult.SUCCESS;
+            },
+            /* maxConcurrentShards= */ 2,
+            /* minSplitSize= */ 100,
+            /* maxOomSplits= */ 3);
+
+    ImmutableList<List<TargetExpression>> shards =
+        IntStream.range(0, 6).mapToObj(i -> targets(1)).collect(toImmutableList());
+    scheduler.start(shards).get(10, TimeUnit.SECONDS);
+
+    assertThat(shardSizes).hasSize(6);
+    assertThat(maxRunning.get()).isAtMost(2);
+  }
+
+  @Test
+  public void testCombinesWorstResult() throws Exception {
+    DynamicShardScheduler scheduler =
+        scheduler(
+            targets -> targets.size() == 2 ? BuildResult.fromExitCode(1) : BuildResult.SUCCESS,
+            /* maxConcurrentShards= */ 2,
+            /* minSplitSize= */ 100,
+            /* maxOomSplits= */ 3);
+
+    BuildResult result =
+        scheduler.start(ImmutableList.of(targets(1), targets(2))).get(10, TimeUnit.SECONDS);
+
+    assertThat(result.status).isEqualTo(BuildResult.Status.BUILD_ERROR);
+  }
+
+  private DynamicShardScheduler scheduler(
+      Function<List<? extends TargetExpression>, BuildResult> invocation,
+      int maxConcurrentShards,
+      int minSplitSize,
+      int maxOomSplits) {
+    return new DynamicShardScheduler(
+        executor,
+        targets -> {
+          shardSizes.add(targets.size());
+          return invocation.apply(targets);
+        },
+        targets -> retriedShardSizes.add(targets.size()),
+        maxConcurrentShards,
+        minSplitSize,
+        maxOomSplits);
+  }
+
+  private static List<TargetExpression> targets(int count) {
+    return IntStream.range(0, count)
+        .<TargetExpression>mapToObj(i -> Label.create("//pkg:target" + i))
+        .collect(toImmutableList());
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.sharding;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.idea.blaze.base.io.FileOperationProvider;
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
+import com.google.idea.blaze.base.sync.workspace.WorkspacePathResolverImpl;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ParallelPackageWalker} and {@link PackagePathTrie}. */
+@RunWith(JUnit4.class)
+public class ParallelPackageWalkerTest {
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  private final ForkJoinPool pool = new ForkJoinPool(4);
+  private final PackageDirectoryCache cache = new PackageDirectoryCache(/* maxEntries= */ 1000);
+  private ParallelPackageWalker walker;
+  private File root;
+
+  @Before
+  public void setUp() {
+    root = folder.getRoot();
+    walker =
+        new ParallelPackageWalker(
+            pool,
+            new FileOperationProvider(),
+            new WorkspacePathResolverImpl(new WorkspaceRoot(root)),
+            ImmutableList.of("BUILD.bazel", "BUILD"),
+            cache);
+  }
+
+  @After
+  public void tearDown() {
+    pool.shutdownNow();
+  }
+
+  @Test
+  public void testFindsPackagesSortedByPath() throws IOException {
+    createPackage("foo");
+    createPackage("foo/bar/baz");
+    createPackage("foo/qux");
+    createDirectory("foo/bar/empty");
+    createFile("foo/not_a_package/BUILD.txt");
+
+    assertThat(walker.findPackages(new File(root, "foo"), new PackagePathTrie()))
+        .containsExactly(
+            new WorkspacePath("foo"),
+            new WorkspacePath("foo/bar/baz"),
+            new WorkspacePath("foo/qux"))
+        .inOrder();
+  }
+
+  @Test
+  public void testExcludedSubtreesArePruned() throws IOException {
+    createPackage("foo");
+    createPackage("foo/excluded");
+    createPackage("foo/excluded/child");
+    createPackage("foo/excluded_sibling");
+    PackagePathTrie excluded = new PackagePathTrie();
+    excluded.addSubtree(new WorkspacePath("foo/excluded"));
+
+    assertThat(walker.findPackages(new File(root, "foo"), excluded))
+        .containsExactly(new WorkspacePath("foo"), new WorkspacePath("foo/excluded_sibling"));
+  }
+
+  @Test
+  public void testUnmodifiedDirectoriesAreReadFromCache() throws IOException {
+    File dir = createDirectory("foo");
+    long modifiedTime = System.currentTimeMillis() - 60_000;
+    assertThat(dir.setLastModified(modifiedTime)).isTrue();
+    assertThat(walker.findPackages(dir, new PackagePathTrie())).isEmpty();
+
+    // a BUILD file added without changing the directory's timestamp isn't noticed
+    createFile("foo/BUILD");
+    assertThat(dir.setLastModified(modifiedTime)).isTrue();
+    assertThat(walker.findPackages(dir, new PackagePathTrie())).isEmpty();
+
+    assertThat(dir.setLastModified(modifiedTime + 1000)).isTrue();
+    assertThat(walker.findPackages(dir, new PackagePathTrie()))
+        .containsExactly(new WorkspacePath("foo"));
+  }
+
+  @Test
+  public void testRecentlyModifiedDirectoriesAreNotCached() throws IOException {
+    File dir = createDirectory("foo");
+    assertThat(walker.findPackages(dir, new PackagePathTrie())).isEmpty();
+
+    createFile("foo/BUILD");
+    assertThat(walker.findPackages(dir, new PackagePathTrie()))
+        .containsExactly(new WorkspacePath("foo"));
+  }
+
+  @Test
+  public void testPathTrie() {
+    PackagePathTrie trie = new PackagePathTrie();
+    trie.addSubtree(new WorkspacePath("foo/bar"));
+
+    assertThat(trie.covers(new WorkspacePath("foo/bar"))).isTrue();
+    assertThat(trie.covers(new WorkspacePath("foo/bar/baz"))).isTrue();
+    assertThat(trie.covers(new WorkspacePath("foo"))).isFalse();
+    assertThat(trie.covers(new WorkspacePath("foo/barbaz"))).isFalse();
+    assertThat(trie.covers(new WorkspacePath(""))).isFalse();
+
+    trie.addSubtree(new WorkspacePath(""));
+    assertThat(trie.covers(new WorkspacePath("anything"))).isTrue();
+  }
+
+  private void createPackage(String path) throws IOException {
+    createFile(path + "/BUILD");
+  }
+
+  private File createDirectory(String path) {
+    File dir = new File(root, path);
+    assertThat(dir.mkdirs()).isTrue();
+    return dir;
+  }
+
+  private void createFile(String path) throws IOException {
+    File file = new File(root, path);
+    file.getParentFile().mkdirs();
+    assertThat(file.createNewFile()).isTrue();
+  }
+}
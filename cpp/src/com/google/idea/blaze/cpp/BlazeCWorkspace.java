@@ -17,9 +17,11 @@
 package com.google.idea.blaze.cpp;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
-import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.errorprone.annotations.Keep;
 import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
@@ -29,7 +31,10 @@ import com.google.idea.blaze.base.model.primitives.ExecutionRootPath;
 import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
 import com.google.idea.blaze.base.projectview.ProjectViewSet;
 import com.google.idea.blaze.base.scope.BlazeContext;
+import com.google.idea.blaze.base.scope.Scope;
 import com.google.idea.blaze.base.scope.output.IssueOutput;
+import com.google.idea.blaze.base.scope.scopes.TimingScope;
+import com.google.idea.blaze.base.scope.scopes.TimingScope.EventType;
 import com.google.idea.blaze.base.settings.Blaze;
 import com.google.idea.blaze.base.sync.SyncMode;
 import com.google.idea.blaze.base.sync.workspace.ExecutionRootPathResolver;
@@ -73,7 +78,6 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -92,6 +96,13 @@ public final class BlazeCWorkspace implements ProjectComponent {
   private final Project project;
   private final CidrToolEnvironment toolEnvironment = new CidrToolEnvironment();
 
+  // Compiler options computed during the last configuration update. Only accessed from the
+  // (serialized) configuration update task.
+  private final FingerprintCache<ConfigurationOptions> configurationOptions =
+      new FingerprintCache<>();
+  // Kept across updates, so compiler info of unchanged configurations isn't recomputed.
+  private final CompilerInfoCache compilerInfoCache = new CompilerInfoCache();
+
   @Keep // Instantiated as an IntelliJ project component.
   private BlazeCWorkspace(Project project) {
     this.configurationResolver = new BlazeConfigurationResolver(project);
@@ -136,30 +147,63 @@ public final class BlazeCWorkspace implements ProjectComponent {
                 if (!syncMode.equals(SyncMode.FULL)
                     && oldResult.isEquivalentConfigurations(newResult)) {
                   logger.info("Skipping update configurations -- no changes");
-                } else {
-                  Stopwatch s = Stopwatch.createStarted();
-                  indicator.setIndeterminate(false);
-                  indicator.setText("Updating Configurations...");
-                  indicator.setFraction(0.0);
-                  OCWorkspaceImpl.ModifiableModel model =
-                      calculateConfigurations(
-                          blazeProjectData, workspaceRoot, newResult, indicator);
-                  ImmutableList<String> issues =
-                      commit(model, SERIALIZATION_VERSION, toolEnvironment, workspaceRoot);
-                  logger.info(
-                      String.format(
-                          "Update configurations took %dms", s.elapsed(TimeUnit.MILLISECONDS)));
-                  if (!issues.isEmpty()) {
-                    showSetupIssues(issues, context);
-                  }
+                  resolverResult = newResult;
+                  return;
                 }
-                resolverResult = newResult;
-                incModificationTrackers();
+                // the sync context may already have ended, so time the update in its own root
+                Scope.root(
+                    updateContext -> {
+                      updateContext.push(
+                          new TimingScope("UpdateCConfigurations", EventType.Other));
+                      updateConfigurations(
+                          updateContext,
+                          context,
+                          workspaceRoot,
+                          blazeProjectData,
+                          newResult,
+                          indicator);
+                    });
               }
             });
   }
 
-  private OCWorkspaceImpl.ModifiableModel calculateConfigurations(
+  private void updateConfigurations(
+      BlazeContext updateContext,
+      BlazeContext syncContext,
+      WorkspaceRoot workspaceRoot,
+      BlazeProjectData blazeProjectData,
+      BlazeConfigurationResolverResult newResult,
+      ProgressIndicator indicator) {
+    indicator.setIndeterminate(false);
+    indicator.setText("Updating Configurations...");
+    indicator.setFraction(0.0);
+    ConfigurationsUpdate update =
+        Scope.push(
+            updateContext,
+            childContext -> {
+              childContext.push(new TimingScope("CalculateConfigurations", EventType.Other));
+              return calculateConfigurations(
+                  blazeProjectData, workspaceRoot, newResult, indicator);
+            });
+    logger.info(
+        String.format(
+            "%d of %d configurations reused, %d removed",
+            update.reusedCount, update.configurationCount, update.removedCount));
+    ImmutableList<String> issues =
+        Scope.push(
+            updateContext,
+            childContext -> {
+              childContext.push(new TimingScope("CollectCompilerInfoAndCommit", EventType.Other));
+              return commit(update.model, SERIALIZATION_VERSION, toolEnvironment, workspaceRoot);
+            });
+    if (!issues.isEmpty()) {
+      showSetupIssues(issues, syncContext);
+    }
+    resolverResult = newResult;
+    incModificationTrackers(update);
+  }
+
+  private ConfigurationsUpdate calculateConfigurations(
       BlazeProjectData blazeProjectData,
       WorkspaceRoot workspaceRoot,
       BlazeConfigurationResolverResult configResolveData,
@@ -177,112 +221,30 @@ public final class BlazeCWorkspace implements ProjectComponent {
             blazeProjectData.getBlazeInfo().getOutputBase(),
             blazeProjectData.getWorkspacePathResolver());
 
-    int progress = 0;
+    // options only depend on the configuration's fingerprint (which covers its compiler
+    // settings), its resolved sources and these shared inputs
+    ImmutableSet<VirtualFile> previousSourceFiles =
+        sourceFiles(configurationOptions.getValues().values());
+    FingerprintCache<ConfigurationOptions>.Update optionsUpdate =
+        configurationOptions.startUpdate(
+            ImmutableList.of(
+                configResolveData.getValidHeaderRoots(),
+                blazeProjectData.getBlazeInfo().getExecutionRoot()));
 
+    int progress = 0;
     for (BlazeResolveConfiguration resolveConfiguration : configurations) {
       indicator.setText2(resolveConfiguration.getDisplayName());
       indicator.setFraction(((double) progress) / configurations.size());
-      BlazeCompilerSettings compilerSettings = resolveConfiguration.getCompilerSettings();
-      Map<OCLanguageKind, PerLanguageCompilerOpts> configLanguages = new HashMap<>();
-      Map<VirtualFile, PerFileCompilerOpts> configSourceFiles = new HashMap<>();
-      for (TargetKey targetKey : resolveConfiguration.getTargets()) {
-        TargetIdeInfo targetIdeInfo = blazeProjectData.getTargetMap().get(targetKey);
-        if (targetIdeInfo == null || targetIdeInfo.getcIdeInfo() == null) {
-          continue;
-        }
-
-        // defines and include directories are the same for all sources in a given target, so lets
-        // collect them once and reuse for each source file's options
-
-        UnfilteredCompilerOptions coptsExtractor =
-            UnfilteredCompilerOptions.builder()
-                .registerSingleOrSplitOption("-I")
-                .build(targetIdeInfo.getcIdeInfo().getLocalCopts());
-        ImmutableList<String> plainLocalCopts =
-            filterIncompatibleFlags(coptsExtractor.getUninterpretedOptions());
-        ImmutableList<ExecutionRootPath> localIncludes =
-            coptsExtractor.getExtractedOptionValues("-I").stream()
-                .map(ExecutionRootPath::new)
-                .collect(toImmutableList());
-
-        // transitiveDefines are sourced from a target's (and transitive deps) "defines" attribute
-        ImmutableList<String> transitiveDefineOptions =
-            targetIdeInfo.getcIdeInfo().getTransitiveDefines().stream()
-                .map(s -> "-D" + s)
-                .collect(toImmutableList());
-
-        Function<ExecutionRootPath, Stream<File>> resolver =
-            executionRootPath ->
-                executionRootPathResolver.resolveToIncludeDirectories(executionRootPath).stream();
-        // localIncludes are sourced from -I options in a target's "copts" attribute. They  can be
-        // arbitrarily declared and may not exist in configResolveData.
-        // transitiveIncludeDirectories are sourced from CcSkylarkApiProvider.include_directories
-
-        ImmutableList<String> iOptionIncludeDirectories =
-            Stream.concat(
-                    localIncludes.stream().flatMap(resolver),
-                    targetIdeInfo.getcIdeInfo().getTransitiveIncludeDirectories().stream()
-                        .flatMap(resolver)
-                        .filter(configResolveData::isValidHeaderRoot))
-                .map(file -> "-I" + file.getAbsolutePath())
-                .collect(toImmutableList());
-
-        // transitiveQuoteIncludeDirectories are sourced from
-        // CcSkylarkApiProvider.quote_include_directories
-        ImmutableList<String> iquoteOptionIncludeDirectories =
-            targetIdeInfo.getcIdeInfo().getTransitiveQuoteIncludeDirectories().stream()
-                .flatMap(resolver)
-                .filter(configResolveData::isValidHeaderRoot)
-                .map(file -> "-iquote" + file.getAbsolutePath())
-                .collect(toImmutableList());
-        // transitiveSystemIncludeDirectories are sourced from
-        // CcSkylarkApiProvider.system_include_directories
-        // Note: We would ideally use -isystem here, but it interacts badly with the switches
-        // that get built by ClangUtils::addIncludeDirectories (it uses -I for system libraries).
-        ImmutableList<String> isystemOptionIncludeDirectories =
-            targetIdeInfo.getcIdeInfo().getTransitiveSystemIncludeDirectories().stream()
-                .flatMap(resolver)
-                .filter(configResolveData::isValidHeaderRoot)
-                .map(file -> "-I" + file.getAbsolutePath())
-                .collect(toImmutableList());
-
-        for (VirtualFile vf : resolveConfiguration.getSources(targetKey)) {
-          OCLanguageKind kind = resolveConfiguration.getDeclaredLanguageKind(vf);
-          if (kind == null) {
-            kind = CLanguageKind.CPP;
-          }
-
-          CidrSwitchBuilder fileSpecificSwitchBuilder = new CidrSwitchBuilder();
-
-          ImmutableList<String> baseSwitches = compilerSettings.getCompilerSwitches(kind, vf);
-          fileSpecificSwitchBuilder.addAllRaw(baseSwitches);
-          fileSpecificSwitchBuilder.addAllRaw(transitiveDefineOptions);
-          fileSpecificSwitchBuilder.addAllRaw(iquoteOptionIncludeDirectories);
-          fileSpecificSwitchBuilder.addAllRaw(iOptionIncludeDirectories);
-          fileSpecificSwitchBuilder.addAllRaw(isystemOptionIncludeDirectories);
-          fileSpecificSwitchBuilder.addAllRaw(plainLocalCopts);
-
-          PerFileCompilerOpts perFileCompilerOpts =
-              new PerFileCompilerOpts(kind, fileSpecificSwitchBuilder.build());
-          configSourceFiles.put(vf, perFileCompilerOpts);
-          if (!configLanguages.containsKey(kind)) {
-            addConfigLanguageSwitches(
-                configLanguages, compilerSettings,
-                // If a file isn't found in configSourceFiles (newly created files), CLion uses the
-                // configLanguages switches. We want some basic header search roots (genfiles),
-                // which are part of every target's iquote directories. See:
-                // https://github.com/bazelbuild/bazel/blob/2c493e8a2132d54f4b2fb8046f6bcef11e92cd22/src/main/java/com/google/devtools/build/lib/rules/cpp/CcCompilationHelper.java#L911
-                iquoteOptionIncludeDirectories, kind);
-          }
-        }
-      }
-
-      for (OCLanguageKind language : supportedLanguages) {
-        if (!configLanguages.containsKey(language)) {
-          addConfigLanguageSwitches(
-              configLanguages, compilerSettings, ImmutableList.of(), language);
-        }
-      }
+      ConfigurationOptions options =
+          optionsUpdate.get(
+              resolveConfiguration.getFingerprint(),
+              resolveConfiguration.isReusable(),
+              () ->
+                  calculateConfigurationOptions(
+                      blazeProjectData,
+                      configResolveData,
+                      executionRootPathResolver,
+                      resolveConfiguration));
 
       String id = resolveConfiguration.getDisplayName();
 
@@ -291,11 +253,136 @@ public final class BlazeCWorkspace implements ProjectComponent {
           id,
           id,
           workspaceRoot.directory(),
-          configLanguages,
-          configSourceFiles);
+          options.configLanguages,
+          options.configSourceFiles);
       progress++;
     }
-    return workspaceModifiable;
+
+    int removed = optionsUpdate.finish();
+    boolean sourceFilesChanged =
+        !previousSourceFiles.equals(sourceFiles(configurationOptions.getValues().values()));
+    return new ConfigurationsUpdate(
+        workspaceModifiable,
+        configurations.size(),
+        optionsUpdate.getReusedCount(),
+        removed,
+        sourceFilesChanged);
+  }
+
+  private static ImmutableSet<VirtualFile> sourceFiles(Collection<ConfigurationOptions> options) {
+    return options.stream()
+        .flatMap(o -> o.configSourceFiles.keySet().stream())
+        .collect(toImmutableSet());
+  }
+
+  /** Computes the per-language and per-file compiler options of a resolve configuration. */
+  private ConfigurationOptions calculateConfigurationOptions(
+      BlazeProjectData blazeProjectData,
+      BlazeConfigurationResolverResult configResolveData,
+      ExecutionRootPathResolver executionRootPathResolver,
+      BlazeResolveConfiguration resolveConfiguration) {
+    BlazeCompilerSettings compilerSettings = resolveConfiguration.getCompilerSettings();
+    Map<OCLanguageKind, PerLanguageCompilerOpts> configLanguages = new HashMap<>();
+    Map<VirtualFile, PerFileCompilerOpts> configSourceFiles = new HashMap<>();
+    for (TargetKey targetKey : resolveConfiguration.getTargets()) {
+      TargetIdeInfo targetIdeInfo = blazeProjectData.getTargetMap().get(targetKey);
+      if (targetIdeInfo == null || targetIdeInfo.getcIdeInfo() == null) {
+        continue;
+      }
+
+      // defines and include directories are the same for all sources in a given target, so lets
+      // collect them once and reuse for each source file's options
+
+      UnfilteredCompilerOptions coptsExtractor =
+          UnfilteredCompilerOptions.builder()
+              .registerSingleOrSplitOption("-I")
+              .build(targetIdeInfo.getcIdeInfo().getLocalCopts());
+      ImmutableList<String> plainLocalCopts =
+          filterIncompatibleFlags(coptsExtractor.getUninterpretedOptions());
+      ImmutableList<ExecutionRootPath> localIncludes =
+          coptsExtractor.getExtractedOptionValues("-I").stream()
+              .map(ExecutionRootPath::new)
+              .collect(toImmutableList());
+
+      // transitiveDefines are sourced from a target's (and transitive deps) "defines" attribute
+      ImmutableList<String> transitiveDefineOptions =
+          targetIdeInfo.getcIdeInfo().getTransitiveDefines().stream()
+              .map(s -> "-D" + s)
+              .collect(toImmutableList());
+
+      Function<ExecutionRootPath, Stream<File>> resolver =
+          executionRootPath ->
+              executionRootPathResolver.resolveToIncludeDirectories(executionRootPath).stream();
+      // localIncludes are sourced from -I options in a target's "copts" attribute. They  can be
+      // arbitrarily declared and may not exist in configResolveData.
+      // transitiveIncludeDirectories are sourced from CcSkylarkApiProvider.include_directories
+
+      ImmutableList<String> iOptionIncludeDirectories =
+          Stream.concat(
+                  localIncludes.stream().flatMap(resolver),
+                  targetIdeInfo.getcIdeInfo().getTransitiveIncludeDirectories().stream()
+                      .flatMap(resolver)
+                      .filter(configResolveData::isValidHeaderRoot))
+              .map(file -> "-I" + file.getAbsolutePath())
+              .collect(toImmutableList());
+
+      // transitiveQuoteIncludeDirectories are sourced from
+      // CcSkylarkApiProvider.quote_include_directories
+      ImmutableList<String> iquoteOptionIncludeDirectories =
+          targetIdeInfo.getcIdeInfo().getTransitiveQuoteIncludeDirectories().stream()
+              .flatMap(resolver)
+              .filter(configResolveData::isValidHeaderRoot)
+              .map(file -> "-iquote" + file.getAbsolutePath())
+              .collect(toImmutableList());
+      // transitiveSystemIncludeDirectories are sourced from
+      // CcSkylarkApiProvider.system_include_directories
+      // Note: We would ideally use -isystem here, but it interacts badly with the switches
+      // that get built by ClangUtils::addIncludeDirectories (it uses -I for system libraries).
+      ImmutableList<String> isystemOptionIncludeDirectories =
+          targetIdeInfo.getcIdeInfo().getTransitiveSystemIncludeDirectories().stream()
+              .flatMap(resolver)
+              .filter(configResolveData::isValidHeaderRoot)
+              .map(file -> "-I" + file.getAbsolutePath())
+              .collect(toImmutableList());
+
+      for (VirtualFile vf : resolveConfiguration.getSources(targetKey)) {
+        OCLanguageKind kind = resolveConfiguration.getDeclaredLanguageKind(vf);
+        if (kind == null) {
+          kind = CLanguageKind.CPP;
+        }
+
+        CidrSwitchBuilder fileSpecificSwitchBuilder = new CidrSwitchBuilder();
+
+        ImmutableList<String> baseSwitches = compilerSettings.getCompilerSwitches(kind, vf);
+        fileSpecificSwitchBuilder.addAllRaw(baseSwitches);
+        fileSpecificSwitchBuilder.addAllRaw(transitiveDefineOptions);
+        fileSpecificSwitchBuilder.addAllRaw(iquoteOptionIncludeDirectories);
+        fileSpecificSwitchBuilder.addAllRaw(iOptionIncludeDirectories);
+        fileSpecificSwitchBuilder.addAllRaw(isystemOptionIncludeDirectories);
+        fileSpecificSwitchBuilder.addAllRaw(plainLocalCopts);
+
+        PerFileCompilerOpts perFileCompilerOpts =
+            new PerFileCompilerOpts(kind, fileSpecificSwitchBuilder.build());
+        configSourceFiles.put(vf, perFileCompilerOpts);
+        if (!configLanguages.containsKey(kind)) {
+          addConfigLanguageSwitches(
+              configLanguages, compilerSettings,
+              // If a file isn't found in configSourceFiles (newly created files), CLion uses the
+              // configLanguages switches. We want some basic header search roots (genfiles),
+              // which are part of every target's iquote directories. See:
+              // https://github.com/bazelbuild/bazel/blob/2c493e8a2132d54f4b2fb8046f6bcef11e92cd22/src/main/java/com/google/devtools/build/lib/rules/cpp/CcCompilationHelper.java#L911
+              iquoteOptionIncludeDirectories, kind);
+        }
+      }
+    }
+
+    for (OCLanguageKind language : supportedLanguages) {
+      if (!configLanguages.containsKey(language)) {
+        addConfigLanguageSwitches(
+            configLanguages, compilerSettings, ImmutableList.of(), language);
+      }
+    }
+    return new ConfigurationOptions(configLanguages, configSourceFiles);
   }
 
   private static void addConfiguration(
@@ -324,6 +411,45 @@ public final class BlazeCWorkspace implements ProjectComponent {
       fileCompilerSettings.setCompilerSwitches(compilerOpts.switches);
     }
   }
+  /** The compiler options of a resolve configuration. */
+  private static class ConfigurationOptions {
+    final ImmutableMap<OCLanguageKind, PerLanguageCompilerOpts> configLanguages;
+    final ImmutableMap<VirtualFile, PerFileCompilerOpts> configSourceFiles;
+
+    private ConfigurationOptions(
+        Map<OCLanguageKind, PerLanguageCompilerOpts> configLanguages,
+        Map<VirtualFile, PerFileCompilerOpts> configSourceFiles) {
+      this.configLanguages = ImmutableMap.copyOf(configLanguages);
+      this.configSourceFiles = ImmutableMap.copyOf(configSourceFiles);
+    }
+  }
+
+  /** The workspace model to commit, and what changed relative to the previous one. */
+  private static class ConfigurationsUpdate {
+    final OCWorkspaceImpl.ModifiableModel model;
+    final int configurationCount;
+    final int reusedCount;
+    final int removedCount;
+    final boolean sourceFilesChanged;
+
+    private ConfigurationsUpdate(
+        OCWorkspaceImpl.ModifiableModel model,
+        int configurationCount,
+        int reusedCount,
+        int removedCount,
+        boolean sourceFilesChanged) {
+      this.model = model;
+      this.configurationCount = configurationCount;
+      this.reusedCount = reusedCount;
+      this.removedCount = removedCount;
+      this.sourceFilesChanged = sourceFilesChanged;
+    }
+
+    boolean configurationsChanged() {
+      return reusedCount != configurationCount || removedCount > 0;
+    }
+  }
+
   /** Group compiler options for a specific file. */
   private static class PerFileCompilerOpts {
     final OCLanguageKind kind;
@@ -369,7 +495,8 @@ public final class BlazeCWorkspace implements ProjectComponent {
    * Notifies the workspace of changes in inputs to the resolve configuration. See {@link
    * com.jetbrains.cidr.lang.workspace.OCWorkspaceListener.OCWorkspaceEvent}.
    */
-  private void incModificationTrackers() {
+  private void incModificationTrackers(ConfigurationsUpdate update) {
+    boolean configurationsChanged = update.configurationsChanged();
     TransactionGuard.submitTransaction(
         project,
         () -> {
@@ -378,9 +505,9 @@ public final class BlazeCWorkspace implements ProjectComponent {
           }
           OCWorkspaceEventImpl event =
               new OCWorkspaceEventImpl(
-                  /* resolveConfigurationsChanged= */ true,
-                  /* sourceFilesChanged= */ true,
-                  /* compilerSettingsChanged= */ true,
+                  /* resolveConfigurationsChanged= */ configurationsChanged,
+                  /* sourceFilesChanged= */ update.sourceFilesChanged,
+                  /* compilerSettingsChanged= */ configurationsChanged,
                   /* clientVersionChanged */ false);
           ((OCWorkspaceModificationTrackersImpl)
                   OCWorkspace.getInstance(project).getModificationTrackers())
@@ -448,7 +575,6 @@ public final class BlazeCWorkspace implements ProjectComponent {
       OCWorkspaceImpl.ModifiableModel model,
       CidrToolEnvironment toolEnvironment,
       WorkspaceRoot workspaceRoot) {
-    CompilerInfoCache compilerInfoCache = new CompilerInfoCache();
     TempFilesPool tempFilesPool = new CachedTempFilesPool();
     Session<Integer> session = compilerInfoCache.createSession(new EmptyProgressIndicator());
     ImmutableList.Builder<String> issues = ImmutableList.builder();
@@ -23,6 +23,7 @@ import com.jetbrains.cidr.lang.OCLanguageKind;
 import com.jetbrains.cidr.lang.workspace.compiler.OCCompilerKind;
 import java.io.File;
 import java.util.List;
+import java.util.Objects;
 import javax.annotation.Nullable;
 
 final class BlazeCompilerSettings {
@@ -81,4 +82,26 @@ final class BlazeCompilerSettings {
   String getCompilerVersion() {
     return compilerVersion;
   }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof BlazeCompilerSettings)) {
+      return false;
+    }
+    BlazeCompilerSettings otherSettings = (BlazeCompilerSettings) other;
+    return Objects.equals(cCompiler, otherSettings.cCompiler)
+        && Objects.equals(cppCompiler, otherSettings.cppCompiler)
+        && cCompilerSwitches.equals(otherSettings.cCompilerSwitches)
+        && cppCompilerSwitches.equals(otherSettings.cppCompilerSwitches)
+        && compilerVersion.equals(otherSettings.compilerVersion);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+        cCompiler, cppCompiler, cCompilerSwitches, cppCompilerSwitches, compilerVersion);
+  }
 }
@@ -15,11 +15,11 @@
  */
 package com.google.idea.blaze.cpp;
 
-import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.idea.blaze.base.async.executor.BlazeExecutor;
@@ -50,22 +50,30 @@ import org.jetbrains.annotations.NotNull;
 import javax.annotation.Nullable;
 import java.io.File;
 import java.util.AbstractMap;
-import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 final class BlazeConfigurationResolver {
   private static final Logger logger = Logger.getInstance(BlazeConfigurationResolver.class);
 
+  // The number of tasks C targets are split into when computing their configuration data.
+  private static final int TARGET_BATCH_COUNT = 64;
+
   private final Project project;
+  private final HeaderRootValidityCache headerRootCache;
 
   BlazeConfigurationResolver(Project project) {
     this.project = project;
+    this.headerRootCache = HeaderRootValidityCache.create(project);
   }
 
   public BlazeConfigurationResolverResult update(
@@ -99,11 +107,22 @@ final class BlazeConfigurationResolver {
     Predicate<TargetIdeInfo> targetFilter = getTargetFilter(projectViewFilter);
     BlazeConfigurationResolverResult.Builder builder = BlazeConfigurationResolverResult.builder();
     buildBlazeConfigurationData(
-        context, blazeProjectData, toolchainLookupMap, compilerSettings, targetFilter, builder);
+        context,
+        blazeProjectData,
+        toolchainLookupMap,
+        compilerSettings,
+        targetFilter,
+        oldResult,
+        builder);
     builder.setCompilerSettings(compilerSettings);
     ImmutableSet<File> validHeaderRoots =
         HeaderRootTrimmer.getValidRoots(
-            context, blazeProjectData, toolchainLookupMap, targetFilter, executionRootPathResolver);
+            context,
+            blazeProjectData,
+            toolchainLookupMap,
+            targetFilter,
+            executionRootPathResolver,
+            headerRootCache);
     builder.setValidHeaderRoots(validHeaderRoots);
     builder.setTargetToVersionMap(targetToVersion);
     return builder.build();
@@ -151,6 +170,7 @@ final class BlazeConfigurationResolver {
       ImmutableMap<TargetKey, CToolchainIdeInfo> toolchainLookupMap,
       ImmutableMap<CToolchainIdeInfo, BlazeCompilerSettings> compilerSettings,
       Predicate<TargetIdeInfo> targetFilter,
+      BlazeConfigurationResolverResult oldResult,
       BlazeConfigurationResolverResult.Builder builder) {
     // Type specification needed to avoid incorrect type inference during command line build.
     Scope.push(
@@ -159,20 +179,30 @@ final class BlazeConfigurationResolver {
             context -> {
               context.push(new TimingScope("Build C configuration map", EventType.Other));
 
-              ConcurrentMap<TargetKey, BlazeResolveConfigurationData> targetToData =
+              // Targets are grouped into equivalence classes as their data is computed. The map
+              // keys are the canonical (hash-consed) configuration data instances.
+              ConcurrentMap<BlazeResolveConfigurationData, Set<TargetKey>> dataEquivalenceClasses =
                   Maps.newConcurrentMap();
-              List<ListenableFuture<?>> targetToDataFutures =
+              List<TargetIdeInfo> targets =
                   blazeProjectData.getTargetMap().targets().stream()
                       .filter(targetFilter)
+                      .collect(Collectors.toList());
+              List<ListenableFuture<?>> targetToDataFutures =
+                  Lists.partition(targets, getBatchSize(targets.size())).stream()
                       .map(
-                          target ->
+                          batch ->
                               submit(
                                   () -> {
-                                    BlazeResolveConfigurationData data =
-                                        createResolveConfiguration(
-                                            target, toolchainLookupMap, compilerSettings);
-                                    if (data != null) {
-                                      targetToData.put(target.getKey(), data);
+                                    for (TargetIdeInfo target : batch) {
+                                      BlazeResolveConfigurationData data =
+                                          createResolveConfiguration(
+                                              target, toolchainLookupMap, compilerSettings);
+                                      if (data != null) {
+                                        dataEquivalenceClasses
+                                            .computeIfAbsent(
+                                                data, d -> ConcurrentHashMap.newKeySet())
+                                            .add(target.getKey());
+                                      }
                                     }
                                     return null;
                                   }))
@@ -188,39 +218,74 @@ final class BlazeConfigurationResolver {
                 logger.error("Could not build C resolve configurations", e);
                 return;
               }
-              findEquivalenceClasses(context, project, blazeProjectData, targetToData, builder);
+              buildConfigurations(
+                  context, project, blazeProjectData, dataEquivalenceClasses, oldResult, builder);
             });
   }
 
-  private static void findEquivalenceClasses(
+  /** Splits the targets into a few batches per executor thread, to keep per-task overhead low. */
+  private static int getBatchSize(int targetCount) {
+    return Math.max(1, (targetCount + TARGET_BATCH_COUNT - 1) / TARGET_BATCH_COUNT);
+  }
+
+  private static void buildConfigurations(
       BlazeContext context,
       Project project,
       BlazeProjectData blazeProjectData,
-      Map<TargetKey, BlazeResolveConfigurationData> targetToData,
+      Map<BlazeResolveConfigurationData, Set<TargetKey>> dataEquivalenceClasses,
+      BlazeConfigurationResolverResult oldResult,
       BlazeConfigurationResolverResult.Builder builder) {
-    Multimap<BlazeResolveConfigurationData, TargetKey> dataEquivalenceClasses =
-        ArrayListMultimap.create();
-    for (Map.Entry<TargetKey, BlazeResolveConfigurationData> entry : targetToData.entrySet()) {
-      TargetKey target = entry.getKey();
-      BlazeResolveConfigurationData data = entry.getValue();
-      dataEquivalenceClasses.put(data, target);
+    ImmutableMap<String, BlazeResolveConfiguration> oldConfigurations =
+        oldResult.getAllConfigurations().stream()
+            .collect(
+                ImmutableMap.toImmutableMap(
+                    BlazeResolveConfiguration::getFingerprint, c -> c, (a, b) -> a));
+    AtomicInteger reused = new AtomicInteger();
+    Map<BlazeResolveConfigurationData, ListenableFuture<BlazeResolveConfiguration>> futures =
+        new LinkedHashMap<>();
+    for (Map.Entry<BlazeResolveConfigurationData, Set<TargetKey>> entry :
+        dataEquivalenceClasses.entrySet()) {
+      BlazeResolveConfigurationData data = entry.getKey();
+      ImmutableList<TargetKey> targets = ImmutableList.sortedCopyOf(entry.getValue());
+      futures.put(
+          data,
+          submit(
+              () -> {
+                String fingerprint =
+                    BlazeResolveConfiguration.computeFingerprint(blazeProjectData, data, targets);
+                BlazeResolveConfiguration old = oldConfigurations.get(fingerprint);
+                if (old != null && old.isReusable()) {
+                  reused.incrementAndGet();
+                  return old.withConfigurationData(data);
+                }
+                return BlazeResolveConfiguration.createForTargets(
+                    project, blazeProjectData, data, targets, fingerprint);
+              }));
     }
 
     ImmutableMap.Builder<BlazeResolveConfigurationData, BlazeResolveConfiguration>
         dataToConfiguration = ImmutableMap.builder();
-    for (Map.Entry<BlazeResolveConfigurationData, Collection<TargetKey>> entry :
-        dataEquivalenceClasses.asMap().entrySet()) {
-      BlazeResolveConfigurationData data = entry.getKey();
-      Collection<TargetKey> targets = entry.getValue();
-      dataToConfiguration.put(
-          data,
-          BlazeResolveConfiguration.createForTargets(project, blazeProjectData, data, targets));
+    try {
+      for (Map.Entry<BlazeResolveConfigurationData, ListenableFuture<BlazeResolveConfiguration>>
+          entry : futures.entrySet()) {
+        dataToConfiguration.put(entry.getKey(), entry.getValue().get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      context.setCancelled();
+      return;
+    } catch (ExecutionException e) {
+      IssueOutput.error("Could not build C resolve configurations: " + e).submit(context);
+      logger.error("Could not build C resolve configurations", e);
+      return;
     }
     context.output(
         PrintOutput.log(
             String.format(
-                "%s unique C configurations, %s C targets",
-                dataEquivalenceClasses.keySet().size(), dataEquivalenceClasses.size())));
+                "%s unique C configurations (%s reused), %s C targets",
+                dataEquivalenceClasses.size(),
+                reused.get(),
+                dataEquivalenceClasses.values().stream().mapToInt(Set::size).sum())));
     builder.setUniqueConfigurations(dataToConfiguration.build());
   }
 
@@ -67,6 +67,10 @@ final class BlazeConfigurationResolverResult {
     return compilerSettings;
   }
 
+  ImmutableSet<File> getValidHeaderRoots() {
+    return validHeaderRoots;
+  }
+
   boolean isValidHeaderRoot(File absolutePath) {
     return validHeaderRoots.contains(absolutePath);
   }
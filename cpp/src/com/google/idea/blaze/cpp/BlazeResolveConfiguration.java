@@ -20,6 +20,8 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.idea.blaze.base.ideinfo.ArtifactLocation;
 import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
 import com.google.idea.blaze.base.ideinfo.TargetKey;
@@ -48,18 +50,25 @@ final class BlazeResolveConfiguration {
   private final String displayNameIdentifier;
   private final ImmutableList<TargetKey> targets;
   private final ImmutableMap<TargetKey, ImmutableList<VirtualFile>> targetSources;
+  private final String fingerprint;
+  // false if some source artifacts couldn't be found in the VFS when this was created
+  private final boolean allSourcesResolved;
 
   private BlazeResolveConfiguration(
       Project project,
       BlazeResolveConfigurationData configurationData,
       String displayName,
       ImmutableList<TargetKey> targets,
-      ImmutableMap<TargetKey, ImmutableList<VirtualFile>> targetSources) {
+      ImmutableMap<TargetKey, ImmutableList<VirtualFile>> targetSources,
+      String fingerprint,
+      boolean allSourcesResolved) {
     this.project = project;
     this.configurationData = configurationData;
     this.displayNameIdentifier = displayName;
     this.targets = ImmutableList.copyOf(targets);
     this.targetSources = targetSources;
+    this.fingerprint = fingerprint;
+    this.allSourcesResolved = allSourcesResolved;
   }
 
   static BlazeResolveConfiguration createForTargets(
@@ -67,18 +76,95 @@ final class BlazeResolveConfiguration {
       BlazeProjectData blazeProjectData,
       BlazeResolveConfigurationData configurationData,
       Collection<TargetKey> targets) {
+    return createForTargets(
+        project,
+        blazeProjectData,
+        configurationData,
+        targets,
+        computeFingerprint(blazeProjectData, configurationData, targets));
+  }
+
+  static BlazeResolveConfiguration createForTargets(
+      Project project,
+      BlazeProjectData blazeProjectData,
+      BlazeResolveConfigurationData configurationData,
+      Collection<TargetKey> targets,
+      String fingerprint) {
+    boolean[] allSourcesResolved = {true};
+    ImmutableMap<TargetKey, ImmutableList<VirtualFile>> targetSources =
+        computeTargetToSources(blazeProjectData, targets, allSourcesResolved);
     return new BlazeResolveConfiguration(
         project,
         configurationData,
         computeDisplayName(targets),
         ImmutableList.copyOf(targets),
-        computeTargetToSources(blazeProjectData, targets));
+        targetSources,
+        fingerprint,
+        allSourcesResolved[0]);
+  }
+
+  /**
+   * Computes a fingerprint of the configuration data, targets and target sources, without any file
+   * system operations. Configurations with the same fingerprint have the same inputs.
+   */
+  static String computeFingerprint(
+      BlazeProjectData blazeProjectData,
+      BlazeResolveConfigurationData configurationData,
+      Collection<TargetKey> targets) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    hasher.putUnencodedChars(configurationData.getFingerprint());
+    for (TargetKey targetKey : targets) {
+      hasher.putChar('\0').putUnencodedChars(targetKey.toString());
+      TargetIdeInfo target = blazeProjectData.getTargetMap().get(targetKey);
+      if (target == null) {
+        continue;
+      }
+      for (ArtifactLocation source : target.getSources()) {
+        hasher
+            .putChar('\0')
+            .putUnencodedChars(source.getExecutionRootRelativePath())
+            .putBoolean(source.isSource())
+            .putBoolean(source.isExternal());
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Returns a configuration around the given data, which must have the same fingerprint as this
+   * configuration's data. Only the resolved sources of this configuration are reused, so the new
+   * configuration refers to the current compiler settings.
+   */
+  BlazeResolveConfiguration withConfigurationData(BlazeResolveConfigurationData data) {
+    return new BlazeResolveConfiguration(
+        project,
+        data,
+        displayNameIdentifier,
+        targets,
+        targetSources,
+        fingerprint,
+        allSourcesResolved);
   }
 
   Collection<TargetKey> getTargets() {
     return targets;
   }
 
+  String getFingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * Whether this configuration can be reused in place of a new one with the same fingerprint. This
+   * requires that every source was found when it was created, and is still valid.
+   */
+  boolean isReusable() {
+    return allSourcesResolved
+        && targetSources.values().stream()
+            .flatMap(Collection::stream)
+            .allMatch(VirtualFile::isValid);
+  }
+
   private static String computeDisplayName(Collection<TargetKey> targets) {
     TargetKey minTargetKey = targets.stream().min(TargetKey::compareTo).orElse(null);
     Preconditions.checkNotNull(minTargetKey);
@@ -161,17 +247,20 @@ final class BlazeResolveConfiguration {
   }
 
   private static ImmutableMap<TargetKey, ImmutableList<VirtualFile>> computeTargetToSources(
-      BlazeProjectData blazeProjectData, Collection<TargetKey> targets) {
+      BlazeProjectData blazeProjectData,
+      Collection<TargetKey> targets,
+      boolean[] allSourcesResolved) {
     ImmutableMap.Builder<TargetKey, ImmutableList<VirtualFile>> targetSourcesBuilder =
         ImmutableMap.builder();
     for (TargetKey targetKey : targets) {
-      targetSourcesBuilder.put(targetKey, computeSources(blazeProjectData, targetKey));
+      targetSourcesBuilder.put(
+          targetKey, computeSources(blazeProjectData, targetKey, allSourcesResolved));
     }
     return targetSourcesBuilder.build();
   }
 
   private static ImmutableList<VirtualFile> computeSources(
-      BlazeProjectData blazeProjectData, TargetKey targetKey) {
+      BlazeProjectData blazeProjectData, TargetKey targetKey, boolean[] allSourcesResolved) {
     ImmutableList.Builder<VirtualFile> builder = ImmutableList.builder();
 
     TargetIdeInfo targetIdeInfo = blazeProjectData.getTargetMap().get(targetKey);
@@ -183,6 +272,7 @@ final class BlazeResolveConfiguration {
       File file = blazeProjectData.getArtifactLocationDecoder().decode(sourceArtifact);
       VirtualFile vf = VirtualFileSystemProvider.getInstance().getSystem().findFileByIoFile(file);
       if (vf == null) {
+        allSourcesResolved[0] = false;
         continue;
       }
       if (!OCFileTypeHelpers.isSourceFile(vf.getName())) {
@@ -16,10 +16,16 @@
 package com.google.idea.blaze.cpp;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.idea.blaze.base.ideinfo.CIdeInfo;
 import com.google.idea.blaze.base.ideinfo.CToolchainIdeInfo;
 import com.google.idea.blaze.base.model.primitives.ExecutionRootPath;
+import com.jetbrains.cidr.lang.CLanguageKind;
+import java.io.File;
+import java.util.List;
 import java.util.Objects;
+import javax.annotation.Nullable;
 
 /** Data for clustering {@link BlazeResolveConfiguration} by "equivalence". */
 final class BlazeResolveConfigurationData {
@@ -37,6 +43,11 @@ final class BlazeResolveConfigurationData {
   private final ImmutableList<String> transitiveDefines;
   final ImmutableList<ExecutionRootPath> transitiveSystemIncludeDirectories;
 
+  // The flag lists can be large, and instances are used as hash keys when grouping targets into
+  // equivalence classes, so the hash code is only computed once.
+  private final int hashCode;
+  @Nullable private volatile String fingerprint;
+
   static BlazeResolveConfigurationData create(
       CIdeInfo cIdeInfo,
       CToolchainIdeInfo toolchainIdeInfo,
@@ -56,6 +67,56 @@ final class BlazeResolveConfigurationData {
     this.transitiveQuoteIncludeDirectories = cIdeInfo.getTransitiveQuoteIncludeDirectories();
     this.transitiveDefines = cIdeInfo.getTransitiveDefines();
     this.localCopts = cIdeInfo.getLocalCopts();
+    this.hashCode =
+        Objects.hash(
+            transitiveIncludeDirectories,
+            transitiveSystemIncludeDirectories,
+            transitiveQuoteIncludeDirectories,
+            localCopts,
+            transitiveDefines,
+            toolchainIdeInfo,
+            compilerSettings);
+  }
+
+  /**
+   * Returns a fingerprint of the data, which is stable across syncs. Equal instances have equal
+   * fingerprints. It covers the compiler executables and switches, so a recreated compiler wrapper
+   * or changed switches change the fingerprint.
+   */
+  String getFingerprint() {
+    String result = fingerprint;
+    if (result == null) {
+      Hasher hasher = Hashing.murmur3_128().newHasher();
+      putPaths(hasher, transitiveIncludeDirectories);
+      putPaths(hasher, transitiveSystemIncludeDirectories);
+      putPaths(hasher, transitiveQuoteIncludeDirectories);
+      putStrings(hasher, localCopts);
+      putStrings(hasher, transitiveDefines);
+      hasher.putUnencodedChars(toolchainIdeInfo.toString());
+      for (CLanguageKind language : new CLanguageKind[] {CLanguageKind.C, CLanguageKind.CPP}) {
+        File compiler = compilerSettings.getCompilerExecutable(language);
+        hasher.putUnencodedChars(String.valueOf(compiler)).putChar('\0');
+        putStrings(hasher, compilerSettings.getCompilerSwitches(language, null));
+      }
+      hasher.putUnencodedChars(String.valueOf(compilerSettings.getCompilerVersion()));
+      result = hasher.hash().toString();
+      fingerprint = result;
+    }
+    return result;
+  }
+
+  private static void putPaths(Hasher hasher, List<ExecutionRootPath> paths) {
+    hasher.putInt(paths.size());
+    for (ExecutionRootPath path : paths) {
+      hasher.putUnencodedChars(path.getAbsoluteOrRelativeFile().getPath()).putChar('\0');
+    }
+  }
+
+  private static void putStrings(Hasher hasher, List<String> strings) {
+    hasher.putInt(strings.size());
+    for (String string : strings) {
+      hasher.putUnencodedChars(string).putChar('\0');
+    }
   }
 
   @Override
@@ -67,7 +128,8 @@ final class BlazeResolveConfigurationData {
       return false;
     }
     BlazeResolveConfigurationData otherData = (BlazeResolveConfigurationData) other;
-    return this.transitiveIncludeDirectories.equals(otherData.transitiveIncludeDirectories)
+    return this.hashCode == otherData.hashCode
+        && this.transitiveIncludeDirectories.equals(otherData.transitiveIncludeDirectories)
         && this.transitiveSystemIncludeDirectories.equals(
             otherData.transitiveSystemIncludeDirectories)
         && this.transitiveQuoteIncludeDirectories.equals(
@@ -75,21 +137,12 @@ final class BlazeResolveConfigurationData {
         && this.localCopts.equals(otherData.localCopts)
         && this.transitiveDefines.equals(otherData.transitiveDefines)
         && this.toolchainIdeInfo.equals(otherData.toolchainIdeInfo)
-        && this.compilerSettings
-            .getCompilerVersion()
-            .equals(otherData.compilerSettings.getCompilerVersion());
+        && this.compilerSettings.equals(otherData.compilerSettings);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(
-        transitiveIncludeDirectories,
-        transitiveSystemIncludeDirectories,
-        transitiveQuoteIncludeDirectories,
-        localCopts,
-        transitiveDefines,
-        toolchainIdeInfo,
-        compilerSettings.getCompilerVersion());
+    return hashCode;
   }
 
   CToolchainIdeInfo getCToolchainIdeInfo() {
@@ -23,6 +23,10 @@ import com.intellij.openapi.util.io.FileUtil;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
 
 /**
  * Creates a wrapper script which reads the arguments file and writes the compiler outputs directly.
@@ -30,9 +34,27 @@ import java.io.PrintWriter;
 public class CompilerWrapperProviderImpl implements CompilerWrapperProvider {
   private static final Logger logger = Logger.getInstance(CompilerWrapperProviderImpl.class);
 
+  // Wrappers are reused while they exist, so unchanged compiler settings stay equal across syncs.
+  private final Map<List<File>, File> wrappers = new ConcurrentHashMap<>();
+
   @Override
+  @Nullable
   public File createCompilerExecutableWrapper(
       File executionRoot, File blazeCompilerExecutableFile) {
+    List<File> key = ImmutableList.of(executionRoot, blazeCompilerExecutableFile);
+    File existing = wrappers.get(key);
+    if (existing != null && existing.canExecute()) {
+      return existing;
+    }
+    File wrapper = createWrapper(executionRoot, blazeCompilerExecutableFile);
+    if (wrapper != null) {
+      wrappers.put(key, wrapper);
+    }
+    return wrapper;
+  }
+
+  @Nullable
+  private static File createWrapper(File executionRoot, File blazeCompilerExecutableFile) {
     try {
       File blazeCompilerWrapper =
           FileUtil.createTempFile("blaze_compiler", ".sh", true /* deleteOnExit */);
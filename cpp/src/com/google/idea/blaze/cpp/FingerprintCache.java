@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.cpp;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * Values computed per resolve configuration during the last update, keyed by the configuration's
+ * fingerprint. A value is reused by the next update if the configuration has the same fingerprint
+ * and is reusable, and the inputs shared by all configurations are unchanged.
+ */
+final class FingerprintCache<V> {
+  private ImmutableMap<String, V> values = ImmutableMap.of();
+  @Nullable private ImmutableList<?> sharedInputs;
+
+  /** Starts an update, which replaces the cached values once {@link Update#finish} is called. */
+  Update startUpdate(ImmutableList<?> sharedInputs) {
+    return new Update(
+        sharedInputs, sharedInputs.equals(this.sharedInputs) ? values : ImmutableMap.of());
+  }
+
+  ImmutableMap<String, V> getValues() {
+    return values;
+  }
+
+  /** Collects the values of one update. */
+  final class Update {
+    private final ImmutableList<?> sharedInputs;
+    private final ImmutableMap<String, V> previous;
+    private final Map<String, V> next = new LinkedHashMap<>();
+    private int reusedCount;
+
+    private Update(ImmutableList<?> sharedInputs, ImmutableMap<String, V> previous) {
+      this.sharedInputs = sharedInputs;
+      this.previous = previous;
+    }
+
+    /**
+     * Returns the previous value for the fingerprint if {@code reusable}, otherwise computes a new
+     * one.
+     */
+    V get(String fingerprint, boolean reusable, Supplier<V> compute) {
+      V value = reusable ? previous.get(fingerprint) : null;
+      if (value != null) {
+        reusedCount++;
+      } else {
+        value = compute.get();
+      }
+      next.put(fingerprint, value);
+      return value;
+    }
+
+    int getReusedCount() {
+      return reusedCount;
+    }
+
+    /** Replaces the cached values, and returns the number of previous values which were dropped. */
+    int finish() {
+      int removed = (int) values.keySet().stream().filter(k -> !next.containsKey(k)).count();
+      values = ImmutableMap.copyOf(next);
+      FingerprintCache.this.sharedInputs = sharedInputs;
+      return removed;
+    }
+  }
+}
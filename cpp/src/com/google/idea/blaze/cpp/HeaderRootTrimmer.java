@@ -40,6 +40,7 @@ import com.google.idea.blaze.base.scope.output.IssueOutput;
 import com.google.idea.blaze.base.scope.scopes.TimingScope;
 import com.google.idea.blaze.base.scope.scopes.TimingScope.EventType;
 import com.google.idea.blaze.base.sync.workspace.ExecutionRootPathResolver;
+import com.google.idea.blaze.common.PrintOutput;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.vfs.VirtualFile;
 import java.io.File;
@@ -73,7 +74,8 @@ final class HeaderRootTrimmer {
       BlazeProjectData blazeProjectData,
       ImmutableMap<TargetKey, CToolchainIdeInfo> toolchainLookupMap,
       Predicate<TargetIdeInfo> targetFilter,
-      ExecutionRootPathResolver executionRootPathResolver) {
+      ExecutionRootPathResolver executionRootPathResolver,
+      HeaderRootValidityCache cache) {
     // Type specification needed to avoid incorrect type inference during command line build.
     return Scope.push(
         parentContext,
@@ -84,7 +86,7 @@ final class HeaderRootTrimmer {
                   collectExecutionRootPaths(
                       blazeProjectData.getTargetMap(), targetFilter, toolchainLookupMap);
               return doCollectHeaderRoots(
-                  context, blazeProjectData, paths, executionRootPathResolver);
+                  context, blazeProjectData, paths, executionRootPathResolver, cache);
             });
   }
 
@@ -92,7 +94,9 @@ final class HeaderRootTrimmer {
       BlazeContext context,
       BlazeProjectData projectData,
       Set<ExecutionRootPath> rootPaths,
-      ExecutionRootPathResolver pathResolver) {
+      ExecutionRootPathResolver pathResolver,
+      HeaderRootValidityCache cache) {
+    cache.startRound();
     Set<File> validRoots = Sets.newConcurrentHashSet();
     List<ListenableFuture<File>> futures = Lists.newArrayListWithCapacity(rootPaths.size());
     AtomicInteger genRootsWithHeaders = new AtomicInteger();
@@ -106,37 +110,40 @@ final class HeaderRootTrimmer {
                 if (possibleDirectories.isEmpty()) {
                   logger.info(String.format("Couldn't resolve include root: %s", path));
                 }
+                boolean isOutputArtifact = isOutputArtifact(projectData.getBlazeInfo(), path);
                 for (File file : possibleDirectories) {
-                  VirtualFile vf = VfsUtils.resolveVirtualFile(file, /* refreshIfNeeded= */ true);
-                  if (vf != null) {
-                    // Check gen directories to see if they actually contain headers and not just
-                    // other random generated files (like .s, .cc, or module maps).
-                    // Also checks bin directories to see if they actually contain headers vs
-                    // just aspect files.
-                    if (!isOutputArtifact(projectData.getBlazeInfo(), path)) {
-                      validRoots.add(file);
-                    } else if (genRootMayContainHeaders(vf)) {
-                      genRootsWithHeaders.incrementAndGet();
-                      validRoots.add(file);
-                    } else {
+                  boolean valid =
+                      cache.isValid(
+                          file,
+                          /* checkContents= */ isOutputArtifact,
+                          () -> isValidRoot(file, isOutputArtifact));
+                  if (!valid) {
+                    if (isOutputArtifact) {
                       genRootsWithoutHeaders.incrementAndGet();
                     }
-                  } else if (!isOutputArtifact(projectData.getBlazeInfo(), path)
-                      && FileOperationProvider.getInstance().exists(file)) {
-                    // If it's not a blaze output file, we expect it to always resolve.
-                    logger.info(String.format("Unresolved header root %s", file.getAbsolutePath()));
+                    continue;
                   }
+                  if (isOutputArtifact) {
+                    genRootsWithHeaders.incrementAndGet();
+                  }
+                  validRoots.add(file);
                 }
                 return null;
               }));
     }
     try {
       Futures.allAsList(futures).get();
+      cache.finishRound();
       ImmutableSet<File> result = ImmutableSet.copyOf(validRoots);
       logger.info(
           String.format(
               "CollectHeaderRoots: %s roots, (%s, %s) genroots with/without headers",
               result.size(), genRootsWithHeaders.get(), genRootsWithoutHeaders.get()));
+      context.output(
+          PrintOutput.log(
+              String.format(
+                  "Header include roots: %s valid, %s cache hits, %s cache misses",
+                  result.size(), cache.getHits(), cache.getMisses())));
       return result;
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
@@ -148,6 +155,22 @@ final class HeaderRootTrimmer {
     return ImmutableSet.of();
   }
 
+  private static boolean isValidRoot(File file, boolean isOutputArtifact) {
+    VirtualFile vf = VfsUtils.resolveVirtualFile(file, /* refreshIfNeeded= */ true);
+    if (vf != null) {
+      // Check gen directories to see if they actually contain headers and not just
+      // other random generated files (like .s, .cc, or module maps).
+      // Also checks bin directories to see if they actually contain headers vs
+      // just aspect files.
+      return !isOutputArtifact || genRootMayContainHeaders(vf);
+    }
+    if (!isOutputArtifact && FileOperationProvider.getInstance().exists(file)) {
+      // If it's not a blaze output file, we expect it to always resolve.
+      logger.info(String.format("Unresolved header root %s", file.getAbsolutePath()));
+    }
+    return false;
+  }
+
   private static boolean genRootMayContainHeaders(VirtualFile directory) {
     int totalDirectoriesChecked = 0;
     Queue<VirtualFile> worklist = new ArrayDeque<>();
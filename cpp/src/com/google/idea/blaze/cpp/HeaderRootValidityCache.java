@@ -0,0 +1,191 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.cpp;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.idea.blaze.base.io.FileOperationProvider;
+import com.google.idea.blaze.base.settings.BlazeImportSettings;
+import com.google.idea.blaze.base.settings.BlazeImportSettingsManager;
+import com.google.idea.blaze.base.sync.data.BlazeDataStorage;
+import com.google.idea.blaze.base.util.SerializationUtil;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * Remembers which header search roots were found to be valid, so that unchanged roots don't need
+ * to be resolved and scanned again on every sync.
+ *
+ * <p>An entry is keyed by the root's absolute path, and is only used while the modification time
+ * of the root's parent directory (and, for output roots whose contents are checked, of the root
+ * itself) is unchanged. The cache is persisted in the project data directory between IDE
+ * sessions.
+ */
+final class HeaderRootValidityCache {
+
+  private static final Logger logger = Logger.getInstance(HeaderRootValidityCache.class);
+  private static final String CACHE_FILE_NAME = "headerRootValidityCache.dat";
+
+  private final Supplier<File> cacheFile;
+  @Nullable private Map<String, Entry> persisted;
+
+  // State of the current round of validation, started by #startRound
+  private final ConcurrentMap<String, Entry> current = new ConcurrentHashMap<>();
+  private final ConcurrentMap<File, Long> modifiedTimes = new ConcurrentHashMap<>();
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  /** @param cacheFile supplies the file the cache is persisted to, or null to not persist it */
+  @VisibleForTesting
+  HeaderRootValidityCache(Supplier<File> cacheFile) {
+    this.cacheFile = cacheFile;
+  }
+
+  static HeaderRootValidityCache create(Project project) {
+    return new HeaderRootValidityCache(() -> getCacheFile(project));
+  }
+
+  @Nullable
+  private static File getCacheFile(Project project) {
+    BlazeImportSettings importSettings =
+        BlazeImportSettingsManager.getInstance(project).getImportSettings();
+    if (importSettings == null || Strings.isNullOrEmpty(importSettings.getProjectDataDirectory())) {
+      return null;
+    }
+    return new File(BlazeDataStorage.getProjectDataDir(importSettings), CACHE_FILE_NAME);
+  }
+
+  /** Starts validating a new set of header roots, loading the persisted entries if necessary. */
+  synchronized void startRound() {
+    if (persisted == null) {
+      persisted = load();
+    }
+    current.clear();
+    modifiedTimes.clear();
+    hits.set(0);
+    misses.set(0);
+  }
+
+  /**
+   * Returns whether the header root is valid, only calling {@code validator} if there's no
+   * up-to-date cached result.
+   *
+   * @param checkContents whether the validity of the root depends on its contents rather than
+   *     just its existence
+   */
+  boolean isValid(File root, boolean checkContents, Supplier<Boolean> validator) {
+    File parent = root.getParentFile();
+    long parentModified = parent != null ? modifiedTime(parent) : 0;
+    long modified = checkContents ? modifiedTime(root) : 0;
+    String key = root.getAbsolutePath();
+    Entry entry = persisted != null ? persisted.get(key) : null;
+    if (entry != null
+        && entry.parentModified == parentModified
+        && entry.modified == modified
+        && entry.checkedContents == checkContents) {
+      hits.incrementAndGet();
+      current.put(key, entry);
+      return entry.valid;
+    }
+    misses.incrementAndGet();
+    boolean valid = validator.get();
+    // A zero modification time means the file is missing (or its time is unknown), so there is
+    // nothing to check the cached result against later. Headers may be added to subdirectories
+    // without changing the root's modification time, so roots without headers aren't cached.
+    if (parentModified != 0 && (!checkContents || (modified != 0 && valid))) {
+      current.put(key, new Entry(parentModified, modified, checkContents, valid));
+    }
+    return valid;
+  }
+
+  private long modifiedTime(File file) {
+    return modifiedTimes.computeIfAbsent(
+        file, f -> FileOperationProvider.getInstance().getFileModifiedTime(f));
+  }
+
+  int getHits() {
+    return hits.get();
+  }
+
+  int getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Finishes the current round, keeping only the entries used in it, and persists them to disk.
+   */
+  synchronized void finishRound() {
+    persisted = new HashMap<>(current);
+    current.clear();
+    modifiedTimes.clear();
+    File file = cacheFile.get();
+    if (file == null) {
+      return;
+    }
+    try {
+      SerializationUtil.saveToDisk(file, (HashMap<String, Entry>) persisted);
+    } catch (IOException e) {
+      logger.warn("Failed to save header root cache", e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Entry> load() {
+    File file = cacheFile.get();
+    if (file == null || !FileOperationProvider.getInstance().exists(file)) {
+      return new HashMap<>();
+    }
+    try {
+      Object loaded =
+          SerializationUtil.loadFromDisk(
+              file, ImmutableList.of(HeaderRootValidityCache.class.getClassLoader()));
+      if (loaded instanceof Map) {
+        return (Map<String, Entry>) loaded;
+      }
+    } catch (IOException e) {
+      logger.info("Failed to load header root cache", e);
+    }
+    return new HashMap<>();
+  }
+
+  /** The cached validity of a single header root. */
+  private static final class Entry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final long parentModified;
+    final long modified;
+    final boolean checkedContents;
+    final boolean valid;
+
+    Entry(long parentModified, long modified, boolean checkedContents, boolean valid) {
+      this.parentModified = parentModified;
+      this.modified = modified;
+      this.checkedContents = checkedContents;
+      this.valid = valid;
+    }
+  }
+}
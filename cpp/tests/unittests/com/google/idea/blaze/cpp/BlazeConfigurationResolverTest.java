@@ -21,6 +21,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.idea.blaze.base.BlazeTestCase;
 import com.google.idea.blaze.base.async.executor.BlazeExecutor;
 import com.google.idea.blaze.base.async.executor.MockBlazeExecutor;
@@ -61,12 +62,14 @@ import com.intellij.openapi.progress.impl.ProgressManagerImpl;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.VirtualFileManager;
+import com.jetbrains.cidr.lang.CLanguageKind;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -83,6 +86,7 @@ public class BlazeConfigurationResolverTest extends BlazeTestCase {
   private BlazeConfigurationResolverResult resolverResult;
   private MockCompilerVersionChecker compilerVersionChecker;
   private LocalFileSystem mockFileSystem;
+  private ExtensionPointImpl<BlazeCompilerFlagsProcessor.Provider> flagsProcessors;
 
   @Override
   protected void initTest(Container applicationServices, Container projectServices) {
@@ -112,8 +116,9 @@ public class BlazeConfigurationResolverTest extends BlazeTestCase {
             new BlazeImportSettings(
                 "", "", "", "", getBuildSystemProvider().getBuildSystem().getName()));
 
-    registerExtensionPoint(
-        BlazeCompilerFlagsProcessor.EP_NAME, BlazeCompilerFlagsProcessor.Provider.class);
+    flagsProcessors =
+        registerExtensionPoint(
+            BlazeCompilerFlagsProcessor.EP_NAME, BlazeCompilerFlagsProcessor.Provider.class);
 
     context.addOutputSink(IssueOutput.class, errorCollector);
 
@@ -524,6 +529,105 @@ public class BlazeConfigurationResolverTest extends BlazeTestCase {
     assertThat(resolverResult.isEquivalentConfigurations(oldResult)).isTrue();
   }
 
+  @Test
+  public void identicalTargets_resolvedSources_reusesConfigurationInstances() {
+    ProjectView projectView = projectView(directories("foo/bar"), targets("//foo/bar:binary"));
+    TargetMap targetMap =
+        TargetMapBuilder.builder()
+            .addTarget(createCcToolchain())
+            .addTarget(
+                createCcTarget(
+                    "//foo/bar:binary",
+                    CppBlazeRules.RuleTypes.CC_BINARY.getKind(),
+                    ImmutableList.of(src("foo/bar/binary.cc")),
+                    "//:toolchain"))
+            .build();
+    createVirtualFile("/root/foo/bar/binary.cc");
+
+    assertThatResolving(projectView, targetMap).producesConfigurationsFor("//foo/bar:binary");
+    BlazeResolveConfiguration initialConfiguration =
+        Iterables.getOnlyElement(resolverResult.getAllConfigurations());
+    BlazeConfigurationResolverResult oldResult = resolverResult;
+
+    assertThatResolving(projectView, targetMap).producesConfigurationsFor("//foo/bar:binary");
+    BlazeResolveConfiguration configuration =
+        Iterables.getOnlyElement(resolverResult.getAllConfigurations());
+    assertThat(configuration.getTargets()).isEqualTo(initialConfiguration.getTargets());
+    assertThat(configuration.getCompilerSettings())
+        .isSameAs(
+            Iterables.getOnlyElement(resolverResult.getConfigurationMap().keySet())
+                .compilerSettings);
+    assertThat(resolverResult.isEquivalentConfigurations(oldResult)).isTrue();
+  }
+
+  @Test
+  public void changeCompilerSwitches_testIncrementalUpdateNoReuse() {
+    ProjectView projectView = projectView(directories("foo/bar"), targets("//foo/bar:binary"));
+    TargetMap targetMap =
+        TargetMapBuilder.builder()
+            .addTarget(createCcToolchain())
+            .addTarget(
+                createCcTarget(
+                    "//foo/bar:binary",
+                    CppBlazeRules.RuleTypes.CC_BINARY.getKind(),
+                    ImmutableList.of(src("foo/bar/binary.cc")),
+                    "//:toolchain"))
+            .build();
+    createVirtualFile("/root/foo/bar/binary.cc");
+    ExtraFlagProcessor processor = new ExtraFlagProcessor("-DOLD");
+    flagsProcessors.registerExtension(project -> Optional.of(processor));
+
+    ImmutableList<BlazeResolveConfiguration> noReusedConfigurations = ImmutableList.of();
+    assertThatResolving(projectView, targetMap)
+        .reusedConfigurations(noReusedConfigurations, "//foo/bar:binary");
+    BlazeConfigurationResolverResult oldResult = resolverResult;
+
+    processor.extraFlag = "-DNEW";
+    assertThatResolving(projectView, targetMap)
+        .reusedConfigurations(noReusedConfigurations, "//foo/bar:binary");
+    assertThat(resolverResult.isEquivalentConfigurations(oldResult)).isFalse();
+    BlazeCompilerSettings settings =
+        Iterables.getOnlyElement(resolverResult.getAllConfigurations()).getCompilerSettings();
+    assertThat(settings.getCompilerSwitches(CLanguageKind.CPP, null)).contains("-DNEW");
+    assertThat(settings.getCompilerSwitches(CLanguageKind.CPP, null)).doesNotContain("-DOLD");
+  }
+
+  @Test
+  public void changeCompilerExecutable_testIncrementalUpdateNoReuse() {
+    ProjectView projectView = projectView(directories("foo/bar"), targets("//foo/bar:binary"));
+    TargetMap targetMap =
+        TargetMapBuilder.builder()
+            .addTarget(createCcToolchain())
+            .addTarget(
+                createCcTarget(
+                    "//foo/bar:binary",
+                    CppBlazeRules.RuleTypes.CC_BINARY.getKind(),
+                    ImmutableList.of(src("foo/bar/binary.cc")),
+                    "//:toolchain"))
+            .build();
+    createVirtualFile("/root/foo/bar/binary.cc");
+
+    ImmutableList<BlazeResolveConfiguration> noReusedConfigurations = ImmutableList.of();
+    assertThatResolving(projectView, targetMap)
+        .reusedConfigurations(noReusedConfigurations, "//foo/bar:binary");
+    BlazeConfigurationResolverResult oldResult = resolverResult;
+    File oldCompiler =
+        Iterables.getOnlyElement(resolverResult.getAllConfigurations())
+            .getCompilerSettings()
+            .getCompilerExecutable(CLanguageKind.CPP);
+    assertThat(oldCompiler.delete()).isTrue();
+
+    assertThatResolving(projectView, targetMap)
+        .reusedConfigurations(noReusedConfigurations, "//foo/bar:binary");
+    assertThat(resolverResult.isEquivalentConfigurations(oldResult)).isFalse();
+    File newCompiler =
+        Iterables.getOnlyElement(resolverResult.getAllConfigurations())
+            .getCompilerSettings()
+            .getCompilerExecutable(CLanguageKind.CPP);
+    assertThat(newCompiler).isNotEqualTo(oldCompiler);
+    assertThat(newCompiler.exists()).isTrue();
+  }
+
   @Test
   public void identicalTargets_addedSources_testNotIncremental() {
     ProjectView projectView = projectView(directories("foo/bar"), targets("//foo/bar:*"));
@@ -930,6 +1034,19 @@ public class BlazeConfigurationResolverTest extends BlazeTestCase {
     assertThat(entry.get(0).getKey().getCToolchainIdeInfo()).isEqualTo(expected);
   }
 
+  private static class ExtraFlagProcessor implements BlazeCompilerFlagsProcessor {
+    private String extraFlag;
+
+    ExtraFlagProcessor(String extraFlag) {
+      this.extraFlag = extraFlag;
+    }
+
+    @Override
+    public List<String> processFlags(List<String> flags) {
+      return ImmutableList.<String>builder().addAll(flags).add(extraFlag).build();
+    }
+  }
+
   private interface Subject {
     void producesConfigurationsFor(String... expected);
 
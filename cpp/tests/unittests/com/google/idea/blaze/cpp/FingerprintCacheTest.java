@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.cpp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link FingerprintCache}. */
+@RunWith(JUnit4.class)
+public class FingerprintCacheTest {
+  private static final ImmutableList<String> INPUTS = ImmutableList.of("/execroot");
+
+  private final FingerprintCache<String> cache = new FingerprintCache<>();
+
+  @Test
+  public void sameFingerprint_reusesValue() {
+    FingerprintCache<String>.Update first = cache.startUpdate(INPUTS);
+    assertThat(first.get("a", true, () -> "first")).isEqualTo("first");
+    assertThat(first.finish()).isEqualTo(0);
+
+    FingerprintCache<String>.Update second = cache.startUpdate(ImmutableList.of("/execroot"));
+    assertThat(second.get("a", true, () -> "second")).isEqualTo("first");
+    assertThat(second.getReusedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void differentFingerprint_computesValue() {
+    FingerprintCache<String>.Update first = cache.startUpdate(INPUTS);
+    first.get("a", true, () -> "first");
+    first.finish();
+
+    FingerprintCache<String>.Update second = cache.startUpdate(INPUTS);
+    assertThat(second.get("b", true, () -> "second")).isEqualTo("second");
+    assertThat(second.getReusedCount()).isEqualTo(0);
+    assertThat(second.finish()).isEqualTo(1);
+    assertThat(cache.getValues()).containsExactly("b", "second");
+  }
+
+  @Test
+  public void notReusable_computesValue() {
+    FingerprintCache<String>.Update first = cache.startUpdate(INPUTS);
+    first.get("a", true, () -> "first");
+    first.finish();
+
+    FingerprintCache<String>.Update second = cache.startUpdate(INPUTS);
+    assertThat(second.get("a", false, () -> "second")).isEqualTo("second");
+    assertThat(second.getReusedCount()).isEqualTo(0);
+    assertThat(second.finish()).isEqualTo(0);
+    assertThat(cache.getValues()).containsExactly("a", "second");
+  }
+
+  @Test
+  public void changedSharedInputs_computesAllValues() {
+    FingerprintCache<String>.Update first = cache.startUpdate(INPUTS);
+    first.get("a", true, () -> "first");
+    first.finish();
+
+    FingerprintCache<String>.Update second = cache.startUpdate(ImmutableList.of("/other"));
+    assertThat(second.get("a", true, () -> "second")).isEqualTo("second");
+    assertThat(second.getReusedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void unfinishedUpdate_keepsPreviousValues() {
+    FingerprintCache<String>.Update first = cache.startUpdate(INPUTS);
+    first.get("a", true, () -> "first");
+    first.finish();
+
+    cache.startUpdate(INPUTS).get("b", true, () -> "second");
+    assertThat(cache.getValues()).containsExactly("a", "first");
+  }
+}
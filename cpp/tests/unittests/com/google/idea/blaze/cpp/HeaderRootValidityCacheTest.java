@@ -0,0 +1,113 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.cpp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.idea.blaze.base.BlazeTestCase;
+import com.google.idea.blaze.base.io.FileOperationProvider;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link HeaderRootValidityCache}. */
+@RunWith(JUnit4.class)
+public class HeaderRootValidityCacheTest extends BlazeTestCase {
+
+  private final MockFileOperationProvider files = new MockFileOperationProvider();
+  private final HeaderRootValidityCache cache = new HeaderRootValidityCache(() -> null);
+  private final AtomicInteger validations = new AtomicInteger();
+
+  @Override
+  protected void initTest(Container applicationServices, Container projectServices) {
+    applicationServices.register(FileOperationProvider.class, files);
+  }
+
+  @Test
+  public void unchangedParent_usesCachedResult() {
+    File root = new File("/execroot/include");
+    files.modifiedTimes.put(root.getParentFile(), 10L);
+
+    assertThat(validate(root, /* checkContents= */ false, true)).isTrue();
+    assertThat(validate(root, /* checkContents= */ false, false)).isTrue();
+
+    assertThat(validations.get()).isEqualTo(1);
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(0);
+  }
+
+  @Test
+  public void modifiedParent_revalidates() {
+    File root = new File("/execroot/include");
+    files.modifiedTimes.put(root.getParentFile(), 10L);
+    validate(root, /* checkContents= */ false, true);
+
+    files.modifiedTimes.put(root.getParentFile(), 20L);
+
+    assertThat(validate(root, /* checkContents= */ false, false)).isFalse();
+    assertThat(validations.get()).isEqualTo(2);
+    assertThat(cache.getMisses()).isEqualTo(1);
+  }
+
+  @Test
+  public void outputRootWithoutHeaders_notCached() {
+    File root = new File("/execroot/bazel-out/bin/foo");
+    files.modifiedTimes.put(root.getParentFile(), 10L);
+    files.modifiedTimes.put(root, 10L);
+
+    validate(root, /* checkContents= */ true, false);
+    assertThat(validate(root, /* checkContents= */ true, true)).isTrue();
+
+    assertThat(validations.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void missingParent_notCached() {
+    File root = new File("/execroot/include");
+
+    validate(root, /* checkContents= */ false, false);
+    validate(root, /* checkContents= */ false, false);
+
+    assertThat(validations.get()).isEqualTo(2);
+  }
+
+  private boolean validate(File root, boolean checkContents, boolean valid) {
+    cache.startRound();
+    boolean result =
+        cache.isValid(
+            root,
+            checkContents,
+            () -> {
+              validations.incrementAndGet();
+              return valid;
+            });
+    cache.finishRound();
+    return result;
+  }
+
+  private static class MockFileOperationProvider extends FileOperationProvider {
+    final Map<File, Long> modifiedTimes = new HashMap<>();
+
+    @Override
+    public long getFileModifiedTime(File file) {
+      return modifiedTimes.getOrDefault(file, 0L);
+    }
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.golang.resolve;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.idea.blaze.base.ideinfo.Dependency;
+import com.google.idea.blaze.base.ideinfo.GoIdeInfo;
+import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
+import com.google.idea.blaze.base.ideinfo.TargetKey;
+import com.google.idea.blaze.base.ideinfo.TargetMap;
+import com.google.idea.blaze.base.io.VfsUtils;
+import com.google.idea.blaze.base.model.BlazeProjectData;
+import com.google.idea.blaze.base.model.primitives.GenericBlazeRules;
+import com.google.idea.blaze.base.model.primitives.Label;
+import com.google.idea.blaze.golang.GoBlazeRules.RuleTypes;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * The go packages of a project, by import path, and the import path of each go source file.
+ *
+ * <p>Computed once per sync by {@link BlazeGoImportIndexManager}, and persisted along with a
+ * fingerprint of the go targets it was computed from, so it can be reused after restarting the IDE.
+ */
+final class BlazeGoImportIndex implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  /** A single go package, i.e. the go rule with a given import path. */
+  static final class PackageEntry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final String label;
+    final ImmutableList<File> files;
+    final String packageName;
+    // the file the package name was read from, or -1 if none declared one, and its timestamp
+    private final int packageNameSource;
+    private final long packageNameTimestamp;
+
+    private PackageEntry(
+        String label,
+        ImmutableList<File> files,
+        String packageName,
+        int packageNameSource,
+        long packageNameTimestamp) {
+      this.label = label;
+      this.files = files;
+      this.packageName = packageName;
+      this.packageNameSource = packageNameSource;
+      this.packageNameTimestamp = packageNameTimestamp;
+    }
+
+    /** Reads the package name from the first file declaring one. See {@link BlazeGoPackage}. */
+    static PackageEntry create(String label, ImmutableList<File> files, String importPath) {
+      for (int i = 0; i < files.size(); i++) {
+        File file = files.get(i);
+        String packageName = GoPackageClauseScanner.readPackageName(file);
+        if (packageName != null) {
+          return new PackageEntry(label, files, packageName, i, timestamp(file));
+        }
+      }
+      return new PackageEntry(
+          label, files, importPath.substring(importPath.lastIndexOf('/') + 1), -1, 0L);
+    }
+
+    /** Returns whether the file the package name was read from may have changed since. */
+    boolean isPackageNameOutdated() {
+      return packageNameSource < 0
+          || timestamp(files.get(packageNameSource)) != packageNameTimestamp;
+    }
+  }
+
+  final long fingerprint;
+  private final HashMap<String, PackageEntry> packages;
+  private final HashMap<File, String> fileToImportPath;
+
+  private BlazeGoImportIndex(
+      long fingerprint,
+      HashMap<String, PackageEntry> packages,
+      HashMap<File, String> fileToImportPath) {
+    this.fingerprint = fingerprint;
+    this.packages = packages;
+    this.fileToImportPath = fileToImportPath;
+  }
+
+  @Nullable
+  PackageEntry getPackage(String importPath) {
+    return packages.get(importPath);
+  }
+
+  Map<File, String> getFileToImportPathMap() {
+    return Collections.unmodifiableMap(fileToImportPath);
+  }
+
+  /**
+   * Returns the index of the given project data. If the go targets it's computed from haven't
+   * changed, the previous index is reused, only rereading package names which may have changed.
+   */
+  static BlazeGoImportIndex build(
+      Project project, BlazeProjectData projectData, @Nullable BlazeGoImportIndex previous) {
+    long fingerprint = fingerprint(projectData);
+    if (previous != null && previous.fingerprint == fingerprint) {
+      return previous.withUpdatedPackageNames();
+    }
+    TargetMap targetMap = projectData.getTargetMap();
+    ImmutableMultimap<Label, File> targetToFile =
+        BlazeGoPackage.getUncachedTargetToFileMap(project, projectData);
+
+    HashMap<String, TargetKey> importPathToTarget = new HashMap<>();
+    for (TargetIdeInfo target : targetMap.targets()) {
+      if (target.getGoIdeInfo() == null || target.getGoIdeInfo().getImportPath() == null) {
+        continue;
+      }
+      // duplicates are possible (e.g., same target with different aspects)
+      // choose the one with the most sources (though they're probably the same)
+      importPathToTarget.merge(
+          target.getGoIdeInfo().getImportPath(),
+          target.getKey(),
+          (first, second) ->
+              targetMap.get(first).getGoIdeInfo().getSources().size()
+                      >= targetMap.get(second).getGoIdeInfo().getSources().size()
+                  ? first
+                  : second);
+    }
+
+    Map<TargetKey, TargetKey> goProtoLibraries = getGoProtoLibraries(targetMap);
+    HashMap<String, PackageEntry> packages = new HashMap<>();
+    for (Map.Entry<String, TargetKey> entry : importPathToTarget.entrySet()) {
+      String importPath = entry.getKey();
+      TargetKey targetKey = entry.getValue();
+      ImmutableList<File> files = ImmutableList.copyOf(targetToFile.get(targetKey.getLabel()));
+      Label label = goProtoLibraries.getOrDefault(targetKey, targetKey).getLabel();
+      packages.put(importPath, PackageEntry.create(label.toString(), files, importPath));
+    }
+
+    HashMap<File, String> fileToImportPath = new HashMap<>();
+    for (TargetIdeInfo target : targetMap.targets()) {
+      if (target.getGoIdeInfo() == null) {
+        continue;
+      }
+      String importPath =
+          target.getGoIdeInfo().getLibraryLabels().stream()
+              .map(TargetKey::forPlainTarget)
+              .map(targetMap::get)
+              .filter(Objects::nonNull)
+              .map(TargetIdeInfo::getGoIdeInfo)
+              .filter(Objects::nonNull)
+              .map(GoIdeInfo::getImportPath)
+              .filter(Objects::nonNull)
+              .findFirst()
+              .orElse(target.getGoIdeInfo().getImportPath());
+      if (importPath == null) {
+        continue;
+      }
+      for (File file : targetToFile.get(target.getKey().getLabel())) {
+        fileToImportPath.putIfAbsent(file, importPath);
+      }
+    }
+    return new BlazeGoImportIndex(fingerprint, packages, fileToImportPath);
+  }
+
+  /**
+   * The import path for proto_library doesn't match the target name, we need to replace the
+   * proto_library with the corresponding go_proto_library for them to match.
+   */
+  private static Map<TargetKey, TargetKey> getGoProtoLibraries(TargetMap targetMap) {
+    Map<TargetKey, TargetKey> goProtoLibraries = new HashMap<>();
+    for (TargetIdeInfo target : targetMap.targets()) {
+      if (target.getKind() != RuleTypes.GO_PROTO_LIBRARY.getKind()) {
+        continue;
+      }
+      for (Dependency dependency : target.getDependencies()) {
+        TargetIdeInfo protoLibrary = targetMap.get(dependency.getTargetKey());
+        if (protoLibrary != null
+            && protoLibrary.getKind() == GenericBlazeRules.RuleTypes.PROTO_LIBRARY.getKind()) {
+          goProtoLibraries.putIfAbsent(protoLibrary.getKey(), target.getKey());
+        }
+      }
+    }
+    return goProtoLibraries;
+  }
+
+  private BlazeGoImportIndex withUpdatedPackageNames() {
+    HashMap<String, PackageEntry> updated = null;
+    for (Map.Entry<String, PackageEntry> entry : packages.entrySet()) {
+      PackageEntry goPackage = entry.getValue();
+      if (!goPackage.isPackageNameOutdated()) {
+        continue;
+      }
+      PackageEntry reread = PackageEntry.create(goPackage.label, goPackage.files, entry.getKey());
+      if (reread.packageName.equals(goPackage.packageName)
+          && reread.packageNameTimestamp == goPackage.packageNameTimestamp) {
+        continue;
+      }
+      if (updated == null) {
+        updated = new HashMap<>(packages);
+      }
+      updated.put(entry.getKey(), reread);
+    }
+    return updated != null ? new BlazeGoImportIndex(fingerprint, updated, fileToImportPath) : this;
+  }
+
+  private static long timestamp(File file) {
+    VirtualFile virtualFile = VfsUtils.resolveVirtualFile(file, /* refreshIfNeeded= */ false);
+    return virtualFile != null ? virtualFile.getTimeStamp() : file.lastModified();
+  }
+
+  /** A fingerprint of everything the index is computed from. */
+  private static long fingerprint(BlazeProjectData projectData) {
+    List<HashCode> hashes = new ArrayList<>();
+    hashes.add(hash(projectData.getBlazeInfo().getExecutionRoot().getPath().getBytes(UTF_8)));
+    hashes.add(hash(projectData.getBlazeInfo().getGenfilesDirectory().getPath().getBytes(UTF_8)));
+    for (TargetIdeInfo target : projectData.getTargetMap().targets()) {
+      if (target.getGoIdeInfo() != null) {
+        hashes.add(hash(target.toProto().toByteArray()));
+      }
+    }
+    // the target map's iteration order isn't guaranteed to survive a restart
+    return Hashing.combineUnordered(hashes).asLong();
+  }
+
+  private static HashCode hash(byte[] bytes) {
+    return Hashing.murmur3_128().hashBytes(bytes);
+  }
+}
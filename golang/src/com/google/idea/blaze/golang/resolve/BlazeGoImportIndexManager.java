@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.golang.resolve;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.idea.blaze.base.model.BlazeProjectData;
+import com.google.idea.blaze.base.model.primitives.LanguageClass;
+import com.google.idea.blaze.base.projectview.ProjectViewSet;
+import com.google.idea.blaze.base.scope.BlazeContext;
+import com.google.idea.blaze.base.settings.BlazeImportSettings;
+import com.google.idea.blaze.base.sync.SyncCache;
+import com.google.idea.blaze.base.sync.SyncListener;
+import com.google.idea.blaze.base.sync.SyncMode;
+import com.google.idea.blaze.base.sync.SyncResult;
+import com.google.idea.blaze.base.sync.data.PersistentProjectDataIndex;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import javax.annotation.Nullable;
+
+/**
+ * Maintains the {@link BlazeGoImportIndex} of the current project data.
+ *
+ * <p>The index is built in the background as soon as sync completes, rather than on the first go
+ * import resolved afterwards, and is loaded from disk after restarting the IDE.
+ */
+final class BlazeGoImportIndexManager {
+  private static final String INDEX_FILE_NAME = "go_import_index.dat";
+
+  static BlazeGoImportIndexManager getInstance(Project project) {
+    return ServiceManager.getService(project, BlazeGoImportIndexManager.class);
+  }
+
+  private final PersistentProjectDataIndex<BlazeGoImportIndex, BlazeGoImportIndex> index;
+
+  BlazeGoImportIndexManager(Project project) {
+    this.index =
+        new PersistentProjectDataIndex<>(
+            project,
+            INDEX_FILE_NAME,
+            BlazeGoImportIndex.class,
+            new PersistentProjectDataIndex.Builder<BlazeGoImportIndex, BlazeGoImportIndex>() {
+              @Override
+              public BlazeGoImportIndex updateState(
+                  BlazeProjectData projectData, @Nullable BlazeGoImportIndex previous) {
+                return BlazeGoImportIndex.build(project, projectData, previous);
+              }
+
+              @Override
+              public BlazeGoImportIndex buildIndex(
+                  BlazeProjectData projectData, BlazeGoImportIndex state) {
+                return state;
+              }
+            });
+  }
+
+  /** Returns the index of the current project data, building it if necessary. */
+  @Nullable
+  BlazeGoImportIndex getIndex() {
+    return index.get();
+  }
+
+  /**
+   * Returns the index of the given project data. Building it doesn't use the {@link SyncCache}, so
+   * this may be called while computing a {@link SyncCache} entry.
+   */
+  BlazeGoImportIndex getIndex(BlazeProjectData projectData) {
+    return index.get(projectData);
+  }
+
+  /** Rebuilds the index in the background once sync completes. */
+  static class Prebuilder implements SyncListener {
+    @Override
+    public void onSyncComplete(
+        Project project,
+        BlazeContext context,
+        BlazeImportSettings importSettings,
+        ProjectViewSet projectViewSet,
+        ImmutableSet<Integer> buildIds,
+        BlazeProjectData blazeProjectData,
+        SyncMode syncMode,
+        SyncResult syncResult) {
+      if (!blazeProjectData.getWorkspaceLanguageSettings().isLanguageActive(LanguageClass.GO)) {
+        return;
+      }
+      ApplicationManager.getApplication()
+          .executeOnPooledThread(() -> getInstance(project).getIndex(blazeProjectData));
+    }
+  }
+}
@@ -30,22 +30,17 @@ import com.google.idea.blaze.base.command.buildresult.OutputArtifactResolver;
 import com.google.idea.blaze.base.ideinfo.ArtifactLocation;
 import com.google.idea.blaze.base.ideinfo.GoIdeInfo;
 import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
-import com.google.idea.blaze.base.ideinfo.TargetKey;
 import com.google.idea.blaze.base.ideinfo.TargetMap;
 import com.google.idea.blaze.base.io.VfsUtils;
 import com.google.idea.blaze.base.lang.buildfile.psi.BuildFile;
 import com.google.idea.blaze.base.lang.buildfile.psi.FuncallExpression;
 import com.google.idea.blaze.base.lang.buildfile.references.BuildReferenceManager;
 import com.google.idea.blaze.base.model.BlazeProjectData;
-import com.google.idea.blaze.base.model.primitives.GenericBlazeRules;
 import com.google.idea.blaze.base.model.primitives.Label;
 import com.google.idea.blaze.base.model.primitives.LanguageClass;
 import com.google.idea.blaze.base.model.primitives.RuleType;
-import com.google.idea.blaze.base.sync.SyncCache;
 import com.google.idea.blaze.base.sync.workspace.WorkspaceHelper;
-import com.google.idea.blaze.base.targetmaps.ReverseDependencyMap;
 import com.google.idea.blaze.golang.GoBlazeRules.RuleTypes;
-import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.progress.ProgressIndicatorProvider;
 import com.intellij.openapi.project.Project;
@@ -85,9 +80,6 @@ import one.util.streamex.StreamEx;
  * Exactly one {@link BlazeGoPackage} per go rule.
  */
 public class BlazeGoPackage extends GoPackage {
-  private static final Logger logger = Logger.getInstance(BlazeGoPackage.class);
-  private static final String GO_TARGET_TO_FILE_MAP_KEY = "BlazeGoTargetToFileMap";
-
   private final Label label;
   private final String importPath;
   private final ConcurrentMap<File, Optional<PsiFile>> files;
@@ -95,17 +87,17 @@ public class BlazeGoPackage extends GoPackage {
   @Nullable private volatile PsiElement navigableElement;
   @Nullable private volatile PsiElement[] importReferences;
 
-  BlazeGoPackage(
-      Project project, BlazeProjectData projectData, String importPath, TargetIdeInfo target) {
-    this(
-        project,
-        importPath,
-        replaceProtoLibrary(project, projectData, target.getKey()).getLabel(),
-        getTargetToFileMap(project, projectData).get(target.getKey().getLabel()));
+  BlazeGoPackage(Project project, String importPath, Label label, Collection<File> files) {
+    this(project, importPath, label, files, getPackageName(files, importPath));
   }
 
-  BlazeGoPackage(Project project, String importPath, Label label, Collection<File> files) {
-    super(project, getPackageName(project, files, importPath));
+  BlazeGoPackage(
+      Project project,
+      String importPath,
+      Label label,
+      Collection<File> files,
+      String packageName) {
+    super(project, packageName);
     this.importPath = importPath;
     this.label = label;
     this.files = new ConcurrentHashMap<>();
@@ -117,38 +109,6 @@ public class BlazeGoPackage extends GoPackage {
         .forEach(f -> directories.put(f, Optional.empty()));
   }
 
-  /**
-   * The import path for proto_library doesn't match the target name, we need to replace the
-   * proto_library with the corresponding go_proto_library for them to match.
-   */
-  private static TargetKey replaceProtoLibrary(
-      Project project, BlazeProjectData projectData, TargetKey targetKey) {
-    TargetMap targetMap = projectData.getTargetMap();
-    TargetIdeInfo target = targetMap.get(targetKey);
-    if (target == null || target.getKind() != GenericBlazeRules.RuleTypes.PROTO_LIBRARY.getKind()) {
-      return targetKey;
-    }
-    return ReverseDependencyMap.get(project).get(targetKey).stream()
-        .map(targetMap::get)
-        .filter(Objects::nonNull)
-        .filter(t -> t.getKind() == RuleTypes.GO_PROTO_LIBRARY.getKind())
-        .map(TargetIdeInfo::getKey)
-        .findFirst()
-        .orElse(targetKey);
-  }
-
-  static ImmutableMultimap<Label, File> getTargetToFileMap(
-      Project project, BlazeProjectData projectData) {
-    ImmutableMultimap<Label, File> map =
-        SyncCache.getInstance(project)
-            .get(GO_TARGET_TO_FILE_MAP_KEY, BlazeGoPackage::getUncachedTargetToFileMap);
-    if (map == null) {
-      logger.error("Unexpected null target to file map from SyncCache.");
-      return getUncachedTargetToFileMap(project, projectData);
-    }
-    return map;
-  }
-
   public static ImmutableMultimap<Label, File> getUncachedTargetToFileMap(
       Project project, BlazeProjectData projectData) {
     ImmutableMultimap<Label, GoIdeInfo> libraryToTestMap = buildLibraryToTestMap(projectData);
@@ -263,16 +223,12 @@ public class BlazeGoPackage extends GoPackage {
    *   <li>for {@link RuleTypes#GO_PROTO_LIBRARY}, it's either declared via the {@code go_package}
    *       option, or automatically generated from the target name.
    * </ul>
+   *
+   * <p>Only the package clause of the first readable file is scanned, rather than parsing it.
    */
-  private static String getPackageName(Project project, Collection<File> files, String importPath) {
-    PsiManager psiManager = PsiManager.getInstance(project);
+  private static String getPackageName(Collection<File> files, String importPath) {
     return files.stream()
-        .map(file -> VfsUtils.resolveVirtualFile(file, /* refreshIfNeeded= */ false))
-        .filter(Objects::nonNull)
-        .map(psiManager::findFile)
-        .filter(GoFile.class::isInstance)
-        .map(GoFile.class::cast)
-        .map(GoFile::getCanonicalPackageName) // strips _test suffix from test packages
+        .map(GoPackageClauseScanner::readPackageName) // strips _test suffix from test packages
         .filter(Objects::nonNull)
         .findFirst() // short circuit
         .orElseGet(() -> importPath.substring(importPath.lastIndexOf('/') + 1));
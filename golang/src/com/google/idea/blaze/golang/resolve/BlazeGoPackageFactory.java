@@ -18,22 +18,13 @@ package com.google.idea.blaze.golang.resolve;
 import com.goide.project.GoPackageFactory;
 import com.goide.psi.GoFile;
 import com.goide.psi.impl.GoPackage;
-import com.google.common.collect.ImmutableMultimap;
-import com.google.idea.blaze.base.ideinfo.GoIdeInfo;
-import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
-import com.google.idea.blaze.base.ideinfo.TargetKey;
-import com.google.idea.blaze.base.ideinfo.TargetMap;
-import com.google.idea.blaze.base.model.BlazeProjectData;
-import com.google.idea.blaze.base.model.primitives.Label;
 import com.google.idea.blaze.base.sync.SyncCache;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiDirectory;
 import java.io.File;
-import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Map;
 import javax.annotation.Nullable;
 
 /** Updates and exposes a map of import paths to files. */
@@ -46,7 +37,7 @@ public class BlazeGoPackageFactory implements GoPackageFactory {
       return null;
     }
     Project project = goFile.getProject();
-    ConcurrentMap<File, String> fileToImportPathMap = getFileToImportPathMap(project);
+    Map<File, String> fileToImportPathMap = getFileToImportPathMap(project);
     if (fileToImportPathMap == null) {
       return null;
     }
@@ -55,40 +46,14 @@ public class BlazeGoPackageFactory implements GoPackageFactory {
   }
 
   @Nullable
-  public static ConcurrentMap<File, String> getFileToImportPathMap(Project project) {
+  public static Map<File, String> getFileToImportPathMap(Project project) {
     return SyncCache.getInstance(project)
-        .get(BlazeGoPackageFactory.class, BlazeGoPackageFactory::buildFileToImportPathMap);
-  }
-
-  private static ConcurrentMap<File, String> buildFileToImportPathMap(
-      Project project, BlazeProjectData projectData) {
-    TargetMap targetMap = projectData.getTargetMap();
-    ConcurrentMap<File, String> map = new ConcurrentHashMap<>();
-    ImmutableMultimap<Label, File> targetToFile =
-        BlazeGoPackage.getTargetToFileMap(project, projectData);
-    for (TargetIdeInfo target : targetMap.targets()) {
-      if (target.getGoIdeInfo() == null) {
-        continue;
-      }
-      String importPath =
-          target.getGoIdeInfo().getLibraryLabels().stream()
-              .map(TargetKey::forPlainTarget)
-              .map(targetMap::get)
-              .filter(Objects::nonNull)
-              .map(TargetIdeInfo::getGoIdeInfo)
-              .filter(Objects::nonNull)
-              .map(GoIdeInfo::getImportPath)
-              .filter(Objects::nonNull)
-              .findFirst()
-              .orElse(target.getGoIdeInfo().getImportPath());
-      if (importPath == null) {
-        continue;
-      }
-      for (File file : targetToFile.get(target.getKey().getLabel())) {
-        map.putIfAbsent(file, importPath);
-      }
-    }
-    return map;
+        .get(
+            BlazeGoPackageFactory.class,
+            (p, projectData) ->
+                BlazeGoImportIndexManager.getInstance(p)
+                    .getIndex(projectData)
+                    .getFileToImportPathMap());
   }
 
   @Nullable
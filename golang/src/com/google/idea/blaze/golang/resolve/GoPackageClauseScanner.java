@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.golang.resolve;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.idea.blaze.base.io.VfsUtils;
+import com.intellij.openapi.vfs.VirtualFile;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.Nullable;
+
+/**
+ * Reads the package clause of a go source file, without parsing the rest of it.
+ *
+ * <p>Only comments and whitespace may precede the package clause, so this stops reading after at
+ * most a few lines, and doesn't need the file to be parsed into PSI.
+ */
+final class GoPackageClauseScanner {
+  private static final String TEST_SUFFIX = "_test";
+
+  private GoPackageClauseScanner() {}
+
+  /**
+   * Returns the canonical package name declared by the given file (i.e. without any '_test'
+   * suffix), or null if the file can't be read or has no package clause.
+   */
+  @Nullable
+  static String readPackageName(File file) {
+    VirtualFile virtualFile = VfsUtils.resolveVirtualFile(file, /* refreshIfNeeded= */ false);
+    try (InputStream in =
+            virtualFile != null ? virtualFile.getInputStream() : new FileInputStream(file);
+        BufferedReader reader =
+            new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+      return scanPackageName(reader);
+    } catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  @VisibleForTesting
+  @Nullable
+  static String scanPackageName(Reader reader) throws IOException {
+    int c = skipCommentsAndWhitespace(reader);
+    for (char expected : "package".toCharArray()) {
+      if (c != expected) {
+        return null;
+      }
+      c = reader.read();
+    }
+    if (!isWhitespace(c) && c != '/') {
+      return null;
+    }
+    c = skipCommentsAndWhitespace(reader, c);
+    StringBuilder name = new StringBuilder();
+    while (c != -1 && (Character.isLetterOrDigit(c) || c == '_')) {
+      name.append((char) c);
+      c = reader.read();
+    }
+    if (name.length() == 0 || Character.isDigit(name.charAt(0))) {
+      return null;
+    }
+    String packageName = name.toString();
+    return packageName.endsWith(TEST_SUFFIX) && packageName.length() > TEST_SUFFIX.length()
+        ? packageName.substring(0, packageName.length() - TEST_SUFFIX.length())
+        : packageName;
+  }
+
+  private static int skipCommentsAndWhitespace(Reader reader) throws IOException {
+    int c = reader.read();
+    if (c == '\uFEFF') {
+      c = reader.read();
+    }
+    return skipCommentsAndWhitespace(reader, c);
+  }
+
+  /** Returns the first character which isn't part of a comment or whitespace. */
+  private static int skipCommentsAndWhitespace(Reader reader, int c) throws IOException {
+    while (true) {
+      if (isWhitespace(c)) {
+        c = reader.read();
+        continue;
+      }
+      if (c != '/') {
+        return c;
+      }
+      c = reader.read();
+      if (c == '/') {
+        do {
+          c = reader.read();
+        } while (c != -1 && c != '\n');
+      } else if (c == '*') {
+        int previous = 0;
+        c = reader.read();
+        while (c != -1 && !(previous == '*' && c == '/')) {
+          previous = c;
+          c = reader.read();
+        }
+        if (c == -1) {
+          return -1;
+        }
+        c = reader.read();
+      } else {
+        // a lone '/' can't precede the package clause
+        return '/';
+      }
+    }
+  }
+
+  private static boolean isWhitespace(int c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+  }
+}
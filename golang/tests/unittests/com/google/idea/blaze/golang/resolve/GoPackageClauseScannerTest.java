@@ -0,0 +1,77 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.golang.resolve;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.IOException;
+import java.io.StringReader;
+import javax.annotation.Nullable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link GoPackageClauseScanner}. */
+@RunWith(JUnit4.class)
+public class GoPackageClauseScannerTest {
+  @Test
+  public void testSimplePackageClause() throws IOException {
+    assertThat(scan("package foo\n\nimport \"fmt\"\n")).isEqualTo("foo");
+  }
+
+  @Test
+  public void testSkipsLeadingCommentsAndBuildConstraints() throws IOException {
+    assertThat(
+            scan(
+                "// Copyright header\n",
+                "/* block comment\n * package wrong\n */\n",
+                "//go:build linux\n",
+                "\n",
+                "package bar // trailing comment\n"))
+        .isEqualTo("bar");
+  }
+
+  @Test
+  public void testCommentBetweenKeywordAndName() throws IOException {
+    assertThat(scan("package/* comment */baz\n")).isEqualTo("baz");
+  }
+
+  @Test
+  public void testStripsTestSuffix() throws IOException {
+    assertThat(scan("package foo_test\n")).isEqualTo("foo");
+    assertThat(scan("package _test\n")).isEqualTo("_test");
+  }
+
+  @Test
+  public void testSkipsByteOrderMark() throws IOException {
+    assertThat(scan("\uFEFFpackage main\n")).isEqualTo("main");
+  }
+
+  @Test
+  public void testNoPackageClause() throws IOException {
+    assertThat(scan("")).isNull();
+    assertThat(scan("// only a comment\n")).isNull();
+    assertThat(scan("/* unterminated comment\npackage foo\n")).isNull();
+    assertThat(scan("import \"fmt\"\npackage foo\n")).isNull();
+    assertThat(scan("packagefoo\n")).isNull();
+    assertThat(scan("package 1foo\n")).isNull();
+  }
+
+  @Nullable
+  private static String scan(String... lines) throws IOException {
+    return GoPackageClauseScanner.scanPackageName(new StringReader(String.join("", lines)));
+  }
+}
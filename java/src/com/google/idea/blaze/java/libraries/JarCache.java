@@ -39,6 +39,9 @@ import com.google.idea.blaze.base.ideinfo.ArtifactLocation;
 import com.google.idea.blaze.base.ideinfo.LibraryArtifact;
 import com.google.idea.blaze.base.io.FileOperationProvider;
 import com.google.idea.blaze.base.io.FileSizeScanner;
+import com.google.idea.blaze.base.metrics.Counter;
+import com.google.idea.blaze.base.metrics.LatencyHistogram;
+import com.google.idea.blaze.base.metrics.MetricsRegistry;
 import com.google.idea.blaze.base.model.BlazeProjectData;
 import com.google.idea.blaze.base.model.RemoteOutputArtifacts;
 import com.google.idea.blaze.base.prefetch.FetchExecutor;
@@ -95,6 +98,18 @@ public class JarCache {
           AppExecutorUtil.createBoundedApplicationPoolExecutor(
               "JarRepackagerExecutor", /*maxThreads*/ 4));
 
+  private static final LatencyHistogram refreshTime =
+      MetricsRegistry.getInstance().histogram("jar_cache.refresh_time");
+  private static final LatencyHistogram copyTime =
+      MetricsRegistry.getInstance().histogram("jar_cache.copy_time");
+  private static final Counter jarsCopied =
+      MetricsRegistry.getInstance().counter("jar_cache.copied");
+  private static final Counter jarsRemoved =
+      MetricsRegistry.getInstance().counter("jar_cache.removed");
+  private static final Counter cacheHits = MetricsRegistry.getInstance().counter("jar_cache.hits");
+  private static final Counter cacheMisses =
+      MetricsRegistry.getInstance().counter("jar_cache.misses");
+
   private boolean isAvailable = !ApplicationManager.getApplication().isUnitTestMode();
 
   private final Project project;
@@ -195,6 +210,7 @@ public class JarCache {
       return;
     }
 
+    long start = System.nanoTime();
     ImmutableMap<String, BlazeArtifact> projectState =
         getArtifactsToCache(projectViewSet, projectData);
     ImmutableMap<String, File> cachedFiles = readFileState();
@@ -238,6 +254,8 @@ public class JarCache {
       }
 
       Futures.allAsList(futures).get();
+      jarsCopied.add(updated.size());
+      jarsRemoved.add(removed.size());
       if (!updated.isEmpty()) {
         context.output(PrintOutput.log(String.format("Copied %d jars", updated.size())));
       }
@@ -257,6 +275,7 @@ public class JarCache {
       // update the in-memory record of which files are cached
       ImmutableMap<String, File> state = readFileState();
       logCacheSize(context, state);
+      refreshTime.recordSince(start);
     }
   }
 
@@ -312,8 +331,10 @@ public class JarCache {
                 FetchExecutor.EXECUTOR.submit(
                     () -> {
                       File destination = jarCacheFolderProvider.getCacheFileByKey(key);
+                      long start = System.nanoTime();
                       try {
                         copyLocally(artifact, destination);
+                        copyTime.recordSince(start);
                       } catch (IOException e) {
                         logger.warn(
                             String.format(
@@ -540,7 +561,13 @@ public class JarCache {
   }
 
   private Optional<File> getCacheFile(String cacheKey) {
-    return Optional.ofNullable(cacheState.get(cacheKey));
+    File file = cacheState.get(cacheKey);
+    if (file != null) {
+      cacheHits.increment();
+    } else {
+      cacheMisses.increment();
+    }
+    return Optional.ofNullable(file);
   }
 
   /** The file to return if there's no locally cached version. */
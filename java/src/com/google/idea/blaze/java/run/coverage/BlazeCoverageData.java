@@ -17,32 +17,103 @@ package com.google.idea.blaze.java.run.coverage;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import gnu.trove.TIntIntHashMap;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 /** Blaze coverage data class. Parsed from LCOV-formatted blaze output. */
 class BlazeCoverageData {
 
   private static final Logger logger = Logger.getInstance(BlazeCoverageData.class);
 
+  /** The minimum number of lines parsed by each task. Chunks always end at a record boundary. */
+  private static final int CHUNK_LINES = 100_000;
+
+  private static final Supplier<ListeningExecutorService> executor =
+      Suppliers.memoize(
+          () ->
+              MoreExecutors.listeningDecorator(
+                  AppExecutorUtil.createBoundedApplicationPoolExecutor(
+                      "LcovParser", Runtime.getRuntime().availableProcessors())));
+
   static BlazeCoverageData parse(InputStream inputStream) throws IOException {
-    return LcovParser.parse(inputStream);
+    return parse(inputStream, CHUNK_LINES, executor);
+  }
+
+  @VisibleForTesting
+  static BlazeCoverageData parse(
+      InputStream inputStream, int chunkLines, Supplier<ListeningExecutorService> executor)
+      throws IOException {
+    return LcovParser.parse(inputStream, chunkLines, executor);
   }
 
   static class FileData {
     final String source;
-    final TIntIntHashMap lineHits;
+    /** The lines with coverage data, in increasing order. */
+    final int[] lines;
+    /** The number of hits of each line in {@link #lines}. */
+    final int[] hits;
 
-    private FileData(String source, TIntIntHashMap lineHits) {
+    private FileData(String source, int[] lines, int[] hits) {
       this.source = source;
-      this.lineHits = lineHits;
+      this.lines = lines;
+      this.hits = hits;
+    }
+
+    private static FileData create(String source, TIntIntHashMap lineHits) {
+      int[] lines = lineHits.keys();
+      Arrays.sort(lines);
+      int[] hits = new int[lines.length];
+      for (int i = 0; i < lines.length; i++) {
+        hits[i] = lineHits.get(lines[i]);
+      }
+      return new FileData(source, lines, hits);
+    }
+
+    int maxLineNumber() {
+      return lines[lines.length - 1];
+    }
+
+    /** Combines two records for the same source file, summing the hits of each line. */
+    private static FileData merge(FileData a, FileData b) {
+      int[] lines = new int[a.lines.length + b.lines.length];
+      int[] hits = new int[lines.length];
+      int i = 0;
+      int j = 0;
+      int size = 0;
+      while (i < a.lines.length || j < b.lines.length) {
+        if (j == b.lines.length || (i < a.lines.length && a.lines[i] < b.lines[j])) {
+          lines[size] = a.lines[i];
+          hits[size++] = a.hits[i++];
+        } else if (i == a.lines.length || b.lines[j] < a.lines[i]) {
+          lines[size] = b.lines[j];
+          hits[size++] = b.hits[j++];
+        } else {
+          lines[size] = a.lines[i];
+          hits[size++] = a.hits[i++] + b.hits[j++];
+        }
+      }
+      return new FileData(a.source, Arrays.copyOf(lines, size), Arrays.copyOf(hits, size));
     }
   }
 
@@ -52,32 +123,75 @@ class BlazeCoverageData {
     this.perFileData = perFileData;
   }
 
+  /**
+   * Parses LCOV tracefiles. The input is read sequentially, and split into chunks of whole records
+   * which are parsed in parallel. Records for the same source file (e.g. from the reports of
+   * different test targets) are merged.
+   */
   private static class LcovParser {
     // there are other valid lcov tracefile prefixes, but they're all ignored here
     static final String SF = "SF:";
     static final String DA = "DA:";
     static final String END_OF_RECORD = "end_of_record";
 
-    private static BlazeCoverageData parse(InputStream inputStream) throws IOException {
-      Map<String, FileData> map = new HashMap<>();
+    private static BlazeCoverageData parse(
+        InputStream inputStream, int chunkLines, Supplier<ListeningExecutorService> executor)
+        throws IOException {
+      List<ListenableFuture<List<FileData>>> futures = new ArrayList<>();
+      List<String> chunk = new ArrayList<>();
       BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, UTF_8));
       String line;
       while ((line = reader.readLine()) != null) {
+        chunk.add(line);
+        if (chunk.size() >= chunkLines && line.startsWith(END_OF_RECORD)) {
+          List<String> lines = chunk;
+          futures.add(executor.get().submit(() -> parseRecords(lines)));
+          chunk = new ArrayList<>();
+        }
+      }
+      // parse the remaining lines on this thread, rather than waiting idly
+      List<List<FileData>> records = new ArrayList<>();
+      records.add(parseRecords(chunk));
+      ListenableFuture<List<List<FileData>>> allRecords = Futures.allAsList(futures);
+      try {
+        records.addAll(allRecords.get());
+      } catch (InterruptedException e) {
+        allRecords.cancel(true);
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while parsing coverage data");
+      } catch (ExecutionException e) {
+        throw new IOException(e.getCause());
+      }
+
+      Map<String, FileData> map = new HashMap<>();
+      for (List<FileData> chunkRecords : records) {
+        for (FileData fileData : chunkRecords) {
+          map.merge(fileData.source, fileData, FileData::merge);
+        }
+      }
+      return new BlazeCoverageData(ImmutableMap.copyOf(map));
+    }
+
+    private static List<FileData> parseRecords(List<String> lines) {
+      List<FileData> records = new ArrayList<>();
+      Iterator<String> iterator = lines.iterator();
+      while (iterator.hasNext()) {
+        String line = iterator.next();
         if (line.startsWith(SF)) {
           String source = line.substring(SF.length());
-          TIntIntHashMap hits = parseHits(reader);
+          TIntIntHashMap hits = parseHits(iterator);
           if (!hits.isEmpty()) {
-            map.put(source, new FileData(source, hits));
+            records.add(FileData.create(source, hits));
           }
         }
       }
-      return new BlazeCoverageData(ImmutableMap.copyOf(map));
+      return records;
     }
 
-    private static TIntIntHashMap parseHits(BufferedReader reader) throws IOException {
+    private static TIntIntHashMap parseHits(Iterator<String> lines) {
       TIntIntHashMap hits = new TIntIntHashMap();
-      String line;
-      while ((line = reader.readLine()) != null) {
+      while (lines.hasNext()) {
+        String line = lines.next();
         if (line.startsWith(END_OF_RECORD)) {
           return hits;
         }
@@ -16,7 +16,6 @@
 package com.google.idea.blaze.java.run.coverage;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.primitives.Ints;
 import com.google.idea.blaze.base.model.BlazeProjectData;
 import com.google.idea.blaze.base.settings.Blaze;
 import com.google.idea.blaze.base.sync.data.BlazeProjectDataManager;
@@ -74,21 +73,16 @@ public class BlazeCoverageRunner extends CoverageRunner {
   }
 
   private static LineData[] fromFileData(FileData fileData) {
-    LineData[] lines = new LineData[maxLineNumber(fileData) + 1];
-    fileData.lineHits.forEachEntry(
-        (line, hits) -> {
-          LineData newLine = new LineData(line, null);
-          newLine.setHits(hits);
-          lines[line] = newLine;
-          return true;
-        });
+    LineData[] lines = new LineData[fileData.maxLineNumber() + 1];
+    for (int i = 0; i < fileData.lines.length; i++) {
+      int line = fileData.lines[i];
+      LineData newLine = new LineData(line, null);
+      newLine.setHits(fileData.hits[i]);
+      lines[line] = newLine;
+    }
     return lines;
   }
 
-  private static int maxLineNumber(FileData fileData) {
-    return Ints.max(fileData.lineHits.keys());
-  }
-
   @Override
   public String getPresentableName() {
     return Blaze.defaultBuildSystemName();
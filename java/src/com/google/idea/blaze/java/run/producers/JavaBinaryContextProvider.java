@@ -127,10 +127,9 @@ public class JavaBinaryContextProvider implements BinaryContextProvider {
   }
 
   private static FilteredTargetMap computeTargetMap(Project project, BlazeProjectData projectData) {
-    return new FilteredTargetMap(
+    return FilteredTargetMap.create(
         project,
-        projectData.getArtifactLocationDecoder(),
-        projectData.getTargetMap(),
+        projectData,
         target ->
             target.isPlainTarget()
                 && target.getKind().hasLanguage(LanguageClass.JAVA)
@@ -19,14 +19,12 @@ import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.idea.blaze.java.run.coverage.BlazeCoverageData.FileData;
-import gnu.trove.TIntIntHashMap;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.function.Function;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -56,11 +54,11 @@ public class BlazeCoverageDataTest {
 
     FileData fileData = data.perFileData.get("path/to/file.txt");
     assertThat(fileData.source).isEqualTo("path/to/file.txt");
-    assertThat(toMap(fileData.lineHits)).containsExactly(4, 0, 8, 0, 9, 1, 23, 3);
+    assertThat(toMap(fileData)).containsExactly(4, 0, 8, 0, 9, 1, 23, 3);
 
     fileData = data.perFileData.get("path/to/another/file.txt");
     assertThat(fileData.source).isEqualTo("path/to/another/file.txt");
-    assertThat(toMap(fileData.lineHits)).containsExactly(1, 1, 2, 2, 5, 0, 123, 1);
+    assertThat(toMap(fileData)).containsExactly(1, 1, 2, 2, 5, 0, 123, 1);
   }
 
   @Test
@@ -81,10 +79,56 @@ public class BlazeCoverageDataTest {
     assertThat(data.perFileData.keySet()).containsExactly("path/to/another/file.txt");
   }
 
-  private static ImmutableMap<Integer, Integer> toMap(TIntIntHashMap troveMap) {
-    return Arrays.stream(troveMap.keys())
-        .boxed()
-        .collect(ImmutableMap.toImmutableMap(Function.identity(), troveMap::get));
+  @Test
+  public void testRecordsForSameFileMerged() throws IOException {
+    BlazeCoverageData data =
+        BlazeCoverageData.parse(
+            inputStream(
+                "SF:path/to/file.txt",
+                "DA:4,0",
+                "DA:8,1",
+                "end_of_record",
+                "SF:path/to/file.txt",
+                "DA:2,1",
+                "DA:4,2",
+                "DA:8,1",
+                "end_of_record"));
+    assertThat(data.perFileData).hasSize(1);
+
+    FileData fileData = data.perFileData.get("path/to/file.txt");
+    assertThat(fileData.lines).asList().containsExactly(2, 4, 8).inOrder();
+    assertThat(toMap(fileData)).containsExactly(2, 1, 4, 2, 8, 2);
+  }
+
+  @Test
+  public void testParseInChunks() throws IOException {
+    InputStream inputStream =
+        inputStream(
+            "SF:path/to/file.txt",
+            "DA:4,0",
+            "DA:8,0",
+            "end_of_record",
+            "SF:path/to/another/file.txt",
+            "DA:1,1",
+            "end_of_record",
+            "SF:path/to/file.txt",
+            "DA:8,3",
+            "end_of_record");
+    BlazeCoverageData data =
+        BlazeCoverageData.parse(
+            inputStream, /* chunkLines= */ 1, MoreExecutors::newDirectExecutorService);
+    assertThat(data.perFileData.keySet())
+        .containsExactly("path/to/file.txt", "path/to/another/file.txt");
+    assertThat(toMap(data.perFileData.get("path/to/file.txt"))).containsExactly(4, 0, 8, 3);
+    assertThat(toMap(data.perFileData.get("path/to/another/file.txt"))).containsExactly(1, 1);
+  }
+
+  private static ImmutableMap<Integer, Integer> toMap(FileData fileData) {
+    ImmutableMap.Builder<Integer, Integer> map = ImmutableMap.builder();
+    for (int i = 0; i < fileData.lines.length; i++) {
+      map.put(fileData.lines[i], fileData.hits[i]);
+    }
+    return map.build();
   }
 
   private static InputStream inputStream(String... lines) {
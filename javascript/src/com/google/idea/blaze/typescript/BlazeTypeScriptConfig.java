@@ -22,6 +22,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 import com.google.idea.blaze.base.command.info.BlazeInfo;
 import com.google.idea.blaze.base.io.FileOperationProvider;
 import com.google.idea.blaze.base.io.InputStreamProvider;
@@ -73,7 +74,10 @@ import java.util.stream.Stream;
  * TypeScriptConfig} cares about.
  *
  * <p>Resolves all the symlinks under tsconfig.runfiles, and adds all of their roots to the paths
- * substitutions.
+ * substitutions. The paths substitutions and files list are only resolved on first access.
+ *
+ * <p>Records the modification times of both files when loaded, so that the parsed JSON of unchanged
+ * configs can be reused across syncs. See {@link #isUpToDate} and {@link #reuseParsedJson}.
  */
 class BlazeTypeScriptConfig extends TypeScriptConfigAdapter {
   private static final Logger logger = Logger.getInstance(BlazeTypeScriptConfig.class);
@@ -81,6 +85,11 @@ class BlazeTypeScriptConfig extends TypeScriptConfigAdapter {
   private final Project project;
   private final Label label;
   private final VirtualFile configFile;
+  private final File tsconfig;
+  private final long tsconfigTimestamp;
+  private final File tsconfigEditorLink;
+  private final File tsconfigEditor;
+  private final long tsconfigEditorTimestamp;
   private final String workspaceRelativePathPrefix;
   private final String workspaceRelativePathReplacement;
 
@@ -102,7 +111,8 @@ class BlazeTypeScriptConfig extends TypeScriptConfigAdapter {
   private boolean noImplicitAny = true;
   private boolean noImplicitThis = true;
   private boolean noLib = true;
-  private final List<JSModulePathSubstitution> paths = new ArrayList<>();
+  @Nullable private JsonObject pathsJson;
+  private final NotNullLazyValue<ImmutableList<JSModulePathSubstitution>> paths;
   private final List<String> plugins = new ArrayList<>();
   private final List<String> rootDirs = new ArrayList<>();
   private final NotNullLazyValue<ImmutableList<VirtualFile>> rootDirsFiles;
@@ -116,7 +126,7 @@ class BlazeTypeScriptConfig extends TypeScriptConfigAdapter {
   private final NotNullLazyValue<List<VirtualFile>> files;
 
   @Nullable
-  static TypeScriptConfig getInstance(Project project, Label label, File tsconfig) {
+  static BlazeTypeScriptConfig getInstance(Project project, Label label, File tsconfig) {
     WorkspaceRoot workspaceRoot = WorkspaceRoot.fromProject(project);
 
     // as seen by the project
@@ -125,19 +135,20 @@ class BlazeTypeScriptConfig extends TypeScriptConfigAdapter {
       return null;
     }
 
+    FileOperationProvider fOps = FileOperationProvider.getInstance();
+    // read before parsing, so a concurrent modification is picked up by the next update
+    long tsconfigTimestamp = fOps.getFileModifiedTime(tsconfig);
+    File tsconfigEditorLink;
     File tsconfigEditor;
     try {
-      JsonObject object =
-          new JsonParser()
-              .parse(
-                  new InputStreamReader(
-                      InputStreamProvider.getInstance().forFile(tsconfig), Charsets.UTF_8))
-              .getAsJsonObject();
-      tsconfigEditor =
-          FileOperationProvider.getInstance()
-              .getCanonicalFile(
-                  new File(tsconfig.getParentFile(), object.get("extends").getAsString()));
-    } catch (IOException e) {
+      String extendsPath = readExtends(tsconfig);
+      if (extendsPath == null) {
+        logger.warn("No 'extends' in " + tsconfig);
+        return null;
+      }
+      tsconfigEditorLink = new File(tsconfig.getParentFile(), extendsPath);
+      tsconfigEditor = fOps.getCanonicalFile(tsconfigEditorLink);
+    } catch (IOException | IllegalStateException e) {
       logger.warn(e);
       return null;
     }
@@ -156,12 +167,84 @@ class BlazeTypeScriptConfig extends TypeScriptConfigAdapter {
             .relativize(workspaceRoot.directory().toPath())
             .toString();
 
-    return FileOperationProvider.getInstance().exists(tsconfigEditor)
+    return fOps.exists(tsconfigEditor)
         ? new BlazeTypeScriptConfig(
-            project, label, configFile, tsconfigEditor, workspacePrefix, workspaceRelativePath)
+            project,
+            label,
+            configFile,
+            tsconfig,
+            tsconfigTimestamp,
+            tsconfigEditorLink,
+            tsconfigEditor,
+            workspacePrefix,
+            workspaceRelativePath)
         : null;
   }
 
+  /**
+   * Reads the 'extends' property of a tsconfig.json, without parsing the rest of the file into a
+   * tree.
+   */
+  @Nullable
+  private static String readExtends(File tsconfig) throws IOException {
+    try (JsonReader reader = newJsonReader(tsconfig)) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        if (reader.nextName().equals("extends")) {
+          return reader.nextString();
+        }
+        reader.skipValue();
+      }
+      return null;
+    }
+  }
+
+  /** tsconfig files may contain comments, so they're read leniently. */
+  private static JsonReader newJsonReader(File file) throws IOException {
+    JsonReader reader =
+        new JsonReader(
+            new InputStreamReader(
+                InputStreamProvider.getInstance().forFile(file), Charsets.UTF_8));
+    reader.setLenient(true);
+    return reader;
+  }
+
+  /**
+   * Returns true if neither the tsconfig.json nor the tsconfig_editor.json it extends have changed
+   * since this config was loaded, so it can be reused for the given tsconfig.json.
+   *
+   * <p>This also checks that the tsconfig_editor.json still resolves to the same file, since the
+   * blaze-bin symlink may have changed.
+   */
+  boolean isUpToDate(File tsconfig) {
+    if (!this.tsconfig.equals(tsconfig) || !configFile.isValid()) {
+      return false;
+    }
+    FileOperationProvider fOps = FileOperationProvider.getInstance();
+    if (fOps.getFileModifiedTime(tsconfig) != tsconfigTimestamp) {
+      return false;
+    }
+    try {
+      if (!fOps.getCanonicalFile(tsconfigEditorLink).equals(tsconfigEditor)) {
+        return false;
+      }
+    } catch (IOException e) {
+      return false;
+    }
+    return fOps.getFileModifiedTime(tsconfigEditor) == tsconfigEditorTimestamp;
+  }
+
+  /**
+   * Returns a new config for the same, unchanged tsconfig files, without parsing them again.
+   *
+   * <p>Everything resolved against the file system (files list, base URL, root dirs, paths, symlink
+   * targets) is resolved again on first access, since it may have changed even though the
+   * tsconfig files haven't.
+   */
+  BlazeTypeScriptConfig reuseParsedJson() {
+    return new BlazeTypeScriptConfig(this);
+  }
+
   /**
    * This is the prefix used by paths in the tsconfig to refer to files in the workspace.
    *
@@ -194,12 +277,83 @@ class BlazeTypeScriptConfig extends TypeScriptConfigAdapter {
       Project project,
       Label label,
       VirtualFile configFile,
+      File tsconfig,
+      long tsconfigTimestamp,
+      File tsconfigEditorLink,
       File tsconfigEditor,
       String workspaceRelativePathPrefix,
       String workspaceRelativePathReplacement) {
+    this(
+        project,
+        label,
+        configFile,
+        tsconfig,
+        tsconfigTimestamp,
+        tsconfigEditorLink,
+        tsconfigEditor,
+        FileOperationProvider.getInstance().getFileModifiedTime(tsconfigEditor),
+        workspaceRelativePathPrefix,
+        workspaceRelativePathReplacement);
+    try (JsonReader reader = newJsonReader(tsconfigEditor)) {
+      parseJson(reader);
+    } catch (IOException | IllegalStateException e) {
+      logger.warn(e);
+    }
+  }
+
+  /** Copies the parsed JSON of the given config. */
+  private BlazeTypeScriptConfig(BlazeTypeScriptConfig parsed) {
+    this(
+        parsed.project,
+        parsed.label,
+        parsed.configFile,
+        parsed.tsconfig,
+        parsed.tsconfigTimestamp,
+        parsed.tsconfigEditorLink,
+        parsed.tsconfigEditor,
+        parsed.tsconfigEditorTimestamp,
+        parsed.workspaceRelativePathPrefix,
+        parsed.workspaceRelativePathReplacement);
+    this.compileOnSave = parsed.compileOnSave;
+    this.compilerOptions = parsed.compilerOptions;
+    this.baseUrl = parsed.baseUrl;
+    this.inlineSourceMap = parsed.inlineSourceMap;
+    this.jsxFactory = parsed.jsxFactory;
+    this.module = parsed.module;
+    this.moduleResolution = parsed.moduleResolution;
+    this.noImplicitAny = parsed.noImplicitAny;
+    this.noImplicitThis = parsed.noImplicitThis;
+    this.noLib = parsed.noLib;
+    this.pathsJson = parsed.pathsJson;
+    this.plugins.addAll(parsed.plugins);
+    this.rootDirs.addAll(parsed.rootDirs);
+    this.sourceMap = parsed.sourceMap;
+    this.strictNullChecks = parsed.strictNullChecks;
+    this.target = parsed.target;
+    this.types.addAll(parsed.types);
+    this.filesStrings.addAll(parsed.filesStrings);
+  }
+
+  /** Sets up everything other than the parsed JSON. File system state is resolved lazily. */
+  private BlazeTypeScriptConfig(
+      Project project,
+      Label label,
+      VirtualFile configFile,
+      File tsconfig,
+      long tsconfigTimestamp,
+      File tsconfigEditorLink,
+      File tsconfigEditor,
+      long tsconfigEditorTimestamp,
+      String workspaceRelativePathPrefix,
+      String workspaceRelativePathReplacement) {
     this.project = project;
     this.label = label;
     this.configFile = configFile;
+    this.tsconfig = tsconfig;
+    this.tsconfigTimestamp = tsconfigTimestamp;
+    this.tsconfigEditorLink = tsconfigEditorLink;
+    this.tsconfigEditor = tsconfigEditor;
+    this.tsconfigEditorTimestamp = tsconfigEditorTimestamp;
     this.workspaceRelativePathPrefix = workspaceRelativePathPrefix;
     this.workspaceRelativePathReplacement = workspaceRelativePathReplacement;
 
@@ -228,6 +382,7 @@ class BlazeTypeScriptConfig extends TypeScriptConfigAdapter {
                   .collect(ImmutableList.toImmutableList());
             });
     this.files = NotNullLazyValue.createValue(this::resolveFilesList);
+    this.paths = NotNullLazyValue.createValue(this::resolvePaths);
     this.dependencies =
         NotNullLazyValue.createValue(
             () -> {
@@ -243,47 +398,41 @@ class BlazeTypeScriptConfig extends TypeScriptConfigAdapter {
         NotNullLazyValue.createValue(
             () -> TypeScriptImportsResolverProvider.getResolver(project, this));
     initImportsStructure(project);
-
-    try {
-      parseJson(
-          new JsonParser()
-              .parse(
-                  new InputStreamReader(
-                      InputStreamProvider.getInstance().forFile(tsconfigEditor), Charsets.UTF_8))
-              .getAsJsonObject());
-    } catch (IOException e) {
-      logger.warn(e);
-    }
   }
 
-  private void parseJson(JsonObject json) {
-    for (Map.Entry<String, JsonElement> entry : json.entrySet()) {
-      String name = entry.getKey();
-      JsonElement value = entry.getValue();
-      switch (name) {
+  /**
+   * Streams the top level of tsconfig_editor.json, so that the (potentially very long) files list
+   * is never materialized as a JSON tree. The compiler options are small, and kept as a tree for
+   * {@link #getRawCompilerOption}.
+   */
+  private void parseJson(JsonReader reader) throws IOException {
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
         case "compileOnSave":
-          this.compileOnSave = value.getAsBoolean();
+          this.compileOnSave = reader.nextBoolean();
           break;
         case "compilerOptions":
-          parseCompilerOptions(value.getAsJsonObject());
+          parseCompilerOptions(new JsonParser().parse(reader).getAsJsonObject());
           break;
         case "files":
-          for (JsonElement path : value.getAsJsonArray()) {
-            String pathString = path.getAsString();
-            {
-              if (pathString.startsWith(workspaceRelativePathPrefix)) {
-                pathString =
-                    workspaceRelativePathReplacement
-                        + pathString.substring(workspaceRelativePathPrefix.length());
-              }
-            }
-            this.filesStrings.add(pathString);
+          reader.beginArray();
+          while (reader.hasNext()) {
+            this.filesStrings.add(toWorkspaceRelativePath(reader.nextString()));
           }
+          reader.endArray();
           break;
         default:
-          // ignored
+          reader.skipValue();
       }
     }
+    reader.endObject();
+  }
+
+  private String toWorkspaceRelativePath(String path) {
+    return path.startsWith(workspaceRelativePathPrefix)
+        ? workspaceRelativePathReplacement + path.substring(workspaceRelativePathPrefix.length())
+        : path;
   }
 
   private void parseCompilerOptions(JsonObject json) {
@@ -337,7 +486,7 @@ class BlazeTypeScriptConfig extends TypeScriptConfigAdapter {
           this.noLib = value.getAsBoolean();
           break;
         case "paths":
-          parsePaths(value.getAsJsonObject());
+          this.pathsJson = value.getAsJsonObject();
           break;
         case "plugins":
           for (JsonElement plugin : value.getAsJsonArray()) {
@@ -346,13 +495,7 @@ class BlazeTypeScriptConfig extends TypeScriptConfigAdapter {
           break;
         case "rootDirs":
           for (JsonElement rootDir : value.getAsJsonArray()) {
-            String rootDirString = rootDir.getAsString();
-            if (rootDirString.startsWith(workspaceRelativePathPrefix)) {
-              rootDirString =
-                  workspaceRelativePathReplacement
-                      + rootDirString.substring(workspaceRelativePathPrefix.length());
-            }
-            rootDirs.add(rootDirString);
+            rootDirs.add(toWorkspaceRelativePath(rootDir.getAsString()));
           }
           break;
         case "sourceMap":
@@ -391,7 +534,11 @@ class BlazeTypeScriptConfig extends TypeScriptConfigAdapter {
     }
   }
 
-  private void parsePaths(JsonObject json) {
+  private ImmutableList<JSModulePathSubstitution> resolvePaths() {
+    JsonObject json = pathsJson;
+    if (json == null) {
+      return ImmutableList.of();
+    }
     String runfilesPrefix = null;
     List<String> alternativePrefixes = new ArrayList<>();
     VirtualFile base = baseUrlFile.getValue();
@@ -427,20 +574,16 @@ class BlazeTypeScriptConfig extends TypeScriptConfigAdapter {
       runfilesPrefix = "./" + label.targetName() + ".runfiles/" + workspaceRoot.getName();
     }
 
+    ImmutableList.Builder<JSModulePathSubstitution> paths = ImmutableList.builder();
     for (Map.Entry<String, JsonElement> entry : json.entrySet()) {
       String name = entry.getKey();
       List<String> mappings = new ArrayList<>();
       for (JsonElement path : entry.getValue().getAsJsonArray()) {
-        String pathString = path.getAsString();
-        if (pathString.startsWith(workspaceRelativePathPrefix)) {
-          pathString =
-              workspaceRelativePathReplacement
-                  + pathString.substring(workspaceRelativePathPrefix.length());
-        }
-        mappings.add(pathString);
+        mappings.add(toWorkspaceRelativePath(path.getAsString()));
       }
       paths.add(new PathSubstitution(name, mappings, alternativePrefixes, runfilesPrefix));
     }
+    return paths.build();
   }
 
   private ImmutableList<VirtualFile> resolveFilesList() {
@@ -466,6 +609,10 @@ class BlazeTypeScriptConfig extends TypeScriptConfigAdapter {
         .collect(ImmutableList.toImmutableList());
   }
 
+  Label getLabel() {
+    return label;
+  }
+
   @Override
   public boolean isDirectoryBased() {
     return false;
@@ -483,7 +630,7 @@ class BlazeTypeScriptConfig extends TypeScriptConfigAdapter {
 
   @Override
   public Collection<JSModulePathSubstitution> getPaths() {
-    return paths;
+    return paths.getValue();
   }
 
   @Override
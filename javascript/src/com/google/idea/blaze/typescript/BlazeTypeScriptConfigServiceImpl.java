@@ -21,6 +21,10 @@ import com.google.common.base.Functions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.idea.blaze.base.model.primitives.Label;
 import com.google.idea.blaze.base.sync.BlazeSyncModificationTracker;
 import com.google.idea.common.experiments.BoolExperiment;
@@ -38,14 +42,17 @@ import com.intellij.openapi.util.Condition;
 import com.intellij.openapi.util.ModificationTracker;
 import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 
@@ -54,10 +61,17 @@ class BlazeTypeScriptConfigServiceImpl implements TypeScriptConfigService {
   private static final BoolExperiment restartTypeScriptService =
       new BoolExperiment("restart.typescript.service", true);
 
+  /** Loads tsconfig files, without competing with other users of the common fork-join pool. */
+  private static final ListeningExecutorService executor =
+      MoreExecutors.listeningDecorator(
+          AppExecutorUtil.createBoundedApplicationPoolExecutor(
+              "TypeScriptConfigLoader", Runtime.getRuntime().availableProcessors()));
+
   private final Project project;
   private final List<TypeScriptConfigsChangedListener> listeners;
 
   private volatile ImmutableMap<VirtualFile, TypeScriptConfig> configs;
+  private volatile ImmutableMap<Label, BlazeTypeScriptConfig> configsByLabel = ImmutableMap.of();
   private final AtomicInteger configsHash = new AtomicInteger(Objects.hash());
 
   BlazeTypeScriptConfigServiceImpl(Project project) {
@@ -71,6 +85,10 @@ class BlazeTypeScriptConfigServiceImpl implements TypeScriptConfigService {
    *
    * <p>This uses multiple file operations to check timestamps and reload the files list, so should
    * not be called on the EDT or with a read lock.
+   *
+   * <p>Configs whose files haven't changed since the previous update reuse their parsed JSON,
+   * rather than being reloaded. A config which fails to load is dropped without affecting the
+   * others.
    */
   void update(ImmutableMap<Label, File> tsconfigs) {
     Application application = ApplicationManager.getApplication();
@@ -78,12 +96,47 @@ class BlazeTypeScriptConfigServiceImpl implements TypeScriptConfigService {
       logger.error("Updating tsconfig files on EDT or with a read lock.");
       return;
     }
+    ImmutableMap<Label, BlazeTypeScriptConfig> previousConfigs = configsByLabel;
+    List<ListenableFuture<BlazeTypeScriptConfig>> futures = new ArrayList<>();
+    for (Map.Entry<Label, File> entry : tsconfigs.entrySet()) {
+      Label label = entry.getKey();
+      File tsconfig = entry.getValue();
+      BlazeTypeScriptConfig previous = previousConfigs.get(label);
+      ListenableFuture<BlazeTypeScriptConfig> future =
+          executor.submit(
+              () ->
+                  previous != null && previous.isUpToDate(tsconfig)
+                      ? previous.reuseParsedJson()
+                      : BlazeTypeScriptConfig.getInstance(project, label, tsconfig));
+      futures.add(
+          Futures.catching(
+              future,
+              RuntimeException.class,
+              e -> {
+                logger.warn("Failed to load " + tsconfig, e);
+                return null;
+              },
+              MoreExecutors.directExecutor()));
+    }
+    List<BlazeTypeScriptConfig> loadedConfigs;
+    try {
+      loadedConfigs = Futures.allAsList(futures).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    } catch (ExecutionException e) {
+      logger.warn("Failed to load tsconfig files", e);
+      return;
+    }
+    ImmutableMap.Builder<Label, BlazeTypeScriptConfig> byLabel = ImmutableMap.builder();
+    for (BlazeTypeScriptConfig config : loadedConfigs) {
+      if (config != null) {
+        byLabel.put(config.getLabel(), config);
+      }
+    }
+    configsByLabel = byLabel.build();
     configs =
-        tsconfigs.entrySet().parallelStream()
-            .map(
-                entry ->
-                    BlazeTypeScriptConfig.getInstance(project, entry.getKey(), entry.getValue()))
-            .filter(Objects::nonNull)
+        configsByLabel.values().stream()
             .collect(
                 ImmutableMap.toImmutableMap(TypeScriptConfig::getConfigFile, Functions.identity()));
     for (TypeScriptConfigsChangedListener listener : listeners) {
@@ -32,6 +32,7 @@ import com.intellij.lang.javascript.frameworks.modules.JSModulePathSubstitution;
 import com.intellij.lang.typescript.tsconfig.TypeScriptConfig;
 import com.intellij.lang.typescript.tsconfig.TypeScriptConfigServiceImpl;
 import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.application.WriteAction;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiDirectory;
@@ -291,6 +292,97 @@ public class BlazeTypeScriptConfigTest extends BlazeIntegrationTestCase {
             psi("/src/out/execroot/bin/project/foo/tsconfig.runfiles/workspace/project/foo"));
   }
 
+  @Test
+  public void testUnchangedConfigReused() {
+    TypeScriptConfig blazeConfig = blazeConfigService.getTypeScriptConfigs().get(0);
+    blazeConfigService.update(
+        ImmutableMap.of(
+            Label.create("//project/foo:tsconfig"),
+            new File("/src/workspace/project/foo/tsconfig.json")));
+    assertThat(blazeConfigService.getTypeScriptConfigs()).hasSize(1);
+    TypeScriptConfig reused = blazeConfigService.getTypeScriptConfigs().get(0);
+    assertThat(reused.getConfigFile()).isEqualTo(blazeConfig.getConfigFile());
+    assertThat(reused.getPlugins()).isEqualTo(blazeConfig.getPlugins());
+    assertThat(reused.getTypes()).isEqualTo(blazeConfig.getTypes());
+  }
+
+  @Test
+  public void testUnchangedConfigResolvesFilesAgain() throws Exception {
+    TypeScriptConfig blazeConfig = blazeConfigService.getTypeScriptConfigs().get(0);
+    VirtualFile includedSource = vf("/src/workspace/project/foo/included.ts");
+    assertThat(blazeConfig.getFileList()).contains(includedSource);
+
+    WriteAction.runAndWait(() -> includedSource.delete(this));
+    blazeConfigService.update(
+        ImmutableMap.of(
+            Label.create("//project/foo:tsconfig"),
+            new File("/src/workspace/project/foo/tsconfig.json")));
+
+    assertThat(blazeConfigService.getTypeScriptConfigs()).hasSize(1);
+    assertThat(blazeConfigService.getTypeScriptConfigs().get(0).getFileList())
+        .containsExactly(
+            vf(
+                "/src/out/execroot/bin/project/foo/tsconfig.runfiles/workspace/javascript/closure/base.d.ts"));
+  }
+
+  @Test
+  public void testModifiedConfigReloaded() throws Exception {
+    TypeScriptConfig blazeConfig = blazeConfigService.getTypeScriptConfigs().get(0);
+    VirtualFile tsconfigEditor = vf("/src/out/execroot/bin/project/foo/tsconfig_editor.json");
+    WriteAction.runAndWait(
+        () ->
+            tsconfigEditor.setBinaryContent(
+                tsconfigEditor.contentsToByteArray(), -1, tsconfigEditor.getTimeStamp() + 1000));
+    blazeConfigService.update(
+        ImmutableMap.of(
+            Label.create("//project/foo:tsconfig"),
+            new File("/src/workspace/project/foo/tsconfig.json")));
+    assertThat(blazeConfigService.getTypeScriptConfigs()).hasSize(1);
+    assertThat(blazeConfigService.getTypeScriptConfigs().get(0)).isNotSameInstanceAs(blazeConfig);
+  }
+
+  @Test
+  public void testCommentedConfigParsed() {
+    fileSystem.createFile(
+        "/src/workspace/project/bar/tsconfig.json",
+        "// generated by the tsconfig rule",
+        "{",
+        "  /* the editor config */",
+        "  \"extends\": \"../../bazel-bin/project/bar/tsconfig_editor.json\"",
+        "}");
+    String[] tsconfigEditorContents =
+        new String[] {
+          "{",
+          "    // only the ide plugins are set",
+          "    \"compilerOptions\": {",
+          "        \"plugins\": [",
+          "            {\"name\": \"ide_performance\"} // the plugin",
+          "        ]",
+          "    },",
+          "    /* the sources */",
+          "    \"files\": [",
+          "        \"../../../project/bar/included.ts\"",
+          "    ]",
+          "}"
+        };
+    fileSystem.createFile(
+        "/src/out/execroot/bin/project/bar/tsconfig_editor.json", tsconfigEditorContents);
+    fileSystem.createFile(
+        "/src/workspace/bazel-bin/project/bar/tsconfig_editor.json", tsconfigEditorContents);
+    fileSystem.createFile("/src/workspace/project/bar/included.ts");
+
+    blazeConfigService.update(
+        ImmutableMap.of(
+            Label.create("//project/bar:tsconfig"),
+            new File("/src/workspace/project/bar/tsconfig.json")));
+
+    assertThat(blazeConfigService.getTypeScriptConfigs()).hasSize(1);
+    TypeScriptConfig blazeConfig = blazeConfigService.getTypeScriptConfigs().get(0);
+    assertThat(blazeConfig.getPlugins()).containsExactly("ide_performance");
+    assertThat(blazeConfig.getFileList())
+        .containsExactly(vf("/src/workspace/project/bar/included.ts"));
+  }
+
   private static VirtualFile vf(String path) {
     VirtualFile resolved = VfsUtils.resolveVirtualFile(new File(path), false);
     assertThat(resolved).isNotNull();
@@ -117,10 +117,9 @@ class KotlinBinaryContextProvider implements BinaryContextProvider {
   }
 
   private static FilteredTargetMap computeTargetMap(Project project, BlazeProjectData projectData) {
-    return new FilteredTargetMap(
+    return FilteredTargetMap.create(
         project,
-        projectData.getArtifactLocationDecoder(),
-        projectData.getTargetMap(),
+        projectData,
         KotlinBinaryContextProvider::possiblyRelevantTarget);
   }
 
@@ -15,15 +15,8 @@
  */
 package com.google.idea.blaze.python.resolve.provider;
 
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSetMultimap;
 import com.google.idea.blaze.base.command.buildresult.OutputArtifactResolver;
 import com.google.idea.blaze.base.ideinfo.ArtifactLocation;
-import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
-import com.google.idea.blaze.base.model.BlazeProjectData;
-import com.google.idea.blaze.base.model.primitives.LanguageClass;
-import com.google.idea.blaze.base.sync.SyncCache;
 import com.google.idea.blaze.base.sync.workspace.ArtifactLocationDecoder;
 import com.google.idea.blaze.python.resolve.BlazePyResolverUtils;
 import com.intellij.openapi.project.Project;
@@ -39,9 +32,6 @@ import com.jetbrains.python.codeInsight.imports.AutoImportQuickFix;
 import com.jetbrains.python.psi.PyUtil;
 import com.jetbrains.python.psi.resolve.PyQualifiedNameResolveContext;
 import java.io.File;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 import javax.annotation.Nullable;
 
 /**
@@ -54,29 +44,30 @@ public abstract class AbstractPyImportResolverStrategy implements PyImportResolv
   @Override
   public final PsiElement resolveFromSyncData(
       QualifiedName name, PyQualifiedNameResolveContext context) {
-    PySourcesIndex index = getSourcesIndex(context.getProject());
+    Project project = context.getProject();
+    PySourcesIndex index = PySourcesIndexManager.getInstance(project).getIndex(this);
     if (index == null) {
       return null;
     }
-    PsiElementProvider resolver = index.sourceMap.get(name);
-    return resolver != null ? resolver.get(context.getPsiManager()) : null;
+    PySourcesIndex.Entry entry = index.get(name);
+    return entry != null ? resolve(project, index, entry, context.getPsiManager()) : null;
   }
 
   @Override
   public final void addImportCandidates(
       PsiReference reference, String name, AutoImportQuickFix quickFix) {
     Project project = reference.getElement().getProject();
-    PySourcesIndex index = getSourcesIndex(project);
+    PySourcesIndex index = PySourcesIndexManager.getInstance(project).getIndex(this);
     if (index == null) {
       return;
     }
     PsiManager psiManager = PsiManager.getInstance(project);
-    for (QualifiedName candidate : index.shortNames.get(name)) {
-      PsiElementProvider resolver = index.sourceMap.get(candidate);
-      if (resolver == null) {
+    for (QualifiedName candidate : index.getByShortName(name)) {
+      PySourcesIndex.Entry entry = index.get(candidate);
+      if (entry == null) {
         continue;
       }
-      PsiElement psi = PyUtil.turnDirIntoInit(resolver.get(psiManager));
+      PsiElement psi = PyUtil.turnDirIntoInit(resolve(project, index, entry, psiManager));
       if (psi == null) {
         continue;
       }
@@ -88,30 +79,13 @@ public abstract class AbstractPyImportResolverStrategy implements PyImportResolv
   }
 
   @Nullable
-  private PySourcesIndex getSourcesIndex(Project project) {
-    return SyncCache.getInstance(project).get(getClass(), this::buildSourcesIndex);
-  }
-
-  @SuppressWarnings("unused")
-  private PySourcesIndex buildSourcesIndex(Project project, BlazeProjectData projectData) {
-    ImmutableSetMultimap.Builder<String, QualifiedName> shortNames = ImmutableSetMultimap.builder();
-    Map<QualifiedName, PsiElementProvider> map = new HashMap<>();
-    ArtifactLocationDecoder decoder = projectData.getArtifactLocationDecoder();
-    for (TargetIdeInfo target : projectData.getTargetMap().targets()) {
-      for (ArtifactLocation source : getPySources(target)) {
-        QualifiedName name = toImportString(source);
-        if (name == null || name.getLastComponent() == null) {
-          continue;
-        }
-        shortNames.put(name.getLastComponent(), name);
-        PsiElementProvider psiProvider = psiProviderFromArtifact(project, decoder, source);
-        map.put(name, psiProvider);
-        if (includeParentDirectory(source)) {
-          map.put(name.removeTail(1), PsiElementProvider.getParent(psiProvider));
-        }
-      }
+  private static PsiElement resolve(
+      Project project, PySourcesIndex index, PySourcesIndex.Entry entry, PsiManager manager) {
+    PsiElementProvider psiProvider = psiProviderFromArtifact(project, index.decoder, entry.source);
+    if (entry.parentDirectory) {
+      psiProvider = PsiElementProvider.getParent(psiProvider);
     }
-    return new PySourcesIndex(shortNames.build(), ImmutableMap.copyOf(map));
+    return psiProvider.get(manager);
   }
 
   private static PsiElementProvider psiProviderFromArtifact(
@@ -128,24 +102,10 @@ public abstract class AbstractPyImportResolverStrategy implements PyImportResolv
     };
   }
 
-  private static Collection<ArtifactLocation> getPySources(TargetIdeInfo target) {
-    if (target.getPyIdeInfo() != null) {
-      return target.getPyIdeInfo().getSources();
-    }
-    if (target.getKind().hasLanguage(LanguageClass.PYTHON)) {
-      return target.getSources();
-    }
-    return ImmutableList.of();
-  }
-
   /** Maps a blaze artifact to the import string used to reference it. */
   @Nullable
   abstract QualifiedName toImportString(ArtifactLocation source);
 
-  private static boolean includeParentDirectory(ArtifactLocation source) {
-    return source.getRelativePath().endsWith(".py");
-  }
-
   static QualifiedName fromRelativePath(String relativePath) {
     relativePath = StringUtil.trimEnd(relativePath, File.separator + PyNames.INIT_DOT_PY);
     relativePath = StringUtil.trimExtensions(relativePath);
@@ -15,19 +15,117 @@
  */
 package com.google.idea.blaze.python.resolve.provider;
 
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.idea.blaze.base.ideinfo.ArtifactLocation;
+import com.google.idea.blaze.base.sync.workspace.ArtifactLocationDecoder;
 import com.intellij.psi.util.QualifiedName;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
 
-/** An index of python sources and their associated import strings. */
-class PySourcesIndex {
-  final ImmutableSetMultimap<String, QualifiedName> shortNames;
-  final ImmutableMap<QualifiedName, PsiElementProvider> sourceMap;
+/**
+ * An index of python sources and their associated import strings.
+ *
+ * <p>Import strings are kept in a sorted array and looked up by binary search, which keeps the
+ * index compact for projects with hundreds of thousands of python sources.
+ */
+final class PySourcesIndex {
+
+  /** A python source, or the package directory containing it. */
+  static final class Entry {
+    final ArtifactLocation source;
+    final boolean parentDirectory;
+
+    Entry(ArtifactLocation source, boolean parentDirectory) {
+      this.source = source;
+      this.parentDirectory = parentDirectory;
+    }
+  }
 
-  PySourcesIndex(
-      ImmutableSetMultimap<String, QualifiedName> shortNames,
-      ImmutableMap<QualifiedName, PsiElementProvider> sourceMap) {
+  /** The decoder of the project data this index was built from. */
+  final ArtifactLocationDecoder decoder;
+
+  // sorted import strings, and the entry for each
+  private final String[] names;
+  private final Entry[] entries;
+  // sorted short names of each import string, and the index of the import string in 'names'
+  private final String[] shortNames;
+  private final int[] shortNameTargets;
+
+  private PySourcesIndex(
+      ArtifactLocationDecoder decoder,
+      String[] names,
+      Entry[] entries,
+      String[] shortNames,
+      int[] shortNameTargets) {
+    this.decoder = decoder;
+    this.names = names;
+    this.entries = entries;
     this.shortNames = shortNames;
-    this.sourceMap = sourceMap;
+    this.shortNameTargets = shortNameTargets;
+  }
+
+  /**
+   * Builds an index from the given import strings, which can also be found by their short name.
+   *
+   * <p>This includes package directories: a package's import string may be claimed by the package
+   * directory of one of its modules rather than by its __init__.py, and must still be found.
+   */
+  static PySourcesIndex create(ArtifactLocationDecoder decoder, Map<String, Entry> entriesByName) {
+    String[] names = entriesByName.keySet().toArray(new String[0]);
+    Arrays.sort(names);
+    Entry[] entries = new Entry[names.length];
+    List<String[]> shortNamePairs = new ArrayList<>();
+    for (int i = 0; i < names.length; i++) {
+      entries[i] = entriesByName.get(names[i]);
+      if (!names[i].isEmpty()) {
+        shortNamePairs.add(new String[] {shortName(names[i]), names[i]});
+      }
+    }
+    shortNamePairs.sort(
+        Comparator.<String[], String>comparing(pair -> pair[0]).thenComparing(pair -> pair[1]));
+    String[] shortNames = new String[shortNamePairs.size()];
+    int[] shortNameTargets = new int[shortNamePairs.size()];
+    for (int i = 0; i < shortNames.length; i++) {
+      shortNames[i] = shortNamePairs.get(i)[0];
+      shortNameTargets[i] = Arrays.binarySearch(names, shortNamePairs.get(i)[1]);
+    }
+    return new PySourcesIndex(decoder, names, entries, shortNames, shortNameTargets);
+  }
+
+  /** Returns the source or package directory with the given import string, if any. */
+  @Nullable
+  Entry get(QualifiedName name) {
+    int index = Arrays.binarySearch(names, name.toString());
+    return index >= 0 ? entries[index] : null;
+  }
+
+  /** Returns all import strings with the given short name. */
+  ImmutableList<QualifiedName> getByShortName(String shortName) {
+    int index = Arrays.binarySearch(shortNames, shortName);
+    if (index < 0) {
+      return ImmutableList.of();
+    }
+    // binary search finds an arbitrary match, so look either side of it
+    int start = index;
+    while (start > 0 && shortNames[start - 1].equals(shortName)) {
+      start--;
+    }
+    ImmutableList.Builder<QualifiedName> result = ImmutableList.builder();
+    for (int i = start; i < shortNames.length && shortNames[i].equals(shortName); i++) {
+      result.add(QualifiedName.fromDottedString(names[shortNameTargets[i]]));
+    }
+    return result.build();
+  }
+
+  int size() {
+    return names.length;
+  }
+
+  private static String shortName(String name) {
+    return name.substring(name.lastIndexOf('.') + 1);
   }
 }
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.python.resolve.provider;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.idea.blaze.base.ideinfo.ArtifactLocation;
+import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
+import com.google.idea.blaze.base.model.BlazeProjectData;
+import com.google.idea.blaze.base.model.primitives.LanguageClass;
+import com.google.idea.blaze.base.projectview.ProjectViewSet;
+import com.google.idea.blaze.base.scope.BlazeContext;
+import com.google.idea.blaze.base.settings.Blaze;
+import com.google.idea.blaze.base.settings.BlazeImportSettings;
+import com.google.idea.blaze.base.sync.SyncListener;
+import com.google.idea.blaze.base.sync.SyncMode;
+import com.google.idea.blaze.base.sync.SyncResult;
+import com.google.idea.blaze.base.sync.data.PersistentProjectDataIndex;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.util.QualifiedName;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * Maintains the {@link PySourcesIndex} of each {@link AbstractPyImportResolverStrategy}.
+ *
+ * <p>The indices are rebuilt in the background as soon as sync completes, rather than on the first
+ * import resolved afterwards. Only targets whose python sources changed have their import strings
+ * recomputed. The import strings of each target are persisted, so this also holds for the first
+ * sync after restarting the IDE.
+ */
+final class PySourcesIndexManager {
+
+  static PySourcesIndexManager getInstance(Project project) {
+    return ServiceManager.getService(project, PySourcesIndexManager.class);
+  }
+
+  private final Project project;
+  private final Map<
+          Class<?>, PersistentProjectDataIndex<HashMap<String, TargetEntries>, PySourcesIndex>>
+      indices = new ConcurrentHashMap<>();
+
+  PySourcesIndexManager(Project project) {
+    this.project = project;
+  }
+
+  /** Returns the index of the current project data, building it if necessary. */
+  @Nullable
+  PySourcesIndex getIndex(AbstractPyImportResolverStrategy strategy) {
+    return getPersistentIndex(strategy).get();
+  }
+
+  private PySourcesIndex getIndex(
+      AbstractPyImportResolverStrategy strategy, BlazeProjectData projectData) {
+    return getPersistentIndex(strategy).get(projectData);
+  }
+
+  private PersistentProjectDataIndex<HashMap<String, TargetEntries>, PySourcesIndex>
+      getPersistentIndex(AbstractPyImportResolverStrategy strategy) {
+    return indices.computeIfAbsent(
+        strategy.getClass(),
+        c ->
+            new PersistentProjectDataIndex<>(
+                project,
+                "python_sources_index/" + c.getSimpleName() + ".dat",
+                HashMap.class,
+                new PersistentProjectDataIndex.Builder<
+                    HashMap<String, TargetEntries>, PySourcesIndex>() {
+                  @Override
+                  public HashMap<String, TargetEntries> updateState(
+                      BlazeProjectData projectData,
+                      @Nullable HashMap<String, TargetEntries> previous) {
+                    return updateTargetEntries(
+                        previous != null ? previous : new HashMap<>(),
+                        projectData.getTargetMap().targets(),
+                        strategy::toImportString);
+                  }
+
+                  @Override
+                  public PySourcesIndex buildIndex(
+                      BlazeProjectData projectData, HashMap<String, TargetEntries> state) {
+                    return PySourcesIndexManager.buildIndex(projectData, state);
+                  }
+                }));
+  }
+
+  /**
+   * Returns the import strings of each target, reusing the previous ones for targets whose python
+   * sources haven't changed.
+   */
+  @VisibleForTesting
+  static HashMap<String, TargetEntries> updateTargetEntries(
+      Map<String, TargetEntries> previous,
+      Collection<TargetIdeInfo> targets,
+      Function<ArtifactLocation, QualifiedName> toImportString) {
+    HashMap<String, TargetEntries> result = new HashMap<>();
+    for (TargetIdeInfo target : targets) {
+      List<ArtifactLocation> sources = getPySources(target);
+      if (sources.isEmpty()) {
+        continue;
+      }
+      String key = target.getKey().toString();
+      long fingerprint = fingerprint(sources);
+      TargetEntries entries = previous.get(key);
+      if (entries == null || entries.sourcesFingerprint != fingerprint) {
+        entries = TargetEntries.compute(fingerprint, sources, toImportString);
+      }
+      result.put(key, entries);
+    }
+    return result;
+  }
+
+  @VisibleForTesting
+  static PySourcesIndex buildIndex(
+      BlazeProjectData projectData, Map<String, TargetEntries> targetEntries) {
+    Map<String, PySourcesIndex.Entry> entriesByName = new LinkedHashMap<>();
+    for (TargetIdeInfo target : projectData.getTargetMap().targets()) {
+      TargetEntries entries = targetEntries.get(target.getKey().toString());
+      if (entries == null) {
+        continue;
+      }
+      List<ArtifactLocation> sources = getPySources(target);
+      for (int i = 0; i < entries.names.length; i++) {
+        int source = entries.sources[i];
+        entriesByName.put(
+            entries.names[i],
+            source >= 0
+                ? new PySourcesIndex.Entry(sources.get(source), false)
+                : new PySourcesIndex.Entry(sources.get(~source), true));
+      }
+    }
+    return PySourcesIndex.create(projectData.getArtifactLocationDecoder(), entriesByName);
+  }
+
+  static List<ArtifactLocation> getPySources(TargetIdeInfo target) {
+    if (target.getPyIdeInfo() != null) {
+      return target.getPyIdeInfo().getSources();
+    }
+    if (target.getKind().hasLanguage(LanguageClass.PYTHON)) {
+      return target.getSources().asList();
+    }
+    return ImmutableList.of();
+  }
+
+  private static long fingerprint(List<ArtifactLocation> sources) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    for (ArtifactLocation source : sources) {
+      hasher
+          .putString(source.getExecutionRootRelativePath(), StandardCharsets.UTF_8)
+          .putString(source.getRelativePath(), StandardCharsets.UTF_8)
+          .putBoolean(source.isSource())
+          .putBoolean(source.isExternal());
+    }
+    return hasher.hash().asLong();
+  }
+
+  /** The import strings of a single target's python sources. */
+  @VisibleForTesting
+  static final class TargetEntries implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final long sourcesFingerprint;
+    final String[] names;
+    /**
+     * The index of each name's source in the target's python sources, or its bitwise complement
+     * if the name is of the package directory containing that source.
+     */
+    final int[] sources;
+
+    private TargetEntries(long sourcesFingerprint, String[] names, int[] sources) {
+      this.sourcesFingerprint = sourcesFingerprint;
+      this.names = names;
+      this.sources = sources;
+    }
+
+    static TargetEntries compute(
+        long fingerprint,
+        List<ArtifactLocation> sources,
+        Function<ArtifactLocation, QualifiedName> toImportString) {
+      List<String> names = new ArrayList<>();
+      List<Integer> indices = new ArrayList<>();
+      for (int i = 0; i < sources.size(); i++) {
+        ArtifactLocation source = sources.get(i);
+        QualifiedName name = toImportString.apply(source);
+        if (name == null || name.getLastComponent() == null) {
+          continue;
+        }
+        names.add(name.toString());
+        indices.add(i);
+        if (source.getRelativePath().endsWith(".py")) {
+          names.add(name.removeTail(1).toString());
+          indices.add(~i);
+        }
+      }
+      return new TargetEntries(
+          fingerprint, names.toArray(new String[0]), indices.stream().mapToInt(i -> i).toArray());
+    }
+  }
+
+  /** Rebuilds the indices in the background once sync completes. */
+  static class Prebuilder implements SyncListener {
+    @Override
+    public void onSyncComplete(
+        Project project,
+        BlazeContext context,
+        BlazeImportSettings importSettings,
+        ProjectViewSet projectViewSet,
+        ImmutableSet<Integer> buildIds,
+        BlazeProjectData blazeProjectData,
+        SyncMode syncMode,
+        SyncResult syncResult) {
+      if (!blazeProjectData.getWorkspaceLanguageSettings().isLanguageActive(LanguageClass.PYTHON)) {
+        return;
+      }
+      ApplicationManager.getApplication()
+          .executeOnPooledThread(
+              () -> {
+                for (PyImportResolverStrategy strategy :
+                    PyImportResolverStrategy.EP_NAME.getExtensions()) {
+                  if (strategy instanceof AbstractPyImportResolverStrategy
+                      && strategy.appliesToBuildSystem(Blaze.getBuildSystemName(project))) {
+                    getInstance(project)
+                        .getIndex((AbstractPyImportResolverStrategy) strategy, blazeProjectData);
+                  }
+                }
+              });
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.python.resolve.provider;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.idea.blaze.base.ideinfo.ArtifactLocation;
+import com.google.idea.blaze.base.ideinfo.PyIdeInfo;
+import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
+import com.google.idea.blaze.base.ideinfo.TargetMap;
+import com.google.idea.blaze.base.ideinfo.TargetMapBuilder;
+import com.google.idea.blaze.base.model.BlazeProjectData;
+import com.google.idea.blaze.base.model.MockBlazeProjectDataBuilder;
+import com.google.idea.blaze.base.sync.workspace.MockArtifactLocationDecoder;
+import com.intellij.psi.util.QualifiedName;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link PySourcesIndex}. */
+@RunWith(JUnit4.class)
+public class PySourcesIndexTest {
+
+  private static final ArtifactLocation FOO = source("lib/foo.py");
+  private static final ArtifactLocation BAR = source("lib/bar.py");
+  private static final ArtifactLocation OTHER_FOO = source("other/foo.py");
+
+  @Test
+  public void testLookupByImportString() {
+    PySourcesIndex index =
+        PySourcesIndex.create(
+            new MockArtifactLocationDecoder(),
+            ImmutableMap.of(
+                "lib.foo", new PySourcesIndex.Entry(FOO, false),
+                "lib", new PySourcesIndex.Entry(FOO, true),
+                "lib.bar", new PySourcesIndex.Entry(BAR, false)));
+
+    assertThat(index.size()).isEqualTo(3);
+    assertThat(index.get(QualifiedName.fromDottedString("lib.bar")).source).isEqualTo(BAR);
+    assertThat(index.get(QualifiedName.fromDottedString("lib")).parentDirectory).isTrue();
+    assertThat(index.get(QualifiedName.fromDottedString("lib.baz"))).isNull();
+  }
+
+  @Test
+  public void testLookupByShortNameIncludesPackageDirectories() {
+    PySourcesIndex index =
+        PySourcesIndex.create(
+            new MockArtifactLocationDecoder(),
+            ImmutableMap.of(
+                "other.foo", new PySourcesIndex.Entry(OTHER_FOO, false),
+                "lib.foo", new PySourcesIndex.Entry(FOO, false),
+                "lib.bar", new PySourcesIndex.Entry(BAR, false),
+                "foo", new PySourcesIndex.Entry(FOO, true)));
+
+    assertThat(index.getByShortName("foo"))
+        .containsExactly(
+            QualifiedName.fromDottedString("foo"),
+            QualifiedName.fromDottedString("lib.foo"),
+            QualifiedName.fromDottedString("other.foo"))
+        .inOrder();
+    assertThat(index.getByShortName("baz")).isEmpty();
+  }
+
+  @Test
+  public void testPackageInitIsFoundByShortName() {
+    ArtifactLocation init = source("pkg/__init__.py");
+    ArtifactLocation mod = source("pkg/mod.py");
+    TargetMap targetMap =
+        TargetMapBuilder.builder()
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setLabel("//pkg:pkg")
+                    .setBuildFile(source("pkg/BUILD"))
+                    .setPyInfo(PyIdeInfo.builder().addSources(ImmutableList.of(init, mod))))
+            .build();
+    BlazeProjectData projectData =
+        MockBlazeProjectDataBuilder.builder()
+            .setTargetMap(targetMap)
+            .setArtifactLocationDecoder(new MockArtifactLocationDecoder())
+            .build();
+
+    // the package directory of pkg/mod.py claims the "pkg" import string of pkg/__init__.py
+    PySourcesIndex index =
+        PySourcesIndexManager.buildIndex(
+            projectData,
+            PySourcesIndexManager.updateTargetEntries(
+                ImmutableMap.of(),
+                targetMap.targets(),
+                source ->
+                    AbstractPyImportResolverStrategy.fromRelativePath(source.getRelativePath())));
+
+    assertThat(index.getByShortName("pkg")).containsExactly(QualifiedName.fromDottedString("pkg"));
+    assertThat(index.getByShortName("mod"))
+        .containsExactly(QualifiedName.fromDottedString("pkg.mod"));
+  }
+
+  @Test
+  public void testTargetEntriesIncludePackageDirectoryOfPythonSources() {
+    PySourcesIndexManager.TargetEntries entries =
+        PySourcesIndexManager.TargetEntries.compute(
+            0L,
+            ImmutableList.of(FOO, source("lib/data.txt")),
+            source -> QualifiedName.fromComponents(source.getRelativePath().split("/")));
+
+    assertThat(entries.names).asList().containsExactly("lib.foo.py", "lib", "lib.data.txt");
+    assertThat(entries.sources).asList().containsExactly(0, ~0, 1).inOrder();
+  }
+
+  private static ArtifactLocation source(String relativePath) {
+    return ArtifactLocation.builder().setRelativePath(relativePath).setIsSource(true).build();
+  }
+}
@@ -168,10 +168,9 @@ class ScalaBinaryContextProvider implements BinaryContextProvider {
   }
 
   private static FilteredTargetMap computeTargetMap(Project project, BlazeProjectData projectData) {
-    return new FilteredTargetMap(
+    return FilteredTargetMap.create(
         project,
-        projectData.getArtifactLocationDecoder(),
-        projectData.getTargetMap(),
+        projectData,
         target ->
             target.isPlainTarget()
                 && target.getKind().hasLanguage(LanguageClass.SCALA)